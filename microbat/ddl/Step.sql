@@ -8,8 +8,9 @@ CREATE TABLE Step
 	invocation_parent INTEGER,
 	loop_parent INTEGER,
 	location_id INTEGER,
-	read_vars TEXT,
-	written_vars TEXT,
+	read_vars BLOB,
+	written_vars BLOB,
+	var_format INTEGER DEFAULT 0,
 	time TIMESTAMP NOT NULL,
 	PRIMARY KEY (trace_id, step_order),
 	FOREIGN KEY (trace_id) REFERENCES Trace(trace_id)
@@ -1,16 +1,26 @@
 package microbat.agent;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 import microbat.instrumentation.AgentConstants;
 import microbat.instrumentation.AgentParams;
+import microbat.instrumentation.output.ProgressChannel;
+import microbat.instrumentation.output.ProgressChannel.Progress;
 import microbat.instrumentation.output.RunningInfo;
 import microbat.instrumentation.output.TraceOutputReader;
 import microbat.instrumentation.precheck.PrecheckInfo;
@@ -28,6 +38,10 @@ import sav.strategies.vm.AgentVmRunner;
 import sav.strategies.vm.VMConfiguration;
 
 public class TraceAgentRunner extends AgentVmRunner {
+  private static final int PROGRESS_POLLING_MILLIS = 200;
+  /* program option of MicroBatTestRunner starting a MicroBatTestDaemon */
+  private static final String DAEMON_OPTION = "-daemon";
+  private static final int DAEMON_CONNECT_TIMEOUT_MILLIS = 60000;
   private boolean allowFilterFileOpt = false;
   private ServerSocket serverSocket;
   private boolean isPrecheckMode = false;
@@ -42,6 +56,14 @@ public class TraceAgentRunner extends AgentVmRunner {
 
   private List<Trace> traces;
 
+  /* connection to the test daemon, see startDaemon() */
+  private Socket daemonSocket;
+  private DataInputStream daemonIn;
+  private DataOutputStream daemonOut;
+  private File daemonDumpFile;
+  private String daemonRunId;
+  private List<String> programArgsBeforeDaemon;
+
   public TraceAgentRunner(String agentJar, VMConfiguration vmConfig) {
     super(agentJar, AgentConstants.AGENT_OPTION_SEPARATOR, AgentConstants.AGENT_PARAMS_SEPARATOR);
     this.setConfig(vmConfig);
@@ -92,6 +114,13 @@ public class TraceAgentRunner extends AgentVmRunner {
     return true;
   }
 
+  /** takes the result of an earlier {@link #precheck(String)} instead of running it again. */
+  public void loadPrecheck(String filePath) {
+    isPrecheckMode = true;
+    precheckInfo = PrecheckInfo.readFromFile(filePath);
+    updateTestResult(precheckInfo.getProgramMsg());
+  }
+
   public boolean run(Reader reader) throws SavException {
     isPrecheckMode = false;
     String runId = UUID.randomUUID().toString();
@@ -102,6 +131,7 @@ public class TraceAgentRunner extends AgentVmRunner {
       boolean toDeleteDumpFile = false;
       switch (reader) {
         case FILE:
+        case INDEXED_FILE:
           dumpFile = File.createTempFile("trace", ".exec");
           dumpFile.deleteOnExit();
           break;
@@ -114,11 +144,14 @@ public class TraceAgentRunner extends AgentVmRunner {
           reader.name()); // why is reader name used for recorder option?
       addAgentParam(AgentParams.OPT_RUN_ID, runId);
       addAgentParam(AgentParams.OPT_DUMP_FILE, String.valueOf(dumpFile.getPath()));
-      super.startAndWaitUntilStop(getConfig()); // Trace recording
+      String abortMsg = startAndWaitForTrace(); // Trace recording
       System.out.println("|");
       timer.newPoint("Read output result");
       this.runningInfo = reader.create(runId).read(precheckInfo, dumpFile.getPath());
       updateTestResult(runningInfo.getProgramMsg());
+      if (abortMsg != null) {
+        updateTestResult(abortMsg);
+      }
       if (toDeleteDumpFile) {
         dumpFile.delete();
       }
@@ -177,11 +210,14 @@ public class TraceAgentRunner extends AgentVmRunner {
         dumpFile = FileUtils.getFileCreateIfNotExist(filePath);
       }
       addAgentParam(AgentParams.OPT_DUMP_FILE, String.valueOf(dumpFile.getPath()));
-      super.startAndWaitUntilStop(getConfig());
+      String abortMsg = startAndWaitForTrace();
       System.out.println("|");
       timer.newPoint("Read output result");
       runningInfo = RunningInfo.readFromFile(dumpFile);
       updateTestResult(runningInfo.getProgramMsg());
+      if (abortMsg != null) {
+        updateTestResult(abortMsg);
+      }
       if (toDeleteDumpFile) {
         dumpFile.delete();
       }
@@ -229,6 +265,118 @@ public class TraceAgentRunner extends AgentVmRunner {
     return true;
   }
 
+  /**
+   * starts a jvm which records the tests given to {@link #runInDaemon(String, String)} one after
+   * another, without paying the startup of the jvm and the agent, and the instrumentation of the
+   * classes already loaded, again for each test. The launch class of the configuration must be
+   * microbat.evaluation.junit.MicroBatTestRunner, its program arguments are replaced.
+   */
+  public void startDaemon() throws SavException {
+    isPrecheckMode = false;
+    try {
+      serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+      serverSocket.setSoTimeout(DAEMON_CONNECT_TIMEOUT_MILLIS);
+      daemonDumpFile = File.createTempFile("trace", ".exec");
+      daemonDumpFile.deleteOnExit();
+      daemonRunId = UUID.randomUUID().toString();
+      addAgentParam(AgentParams.OPT_DAEMON, "true");
+      addAgentParam(AgentParams.OPT_TRACE_RECORDER, Reader.FILE.name());
+      addAgentParam(AgentParams.OPT_RUN_ID, daemonRunId);
+      addAgentParam(AgentParams.OPT_DUMP_FILE, daemonDumpFile.getPath());
+      programArgsBeforeDaemon = new ArrayList<>(getConfig().getProgramArgs());
+      List<String> programArgs = new ArrayList<>();
+      programArgs.add(DAEMON_OPTION);
+      programArgs.add(String.valueOf(serverSocket.getLocalPort()));
+      getConfig().setProgramArgs(programArgs);
+      super.startVm(getConfig());
+      /* the daemon lives as long as its tests are sent, the timeout applies to each test */
+      cancelTimer();
+      daemonSocket = serverSocket.accept();
+      if (getTimeout() != NO_TIME_OUT) {
+        daemonSocket.setSoTimeout((int) getTimeout());
+      }
+      daemonIn = new DataInputStream(new BufferedInputStream(daemonSocket.getInputStream()));
+      daemonOut = new DataOutputStream(new BufferedOutputStream(daemonSocket.getOutputStream()));
+    } catch (IOException e) {
+      stopDaemon();
+      throw new SavRtException(e);
+    }
+  }
+
+  public boolean isDaemonStarted() {
+    return daemonSocket != null;
+  }
+
+  /**
+   * records the test in the jvm started by {@link #startDaemon()}, the trace is then given by
+   * {@link #getRunningInfo()}. If the test does not finish within the timeout, the daemon is
+   * killed and has to be started again for the next test.
+   *
+   * @return false if no trace is recorded for the test.
+   */
+  public boolean runInDaemon(String className, String methodName) throws SavException {
+    if (daemonSocket == null) {
+      throw new IllegalStateException("The daemon is not started!");
+    }
+    runningInfo = null;
+    daemonDumpFile.delete();
+    try {
+      daemonOut.writeUTF(className);
+      daemonOut.writeUTF(methodName);
+      daemonOut.flush();
+      /* the agent stores the trace before the result is sent */
+      updateTestResult(daemonIn.readUTF());
+    } catch (SocketTimeoutException e) {
+      System.out.println("Test timeout in daemon: " + className + "#" + methodName);
+      stop();
+      stopDaemon();
+      updateTestResult(null);
+      return false;
+    } catch (IOException e) {
+      stopDaemon();
+      throw new SavRtException(e);
+    }
+    if (!daemonDumpFile.exists()) {
+      return false;
+    }
+    runningInfo = Reader.FILE.create(daemonRunId).read(precheckInfo, daemonDumpFile.getPath());
+    return true;
+  }
+
+  public void stopDaemon() {
+    try {
+      if (daemonOut != null) {
+        daemonOut.writeUTF("");
+        daemonOut.flush();
+      }
+    } catch (IOException e) {
+      // the daemon is already gone
+    }
+    try {
+      if (daemonSocket != null) {
+        daemonSocket.close();
+      }
+      if (serverSocket != null) {
+        serverSocket.close();
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    daemonSocket = null;
+    daemonIn = null;
+    daemonOut = null;
+    serverSocket = null;
+    removeAgentParam(AgentParams.OPT_DAEMON);
+    if (programArgsBeforeDaemon != null) {
+      getConfig().setProgramArgs(programArgsBeforeDaemon);
+      programArgsBeforeDaemon = null;
+    }
+    if (daemonDumpFile != null) {
+      daemonDumpFile.delete();
+      daemonDumpFile = null;
+    }
+  }
+
   @Override
   protected void printOut(String line, boolean error) {
     if (line.startsWith(AgentConstants.PROGRESS_HEADER)) {
@@ -240,7 +388,95 @@ public class TraceAgentRunner extends AgentVmRunner {
   }
   ;
 
+  /**
+   * runs the recording and collects the program message the agent writes when it aborts the
+   * recording, which the output of every reader does not carry.
+   *
+   * @return the program message of the aborted recording, or null if it is not aborted.
+   */
+  private String startAndWaitForTrace() throws SavException, IOException {
+    File abortFile = File.createTempFile("traceAbort", ".txt");
+    abortFile.deleteOnExit();
+    addAgentParam(AgentParams.OPT_ABORT_FILE, abortFile.getPath());
+    try {
+      startAndWaitWithProgress();
+      String abortMsg = new String(Files.readAllBytes(abortFile.toPath()));
+      return abortMsg.isEmpty() ? null : abortMsg;
+    } finally {
+      removeAgentParam(AgentParams.OPT_ABORT_FILE);
+      abortFile.delete();
+    }
+  }
+
+  /**
+   * runs the agent with a {@link ProgressChannel}, which is polled for the progress bar instead of
+   * the agent printing a progress line per step. Falls back on the progress lines if the channel
+   * cannot be created.
+   */
+  private void startAndWaitWithProgress() throws SavException {
+    File progressFile = null;
+    ProgressChannel channel = null;
+    try {
+      progressFile = File.createTempFile("progress", ".bin");
+      progressFile.deleteOnExit();
+      channel = new ProgressChannel(progressFile);
+      addAgentParam(AgentParams.OPT_PROGRESS_FILE, progressFile.getPath());
+    } catch (IOException e) {
+      e.printStackTrace();
+      removeAgentParam(AgentParams.OPT_PROGRESS_FILE);
+    }
+    if (channel == null) {
+      super.startAndWaitUntilStop(getConfig());
+      return;
+    }
+    final ProgressChannel progressChannel = channel;
+    Thread poller =
+        new Thread(
+            () -> {
+              long printed = 0;
+              while (!Thread.currentThread().isInterrupted()) {
+                printed = pollProgress(progressChannel, printed);
+                try {
+                  Thread.sleep(PROGRESS_POLLING_MILLIS);
+                } catch (InterruptedException e) {
+                  break;
+                }
+              }
+              pollProgress(progressChannel, printed);
+            },
+            "microbat-progress-poller");
+    poller.setDaemon(true);
+    poller.start();
+    try {
+      super.startAndWaitUntilStop(getConfig());
+    } finally {
+      poller.interrupt();
+      try {
+        poller.join();
+        channel.close();
+      } catch (InterruptedException | IOException e) {
+        e.printStackTrace();
+      }
+      removeAgentParam(AgentParams.OPT_PROGRESS_FILE);
+      progressFile.delete();
+    }
+  }
+
+  /** @return the number of steps the progress bar now shows */
+  private long pollProgress(ProgressChannel channel, long printed) {
+    Progress progress = channel.read();
+    if (progress == null || progress.getSteps() <= printed) {
+      return printed;
+    }
+    printProgress(printed, progress.getSteps(), progress.getExpectedSteps());
+    return progress.getSteps();
+  }
+
   private void printProgress(int size, int stepNum) {
+    printProgress(size - 1, size, stepNum);
+  }
+
+  private void printProgress(long previous, long size, long stepNum) {
 
     if (stepNum == 0) {
       return;
@@ -249,10 +485,10 @@ public class TraceAgentRunner extends AgentVmRunner {
     double progress = ((double) size) / stepNum;
 
     double preProgr = 0;
-    if (size == 1) {
+    if (previous <= 0) {
       System.out.print("progress: ");
     } else {
-      preProgr = ((double) (size - 1)) / stepNum;
+      preProgr = ((double) previous) / stepNum;
     }
 
     int prog = (int) (progress * 100);
@@ -275,8 +511,11 @@ public class TraceAgentRunner extends AgentVmRunner {
   }
 
   private void updateTestResult(String msg) {
-    if (msg == null || msg.isEmpty()) {
-      unknownTestResult = true;
+    /* nothing is kept from the previous run */
+    isTestSuccessful = false;
+    testFailureMessage = null;
+    unknownTestResult = msg == null || msg.isEmpty();
+    if (unknownTestResult) {
       return;
     }
     int sIdx = msg.indexOf(";");
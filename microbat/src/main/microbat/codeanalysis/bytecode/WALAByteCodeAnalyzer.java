@@ -34,14 +34,9 @@ import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
 import com.ibm.wala.ipa.callgraph.Entrypoint;
 import com.ibm.wala.ipa.callgraph.impl.DefaultEntrypoint;
 import com.ibm.wala.ipa.callgraph.impl.Util;
-import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
-import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
 import com.ibm.wala.ipa.cha.ClassHierarchy;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
 import com.ibm.wala.ipa.slicer.NormalStatement;
-import com.ibm.wala.ipa.slicer.Slicer;
-import com.ibm.wala.ipa.slicer.Slicer.ControlDependenceOptions;
-import com.ibm.wala.ipa.slicer.Slicer.DataDependenceOptions;
 import com.ibm.wala.ipa.slicer.Statement;
 import com.ibm.wala.ipa.slicer.Statement.Kind;
 import com.ibm.wala.ipa.slicer.StatementWithInstructionIndex;
@@ -184,33 +179,18 @@ public class WALAByteCodeAnalyzer {
     return points;
   }
 
+  /**
+   * the call graph, pointer analysis and system dependence graph of the program are built once for
+   * its classpath, see {@link WALASlicingService}.
+   */
   public List<BreakPoint> slice(AppJavaClassPath appClassPath, List<BreakPoint> breakpoints)
       throws Exception {
-
-    AnalysisScope scope = makeJ2SEAnalysisScope(appClassPath);
-    IClassHierarchy cha = ClassHierarchy.make(scope);
-
-    //		Iterable<Entrypoint> entrypoints = makeEntrypoints(scope.getApplicationLoader(), cha,
-    // breakpoints.get(0));
-    Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(scope, cha);
-    AnalysisOptions options = new AnalysisOptions(scope, entrypoints);
-
-    //		CallGraphBuilder builder = Util.makeZeroOneCFABuilder(options, new AnalysisCache(), cha,
-    // scope);
-    //		CallGraphBuilder builder = Util.makeNCFABuilder(3, options, new AnalysisCache(), cha,
-    // scope);
-    CallGraphBuilder builder =
-        Util.makeVanillaNCFABuilder(1, options, new AnalysisCache(), cha, scope);
-
-    System.out.println("builder is set.");
-
-    CallGraph callGraph = builder.makeCallGraph(options, null);
-    System.out.println("Call graph is built!");
+    WALASlicingService.ProgramAnalysis analysis =
+        WALASlicingService.getDefault().getAnalysis(appClassPath);
+    CallGraph callGraph = analysis.getCallGraph();
 
     List<Statement> stmtList = findSeedStmts(callGraph, breakpoints);
 
-    PointerAnalysis<InstanceKey> pointerAnalysis = builder.getPointerAnalysis();
-
     //		SDG sdg = new SDG(cg, builder.getPointerAnalysis(), DataDependenceOptions.NO_BASE_PTRS,
     // ControlDependenceOptions.NONE);
 
@@ -218,17 +198,7 @@ public class WALAByteCodeAnalyzer {
     // DataDependenceOptions.NO_HEAP,
     //				ControlDependenceOptions.NONE).computeBackwardThinSlice(stmt);
     try {
-      Collection<Statement> allSlice = new ArrayList<>();
-      for (Statement s : stmtList) {
-        Collection<Statement> computeBackwardSlice =
-            Slicer.computeBackwardSlice(
-                s,
-                callGraph,
-                pointerAnalysis,
-                DataDependenceOptions.NO_BASE_PTRS,
-                ControlDependenceOptions.NO_EXCEPTIONAL_EDGES);
-        allSlice.addAll(computeBackwardSlice);
-      }
+      Collection<Statement> allSlice = new ArrayList<>(analysis.computeBackwardSlice(stmtList));
       System.out.println("program is sliced!");
 
       //			ThinSlicer ts = new ThinSlicer(cg,pa);
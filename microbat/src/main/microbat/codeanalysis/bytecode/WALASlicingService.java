@@ -0,0 +1,169 @@
+package microbat.codeanalysis.bytecode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.ibm.wala.ipa.callgraph.AnalysisCache;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ipa.slicer.SDG;
+import com.ibm.wala.ipa.slicer.Slicer;
+import com.ibm.wala.ipa.slicer.Slicer.ControlDependenceOptions;
+import com.ibm.wala.ipa.slicer.Slicer.DataDependenceOptions;
+import com.ibm.wala.ipa.slicer.Statement;
+
+import sav.strategies.dto.AppJavaClassPath;
+
+/**
+ * Keeps the call graph, the pointer analysis and the system dependence graph of a program, so that
+ * they are built once for all the slices of the same classpath. A program is keyed by a hash of the
+ * java home and the path, size and modification time of every file on its classpath, so a
+ * recompiled program is analyzed again.
+ */
+public class WALASlicingService {
+  private static final int DEFAULT_CAPACITY = 2;
+  private static final WALASlicingService DEFAULT = new WALASlicingService(DEFAULT_CAPACITY);
+
+  private final Map<String, ProgramAnalysis> analyses;
+
+  public WALASlicingService(final int capacity) {
+    analyses =
+        new LinkedHashMap<String, ProgramAnalysis>(capacity, 0.75f, true) {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, ProgramAnalysis> eldest) {
+            return size() > capacity;
+          }
+        };
+  }
+
+  public static WALASlicingService getDefault() {
+    return DEFAULT;
+  }
+
+  /** @return the analysis of the program on the given classpath, built if it is not kept. */
+  public synchronized ProgramAnalysis getAnalysis(AppJavaClassPath appClassPath) throws Exception {
+    String key = getKey(appClassPath);
+    ProgramAnalysis analysis = analyses.get(key);
+    if (analysis == null) {
+      analysis = new ProgramAnalysis(appClassPath);
+      analyses.put(key, analysis);
+    }
+    return analysis;
+  }
+
+  public synchronized void clear() {
+    analyses.clear();
+  }
+
+  private static String getKey(AppJavaClassPath appClassPath) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    update(digest, appClassPath.getJavaHome());
+    for (String classpath : appClassPath.getClasspaths()) {
+      updateWithFiles(digest, new File(classpath));
+    }
+    StringBuilder key = new StringBuilder();
+    for (byte b : digest.digest()) {
+      key.append(String.format("%02x", b));
+    }
+    return key.toString();
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+  }
+
+  private static void updateWithFiles(MessageDigest digest, File root) {
+    if (!root.exists()) {
+      update(digest, root.getPath());
+      return;
+    }
+    List<Path> files;
+    try (Stream<Path> stream = Files.walk(root.toPath())) {
+      files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+    } catch (IOException e) {
+      /* never matches a kept key, the program is analyzed again */
+      update(digest, String.valueOf(System.nanoTime()));
+      return;
+    }
+    for (Path path : files) {
+      File file = path.toFile();
+      update(digest, file.getPath());
+      update(digest, file.length() + ":" + file.lastModified());
+    }
+  }
+
+  /**
+   * the 1-CFA call graph of the main entry points of a program, with its pointer analysis and
+   * system dependence graph.
+   */
+  public static class ProgramAnalysis {
+    private final CallGraph callGraph;
+    private final PointerAnalysis<InstanceKey> pointerAnalysis;
+    private final SDG sdg;
+
+    ProgramAnalysis(AppJavaClassPath appClassPath) throws Exception {
+      AnalysisScope scope = WALAByteCodeAnalyzer.makeJ2SEAnalysisScope(appClassPath);
+      IClassHierarchy cha = ClassHierarchy.make(scope);
+      Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(scope, cha);
+      AnalysisOptions options = new AnalysisOptions(scope, entrypoints);
+      CallGraphBuilder builder =
+          Util.makeVanillaNCFABuilder(1, options, new AnalysisCache(), cha, scope);
+      System.out.println("builder is set.");
+      callGraph = builder.makeCallGraph(options, null);
+      System.out.println("Call graph is built!");
+      pointerAnalysis = builder.getPointerAnalysis();
+      sdg =
+          new SDG(
+              callGraph,
+              pointerAnalysis,
+              DataDependenceOptions.NO_BASE_PTRS,
+              ControlDependenceOptions.NO_EXCEPTIONAL_EDGES);
+    }
+
+    public CallGraph getCallGraph() {
+      return callGraph;
+    }
+
+    public PointerAnalysis<InstanceKey> getPointerAnalysis() {
+      return pointerAnalysis;
+    }
+
+    /**
+     * computes the union of the backward slices of the seeds in one pass over the system
+     * dependence graph. The dependence graphs of the methods are built lazily by the slicer and
+     * kept in the shared system dependence graph, which is not thread safe, so the slices of a
+     * program are computed one at a time.
+     */
+    public synchronized Collection<Statement> computeBackwardSlice(Collection<Statement> seeds)
+        throws Exception {
+      return Slicer.computeBackwardSlice(sdg, seeds);
+    }
+  }
+}
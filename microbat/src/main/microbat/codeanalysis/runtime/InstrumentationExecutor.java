@@ -17,9 +17,11 @@ import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
 
 import microbat.agent.TraceAgentRunner;
+import microbat.instrumentation.AgentConstants;
 import microbat.instrumentation.AgentParams;
 import microbat.instrumentation.AgentParams.LogType;
 import microbat.instrumentation.filter.CodeRangeEntry;
+import microbat.instrumentation.instr.InstrumentedClassCache;
 import microbat.instrumentation.output.RunningInfo;
 import microbat.instrumentation.precheck.PrecheckInfo;
 import microbat.model.BreakPoint;
@@ -42,11 +44,16 @@ import sav.strategies.vm.VMRunner;
 
 public class InstrumentationExecutor {
   public static final String TRACE_DUMP_FILE_SUFFIX = ".exec";
+  /* budget of a recording without precheck, see TraceBudget */
+  private static final int ADAPTIVE_HEAP_BUDGET = 80;
+  private static final int CLASS_CACHE_CAPACITY = 20000;
+  private static boolean classCachePruned;
 
   private AppJavaClassPath appPath;
   private PreCheckInformation precheckInfo;
   private String traceExecFilePath;
   private TraceAgentRunner agentRunner;
+  private PrecheckCache precheckCache = PrecheckCache.getDefault();
   private long timeout = VMRunner.NO_TIME_OUT;
 
   private List<String> includeLibs = Collections.emptyList();
@@ -129,9 +136,23 @@ public class InstrumentationExecutor {
     // FIXME Xuezhi [2]
     List<CodeRangeEntry> entries = ExecutionRangePreference.getCodeRangeEntrys();
     agentRunner.addAgentParams(AgentParams.OPT_CODE_RANGE, entries);
+    /* instrumented classes are shared by the precheck, the recording and later runs */
+    if (MicrobatPreference.isClassCacheEnabled()) {
+      agentRunner.addAgentParam(AgentParams.OPT_CLASS_CACHE_DIR, getClassCacheDir().getPath());
+    }
     return agentRunner;
   }
 
+  /** the cache directory, pruned to its capacity on the first use of a session. */
+  private static synchronized File getClassCacheDir() {
+    File cacheDir = new File(System.getProperty("java.io.tmpdir"), "microbat_class_cache");
+    if (!classCachePruned) {
+      classCachePruned = true;
+      InstrumentedClassCache.prune(cacheDir, CLASS_CACHE_CAPACITY);
+    }
+    return cacheDir;
+  }
+
   public RunningInfo run() throws StepLimitException {
     try {
       //			System.out.println("first precheck..");
@@ -143,9 +164,14 @@ public class InstrumentationExecutor {
       agentRunner.getConfig().setDebug(Settings.isRunWtihDebugMode);
       agentRunner.getConfig().setPort(9000);
 
-      System.out.println("precheck..");
-      agentRunner.precheck(null);
-      PrecheckInfo info = agentRunner.getPrecheckInfo();
+      String precheckKey = getPrecheckKey();
+      if (!precheckCache.contains(precheckKey) && MicrobatPreference.isAdaptiveRecording()) {
+        return executeAdaptively();
+      }
+      PrecheckInfo info = precheck(precheckKey);
+      if (info == null) {
+        return null;
+      }
       System.out.println(info);
       PreCheckInformation precheckInfomation =
           new PreCheckInformation(
@@ -183,6 +209,100 @@ public class InstrumentationExecutor {
     return null;
   }
 
+  private String getPrecheckKey() {
+    return precheckCache.getKey(
+        appPath,
+        includeLibs,
+        excludeLibs,
+        Arrays.asList(
+            MicrobatPreference.getStepLimit(),
+            MicrobatPreference.getValue(MicrobatPreference.REQUIRE_METHOD_SPLITTING),
+            ExecutionRangePreference.getCodeRangeEntrys()));
+  }
+
+  /** @return the cached precheck result of the test, run the precheck if there is none. */
+  private PrecheckInfo precheck(String precheckKey) throws SavException {
+    String precheckFile = precheckCache.getFile(precheckKey).getPath();
+    if (precheckCache.contains(precheckKey)) {
+      System.out.println("precheck (cached)..");
+      try {
+        agentRunner.loadPrecheck(precheckFile);
+        return agentRunner.getPrecheckInfo();
+      } catch (RuntimeException e) {
+        e.printStackTrace();
+        precheckCache.remove(precheckKey);
+      }
+    }
+    System.out.println("precheck..");
+    if (!agentRunner.precheck(precheckFile)) {
+      precheckCache.remove(precheckKey);
+      return null;
+    }
+    return agentRunner.getPrecheckInfo();
+  }
+
+  /**
+   * records the trace without a precheck run. The agent drops variable values once half of the
+   * step limit or {@link #ADAPTIVE_HEAP_BUDGET}% of the heap is used, and aborts when the step
+   * limit is reached or the heap still runs short.
+   */
+  private RunningInfo executeAdaptively() throws StepLimitException {
+    System.out.println("no cached precheck, recording adaptively..");
+    int stepLimit = Integer.valueOf(MicrobatPreference.getStepLimit());
+    agentRunner.addAgentParam(AgentParams.OPT_STEP_BUDGET, stepLimit / 2);
+    agentRunner.addAgentParam(AgentParams.OPT_HEAP_BUDGET, ADAPTIVE_HEAP_BUDGET);
+    PreCheckInformation unknown =
+        new PreCheckInformation(
+            -1,
+            AgentConstants.UNSPECIFIED_INT_VALUE,
+            false,
+            new ArrayList<ClassLocation>(),
+            new ArrayList<String>(),
+            new ArrayList<String>());
+    this.setPrecheckInfo(unknown);
+    try {
+      RunningInfo result = execute(unknown);
+      String failure = agentRunner.getTestFailureMessage();
+      if (AgentConstants.TRACE_OVER_LONG_MSG.equals(failure)
+          || AgentConstants.TRACE_OVER_BUDGET_MSG.equals(failure)) {
+        throw new StepLimitException();
+      }
+      return result;
+    } finally {
+      agentRunner.removeAgentParam(AgentParams.OPT_STEP_BUDGET);
+      agentRunner.removeAgentParam(AgentParams.OPT_HEAP_BUDGET);
+    }
+  }
+
+  /**
+   * records a test of the same classpath in a jvm kept for the tests recorded one after another
+   * (see {@link TraceAgentRunner#startDaemon()}) instead of a new jvm. There is no precheck. The
+   * jvm is started on the first call, and again after a test has timed out.
+   *
+   * @return null if no trace is recorded for the test.
+   */
+  public RunningInfo runInDaemon(String testClass, String testMethod) throws SavException {
+    if (!agentRunner.isDaemonStarted()) {
+      agentRunner.setTimeout(timeout);
+      agentRunner.startDaemon();
+    }
+    if (!agentRunner.runInDaemon(testClass, testMethod)) {
+      return null;
+    }
+    RunningInfo result = agentRunner.getRunningInfo();
+    Trace trace = result.getMainTrace();
+    if (trace != null) {
+      trace.setAppJavaClassPath(appPath);
+      appendMissingInfo(trace, appPath);
+    }
+    return result;
+  }
+
+  /** ends the jvm of {@link #runInDaemon(String, String)}. */
+  public void stopDaemon() {
+    agentRunner.stopDaemon();
+  }
+
   public PreCheckInformation runPrecheck(String dumpFile, int stepLimit) {
     try {
       /* test stepLimit */
@@ -0,0 +1,133 @@
+package microbat.codeanalysis.runtime;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import sav.strategies.dto.AppJavaClassPath;
+
+/**
+ * Keeps the result files of precheck runs, so that a test which has not changed since its last
+ * precheck is not run a second time. A result is keyed by a hash of the test, the agent options
+ * which change the counted steps, and the path, size and modification time of every file on the
+ * classpath and of the agent jar.
+ */
+public class PrecheckCache {
+  private static final String FILE_SUFFIX = ".info";
+  private static final int DEFAULT_CAPACITY = 1000;
+  private static boolean defaultPruned;
+
+  private final File cacheDir;
+
+  public PrecheckCache(File cacheDir) {
+    this.cacheDir = cacheDir;
+  }
+
+  /** the cache in the temporary directory, pruned to its capacity on the first use of a session. */
+  public static synchronized PrecheckCache getDefault() {
+    PrecheckCache cache =
+        new PrecheckCache(new File(System.getProperty("java.io.tmpdir"), "microbat_precheck"));
+    if (!defaultPruned) {
+      defaultPruned = true;
+      cache.prune(DEFAULT_CAPACITY);
+    }
+    return cache;
+  }
+
+  public String getKey(
+      AppJavaClassPath appPath,
+      List<String> includeLibs,
+      List<String> excludeLibs,
+      Collection<?> options) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    update(digest, appPath.getLaunchClass());
+    update(digest, appPath.getOptionalTestClass());
+    update(digest, appPath.getOptionalTestMethod());
+    update(digest, String.valueOf(includeLibs));
+    update(digest, String.valueOf(excludeLibs));
+    update(digest, String.valueOf(options));
+    for (String classpath : appPath.getClasspaths()) {
+      updateWithFiles(digest, new File(classpath));
+    }
+    updateWithFiles(digest, new File(appPath.getAgentLib()));
+    StringBuilder key = new StringBuilder();
+    for (byte b : digest.digest()) {
+      key.append(String.format("%02x", b));
+    }
+    return key.toString();
+  }
+
+  /** @return the file the result of the precheck of the given key is saved to. */
+  public File getFile(String key) {
+    cacheDir.mkdirs();
+    return new File(cacheDir, key + FILE_SUFFIX);
+  }
+
+  public boolean contains(String key) {
+    return getFile(key).isFile();
+  }
+
+  public void remove(String key) {
+    getFile(key).delete();
+  }
+
+  /**
+   * deletes the results saved first until at most {@code maxEntries} are left.
+   *
+   * @return the number of deleted results.
+   */
+  public int prune(int maxEntries) {
+    File[] files = cacheDir.listFiles(file -> file.getName().endsWith(FILE_SUFFIX));
+    if (files == null || files.length <= maxEntries) {
+      return 0;
+    }
+    Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+    int deleted = 0;
+    for (int i = 0; i < files.length - maxEntries; i++) {
+      if (files[i].delete()) {
+        deleted++;
+      }
+    }
+    return deleted;
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+  }
+
+  private static void updateWithFiles(MessageDigest digest, File root) {
+    if (!root.exists()) {
+      update(digest, root.getPath());
+      return;
+    }
+    List<Path> files;
+    try (Stream<Path> stream = Files.walk(root.toPath())) {
+      files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+    } catch (IOException e) {
+      /* never matches a saved key, the precheck is run */
+      update(digest, String.valueOf(System.nanoTime()));
+      return;
+    }
+    for (Path path : files) {
+      File file = path.toFile();
+      update(digest, file.getPath());
+      update(digest, file.length() + ":" + file.lastModified());
+    }
+  }
+}
@@ -7,8 +7,19 @@ import microbat.model.BreakPointValue;
 import microbat.model.value.VarValue;
 import sav.common.core.Pair;
 
+/**
+ * A step whose read/written variables are loaded on demand. They are not kept by the step, the
+ * supplier is asked at every access and is expected to cache them (see {@link
+ * microbat.sql.TraceRetrieverImpl#loadRWVars(TraceNode, String)}), so that the memory used by the
+ * variables of a long trace stays bounded. A variable evicted from that cache is loaded again as
+ * a new {@link VarValue}, equal to the former one but not the same object.
+ *
+ * <p>Once the variables of the step are changed, they are pinned: the step keeps the lists the
+ * supplier returned, so that the change is not lost when the cache evicts them.
+ */
 public class LazyTraceNode extends TraceNode {
   private Function<TraceNode, Pair<List<VarValue>, List<VarValue>>> supplier;
+  private boolean pinned;
 
   public LazyTraceNode(
       BreakPoint breakPoint,
@@ -22,23 +33,59 @@ public class LazyTraceNode extends TraceNode {
 
   @Override
   public List<VarValue> getReadVariables() {
-    if (this.readVariables.isEmpty()) {
-      this.populateRWVars();
+    if (pinned) {
+      return readVariables;
     }
-    return readVariables;
+    Pair<List<VarValue>, List<VarValue>> pair = supplier.apply(this);
+    return pair == null ? readVariables : pair.first();
   }
 
   @Override
   public List<VarValue> getWrittenVariables() {
-    if (this.writtenVariables.isEmpty()) {
-      this.populateRWVars();
+    if (pinned) {
+      return writtenVariables;
     }
-    return writtenVariables;
+    Pair<List<VarValue>, List<VarValue>> pair = supplier.apply(this);
+    return pair == null ? writtenVariables : pair.second();
+  }
+
+  @Override
+  public void setReadVariables(List<VarValue> readVariables) {
+    pin();
+    super.setReadVariables(readVariables);
+  }
+
+  @Override
+  public void addReadVariable(VarValue var) {
+    pin();
+    super.addReadVariable(var);
   }
 
-  private void populateRWVars() {
+  @Override
+  public void setWrittenVariables(List<VarValue> writtenVariables) {
+    pin();
+    super.setWrittenVariables(writtenVariables);
+  }
+
+  @Override
+  public void addWrittenVariable(VarValue var) {
+    pin();
+    super.addWrittenVariable(var);
+  }
+
+  /**
+   * keeps the lists in use, they are changed in place so the lists already returned by the getters
+   * see the change as well.
+   */
+  private void pin() {
+    if (pinned) {
+      return;
+    }
     Pair<List<VarValue>, List<VarValue>> pair = supplier.apply(this);
-    this.setReadVariables(pair.first());
-    this.setWrittenVariables(pair.second());
+    if (pair != null) {
+      readVariables = pair.first();
+      writtenVariables = pair.second();
+    }
+    pinned = true;
   }
 }
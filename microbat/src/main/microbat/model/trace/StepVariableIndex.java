@@ -0,0 +1,126 @@
+package microbat.model.trace;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import microbat.model.value.VarValue;
+import microbat.model.variable.Variable;
+
+/**
+ * Index of the steps reading (or writing) a variable, used by {@link Trace#findProducer(VarValue,
+ * TraceNode)} and {@link Trace#findDataDependentee(TraceNode, VarValue)} instead of scanning the
+ * whole execution list.
+ *
+ * <p>A step is indexed under the simple var ID and simple alias ID of each of its read (written)
+ * values, and under the var ID of every descendant of these values, i.e. every ID the lookups in
+ * {@link Trace} can match on. A step found here is only a candidate, the caller still checks it
+ * with the same matching as before.
+ */
+class StepVariableIndex {
+  private final Map<String, int[]> stepOrders = new HashMap<>();
+
+  /**
+   * @param isWritten index the written variables if true, otherwise the read variables.
+   */
+  StepVariableIndex(List<TraceNode> executionList, boolean isWritten) {
+    Map<String, Integer> sizes = new HashMap<>();
+    Set<String> stepKeys = new HashSet<>();
+    for (TraceNode node : executionList) {
+      stepKeys.clear();
+      List<VarValue> values = isWritten ? node.getWrittenVariables() : node.getReadVariables();
+      for (VarValue value : values) {
+        collectKeys(value, stepKeys);
+      }
+      for (String key : stepKeys) {
+        append(key, node.getOrder(), sizes);
+      }
+    }
+    for (Map.Entry<String, Integer> entry : sizes.entrySet()) {
+      int[] orders = stepOrders.get(entry.getKey());
+      if (orders.length != entry.getValue()) {
+        stepOrders.put(entry.getKey(), Arrays.copyOf(orders, entry.getValue()));
+      }
+    }
+  }
+
+  private void collectKeys(VarValue value, Set<String> keys) {
+    addKey(keys, Variable.truncateSimpleID(value.getVarID()));
+    addKey(keys, Variable.truncateSimpleID(value.getAliasVarID()));
+    /* VarValue.findVarValue() compares the var ID of the descendants as it is */
+    Set<VarValue> visited = Collections.newSetFromMap(new IdentityHashMap<VarValue, Boolean>());
+    Deque<VarValue> toVisit = new ArrayDeque<>(value.getChildren());
+    while (!toVisit.isEmpty()) {
+      VarValue child = toVisit.pop();
+      if (visited.add(child)) {
+        addKey(keys, child.getVarID());
+        toVisit.addAll(child.getChildren());
+      }
+    }
+  }
+
+  private void addKey(Set<String> keys, String key) {
+    if (key != null) {
+      keys.add(key);
+    }
+  }
+
+  private void append(String key, int order, Map<String, Integer> sizes) {
+    int[] orders = stepOrders.get(key);
+    Integer size = sizes.get(key);
+    if (orders == null) {
+      orders = new int[4];
+      size = 0;
+    } else if (size == orders.length) {
+      orders = Arrays.copyOf(orders, size * 2);
+    }
+    orders[size] = order;
+    stepOrders.put(key, orders);
+    sizes.put(key, size + 1);
+  }
+
+  /** @return the latest candidate step before {@code order}, or -1 if there is none. */
+  int findPrevious(String varID, String headID, int order) {
+    return Math.max(
+        floor(stepOrders.get(varID), order - 1), floor(stepOrders.get(headID), order - 1));
+  }
+
+  /** @return the first candidate step after {@code order}, or -1 if there is none. */
+  int findNext(String varID, String headID, int order) {
+    int next1 = ceiling(stepOrders.get(varID), order + 1);
+    int next2 = ceiling(stepOrders.get(headID), order + 1);
+    if (next1 < 0 || next2 < 0) {
+      return Math.max(next1, next2);
+    }
+    return Math.min(next1, next2);
+  }
+
+  private static int floor(int[] orders, int order) {
+    if (orders == null) {
+      return -1;
+    }
+    int idx = Arrays.binarySearch(orders, order);
+    if (idx < 0) {
+      idx = -idx - 2;
+    }
+    return idx < 0 ? -1 : orders[idx];
+  }
+
+  private static int ceiling(int[] orders, int order) {
+    if (orders == null) {
+      return -1;
+    }
+    int idx = Arrays.binarySearch(orders, order);
+    if (idx < 0) {
+      idx = -idx - 1;
+    }
+    return idx >= orders.length ? -1 : orders[idx];
+  }
+}
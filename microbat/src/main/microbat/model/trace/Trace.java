@@ -66,6 +66,14 @@ public class Trace {
    */
   @Deprecated private Map<String, StepVariableRelationEntry> stepVariableTable = new HashMap<>();
 
+  /**
+   * steps writing/reading each variable, built at the first data dependency lookup, see {@link
+   * #findProducer(VarValue, TraceNode)}.
+   */
+  private StepVariableIndex writtenVarIndex;
+
+  private StepVariableIndex readVarIndex;
+
   /** the time used to construct the trace, which is used for evaluation. */
   private int constructTime = 0;
 
@@ -84,10 +92,32 @@ public class Trace {
 
   public void setExecutionList(List<TraceNode> exectionList) {
     this.executionList = exectionList;
+    resetStepVariableIndex();
   }
 
   public void addTraceNode(TraceNode node) {
     this.executionList.add(node);
+    resetStepVariableIndex();
+  }
+
+  /** to be called when the read/written variables of the steps are changed. */
+  public synchronized void resetStepVariableIndex() {
+    writtenVarIndex = null;
+    readVarIndex = null;
+  }
+
+  private synchronized StepVariableIndex getWrittenVarIndex() {
+    if (writtenVarIndex == null) {
+      writtenVarIndex = new StepVariableIndex(executionList, true);
+    }
+    return writtenVarIndex;
+  }
+
+  private synchronized StepVariableIndex getReadVarIndex() {
+    if (readVarIndex == null) {
+      readVarIndex = new StepVariableIndex(executionList, false);
+    }
+    return readVarIndex;
   }
 
   public int size() {
@@ -260,8 +290,10 @@ public class Trace {
     String varID = Variable.truncateSimpleID(writtenVar.getVarID());
     String headID = Variable.truncateSimpleID(writtenVar.getAliasVarID());
 
-    for (int i = startNode.getOrder() + 1; i >= this.getExecutionList().size(); i++) {
-      TraceNode node = this.getTraceNode(i);
+    StepVariableIndex index = getReadVarIndex();
+    int order = index.findNext(varID, headID, startNode.getOrder());
+    while (order > 0) {
+      TraceNode node = this.getTraceNode(order);
       for (VarValue readVar : node.getReadVariables()) {
 
         String rVarID = Variable.truncateSimpleID(readVar.getVarID());
@@ -280,6 +312,7 @@ public class Trace {
           consumers.add(node);
         }
       }
+      order = index.findNext(varID, headID, order);
     }
 
     return consumers;
@@ -911,7 +944,10 @@ public class Trace {
     String varID = Variable.truncateSimpleID(varValue.getVarID());
     String headID = Variable.truncateSimpleID(varValue.getAliasVarID());
 
-    for (int i = startNode.getOrder() - 1; i >= 1; i--) {
+    StepVariableIndex index = getWrittenVarIndex();
+    for (int i = index.findPrevious(varID, headID, startNode.getOrder());
+        i >= 1;
+        i = index.findPrevious(varID, headID, i)) {
       TraceNode node = this.getTraceNode(i);
       for (VarValue writtenValue : node.getWrittenVariables()) {
 
@@ -113,7 +113,7 @@ public class TraceNode {
   // TODO: change all this.access to this.get()
   public List<VarValue> findMarkedReadVariable() {
     List<VarValue> markedReadVars = new ArrayList<>();
-    for (VarValue readVarValue : this.readVariables) {
+    for (VarValue readVarValue : getReadVariables()) {
       if (Settings.interestedVariables.contains(readVarValue)) {
         markedReadVars.add(readVarValue);
       }
@@ -366,7 +366,7 @@ public class TraceNode {
     if (stepOverNext != null) {
       return stepOverNext;
     } else {
-      TraceNode n = stepInNext;
+      TraceNode n = getStepInNext();
       while (n != null) {
         TraceNode p1 = n.getInvocationParent();
         TraceNode p2 = this.getInvocationParent();
@@ -393,8 +393,8 @@ public class TraceNode {
   public TraceNode getStepOverPrevious() {
     if (stepOverPrevious != null) {
       return stepOverPrevious;
-    } else if (stepInPrevious != null) {
-      TraceNode n = stepInPrevious;
+    } else if (getStepInPrevious() != null) {
+      TraceNode n = getStepInPrevious();
       while (n != null) {
         TraceNode p1 = n.getInvocationParent();
         TraceNode p2 = this.getInvocationParent();
@@ -511,6 +511,10 @@ public class TraceNode {
     this.isException = isException;
   }
 
+  public boolean containReadVariable(VarValue readVar) {
+    return getReadVariables().contains(readVar);
+  }
+
   public List<VarValue> getReadVariables() {
     return readVariables;
   }
@@ -606,8 +610,9 @@ public class TraceNode {
       }
     }
 
-    if (this.controlDominator != null) {
-      dominators.put(this.controlDominator.getOrder(), this.controlDominator);
+    TraceNode controlDominator = getControlDominator();
+    if (controlDominator != null) {
+      dominators.put(controlDominator.getOrder(), controlDominator);
     }
   }
 
@@ -768,8 +773,8 @@ public class TraceNode {
     //			}
     //		}
 
-    if (this.controlDominator != null) {
-      TraceNode controlDominator = this.controlDominator;
+    if (getControlDominator() != null) {
+      TraceNode controlDominator = getControlDominator();
       while (controlDominator != null) {
         if (controlDominator.isLoopCondition() && controlDominator.isLoopContainsNodeScope(this)) {
           return controlDominator;
@@ -878,9 +883,9 @@ public class TraceNode {
 
     //		Collections.sort(abstractChildren, new TraceNodeOrderComparator());
 
-    abstractChildren.addAll(this.invocationChildren);
+    abstractChildren.addAll(getInvocationChildren());
     clearLoopParentsInMethodParent(abstractChildren);
-    for (TraceNode loopChild : this.loopChildren) {
+    for (TraceNode loopChild : getLoopChildren()) {
       if (!abstractChildren.contains(loopChild)) {
         abstractChildren.add(loopChild);
       }
@@ -912,7 +917,7 @@ public class TraceNode {
     }
 
     for (TraceNode lParent : loopParents) {
-      if (this.invocationChildren.contains(lParent)) {
+      if (getInvocationChildren().contains(lParent)) {
         return true;
       }
     }
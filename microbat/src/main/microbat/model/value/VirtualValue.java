@@ -8,6 +8,11 @@ public class VirtualValue extends VarValue {
 
   private long uniqueId;
 
+  /** the value as the agent records it, without the unique id of the debugger session. */
+  public VirtualValue(boolean isRoot, Variable variable) {
+    this(isRoot, variable, 0);
+  }
+
   public VirtualValue(boolean isRoot, Variable variable, long uniqueID) {
     this.isRoot = isRoot;
     this.variable = variable;
@@ -37,6 +37,7 @@ public class DatabasePreference extends PreferencePage implements IWorkbenchPref
   public static final String IS_STARTDB = "startdb";
   public static final String DBMS = "dbms";
   public static final String DBPATH = "dbPath`";
+  public static final String IS_INDEXED_FILE = "indexedTraceFile";
 
   private StringFieldEditor hostField;
   private IntegerFieldEditor portField;
@@ -45,6 +46,7 @@ public class DatabasePreference extends PreferencePage implements IWorkbenchPref
   private StringFieldEditor passwordField;
   private Combo dataBaseDropDown;
   private Button startWithSQL;
+  private Button indexedTraceFile;
   private DirectoryFieldEditor sqliteDBPath;
 
   @Override
@@ -62,6 +64,8 @@ public class DatabasePreference extends PreferencePage implements IWorkbenchPref
     dataBaseDropDown.add(Reader.SQLITE3.toString());
     dataBaseDropDown.add(Reader.MYSQL.toString());
     dataBaseDropDown.select(0);
+    indexedTraceFile =
+        SWTFactory.createCheckbox(contents, "Read trace files on demand (memory mapped)", 1);
 
     SWTFactory.createLabel(contents, "Database Configuration:", 2);
     Group group = SWTFactory.createGroup(contents, "", 3);
@@ -84,7 +88,7 @@ public class DatabasePreference extends PreferencePage implements IWorkbenchPref
     if (pref.getBoolean(IS_STARTDB)) {
       return pref.getInt(DBMS) == 1 ? Reader.MYSQL : Reader.SQLITE3;
     } else {
-      return Reader.FILE;
+      return pref.getBoolean(IS_INDEXED_FILE) ? Reader.INDEXED_FILE : Reader.FILE;
     }
   }
 
@@ -108,6 +112,7 @@ public class DatabasePreference extends PreferencePage implements IWorkbenchPref
     userNameField.setStringValue(pref.getString(USER_NAME));
     passwordField.setStringValue(pref.getString(PASSWORD));
     startWithSQL.setSelection(pref.getBoolean(IS_STARTDB));
+    indexedTraceFile.setSelection(pref.getBoolean(IS_INDEXED_FILE));
     dataBaseDropDown.select(pref.getInt(DBMS));
     sqliteDBPath.setStringValue(pref.getString(DBPATH));
   }
@@ -128,6 +133,7 @@ public class DatabasePreference extends PreferencePage implements IWorkbenchPref
     preferences.put(USER_NAME, userNameField.getStringValue());
     preferences.put(PASSWORD, passwordField.getStringValue());
     preferences.putBoolean(IS_STARTDB, startWithSQL.getSelection());
+    preferences.putBoolean(IS_INDEXED_FILE, indexedTraceFile.getSelection());
     preferences.putInt(DBMS, dataBaseDropDown.getSelectionIndex());
     preferences.put(DBPATH, sqliteDBPath.getStringValue());
     try {
@@ -143,6 +149,7 @@ public class DatabasePreference extends PreferencePage implements IWorkbenchPref
     pref.putValue(USER_NAME, userNameField.getStringValue());
     pref.putValue(PASSWORD, passwordField.getStringValue());
     pref.putValue(IS_STARTDB, String.valueOf(startWithSQL.getSelection()));
+    pref.putValue(IS_INDEXED_FILE, String.valueOf(indexedTraceFile.getSelection()));
     pref.putValue(DBMS, String.valueOf(dataBaseDropDown.getSelectionIndex()));
     pref.putValue(DBPATH, String.valueOf(sqliteDBPath.getStringValue()));
 
@@ -62,6 +62,8 @@ public class MicrobatPreference extends PreferencePage implements IWorkbenchPref
         Activator.getDefault().getPreferenceStore().getString(RECORDING_OPTIMIZATION);
     this.defaultEnableMethodSplitting =
         Activator.getDefault().getPreferenceStore().getBoolean(REQUIRE_METHOD_SPLITTING);
+    this.defaultAdaptiveRecording = isAdaptiveRecording();
+    this.defaultClassCache = isClassCacheEnabled();
     this.defaultRunWithDebugMode =
         Activator.getDefault().getPreferenceStore().getString(RUN_WITH_DEBUG_MODE);
   }
@@ -78,6 +80,16 @@ public class MicrobatPreference extends PreferencePage implements IWorkbenchPref
     return Activator.getDefault().getPreferenceStore().getString(key);
   }
 
+  /** whether a test without a cached precheck result is recorded without running the precheck. */
+  public static boolean isAdaptiveRecording() {
+    return Activator.getDefault().getPreferenceStore().getBoolean(ADAPTIVE_RECORDING);
+  }
+
+  /** whether the instrumented classes are kept on disk and reused by later runs. */
+  public static boolean isClassCacheEnabled() {
+    return Activator.getDefault().getPreferenceStore().getBoolean(CLASS_CACHE);
+  }
+
   public static final String TARGET_PORJECT = "targetProjectName";
   public static final String CLASS_NAME = "className";
   public static final String LINE_NUMBER = "lineNumber";
@@ -93,6 +105,8 @@ public class MicrobatPreference extends PreferencePage implements IWorkbenchPref
   public static final String REQUIRE_METHOD_SPLITTING = "enableMethodSplitting";
   public static final String SUPPORT_CONCURRENT_TRACE = "supportConcurrentTrace";
   public static final String RUN_WITH_DEBUG_MODE = "runWithDebugMode";
+  public static final String ADAPTIVE_RECORDING = "adaptiveRecording";
+  public static final String CLASS_CACHE = "cacheInstrumentedClasses";
 
   private Combo projectCombo;
   private Text lanuchClassText;
@@ -108,6 +122,8 @@ public class MicrobatPreference extends PreferencePage implements IWorkbenchPref
   private Button runTestButton;
   private Button runWithDebugModeButton;
   private Button enableMethodSplittingButton;
+  private Button adaptiveRecordingButton;
+  private Button classCacheButton;
   private Text java7HomePathText;
 
   private String defaultTargetProject = "";
@@ -125,6 +141,8 @@ public class MicrobatPreference extends PreferencePage implements IWorkbenchPref
   private String defaultApplyRecodingOptimization;
   private String defaultRunWithDebugMode = "false";
   private boolean defaultEnableMethodSplitting;
+  private boolean defaultAdaptiveRecording;
+  private boolean defaultClassCache;
 
   @Override
   protected Control createContents(Composite parent) {
@@ -234,6 +252,19 @@ public class MicrobatPreference extends PreferencePage implements IWorkbenchPref
     enableMethodSplittingButton =
         SWTFactory.createCheckbox(settingGroup, "Enable method splitting function", 2);
     enableMethodSplittingButton.setSelection(this.defaultEnableMethodSplitting);
+
+    adaptiveRecordingButton =
+        SWTFactory.createCheckbox(
+            settingGroup, "Record without precheck when no precheck result is cached", 2);
+    adaptiveRecordingButton.setToolTipText(
+        "variable values are dropped once half of the step limit or 80% of the heap is used");
+    adaptiveRecordingButton.setSelection(this.defaultAdaptiveRecording);
+
+    classCacheButton =
+        SWTFactory.createCheckbox(settingGroup, "Cache instrumented classes between runs", 2);
+    classCacheButton.setToolTipText(
+        "the classes are kept in the temporary directory, the oldest are deleted on a new session");
+    classCacheButton.setSelection(this.defaultClassCache);
   }
 
   private void createSeedStatementGroup(Composite parent) {
@@ -308,6 +339,8 @@ public class MicrobatPreference extends PreferencePage implements IWorkbenchPref
         RECORDING_OPTIMIZATION, String.valueOf(this.recordingOptimizationButton.getSelection()));
     preferences.putBoolean(
         REQUIRE_METHOD_SPLITTING, this.enableMethodSplittingButton.getSelection());
+    preferences.putBoolean(ADAPTIVE_RECORDING, this.adaptiveRecordingButton.getSelection());
+    preferences.putBoolean(CLASS_CACHE, this.classCacheButton.getSelection());
     preferences.put(
         SUPPORT_CONCURRENT_TRACE, String.valueOf(this.supportConcurrentTraceButton.getSelection()));
     preferences.put(
@@ -354,6 +387,13 @@ public class MicrobatPreference extends PreferencePage implements IWorkbenchPref
         .putValue(
             REQUIRE_METHOD_SPLITTING,
             String.valueOf(this.enableMethodSplittingButton.getSelection()));
+    Activator.getDefault()
+        .getPreferenceStore()
+        .putValue(
+            ADAPTIVE_RECORDING, String.valueOf(this.adaptiveRecordingButton.getSelection()));
+    Activator.getDefault()
+        .getPreferenceStore()
+        .putValue(CLASS_CACHE, String.valueOf(this.classCacheButton.getSelection()));
     Activator.getDefault()
         .getPreferenceStore()
         .putValue(
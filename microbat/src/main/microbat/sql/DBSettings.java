@@ -19,6 +19,12 @@ public class DBSettings {
   public static int DMBS_TYPE = SQLITE3_DBMS;
   public static String USE_DB = "false";
   public static boolean enableAutoUpdateDb = true;
+  /* number of steps whose variables are loaded together by TraceRetrieverImpl */
+  public static int stepVariablePrefetchSize = 500;
+  /* estimated memory for the decoded step variables kept by TraceRetrieverImpl */
+  public static long stepVariableCacheBudget = 256L * 1024 * 1024;
+  /* deflate the large read_vars/written_vars blobs of the steps */
+  public static boolean compressStepVariables = true;
   private static int version = -1; // keep track for the update
 
   static {
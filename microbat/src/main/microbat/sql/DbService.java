@@ -20,6 +20,7 @@ import java.util.List;
 import java.util.Set;
 
 import microbat.Activator;
+import microbat.instrumentation.output.VarValueBlob;
 import microbat.util.IResourceUtils;
 import sav.common.core.utils.CollectionUtils;
 
@@ -134,6 +135,26 @@ public class DbService {
     }
   }
 
+  /**
+   * add the var_format column to a Step table created before the binary encoding of the step
+   * variables, its existing rows keep the xml format. On mysql, the read_vars/written_vars text
+   * columns become blobs.
+   */
+  public static void upgradeStepTable(Connection conn) throws SQLException {
+    try (Statement st = conn.createStatement()) {
+      try {
+        st.executeQuery("SELECT var_format FROM Step WHERE 1 = 0").close();
+      } catch (SQLException e) {
+        st.executeUpdate(
+            "ALTER TABLE Step ADD COLUMN var_format INTEGER DEFAULT " + VarValueBlob.XML_FORMAT);
+        if (DBSettings.DMBS_TYPE == DBSettings.MYSQL_DBMS) {
+          st.executeUpdate(
+              "ALTER TABLE Step MODIFY read_vars MEDIUMBLOB, MODIFY written_vars MEDIUMBLOB");
+        }
+      }
+    }
+  }
+
   private static void readSqlScriptFile(StringBuffer sb, String tableName)
       throws FileNotFoundException, IOException {
     String s;
@@ -149,8 +170,8 @@ public class DbService {
     while ((s = br.readLine()) != null) {
       if (check) {
         int l = s.length();
-        s = s.replace("read_vars TEXT", "read_vars MEDIUMTEXT");
-        s = s.replace("written_vars TEXT", "written_vars MEDIUMTEXT");
+        s = s.replace("read_vars BLOB", "read_vars MEDIUMBLOB");
+        s = s.replace("written_vars BLOB", "written_vars MEDIUMBLOB");
         s = s.replace("mutation_file BLOB", "mutation_file MEDIUMBLOB");
         if (s.length() != l) {
           update = true;
@@ -26,6 +26,7 @@ public class MysqlConnectionFactory implements ConnectionFactory {
     if (!verifyDatasource()) {
       Connection conn = dataSource.getConnection();
       DbService.verifyDbTables(conn);
+      DbService.upgradeStepTable(conn);
 
       return conn;
     } else {
@@ -12,6 +12,7 @@ import java.util.Map;
 import java.util.Set;
 
 import microbat.handler.xml.VarValueXmlReader;
+import microbat.instrumentation.output.VarValueBlob;
 import microbat.model.BreakPoint;
 import microbat.model.ClassLocation;
 import microbat.model.ControlScope;
@@ -172,17 +173,18 @@ public class MysqlTraceRetriever extends DbService {
       }
       // location_id
       locationIdMap.put(rs.getInt("location_id"), step);
+      int varFormat = rs.getInt("var_format");
       String loadVarStep = "read_vars";
       try {
         // read_vars
-        step.setReadVariables(toVarValue(rs.getString("read_vars")));
+        step.setReadVariables(toVarValue(rs, "read_vars", varFormat));
         // written_vars
         loadVarStep = "written_vars";
-        step.setWrittenVariables(toVarValue(rs.getString("written_vars")));
+        step.setWrittenVariables(toVarValue(rs, "written_vars", varFormat));
       } catch (Exception e) {
         System.out.println(
             String.format(
-                "%s: Xml error at step: [trace_id, order] = [%d, %d]",
+                "%s: Decoding error at step: [trace_id, order] = [%d, %d]",
                 loadVarStep, traceId, order));
         throw e;
       }
@@ -287,6 +289,19 @@ public class MysqlTraceRetriever extends DbService {
     return map;
   }
 
+  /** decode a read_vars/written_vars column according to the var_format of its row. */
+  protected List<VarValue> toVarValue(ResultSet rs, String column, int varFormat)
+      throws SQLException {
+    switch (varFormat) {
+      case VarValueBlob.XML_FORMAT:
+        return toVarValue(rs.getString(column));
+      case VarValueBlob.BINARY_FORMAT:
+        return VarValueBlob.decode(rs.getBytes(column));
+      default:
+        throw new SQLException("Unsupported var_format: " + varFormat);
+    }
+  }
+
   protected List<VarValue> toVarValue(String xmlContent) {
     //		xmlContent = xmlContent.replace("&#", "#");
     return VarValueXmlReader.read(xmlContent);
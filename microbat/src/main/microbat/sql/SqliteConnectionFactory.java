@@ -37,6 +37,7 @@ public class SqliteConnectionFactory implements ConnectionFactory {
     }
 
     DbService.verifyDbTables(conn);
+    DbService.upgradeStepTable(conn);
     return conn;
   }
 
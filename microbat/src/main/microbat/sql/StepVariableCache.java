@@ -0,0 +1,120 @@
+package microbat.sql;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import microbat.model.value.VarValue;
+import sav.common.core.Pair;
+
+/**
+ * LRU of the decoded read/written variables of steps loaded by {@link TraceRetrieverImpl}. The
+ * memory used by an entry is estimated by the retriever from the size of the stored values, the
+ * binary blobs they are decoded from or the xml of the steps recorded in the former format. The
+ * least recently used entries are evicted when the estimated total exceeds the budget.
+ */
+public class StepVariableCache {
+  private final long memoryBudget;
+  private final LinkedHashMap<StepKey, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+  private long usedMemory;
+  private long hitCount;
+  private long missCount;
+
+  /** @param memoryBudget estimated memory in bytes */
+  public StepVariableCache(long memoryBudget) {
+    this.memoryBudget = memoryBudget;
+  }
+
+  /** @return the cached variables of the step, or null if they are not cached. */
+  public synchronized Pair<List<VarValue>, List<VarValue>> get(String traceId, int order) {
+    Entry entry = entries.get(new StepKey(traceId, order));
+    if (entry == null) {
+      missCount++;
+      return null;
+    }
+    hitCount++;
+    return entry.rwVars;
+  }
+
+  public synchronized boolean contains(String traceId, int order) {
+    return entries.containsKey(new StepKey(traceId, order));
+  }
+
+  public synchronized void put(
+      String traceId, int order, Pair<List<VarValue>, List<VarValue>> rwVars, long memory) {
+    Entry old = entries.put(new StepKey(traceId, order), new Entry(rwVars, memory));
+    if (old != null) {
+      usedMemory -= old.memory;
+    }
+    usedMemory += memory;
+    Iterator<Map.Entry<StepKey, Entry>> it = entries.entrySet().iterator();
+    /* always keep the latest entry even if it exceeds the budget on its own */
+    while (usedMemory > memoryBudget && entries.size() > 1) {
+      usedMemory -= it.next().getValue().memory;
+      it.remove();
+    }
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+    usedMemory = 0;
+  }
+
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized long getUsedMemory() {
+    return usedMemory;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format(
+        "StepVariableCache [steps=%d, memory=%d/%d, hits=%d, misses=%d]",
+        entries.size(), usedMemory, memoryBudget, hitCount, missCount);
+  }
+
+  private static class Entry {
+    private Pair<List<VarValue>, List<VarValue>> rwVars;
+    private long memory;
+
+    public Entry(Pair<List<VarValue>, List<VarValue>> rwVars, long memory) {
+      this.rwVars = rwVars;
+      this.memory = memory;
+    }
+  }
+
+  private static class StepKey {
+    private String traceId;
+    private int order;
+
+    public StepKey(String traceId, int order) {
+      this.traceId = traceId;
+      this.order = order;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * traceId.hashCode() + order;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof StepKey)) {
+        return false;
+      }
+      StepKey other = (StepKey) obj;
+      return order == other.order && traceId.equals(other.traceId);
+    }
+  }
+}
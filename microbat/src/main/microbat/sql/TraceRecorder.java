@@ -11,7 +11,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import microbat.handler.xml.VarValueXmlWriter;
+import microbat.instrumentation.output.VarValueBlob;
 import microbat.model.BreakPoint;
 import microbat.model.ClassLocation;
 import microbat.model.ControlScope;
@@ -19,7 +19,6 @@ import microbat.model.SourceScope;
 import microbat.model.trace.Trace;
 import microbat.model.trace.TraceNode;
 import microbat.model.value.VarValue;
-import sav.common.core.utils.CollectionUtils;
 
 public class TraceRecorder extends DbService {
   public static final int READ = 1;
@@ -83,8 +82,8 @@ public class TraceRecorder extends DbService {
       throws SQLException {
     String sql =
         "INSERT INTO Step (trace_id, step_order, control_dominator, step_in, step_over,"
-            + " invocation_parent, loop_parent,location_id, read_vars, written_vars) VALUES"
-            + " (?,?,?,?,?,?,?,?,?,?)";
+            + " invocation_parent, loop_parent,location_id, read_vars, written_vars, var_format)"
+            + " VALUES (?,?,?,?,?,?,?,?,?,?,?)";
     PreparedStatement ps = conn.prepareStatement(sql);
     closables.add(ps);
     Map<TraceNode, Integer> locationIdMap = insertLocation(traceId, exectionList, conn, closables);
@@ -100,8 +99,9 @@ public class TraceRecorder extends DbService {
       setNodeOrder(ps, idx++, node.getInvocationParent());
       setNodeOrder(ps, idx++, node.getLoopParent());
       ps.setInt(idx++, locationIdMap.get(node));
-      ps.setString(idx++, generateXmlContent(node.getReadVariables()));
-      ps.setString(idx++, generateXmlContent(node.getWrittenVariables()));
+      ps.setBytes(idx++, encodeVarValues(node.getReadVariables()));
+      ps.setBytes(idx++, encodeVarValues(node.getWrittenVariables()));
+      ps.setInt(idx++, VarValueBlob.BINARY_FORMAT);
       ps.addBatch();
       if (++count == BATCH_SIZE) {
         ps.executeBatch();
@@ -113,11 +113,8 @@ public class TraceRecorder extends DbService {
     }
   }
 
-  protected String generateXmlContent(List<VarValue> varValues) {
-    if (CollectionUtils.isEmpty(varValues)) {
-      return null;
-    }
-    return VarValueXmlWriter.generateXmlContent(varValues);
+  protected byte[] encodeVarValues(List<VarValue> varValues) {
+    return VarValueBlob.encode(varValues, DBSettings.compressStepVariables);
   }
 
   //	private void insertStepVariableRelation(Trace trace, int traceId, Connection conn,
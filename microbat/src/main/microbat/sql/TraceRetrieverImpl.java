@@ -1,18 +1,23 @@
 /** */
 package microbat.sql;
 
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import microbat.handler.xml.VarValueXmlReader;
+import microbat.instrumentation.output.VarValueBlob;
 import microbat.model.BreakPoint;
 import microbat.model.trace.LazyTraceNode;
 import microbat.model.trace.Trace;
@@ -35,8 +40,23 @@ public class TraceRetrieverImpl implements TraceRetriever {
   private static final String GET_STEPS = "SELECT s.* FROM Step s WHERE s.trace_id=?";
   private static final String GET_STEP_VARIABLE_RELATION =
       "SELECT r.step_order, r.var_id, r.RW FROM StepVariableRelation r WHERE r.trace_id=?";
+  /* decoded values take roughly the size of their xml, or about this many times their blob */
+  private static final int BLOB_EXPANSION = 8;
+  private static final String GET_RW_VARS =
+      "SELECT step_order, read_vars, written_vars, var_format FROM Step"
+          + " WHERE trace_id = ? AND step_order BETWEEN ? AND ?";
   private Connection conn;
   private List<AutoCloseable> closables = new ArrayList<>();
+  /* kept open to load the variables of the lazy steps */
+  private Connection rwVarConn;
+  private PreparedStatement rwVarStatement;
+  private StepVariableCache rwVarCache = new StepVariableCache(DBSettings.stepVariableCacheBudget);
+  /* the traces handed out by the retrievers, see releaseCollectedTraces() */
+  private static final ReferenceQueue<Trace> COLLECTED_TRACES = new ReferenceQueue<>();
+  private static final Set<TraceReference> TRACE_REFERENCES =
+      Collections.synchronizedSet(new HashSet<>());
+  /* the traces of this retriever which are not collected yet */
+  private int liveTraces;
 
   public TraceRetrieverImpl() throws SQLException {
     this.conn = DbService.getConnection();
@@ -44,7 +64,7 @@ public class TraceRetrieverImpl implements TraceRetriever {
 
   @Override
   public List<Trace> getTraces(String runId) {
-
+    releaseCollectedTraces();
     List<Trace> traces = new ArrayList<>();
     try {
       PreparedStatement ps = this.conn.prepareStatement(GET_LATEST_TRACE_ID_QUERY);
@@ -63,6 +83,7 @@ public class TraceRetrieverImpl implements TraceRetriever {
         trace.setMain(isMain);
 
         loadTrace(trace);
+        register(trace);
 
         traces.add(trace);
       }
@@ -90,7 +111,6 @@ public class TraceRetrieverImpl implements TraceRetriever {
     closables.add(ps);
     closables.add(rs);
     int total = countNumberOfStep(traceId, conn, closables);
-    long a = System.currentTimeMillis();
     List<TraceNode> allSteps = new ArrayList<>(total);
     for (int i = 0; i < total; i++) {
       TraceNode node =
@@ -153,45 +173,152 @@ public class TraceRetrieverImpl implements TraceRetriever {
       Date timestamp = rs.getDate("time");
       step.setTimestamp(timestamp.getTime());
     }
-    long b = System.currentTimeMillis();
-    System.out.println("fill step " + (b - a));
     loadLocations(locationIdMap, conn, closables);
     return allSteps;
   }
 
-  public Pair<List<VarValue>, List<VarValue>> loadRWVars(TraceNode step, String traceId) {
-    String loadVarStep = "read_vars";
+  /**
+   * the variables of the steps are loaded by windows of {@link DBSettings#stepVariablePrefetchSize}
+   * steps on a connection kept open for this purpose, and kept in a LRU of {@link
+   * DBSettings#stepVariableCacheBudget} bytes.
+   */
+  @Override
+  public synchronized Pair<List<VarValue>, List<VarValue>> loadRWVars(
+      TraceNode step, String traceId) {
+    Pair<List<VarValue>, List<VarValue>> rwVars = rwVarCache.get(traceId, step.getOrder());
+    if (rwVars != null) {
+      return rwVars;
+    }
+    int windowSize = Math.max(1, DBSettings.stepVariablePrefetchSize);
+    int start = ((step.getOrder() - 1) / windowSize) * windowSize + 1;
+    int end = start + windowSize - 1;
+    if (step.getTrace() != null) {
+      end = Math.min(end, step.getTrace().size());
+    }
     try {
-      conn = DbService.getConnection();
-      PreparedStatement ps =
-          conn.prepareStatement(
-              "SELECT read_vars, written_vars from Step where step_order = ? AND trace_id = ?");
-      ps.setInt(1, step.getOrder());
-      ps.setString(2, traceId);
-      ResultSet rs = ps.executeQuery();
-      closables.add(rs);
-      closables.add(ps);
-      // read_vars
-      List<VarValue> readVars = toVarValue(rs.getString("read_vars"));
-      // written_vars
-      loadVarStep = "written_vars";
-      List<VarValue> writeVars = toVarValue(rs.getString("written_vars"));
-      return Pair.of(readVars, writeVars);
+      return loadRWVars(traceId, start, Math.max(end, step.getOrder()), step.getOrder());
     } catch (SQLException e) {
       e.printStackTrace();
-    } catch (Exception e) {
-      System.out.println(
-          String.format(
-              "%s: Xml error at step: [trace_id, order] = [%d, %d]",
-              loadVarStep, traceId, step.getOrder()));
-      throw e;
-    } finally {
-      DbService.closeDb(conn, closables);
-      this.closables = new ArrayList<>();
+      closeRWVarConnection();
     }
     return null;
   }
 
+  /** @return the variables of the step {@code order} */
+  private Pair<List<VarValue>, List<VarValue>> loadRWVars(
+      String traceId, int start, int end, int order) throws SQLException {
+    if (rwVarConn == null || rwVarConn.isClosed()) {
+      rwVarConn = DbService.getConnection();
+      rwVarStatement = rwVarConn.prepareStatement(GET_RW_VARS);
+    }
+    rwVarStatement.setString(1, traceId);
+    rwVarStatement.setInt(2, start);
+    rwVarStatement.setInt(3, end);
+    Pair<List<VarValue>, List<VarValue>> result = null;
+    try (ResultSet rs = rwVarStatement.executeQuery()) {
+      while (rs.next()) {
+        int stepOrder = rs.getInt("step_order");
+        if (stepOrder != order && rwVarCache.contains(traceId, stepOrder)) {
+          continue; // keep the values already in use
+        }
+        int varFormat = rs.getInt("var_format");
+        String loadVarStep = "read_vars";
+        try {
+          List<VarValue> readVars;
+          List<VarValue> writtenVars;
+          long memory;
+          if (varFormat == VarValueBlob.BINARY_FORMAT) {
+            byte[] readBlob = rs.getBytes("read_vars");
+            readVars = VarValueBlob.decode(readBlob);
+            loadVarStep = "written_vars";
+            byte[] writtenBlob = rs.getBytes("written_vars");
+            writtenVars = VarValueBlob.decode(writtenBlob);
+            memory = (sizeOf(readBlob) + sizeOf(writtenBlob)) * BLOB_EXPANSION;
+          } else if (varFormat == VarValueBlob.XML_FORMAT) {
+            String readXml = rs.getString("read_vars");
+            readVars = toVarValue(readXml);
+            loadVarStep = "written_vars";
+            String writtenXml = rs.getString("written_vars");
+            writtenVars = toVarValue(writtenXml);
+            memory = (sizeOf(readXml) + sizeOf(writtenXml)) * 2;
+          } else {
+            throw new SQLException(
+                String.format(
+                    "Unsupported var_format %d at step: [trace_id, order] = [%s, %d]",
+                    varFormat, traceId, stepOrder));
+          }
+          Pair<List<VarValue>, List<VarValue>> rwVars = Pair.of(readVars, writtenVars);
+          rwVarCache.put(traceId, stepOrder, rwVars, memory);
+          if (stepOrder == order) {
+            result = rwVars;
+          }
+        } catch (RuntimeException e) {
+          System.out.println(
+              String.format(
+                  "%s: Decoding error at step: [trace_id, order] = [%s, %d]",
+                  loadVarStep, traceId, stepOrder));
+          throw e;
+        }
+      }
+    }
+    return result;
+  }
+
+  private long sizeOf(String xml) {
+    return xml == null ? 0 : xml.length();
+  }
+
+  private long sizeOf(byte[] blob) {
+    return blob == null ? 0 : blob.length;
+  }
+
+  /** the cache of the step variables, e.g. to read its hit/miss counters. */
+  public StepVariableCache getRWVarCache() {
+    return rwVarCache;
+  }
+
+  /**
+   * release the connection used to load the step variables and the cached variables. The steps
+   * loaded by this retriever can still be accessed, their variables are then loaded again.
+   */
+  public synchronized void close() {
+    closeRWVarConnection();
+    rwVarCache.clear();
+  }
+
+  private synchronized void register(Trace trace) {
+    liveTraces++;
+    TRACE_REFERENCES.add(new TraceReference(trace, this));
+  }
+
+  private synchronized void release() {
+    liveTraces--;
+    if (liveTraces == 0) {
+      close();
+    }
+  }
+
+  /**
+   * the connection of a retriever serves the lazy steps of the traces it retrieved, so it is closed
+   * once all of them are collected. The collected traces are looked for whenever traces are
+   * retrieved.
+   */
+  private static void releaseCollectedTraces() {
+    TraceReference reference;
+    while ((reference = (TraceReference) COLLECTED_TRACES.poll()) != null) {
+      TRACE_REFERENCES.remove(reference);
+      reference.retriever.release();
+    }
+  }
+
+  private void closeRWVarConnection() {
+    List<AutoCloseable> statements = new ArrayList<>();
+    statements.add(rwVarStatement);
+    DbService.closeDb(rwVarConn, statements);
+    rwVarConn = null;
+    rwVarStatement = null;
+  }
+
   /**
    * Last_update knightsong Sep 9, 2020
    *
@@ -269,4 +396,14 @@ public class TraceRetrieverImpl implements TraceRetriever {
     }
     return null;
   }
+
+  /** a trace retrieved by {@code retriever}, enqueued once the trace is collected. */
+  private static class TraceReference extends PhantomReference<Trace> {
+    private final TraceRetrieverImpl retriever;
+
+    TraceReference(Trace trace, TraceRetrieverImpl retriever) {
+      super(trace, COLLECTED_TRACES);
+      this.retriever = retriever;
+    }
+  }
 }
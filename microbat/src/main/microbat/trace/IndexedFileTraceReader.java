@@ -0,0 +1,44 @@
+package microbat.trace;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import microbat.instrumentation.output.IndexedTraceFile;
+import microbat.instrumentation.output.IndexedTraceFile.TraceSection;
+import microbat.instrumentation.output.RunningInfo;
+import microbat.instrumentation.precheck.PrecheckInfo;
+import microbat.model.trace.Trace;
+import sav.common.core.SavRtException;
+
+/**
+ * Reads a trace file written with the INDEXED_FILE recorder. Only the directory of the file is read
+ * here, the steps are read from the mapped file when the trace is explored.
+ */
+public class IndexedFileTraceReader implements TraceReader {
+
+  @Override
+  public RunningInfo read(PrecheckInfo precheckInfo, String dumpFile) {
+    try {
+      /* the mappings stay valid after the file is closed */
+      try (IndexedTraceFile file = new IndexedTraceFile(new File(dumpFile))) {
+        List<Trace> traces = new ArrayList<>();
+        for (TraceSection section : file.getTraces()) {
+          Trace trace = new Trace(null);
+          trace.setMain(section.isMain());
+          trace.setThreadName(section.getThreadName());
+          trace.setThreadId(section.getThreadId());
+          trace.setIncludedLibraryClasses(section.getIncludedLibraryClasses());
+          trace.setExcludedLibraryClasses(section.getExcludedLibraryClasses());
+          trace.setExecutionList(new IndexedStepList(section, trace));
+          traces.add(trace);
+        }
+        return new RunningInfo(
+            file.getProgramMsg(), traces, file.getExpectedSteps(), file.getCollectedSteps());
+      }
+    } catch (IOException e) {
+      throw new SavRtException(e);
+    }
+  }
+}
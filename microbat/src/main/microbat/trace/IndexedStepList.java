@@ -0,0 +1,69 @@
+package microbat.trace;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+import microbat.instrumentation.output.IndexedTraceFile.TraceSection;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+import sav.common.core.SavRtException;
+
+/**
+ * The execution list of a trace read from an indexed trace file. A step is created the first time
+ * it is asked for and kept afterwards, so that the steps of the trace keep their identity.
+ */
+class IndexedStepList extends AbstractList<TraceNode> implements RandomAccess {
+  private static final int BLOCK_SIZE = 4096;
+
+  private final TraceSection section;
+  private final Trace trace;
+  private final TraceNode[][] blocks;
+
+  IndexedStepList(TraceSection section, Trace trace) {
+    this.section = section;
+    this.trace = trace;
+    this.blocks = new TraceNode[(section.size() + BLOCK_SIZE - 1) / BLOCK_SIZE][];
+  }
+
+  @Override
+  public synchronized TraceNode get(int index) {
+    if (index < 0 || index >= section.size()) {
+      throw new IndexOutOfBoundsException("index " + index + ", size " + section.size());
+    }
+    int blockIdx = index / BLOCK_SIZE;
+    TraceNode[] block = blocks[blockIdx];
+    if (block == null) {
+      block = new TraceNode[Math.min(BLOCK_SIZE, section.size() - blockIdx * BLOCK_SIZE)];
+      blocks[blockIdx] = block;
+    }
+    TraceNode node = block[index % BLOCK_SIZE];
+    if (node == null) {
+      node = createNode(index + 1);
+      block[index % BLOCK_SIZE] = node;
+    }
+    return node;
+  }
+
+  private TraceNode createNode(int order) {
+    try {
+      IndexedTraceNode node =
+          new IndexedTraceNode(section.getLocation(order), order, trace, section, this);
+      node.setTimestamp(section.getTimestamp(order));
+      node.setException(section.isException(order));
+      return node;
+    } catch (IOException e) {
+      throw new SavRtException(e);
+    }
+  }
+
+  /** @return the step of the given order, or null for -1. */
+  TraceNode getStep(int order) {
+    return order < 1 ? null : get(order - 1);
+  }
+
+  @Override
+  public int size() {
+    return section.size();
+  }
+}
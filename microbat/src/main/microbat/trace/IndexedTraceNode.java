@@ -0,0 +1,243 @@
+package microbat.trace;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import microbat.instrumentation.output.IndexedTraceFile;
+import microbat.instrumentation.output.IndexedTraceFile.StepEntry;
+import microbat.instrumentation.output.IndexedTraceFile.TraceSection;
+import microbat.model.BreakPoint;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+import microbat.model.value.VarValue;
+import sav.common.core.SavRtException;
+
+/**
+ * A step of an indexed trace file. Its relations to other steps, its children and its variables
+ * are read from the file the first time one of them is asked for.
+ */
+class IndexedTraceNode extends TraceNode {
+  private final TraceSection section;
+  private final IndexedStepList steps;
+  private boolean relationsLoaded;
+  private boolean entryLoaded;
+  private boolean varsLoaded;
+
+  IndexedTraceNode(
+      BreakPoint breakPoint, int order, Trace trace, TraceSection section, IndexedStepList steps) {
+    super(breakPoint, null, order, trace, null);
+    this.section = section;
+    this.steps = steps;
+  }
+
+  private synchronized void loadRelations() {
+    if (relationsLoaded) {
+      return;
+    }
+    relationsLoaded = true;
+    super.setControlDominator(relation(IndexedTraceFile.CONTROL_DOMINATOR));
+    super.setStepInNext(relation(IndexedTraceFile.STEP_IN_NEXT));
+    super.setStepInPrevious(relation(IndexedTraceFile.STEP_IN_PREVIOUS));
+    super.setStepOverNext(relation(IndexedTraceFile.STEP_OVER_NEXT));
+    super.setStepOverPrevious(relation(IndexedTraceFile.STEP_OVER_PREVIOUS));
+    super.setInvocationParent(relation(IndexedTraceFile.INVOCATION_PARENT));
+    super.setLoopParent(relation(IndexedTraceFile.LOOP_PARENT));
+  }
+
+  private TraceNode relation(int relation) {
+    try {
+      return steps.getStep(section.getRelation(getOrder(), relation));
+    } catch (IOException e) {
+      throw new SavRtException(e);
+    }
+  }
+
+  private synchronized void loadEntry() {
+    if (entryLoaded) {
+      return;
+    }
+    entryLoaded = true;
+    StepEntry entry = readEntry(false);
+    super.setBytecode(entry.getBytecode());
+    super.setInvocationChildren(toSteps(entry.getInvocationChildren()));
+    super.setControlDominatees(toSteps(entry.getControlDominatees()));
+    super.setLoopChildren(toSteps(entry.getLoopChildren()));
+  }
+
+  private synchronized void loadVars() {
+    if (varsLoaded) {
+      return;
+    }
+    varsLoaded = true;
+    StepEntry entry = readEntry(true);
+    super.setReadVariables(entry.getReadVariables());
+    super.setWrittenVariables(entry.getWrittenVariables());
+  }
+
+  private StepEntry readEntry(boolean withVarValues) {
+    try {
+      return section.getEntry(getOrder(), withVarValues);
+    } catch (IOException e) {
+      throw new SavRtException(e);
+    }
+  }
+
+  private List<TraceNode> toSteps(int[] orders) {
+    List<TraceNode> nodes = new ArrayList<>(orders.length);
+    for (int order : orders) {
+      nodes.add(steps.getStep(order));
+    }
+    return nodes;
+  }
+
+  @Override
+  public TraceNode getControlDominator() {
+    loadRelations();
+    return super.getControlDominator();
+  }
+
+  @Override
+  public void setControlDominator(TraceNode controlDominator) {
+    loadRelations();
+    super.setControlDominator(controlDominator);
+  }
+
+  @Override
+  public TraceNode getStepInNext() {
+    loadRelations();
+    return super.getStepInNext();
+  }
+
+  @Override
+  public void setStepInNext(TraceNode stepInNext) {
+    loadRelations();
+    super.setStepInNext(stepInNext);
+  }
+
+  @Override
+  public TraceNode getStepInPrevious() {
+    loadRelations();
+    return super.getStepInPrevious();
+  }
+
+  @Override
+  public void setStepInPrevious(TraceNode stepInPrevious) {
+    loadRelations();
+    super.setStepInPrevious(stepInPrevious);
+  }
+
+  @Override
+  public TraceNode getStepOverNext() {
+    loadRelations();
+    return super.getStepOverNext();
+  }
+
+  @Override
+  public void setStepOverNext(TraceNode stepOverNext) {
+    loadRelations();
+    super.setStepOverNext(stepOverNext);
+  }
+
+  @Override
+  public TraceNode getStepOverPrevious() {
+    loadRelations();
+    return super.getStepOverPrevious();
+  }
+
+  @Override
+  public void setStepOverPrevious(TraceNode stepOverPrevious) {
+    loadRelations();
+    super.setStepOverPrevious(stepOverPrevious);
+  }
+
+  @Override
+  public TraceNode getInvocationParent() {
+    loadRelations();
+    return super.getInvocationParent();
+  }
+
+  @Override
+  public void setInvocationParent(TraceNode invocationParent) {
+    loadRelations();
+    super.setInvocationParent(invocationParent);
+  }
+
+  @Override
+  public TraceNode getLoopParent() {
+    loadRelations();
+    return super.getLoopParent();
+  }
+
+  @Override
+  public void setLoopParent(TraceNode loopParent) {
+    loadRelations();
+    super.setLoopParent(loopParent);
+  }
+
+  @Override
+  public String getBytecode() {
+    loadEntry();
+    return super.getBytecode();
+  }
+
+  @Override
+  public List<TraceNode> getInvocationChildren() {
+    loadEntry();
+    return super.getInvocationChildren();
+  }
+
+  @Override
+  public void addInvocationChild(TraceNode node) {
+    loadEntry();
+    super.addInvocationChild(node);
+  }
+
+  @Override
+  public List<TraceNode> getControlDominatees() {
+    loadEntry();
+    return super.getControlDominatees();
+  }
+
+  @Override
+  public void addControlDominatee(TraceNode dominatee) {
+    loadEntry();
+    super.addControlDominatee(dominatee);
+  }
+
+  @Override
+  public List<TraceNode> getLoopChildren() {
+    loadEntry();
+    return super.getLoopChildren();
+  }
+
+  @Override
+  public void addLoopChild(TraceNode loopChild) {
+    loadEntry();
+    super.addLoopChild(loopChild);
+  }
+
+  @Override
+  public List<VarValue> getReadVariables() {
+    loadVars();
+    return super.getReadVariables();
+  }
+
+  @Override
+  public void addReadVariable(VarValue var) {
+    loadVars();
+    super.addReadVariable(var);
+  }
+
+  @Override
+  public List<VarValue> getWrittenVariables() {
+    loadVars();
+    return super.getWrittenVariables();
+  }
+
+  @Override
+  public void addWrittenVariable(VarValue var) {
+    loadVars();
+    super.addWrittenVariable(var);
+  }
+}
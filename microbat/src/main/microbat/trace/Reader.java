@@ -11,6 +11,12 @@ public enum Reader {
       return new FileTraceReader();
     }
   },
+  INDEXED_FILE {
+    @Override
+    public TraceReader create(String runId) {
+      return new IndexedFileTraceReader();
+    }
+  },
   SQLITE3 {
     @Override
     public TraceReader create(String runId) {
@@ -38,6 +38,10 @@ public class SqliteTraceReader implements TraceReader {
 
     int collectedSteps =
         traces.isEmpty() ? 0 : traces.stream().mapToInt(trace -> trace.size()).sum();
+    if (precheckInfo == null) {
+      /* recorded without precheck, the test result is unknown */
+      return new RunningInfo(null, traces, collectedSteps, collectedSteps);
+    }
     int expectedSteps = precheckInfo.getStepTotal();
 
     return new RunningInfo(precheckInfo.getProgramMsg(), traces, expectedSteps, collectedSteps);
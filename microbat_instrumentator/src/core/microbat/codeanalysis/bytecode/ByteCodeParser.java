@@ -12,7 +12,11 @@ import org.apache.bcel.util.SyntheticRepository;
 import sav.strategies.dto.AppJavaClassPath;
 
 public class ByteCodeParser {
-  public static void parse(
+  /**
+   * synchronized, as the class path of the jvm and the bcel repository are set while parsing and
+   * the dependencies of the traces of several threads are built concurrently.
+   */
+  public static synchronized void parse(
       String className, ByteCodeMethodFinder visitor, AppJavaClassPath appClassPath) {
     String originalSystemClassPath = System.getProperty("java.class.path");
     String[] paths = originalSystemClassPath.split(File.pathSeparator);
@@ -0,0 +1,74 @@
+package microbat.codeanalysis.bytecode;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.apache.bcel.Repository;
+import org.apache.bcel.classfile.Method;
+
+import microbat.model.BreakPoint;
+import sav.strategies.dto.AppJavaClassPath;
+
+/**
+ * The CFGs with control dominance of the methods run by a program, built once per method and
+ * shared by the traces of all its threads. A CFG is only read once it is built, so several traces
+ * can look up the same CFG concurrently; the first one to ask for it builds it while the others
+ * wait.
+ */
+public class ControlDominanceCFGCache {
+  private final ConcurrentMap<String, FutureTask<CFG>> cfgs = new ConcurrentHashMap<>();
+
+  /**
+   * @param breakPoint any location of the method.
+   * @return the CFG of the method of the location, or null if the method cannot be found.
+   */
+  public CFG getCFG(final BreakPoint breakPoint, final AppJavaClassPath appClassPath) {
+    String key = breakPoint.getClassCanonicalName() + "#" + breakPoint.getMethodSign();
+    FutureTask<CFG> task = cfgs.get(key);
+    if (task == null) {
+      FutureTask<CFG> newTask =
+          new FutureTask<>(
+              new Callable<CFG>() {
+
+                @Override
+                public CFG call() throws Exception {
+                  return buildCFG(breakPoint, appClassPath);
+                }
+              });
+      task = cfgs.putIfAbsent(key, newTask);
+      if (task == null) {
+        task = newTask;
+        task.run();
+      }
+    }
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private static CFG buildCFG(BreakPoint breakPoint, AppJavaClassPath appClassPath) {
+    MethodFinderByLine finder = new MethodFinderByLine(breakPoint);
+    ByteCodeParser.parse(breakPoint.getClassCanonicalName(), finder, appClassPath);
+    Method method = finder.getMethod();
+    if (method == null || method.getCode() == null) {
+      return null;
+    }
+    CFGConstructor cfgConstructor = new CFGConstructor();
+    CFG cfg = cfgConstructor.buildCFGWithControlDomiance(method.getCode());
+    cfg.setMethod(method);
+    return cfg;
+  }
+
+  public void clear() {
+    cfgs.clear();
+    Repository.clearCache();
+  }
+}
@@ -23,6 +23,9 @@ public class VarValueXmlConstants {
   public static final String VALUE_REF_IS_NULL_PROP = "isNull";
   public static final String VALUE_ARR_COMPONENT_TYPE_PROP = "compType"; // componentType
   public static final String VALUE_IS_ARRAY_PROP = "isArr";
+  /* only for arrays with elements which are not recorded */
+  public static final String VALUE_ARR_LENGTH_PROP = "arrLength";
+  public static final String VALUE_ARR_ELIDED_PROP = "arrElided";
 
   public static final String VALUE_CHILDREN_SEPARATOR = ",";
 }
@@ -96,6 +96,11 @@ public class VarValueXmlReader {
         ArrayValue arrayVal = (ArrayValue) value;
         arrayVal.setComponentType(getProperty(valueEle, VALUE_ARR_COMPONENT_TYPE_PROP));
         arrayVal.setNull(getBooleanProperty(valueEle, VALUE_REF_IS_NULL_PROP));
+        String elided = getProperty(valueEle, VALUE_ARR_ELIDED_PROP);
+        if (!StringUtils.isEmpty(elided)) {
+          arrayVal.setLength((int) getLongProperty(valueEle, VALUE_ARR_LENGTH_PROP));
+          arrayVal.setElidedRanges(parseRanges(elided));
+        }
       } else {
         value = new ReferenceValue(false, isRoot, variable);
         ReferenceValue refVal = (ReferenceValue) value;
@@ -119,6 +124,15 @@ public class VarValueXmlReader {
     return result;
   }
 
+  private int[] parseRanges(String str) {
+    String[] parts = str.split(VALUE_CHILDREN_SEPARATOR);
+    int[] ranges = new int[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      ranges[i] = Integer.parseInt(parts[i]);
+    }
+    return ranges;
+  }
+
   private String getStringValueProperty(Element valueEle) {
     String str = getProperty(valueEle, VALUE_STRING_VALUE_PROP);
     return XmlFilter.getValue(str);
@@ -118,6 +118,10 @@ public class VarValueXmlWriter {
         addProperty(valueEle, VALUE_ARR_COMPONENT_TYPE_PROP, arrayVal.getComponentType());
         addProperty(valueEle, VALUE_IS_ARRAY_PROP, true);
         addProperty(valueEle, VALUE_REF_IS_NULL_PROP, arrayVal.isNull());
+        if (arrayVal.hasElidedElements()) {
+          addProperty(valueEle, VALUE_ARR_LENGTH_PROP, arrayVal.getLength());
+          addProperty(valueEle, VALUE_ARR_ELIDED_PROP, joinRanges(arrayVal.getElidedRanges()));
+        }
       } else if (varValue instanceof ReferenceValue) {
         ReferenceValue refVal = (ReferenceValue) varValue;
         addProperty(valueEle, VALUE_REF_UNIQUE_ID_PROP, refVal.getUniqueID());
@@ -171,6 +175,17 @@ public class VarValueXmlWriter {
       return child;
     }
 
+    private String joinRanges(int[] ranges) {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < ranges.length; i++) {
+        if (i > 0) {
+          sb.append(VALUE_CHILDREN_SEPARATOR);
+        }
+        sb.append(ranges[i]);
+      }
+      return sb.toString();
+    }
+
     private void addProperty(Element parent, String tagName, Object value) {
       addProperty(parent, tagName, value, false);
     }
@@ -1,24 +1,22 @@
 package microbat.model.trace;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import org.apache.bcel.Repository;
 import org.apache.bcel.classfile.Method;
 import org.apache.bcel.generic.InstructionHandle;
 
-import microbat.codeanalysis.bytecode.ByteCodeParser;
 import microbat.codeanalysis.bytecode.CFG;
-import microbat.codeanalysis.bytecode.CFGConstructor;
 import microbat.codeanalysis.bytecode.CFGNode;
-import microbat.codeanalysis.bytecode.MethodFinderByLine;
+import microbat.codeanalysis.bytecode.ControlDominanceCFGCache;
 import microbat.model.BreakPoint;
 import microbat.model.ClassLocation;
 import microbat.model.ControlScope;
-import microbat.model.Scope;
+import microbat.model.value.VarValue;
 import microbat.model.variable.LocalVar;
 import microbat.model.variable.Variable;
 import sav.common.core.utils.CollectionUtils;
@@ -111,20 +109,18 @@ public class Trace {
     }
   }
 
-  private ControlScope parseControlScope(BreakPoint breakPoint, CFG cfg) {
+  /** the break point is shared by the traces of all threads, so it is only read here. */
+  private static ControlScope parseControlScope(BreakPoint breakPoint, CFG cfg) {
     List<ClassLocation> ranges = new ArrayList<>(1);
     List<InstructionHandle> correspondingList =
         findCorrepondingIns(breakPoint, cfg, cfg.getMethod());
 
+    boolean isConditional = breakPoint.isConditional();
+    boolean isBranch = breakPoint.isBranch();
     for (InstructionHandle ins : correspondingList) {
       CFGNode cfgNode = cfg.findNode(ins);
-      if (!breakPoint.isConditional()) {
-        breakPoint.setConditional(cfgNode.isConditional());
-      }
-
-      if (!breakPoint.isBranch()) {
-        breakPoint.setBranch(cfgNode.isBranch());
-      }
+      isConditional |= cfgNode.isConditional();
+      isBranch |= cfgNode.isBranch();
 
       List<ClassLocation> controlScope0 =
           findControlledLines(cfgNode.getControlDependentees(), cfg.getMethod(), breakPoint);
@@ -142,12 +138,12 @@ public class Trace {
 
     ControlScope scope = new ControlScope();
     scope.setRangeList(ranges);
-    scope.setCondition(breakPoint.isConditional());
-    scope.setBranch(breakPoint.isBranch());
+    scope.setCondition(isConditional);
+    scope.setBranch(isBranch);
     return scope;
   }
 
-  private List<InstructionHandle> findCorrepondingIns(
+  private static List<InstructionHandle> findCorrepondingIns(
       BreakPoint breakPoint, CFG cfg, Method method) {
     List<InstructionHandle> list = new ArrayList<>();
     for (CFGNode node : cfg.getNodeList()) {
@@ -160,7 +156,7 @@ public class Trace {
     return list;
   }
 
-  private List<ClassLocation> findControlledLines(
+  private static List<ClassLocation> findControlledLines(
       List<CFGNode> controlDependentees, Method method, BreakPoint breakPoint) {
     List<ClassLocation> controlLines = new ArrayList<>();
     for (CFGNode node : controlDependentees) {
@@ -176,104 +172,98 @@ public class Trace {
     return controlLines;
   }
 
-  public void constructControlDomianceRelation() {
-    TraceNode controlDominator = null;
-    fillInControlScope();
-    for (TraceNode node : this.executionList) {
-      if (controlDominator != null) {
-
-        if (isContainedInScope(node, controlDominator.getControlScope())) {
-          controlDominator.addControlDominatee(node);
-          node.setControlDominator(controlDominator);
-        }
-        /** which means the {@code controlDominator} is no longer effective now */
-        else {
-          controlDominator = findContainingControlDominator(node, controlDominator);
-
-          if (controlDominator != null) {
-            controlDominator.addControlDominatee(node);
-            node.setControlDominator(controlDominator);
+  /**
+   * link the step-in relation and add the virtual data dependencies (reads repeated on the same
+   * line, passed parameters and returned values). Requires the invocation parent/children relation
+   * to be complete.
+   */
+  public void constructVirtualDataRelation() {
+    TraceStepLinker.linkVirtualData(this);
+    for (TraceNode currentNode : executionList) {
+      if (currentNode.getInvocationParent() != null && !currentNode.getPassParameters().isEmpty()) {
+        TraceNode invocationParent = currentNode.getInvocationParent();
+        TraceNode firstChild = invocationParent.getInvocationChildren().get(0);
+        if (firstChild.getOrder() == currentNode.getOrder()) {
+          for (VarValue value : currentNode.getPassParameters()) {
+            invocationParent.addWrittenVariable(value);
           }
         }
       }
-
-      if (node.isBranch()) {
-        controlDominator = node;
-      }
     }
   }
 
-  private void fillInControlScope() {
+  public void constructControlDomianceRelation() {
+    ControlDominanceCFGCache cfgCache = new ControlDominanceCFGCache();
+    constructControlDomianceRelation(cfgCache);
+    cfgCache.clear();
+  }
+
+  /** @param cfgCache the CFGs of the methods, may be shared with the traces of other threads. */
+  public void constructControlDomianceRelation(ControlDominanceCFGCache cfgCache) {
+    fillInControlScope(cfgCache);
+    TraceStepLinker.linkControlDominance(this);
+  }
+
+  private void fillInControlScope(ControlDominanceCFGCache cfgCache) {
     Map<BreakPoint, List<TraceNode>> breakpointMap = new HashMap<>();
     for (TraceNode node : executionList) {
       CollectionUtils.getListInitIfEmpty(breakpointMap, node.getBreakPoint()).add(node);
     }
-    Map<String, Set<String>> classMethodMap = new HashMap<>();
-    Map<String, List<BreakPoint>> methodSignMap = new HashMap<>();
-    for (BreakPoint bkp : breakpointMap.keySet()) {
-      CollectionUtils.getListInitIfEmpty(methodSignMap, bkp.getMethodSign()).add(bkp);
-      CollectionUtils.getSetInitIfEmpty(classMethodMap, bkp.getClassCanonicalName())
-          .add(bkp.getMethodSign());
-    }
-    for (String classCanonicalName : classMethodMap.keySet()) {
-      for (String methodSig : classMethodMap.get(classCanonicalName)) {
-        List<BreakPoint> bkpList = methodSignMap.get(methodSig);
-        BreakPoint breakPoint = bkpList.get(0);
-        MethodFinderByLine finder = new MethodFinderByLine(breakPoint);
-        ByteCodeParser.parse(breakPoint.getClassCanonicalName(), finder, appJavaClassPath);
-        Method method = finder.getMethod();
-        CFGConstructor cfgConstructor = new CFGConstructor();
-        CFG cfg = cfgConstructor.buildCFGWithControlDomiance(method.getCode());
-        cfg.setMethod(method);
-        for (BreakPoint bkp : bkpList) {
-          ControlScope scope = parseControlScope(bkp, cfg);
-          for (TraceNode node : breakpointMap.get(bkp)) {
-            node.getBreakPoint().setConditional(scope.isCondition());
-            node.getBreakPoint().setBranch(scope.isBranch());
-            node.setControlScope(scope);
-          }
-        }
+    Map<BreakPoint, ControlScope> scopes =
+        parseControlScopes(breakpointMap.keySet(), appJavaClassPath, cfgCache);
+    for (Map.Entry<BreakPoint, ControlScope> entry : scopes.entrySet()) {
+      ControlScope scope = entry.getValue();
+      for (TraceNode node : breakpointMap.get(entry.getKey())) {
+        applyControlScope(node.getBreakPoint(), scope);
       }
-      Repository.clearCache();
     }
   }
 
-  private TraceNode findContainingControlDominator(TraceNode node, TraceNode controlDominator) {
-    TraceNode superControlDominator = controlDominator.getControlDominator();
-    while (superControlDominator != null) {
-      if (isContainedInScope(node, superControlDominator.getControlScope())) {
-        return superControlDominator;
+  /**
+   * the steps of a location share its break point (see LocationRegistry), also with the traces of
+   * the other threads, which are built at the same time by TraceDependencyBuilder. The scope set
+   * first is kept, the scopes parsed for the same location are equal, and it is set under the lock
+   * of the break point, so that the other builders see it once they have applied their scopes.
+   */
+  private static void applyControlScope(BreakPoint breakPoint, ControlScope scope) {
+    synchronized (breakPoint) {
+      if (breakPoint.getControlScope() == null) {
+        breakPoint.setConditional(scope.isCondition());
+        breakPoint.setBranch(scope.isBranch());
+        breakPoint.setControlScope(scope);
       }
-      superControlDominator = superControlDominator.getControlDominator();
     }
-
-    return null;
   }
 
   /**
-   * I will consider the invocation parents of {@code node} as well
-   *
-   * @param node
-   * @param conditionScope
-   * @return
+   * @return the control scope of each location whose method is found, parsed from the control
+   *     dominance CFG of the method.
    */
-  private boolean isContainedInScope(TraceNode node, Scope conditionScope) {
-    if (conditionScope == null) {
-      return false;
+  public static Map<BreakPoint, ControlScope> parseControlScopes(
+      Collection<BreakPoint> locations,
+      AppJavaClassPath appClassPath,
+      ControlDominanceCFGCache cfgCache) {
+    Map<String, Set<String>> classMethodMap = new HashMap<>();
+    Map<String, List<BreakPoint>> methodSignMap = new HashMap<>();
+    for (BreakPoint bkp : locations) {
+      CollectionUtils.getListInitIfEmpty(methodSignMap, bkp.getMethodSign()).add(bkp);
+      CollectionUtils.getSetInitIfEmpty(classMethodMap, bkp.getClassCanonicalName())
+          .add(bkp.getMethodSign());
     }
-
-    List<TraceNode> testingSet = new ArrayList<>();
-    testingSet.add(node);
-    List<TraceNode> invocationParents = node.findAllInvocationParents();
-    testingSet.addAll(invocationParents);
-
-    for (TraceNode n : testingSet) {
-      if (conditionScope.containsNodeScope(n)) {
-        return true;
+    Map<BreakPoint, ControlScope> scopes = new HashMap<>();
+    for (String classCanonicalName : classMethodMap.keySet()) {
+      for (String methodSig : classMethodMap.get(classCanonicalName)) {
+        List<BreakPoint> bkpList = methodSignMap.get(methodSig);
+        CFG cfg = cfgCache.getCFG(bkpList.get(0), appClassPath);
+        if (cfg == null) {
+          continue;
+        }
+        for (BreakPoint bkp : bkpList) {
+          scopes.put(bkp, parseControlScope(bkp, cfg));
+        }
       }
     }
-
-    return false;
+    return scopes;
   }
 
   //	public Map<String, StepVariableRelationEntry> getStepVariableTable() {
@@ -0,0 +1,88 @@
+package microbat.model.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import microbat.codeanalysis.bytecode.ControlDominanceCFGCache;
+
+/**
+ * Builds the virtual data relation and the control dominance of the traces of all threads of a
+ * run. The traces do not share steps, so each one is built on a thread of its own; the CFGs of the
+ * methods are built once and shared by all of them (see {@link ControlDominanceCFGCache}).
+ *
+ * <p>The control scopes are parsed with the agent's copy of {@link Trace}, so this class is not
+ * used by the reader of a streaming trace, which links the steps with {@link TraceStepLinker}.
+ */
+public class TraceDependencyBuilder {
+  private final int threads;
+
+  public TraceDependencyBuilder() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  public TraceDependencyBuilder(int threads) {
+    this.threads = threads;
+  }
+
+  public void build(List<Trace> traces) {
+    final ControlDominanceCFGCache cfgCache = new ControlDominanceCFGCache();
+    try {
+      if (threads <= 1 || traces.size() <= 1) {
+        for (Trace trace : traces) {
+          build(trace, cfgCache);
+        }
+        return;
+      }
+      ExecutorService executor =
+          Executors.newFixedThreadPool(
+              Math.min(threads, traces.size()),
+              new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable r) {
+                  Thread thread = new Thread(r, "trace-dependency-builder");
+                  /* never keeps the jvm of the agent alive */
+                  thread.setDaemon(true);
+                  return thread;
+                }
+              });
+      try {
+        List<Future<?>> futures = new ArrayList<>(traces.size());
+        for (final Trace trace : traces) {
+          futures.add(
+              executor.submit(
+                  new Callable<Void>() {
+
+                    @Override
+                    public Void call() throws Exception {
+                      build(trace, cfgCache);
+                      return null;
+                    }
+                  }));
+        }
+        for (Future<?> future : futures) {
+          future.get();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Cannot build trace dependencies", e.getCause());
+      } finally {
+        executor.shutdownNow();
+      }
+    } finally {
+      cfgCache.clear();
+    }
+  }
+
+  private static void build(Trace trace, ControlDominanceCFGCache cfgCache) {
+    trace.constructVirtualDataRelation();
+    trace.constructControlDomianceRelation(cfgCache);
+  }
+}
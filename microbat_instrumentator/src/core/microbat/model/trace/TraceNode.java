@@ -1,7 +1,6 @@
 package microbat.model.trace;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -463,14 +462,14 @@ public class TraceNode {
     }
   }
 
-  public Collection<VarValue> getReadVariables() {
+  public List<VarValue> getReadVariables() {
     if (this.readVariables == null || this.readVariables.size() < this.readVariableMap.size()) {
       this.readVariables = new ArrayList<>(this.readVariableMap.values());
     }
     return this.readVariables;
   }
 
-  public Collection<VarValue> getWrittenVariables() {
+  public List<VarValue> getWrittenVariables() {
     if (this.writtenVariables == null
         || this.writtenVariables.size() < this.writtenVariableMap.size()) {
       this.writtenVariables = new ArrayList<>(writtenVariableMap.values());
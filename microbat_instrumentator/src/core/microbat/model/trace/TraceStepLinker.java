@@ -0,0 +1,128 @@
+package microbat.model.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import microbat.model.Scope;
+import microbat.model.value.VarValue;
+
+/**
+ * Links the steps of a trace whose invocation relation is complete: the step-in relation, the
+ * virtual data dependencies and the control dominance. The control scopes of the locations must
+ * already be set.
+ *
+ * <p>The plugin has its own copy of microbat.model, which shadows the one of the agent jar, and
+ * reads streaming traces with this class. Only the members both copies have are used here.
+ */
+public class TraceStepLinker {
+  private TraceStepLinker() {}
+
+  /**
+   * link the step-in relation and add the virtual data dependencies of the reads repeated on the
+   * same line and of the returned values. The passed parameters are only known by the agent, see
+   * {@link Trace#constructVirtualDataRelation()}.
+   */
+  public static void linkVirtualData(Trace trace) {
+    for (int i = 0; i < trace.size(); i++) {
+      int order = i + 1;
+      TraceNode currentNode = trace.getTraceNode(order);
+      if (order < trace.size()) {
+        TraceNode nextNode = trace.getTraceNode(order + 1);
+        currentNode.setStepInNext(nextNode);
+        nextNode.setStepInPrevious(currentNode);
+      } else if (order == trace.size()) {
+        if (order > 1) {
+          TraceNode prevNode = trace.getTraceNode(order - 1);
+          currentNode.setStepInPrevious(prevNode);
+        }
+      }
+
+      TraceNode previousStepOver = currentNode.getStepOverPrevious();
+      if (previousStepOver != null
+          && previousStepOver.getClassCanonicalName().equals(currentNode.getClassCanonicalName())
+          && Math.abs(previousStepOver.getLineNumber() - currentNode.getLineNumber()) <= 0) {
+        for (VarValue readVar : previousStepOver.getReadVariables()) {
+          if (!currentNode.containReadVariable(readVar)) {
+            currentNode.addReadVariable(readVar);
+          }
+        }
+      }
+
+      if (currentNode.getInvocationParent() != null
+          && !currentNode.getReturnedVariables().isEmpty()) {
+        TraceNode invocationParent = currentNode.getInvocationParent();
+        TraceNode returnStep = invocationParent.getStepOverNext();
+
+        if (returnStep == null) {
+          returnStep = currentNode.getStepInNext();
+        }
+
+        if (returnStep != null) {
+          for (VarValue value : currentNode.getReturnedVariables()) {
+            currentNode.addWrittenVariable(value);
+            returnStep.addReadVariable(value);
+          }
+        }
+      }
+    }
+  }
+
+  public static void linkControlDominance(Trace trace) {
+    TraceNode controlDominator = null;
+    for (TraceNode node : trace.getExecutionList()) {
+      if (controlDominator != null) {
+
+        if (isContainedInScope(node, controlDominator.getControlScope())) {
+          controlDominator.addControlDominatee(node);
+          node.setControlDominator(controlDominator);
+        }
+        /** which means the {@code controlDominator} is no longer effective now */
+        else {
+          controlDominator = findContainingControlDominator(node, controlDominator);
+
+          if (controlDominator != null) {
+            controlDominator.addControlDominatee(node);
+            node.setControlDominator(controlDominator);
+          }
+        }
+      }
+
+      if (node.isBranch()) {
+        controlDominator = node;
+      }
+    }
+  }
+
+  private static TraceNode findContainingControlDominator(
+      TraceNode node, TraceNode controlDominator) {
+    TraceNode superControlDominator = controlDominator.getControlDominator();
+    while (superControlDominator != null) {
+      if (isContainedInScope(node, superControlDominator.getControlScope())) {
+        return superControlDominator;
+      }
+      superControlDominator = superControlDominator.getControlDominator();
+    }
+
+    return null;
+  }
+
+  /** the invocation parents of {@code node} are considered as well. */
+  private static boolean isContainedInScope(TraceNode node, Scope conditionScope) {
+    if (conditionScope == null) {
+      return false;
+    }
+
+    List<TraceNode> testingSet = new ArrayList<>();
+    testingSet.add(node);
+    List<TraceNode> invocationParents = node.findAllInvocationParents();
+    testingSet.addAll(invocationParents);
+
+    for (TraceNode n : testingSet) {
+      if (conditionScope.containsNodeScope(n)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+}
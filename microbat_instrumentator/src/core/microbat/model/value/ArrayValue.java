@@ -13,6 +13,9 @@ import microbat.model.variable.Variable;
 public class ArrayValue extends ReferenceValue {
   private static final long serialVersionUID = -1194381666885038425L;
   private String componentType;
+  /* set when some elements are not recorded, see getElidedRanges() */
+  private int length = -1;
+  private int[] elidedRanges;
 
   public ArrayValue(boolean isNull, boolean isRoot, Variable var) {
     super(isNull, isRoot, var);
@@ -40,11 +43,64 @@ public class ArrayValue extends ReferenceValue {
     this.componentType = componentType;
   }
 
+  /** @return the length of the array, -1 if it is not recorded (every element is recorded). */
+  public int getLength() {
+    return length;
+  }
+
+  public void setLength(int length) {
+    this.length = length;
+  }
+
+  /**
+   * @return the indices of the elements which are not recorded, as pairs of start (inclusive) and
+   *     end (exclusive) indices in increasing order, or null if every element is recorded.
+   */
+  public int[] getElidedRanges() {
+    return elidedRanges;
+  }
+
+  public void setElidedRanges(int[] elidedRanges) {
+    this.elidedRanges = elidedRanges;
+  }
+
+  public boolean hasElidedElements() {
+    return elidedRanges != null && elidedRanges.length > 0;
+  }
+
+  public boolean isElided(int index) {
+    if (elidedRanges != null) {
+      for (int i = 0; i < elidedRanges.length; i += 2) {
+        if (index >= elidedRanges[i] && index < elidedRanges[i + 1]) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /** @return for example "[3, 997) of 1000 elided", or null if every element is recorded. */
+  public String getElidedDescription() {
+    if (!hasElidedElements()) {
+      return null;
+    }
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < elidedRanges.length; i += 2) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append("[").append(elidedRanges[i]).append(", ").append(elidedRanges[i + 1]).append(")");
+    }
+    return sb.append(" of ").append(length).append(" elided").toString();
+  }
+
   @Override
   public VarValue clone() {
     ArrayValue clonedValue = new ArrayValue(this.isNull, isRoot, this.variable.clone());
     clonedValue.setUniqueID(uniqueID);
     clonedValue.setComponentType(componentType);
+    clonedValue.setLength(length);
+    clonedValue.setElidedRanges(elidedRanges);
     clonedValue.setParents(this.getParents());
     clonedValue.setChildren(this.getChildren());
     return clonedValue;
@@ -7,6 +7,8 @@ public class DBSettings {
   public static String password = "123456";
   public static String dbName = "microbattest";
   public static boolean enableAutoUpdateDb = true;
+  /* deflate the large read_vars/written_vars blobs of the steps */
+  public static boolean compressStepVariables = true;
   private static int version = 0; // keep track for the update
 
   public static int getVersion() {
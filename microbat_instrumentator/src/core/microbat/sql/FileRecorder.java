@@ -16,9 +16,16 @@ import microbat.model.trace.Trace;
 public class FileRecorder implements TraceRecorder {
 
   AgentParams agentParams;
+  /* write the layout of IndexedTraceFile instead of the sequential one */
+  private boolean indexed;
 
   public FileRecorder(AgentParams agentParams) {
+    this(agentParams, false);
+  }
+
+  public FileRecorder(AgentParams agentParams, boolean indexed) {
     this.agentParams = agentParams;
+    this.indexed = indexed;
   }
 
   /*
@@ -34,7 +41,11 @@ public class FileRecorder implements TraceRecorder {
     RunningInfo result =
         new RunningInfo(Agent.getProgramMsg(), traceList, collectedSteps, expectedSteps);
     try {
-      result.saveToFile(agentParams.getDumpFile(), false);
+      if (indexed) {
+        result.saveToIndexedFile(agentParams.getDumpFile());
+      } else {
+        result.saveToFile(agentParams.getDumpFile(), false);
+      }
     } catch (IOException e) {
       e.printStackTrace();
     }
@@ -8,6 +8,7 @@ import microbat.instrumentation.AgentParams;
  */
 public enum Recorder {
   FILE,
+  INDEXED_FILE,
   SQLITE3,
   MYSQL;
 
@@ -15,6 +16,8 @@ public enum Recorder {
     switch (params.getTraceRecorderName()) {
       case "FILE":
         return new FileRecorder(params);
+      case "INDEXED_FILE":
+        return new FileRecorder(params, true);
       case "SQLITE3":
         return new SqliteRecorder(params.getDumpFile(), params.getRunId());
         //		case "MYSQL":
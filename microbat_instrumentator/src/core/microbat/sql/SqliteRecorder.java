@@ -11,12 +11,11 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 
-import microbat.handler.xml.VarValueXmlWriter;
+import microbat.instrumentation.output.VarValueBlob;
 import microbat.model.BreakPoint;
 import microbat.model.trace.Trace;
 import microbat.model.trace.TraceNode;
 import microbat.model.value.VarValue;
-import sav.common.core.utils.CollectionUtils;
 
 /**
  * @author knightsong
@@ -40,6 +39,7 @@ public class SqliteRecorder extends SqliteServer implements TraceRecorder {
     List<AutoCloseable> closables = new ArrayList<AutoCloseable>();
     try {
       conn = getConnection();
+      upgradeStepTable(conn);
       conn.setAutoCommit(false);
       insertRun(conn, closables);
       for (Trace trace : traces) {
@@ -102,8 +102,8 @@ public class SqliteRecorder extends SqliteServer implements TraceRecorder {
       throws SQLException {
     String sql =
         "INSERT INTO Step (trace_id, step_order, control_dominator, step_in, step_over,"
-            + " invocation_parent, loop_parent,location_id, read_vars, written_vars, time) VALUES"
-            + " (?,?,?,?,?,?,?,?,?,?,?)";
+            + " invocation_parent, loop_parent,location_id, read_vars, written_vars, var_format,"
+            + " time) VALUES (?,?,?,?,?,?,?,?,?,?,?,?)";
     PreparedStatement ps = conn.prepareStatement(sql);
     closables.add(ps);
     insertLocation(traceId, exectionList, conn, closables);
@@ -118,8 +118,9 @@ public class SqliteRecorder extends SqliteServer implements TraceRecorder {
       setNodeOrder(ps, idx++, node.getInvocationParent());
       setNodeOrder(ps, idx++, node.getLoopParent());
       ps.setString(idx++, node.getDeclaringCompilationUnitName() + "_" + node.getLineNumber());
-      ps.setString(idx++, generateXmlContent(node.getReadVariables()));
-      ps.setString(idx++, generateXmlContent(node.getWrittenVariables()));
+      ps.setBytes(idx++, encodeVarValues(node.getReadVariables()));
+      ps.setBytes(idx++, encodeVarValues(node.getWrittenVariables()));
+      ps.setInt(idx++, VarValueBlob.BINARY_FORMAT);
       ps.setDate(idx, new Date(node.getTimestamp()));
       ps.addBatch();
     }
@@ -206,11 +207,8 @@ public class SqliteRecorder extends SqliteServer implements TraceRecorder {
     return set;
   }
 
-  protected String generateXmlContent(Collection<VarValue> varValues) {
-    if (CollectionUtils.isEmpty(varValues)) {
-      return null;
-    }
-    return VarValueXmlWriter.generateXmlContent(varValues);
+  protected byte[] encodeVarValues(Collection<VarValue> varValues) {
+    return VarValueBlob.encode(varValues, DBSettings.compressStepVariables);
   }
 
   private void setNodeOrder(PreparedStatement ps, int idx, TraceNode node) throws SQLException {
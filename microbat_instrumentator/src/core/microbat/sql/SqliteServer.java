@@ -3,11 +3,13 @@ package microbat.sql;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.List;
 import java.util.UUID;
 
 import org.sqlite.SQLiteDataSource;
 
+import microbat.instrumentation.output.VarValueBlob;
 import sav.common.core.utils.CollectionUtils;
 ;
 
@@ -59,6 +61,21 @@ public class SqliteServer {
     }
   }
 
+  /**
+   * add the var_format column to a Step table created before the binary encoding of the step
+   * variables, its existing rows keep the xml format.
+   */
+  public void upgradeStepTable(Connection conn) throws SQLException {
+    try (Statement st = conn.createStatement()) {
+      try {
+        st.executeQuery("SELECT var_format FROM Step WHERE 1 = 0").close();
+      } catch (SQLException e) {
+        st.executeUpdate(
+            "ALTER TABLE Step ADD COLUMN var_format INTEGER DEFAULT " + VarValueBlob.XML_FORMAT);
+      }
+    }
+  }
+
   public String getUUID() {
     UUID uuid = UUID.randomUUID();
     String uuidStr = uuid.toString();
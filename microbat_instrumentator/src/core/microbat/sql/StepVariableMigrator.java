@@ -0,0 +1,121 @@
+package microbat.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import microbat.handler.xml.VarValueXmlReader;
+import microbat.instrumentation.output.VarValueBlob;
+
+/**
+ * Converts in place the xml read_vars/written_vars of the steps of a sqlite trace db into the
+ * binary format of {@link VarValueBlob}. The steps are converted by batches which are committed one
+ * by one, an interrupted migration can be resumed by running it again.
+ *
+ * <p>Usage: {@code StepVariableMigrator <db file> [-nocompress]}
+ */
+public class StepVariableMigrator extends SqliteServer {
+  private static final String SELECT_XML_STEPS =
+      "SELECT trace_id, step_order, read_vars, written_vars FROM Step"
+          + " WHERE var_format IS NULL OR var_format = "
+          + VarValueBlob.XML_FORMAT
+          + " LIMIT "
+          + BATCH_SIZE;
+  private static final String UPDATE_STEP =
+      "UPDATE Step SET read_vars = ?, written_vars = ?, var_format = ?"
+          + " WHERE trace_id = ? AND step_order = ?";
+
+  public static void main(String[] args) throws SQLException {
+    if (args.length < 1) {
+      System.out.println("Usage: StepVariableMigrator <db file> [-nocompress]");
+      return;
+    }
+    boolean compress = !(args.length > 1 && "-nocompress".equals(args[1]));
+    StepVariableMigrator migrator = new StepVariableMigrator(args[0]);
+    int steps = migrator.migrate(compress);
+    System.out.println(String.format("%d steps converted", steps));
+    migrator.vacuum();
+  }
+
+  public StepVariableMigrator(String dbPath) {
+    super(dbPath);
+  }
+
+  /** @return the number of converted steps. */
+  public int migrate(boolean compress) throws SQLException {
+    Connection conn = null;
+    List<AutoCloseable> closables = new ArrayList<AutoCloseable>();
+    int total = 0;
+    try {
+      conn = getConnection();
+      upgradeStepTable(conn);
+      conn.setAutoCommit(false);
+      PreparedStatement select = conn.prepareStatement(SELECT_XML_STEPS);
+      closables.add(select);
+      PreparedStatement update = conn.prepareStatement(UPDATE_STEP);
+      closables.add(update);
+      int count;
+      do {
+        count = convertBatch(select, update, compress);
+        conn.commit();
+        total += count;
+      } while (count == BATCH_SIZE);
+    } catch (SQLException e) {
+      rollback(conn);
+      throw e;
+    } finally {
+      closeDb(conn, closables);
+    }
+    return total;
+  }
+
+  /* the rows are read before being updated, sqlite does not define whether a select sees the rows
+   * updated while it runs. */
+  private int convertBatch(PreparedStatement select, PreparedStatement update, boolean compress)
+      throws SQLException {
+    List<Object[]> rows = new ArrayList<>();
+    try (ResultSet rs = select.executeQuery()) {
+      while (rs.next()) {
+        rows.add(
+            new Object[] {
+              rs.getString("trace_id"),
+              rs.getInt("step_order"),
+              rs.getString("read_vars"),
+              rs.getString("written_vars")
+            });
+      }
+    }
+    for (Object[] row : rows) {
+      int idx = 1;
+      try {
+        byte[] readVars = VarValueBlob.encode(VarValueXmlReader.read((String) row[2]), compress);
+        byte[] writtenVars = VarValueBlob.encode(VarValueXmlReader.read((String) row[3]), compress);
+        update.setBytes(idx++, readVars);
+        update.setBytes(idx++, writtenVars);
+      } catch (RuntimeException e) {
+        throw new SQLException(
+            String.format("Xml error at step: [trace_id, order] = [%s, %d]", row[0], row[1]), e);
+      }
+      update.setInt(idx++, VarValueBlob.BINARY_FORMAT);
+      update.setString(idx++, (String) row[0]);
+      update.setInt(idx++, (Integer) row[1]);
+      update.addBatch();
+    }
+    if (!rows.isEmpty()) {
+      update.executeBatch();
+    }
+    return rows.size();
+  }
+
+  /** give the space freed by the smaller blobs back to the file system. */
+  public void vacuum() throws SQLException {
+    try (Connection conn = getConnection();
+        Statement st = conn.createStatement()) {
+      st.executeUpdate("VACUUM");
+    }
+  }
+}
@@ -130,6 +130,11 @@ public abstract class Agent {
     return programMsg;
   }
 
+  /** sets the program message without ending the program, e.g. for each test of a daemon. */
+  protected static void setProgramMsg(String programMsg) {
+    Agent.programMsg = programMsg;
+  }
+
   public static synchronized void stop() {
     synchronized (shutdowned) {
       try {
@@ -12,4 +12,7 @@ public class AgentConstants {
   public static final String PROGRESS_HEADER = "$progress ";
   public static final String LOG_HEADER = "Agent: ";
   public static final int UNSPECIFIED_INT_VALUE = -1;
+  /* messages of a recording aborted by the agent, after "fail;" in the program message */
+  public static final String TRACE_OVER_LONG_MSG = "Trace is over long!";
+  public static final String TRACE_OVER_BUDGET_MSG = "Trace is over the heap budget!";
 }
@@ -26,6 +26,11 @@ public class AgentLogger {
         logTypes.contains(LogType.printProgress));
   }
 
+  /** when the progress is published through a ProgressChannel instead. */
+  public static void disablePrintProgress() {
+    printProgress = false;
+  }
+
   public static void debug(String msg) {
     if (enableDebug) {
       log(msg);
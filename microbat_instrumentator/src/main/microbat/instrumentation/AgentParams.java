@@ -8,6 +8,7 @@ import java.util.Set;
 
 import microbat.instrumentation.filter.CodeRangeEntry;
 import microbat.instrumentation.instr.instruction.info.EntryPoint;
+import microbat.instrumentation.runtime.ArrayCapturePolicy;
 import microbat.instrumentation.utils.FileUtils;
 import sav.common.core.utils.CollectionUtils;
 import sav.common.core.utils.StringUtils;
@@ -40,6 +41,23 @@ public class AgentParams extends CommonParams {
   public static final String OPT_CODE_RANGE = "code_range";
   public static final String OPT_TRACE_RECORDER = "trace_recorder";
   public static final String OPT_RUN_ID = "run_id";
+  public static final String OPT_STREAMING = "streaming";
+  public static final String OPT_SEGMENT_SIZE = "segment_size";
+  public static final int DEFAULT_SEGMENT_SIZE = 10000;
+  /* all, max, head_tail, touched or hash, see ArrayCapturePolicy */
+  public static final String OPT_ARRAY_CAPTURE = "array_capture";
+  public static final String OPT_ARRAY_CAPTURE_SIZE = "array_capture_size";
+  /* file through which the progress is published instead of printed, see ProgressChannel */
+  public static final String OPT_PROGRESS_FILE = "progress_file";
+  /* adaptive recording without precheck, see TraceBudget */
+  public static final String OPT_STEP_BUDGET = "step_budget";
+  public static final String OPT_HEAP_BUDGET = "heap_budget";
+  /* file the agent writes the program message to when it aborts the recording */
+  public static final String OPT_ABORT_FILE = "abort_file";
+  /* directory of instrumented classes shared by runs, see InstrumentedClassCache */
+  public static final String OPT_CLASS_CACHE_DIR = "class_cache_dir";
+  /* the jvm records the tests sent to its test runner one after another, see TraceAgent */
+  public static final String OPT_DAEMON = "daemon";
 
   private boolean precheck;
   private EntryPoint entryPoint;
@@ -60,6 +78,17 @@ public class AgentParams extends CommonParams {
   private List<CodeRangeEntry> codeRanges;
   private String recorderName;
   private String runId;
+  /* write steps to dump file during execution, FILE recorder only */
+  private boolean streaming;
+  private int segmentSize;
+  private String arrayCaptureMode;
+  private int arrayCaptureSize;
+  private String progressFile;
+  private int stepBudget;
+  private int heapBudget;
+  private String abortFile;
+  private String classCacheDir;
+  private boolean daemon;
 
   public AgentParams(CommandLine cmd) {
     super(cmd);
@@ -96,6 +125,17 @@ public class AgentParams extends CommonParams {
     codeRanges = CodeRangeEntry.parse(cmd.getStringList(OPT_CODE_RANGE));
     recorderName = cmd.getString(OPT_TRACE_RECORDER);
     runId = cmd.getString(OPT_RUN_ID);
+    streaming = cmd.getBoolean(OPT_STREAMING, false);
+    segmentSize = cmd.getInt(OPT_SEGMENT_SIZE, DEFAULT_SEGMENT_SIZE);
+    arrayCaptureMode = cmd.getString(OPT_ARRAY_CAPTURE);
+    arrayCaptureSize =
+        cmd.getInt(OPT_ARRAY_CAPTURE_SIZE, ArrayCapturePolicy.DEFAULT_MAX_ELEMENTS);
+    progressFile = cmd.getString(OPT_PROGRESS_FILE);
+    stepBudget = cmd.getInt(OPT_STEP_BUDGET, 0);
+    heapBudget = cmd.getInt(OPT_HEAP_BUDGET, 0);
+    abortFile = cmd.getString(OPT_ABORT_FILE);
+    classCacheDir = cmd.getString(OPT_CLASS_CACHE_DIR);
+    daemon = cmd.getBoolean(OPT_DAEMON, false);
   }
 
   public static AgentParams initFrom(CommandLine cmd) {
@@ -200,6 +240,48 @@ public class AgentParams extends CommonParams {
     return this.runId;
   }
 
+  public boolean isStreaming() {
+    return streaming;
+  }
+
+  public int getSegmentSize() {
+    return segmentSize;
+  }
+
+  /** parsed on demand, so that an unknown mode is logged once the agent logger is set up. */
+  public ArrayCapturePolicy.Mode getArrayCaptureMode() {
+    return ArrayCapturePolicy.Mode.parse(arrayCaptureMode);
+  }
+
+  public int getArrayCaptureSize() {
+    return arrayCaptureSize;
+  }
+
+  public String getProgressFile() {
+    return progressFile;
+  }
+
+  public int getStepBudget() {
+    return stepBudget;
+  }
+
+  /** in percent of the max heap. */
+  public int getHeapBudget() {
+    return heapBudget;
+  }
+
+  public String getAbortFile() {
+    return abortFile;
+  }
+
+  public String getClassCacheDir() {
+    return classCacheDir;
+  }
+
+  public boolean isDaemon() {
+    return daemon;
+  }
+
   public AppJavaClassPath initAppClassPath() {
     return initAppClassPath(
         getLaunchClass(), getJavaHome(), getClassPaths(), getWorkingDirectory());
@@ -1,5 +1,7 @@
 package microbat.instrumentation;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.instrument.Instrumentation;
 import java.util.ArrayList;
 import java.util.List;
@@ -7,22 +9,33 @@ import java.util.List;
 import microbat.instrumentation.filter.CodeRangeUserFilter;
 import microbat.instrumentation.filter.GlobalFilterChecker;
 import microbat.instrumentation.filter.OverLongMethodFilter;
+import microbat.instrumentation.instr.InstrumentedClassCache;
 import microbat.instrumentation.instr.TraceTransformer;
+import microbat.instrumentation.output.ProgressChannel;
+import microbat.instrumentation.output.StreamingTraceWriter;
+import microbat.instrumentation.runtime.ArrayCapturePolicy;
 import microbat.instrumentation.runtime.ExecutionTracer;
 import microbat.instrumentation.runtime.IExecutionTracer;
+import microbat.instrumentation.runtime.ProgressPublisher;
+import microbat.instrumentation.runtime.TraceBudget;
 import microbat.model.trace.Trace;
-import microbat.model.trace.TraceNode;
-import microbat.model.value.VarValue;
+import microbat.model.trace.TraceDependencyBuilder;
 import microbat.sql.Recorder;
+import sav.common.core.SavRtException;
+import sav.common.core.utils.FileUtils;
 import sav.strategies.dto.AppJavaClassPath;
 
 public class TraceAgent extends Agent {
   private AgentParams agentParams;
+  private StreamingTraceWriter streamWriter;
+  private ProgressPublisher progressPublisher;
+  private InstrumentedClassCache classCache;
 
   //	private StopTimer timer;
 
   public TraceAgent(CommandLine cmd) {
     this.agentParams = AgentParams.initFrom(cmd);
+    this.classCache = InstrumentedClassCache.create(agentParams);
   }
 
   public void startup0(long vmStartupTime, long agentPreStartup) {
@@ -34,7 +47,11 @@ public class TraceAgent extends Agent {
         appPath, agentParams.getIncludesExpression(), agentParams.getExcludesExpression());
     ExecutionTracer.appJavaClassPath = appPath;
     ExecutionTracer.variableLayer = agentParams.getVariableLayer();
+    ExecutionTracer.arrayCapturePolicy =
+        new ArrayCapturePolicy(
+            agentParams.getArrayCaptureMode(), agentParams.getArrayCaptureSize());
     ExecutionTracer.setStepLimit(agentParams.getStepLimit());
+    initTraceBudget();
     if (!agentParams.isRequireMethodSplit()) {
       agentParams
           .getUserFilters()
@@ -47,16 +64,98 @@ public class TraceAgent extends Agent {
 
     ExecutionTracer.setExpectedSteps(agentParams.getExpectedSteps());
     ExecutionTracer.avoidProxyToString = agentParams.isAvoidProxyToString();
+    if (agentParams.isStreaming()) {
+      if (agentParams.isDaemon()) {
+        AgentLogger.info("Streaming is not supported in daemon mode, ignored!");
+      } else {
+        startStreaming(appPath);
+      }
+    }
+    if (agentParams.getProgressFile() != null) {
+      startPublishingProgress();
+    }
+  }
+
+  private void initTraceBudget() {
+    if (agentParams.getStepBudget() > 0 || agentParams.getHeapBudget() > 0) {
+      ExecutionTracer.traceBudget =
+          new TraceBudget(agentParams.getStepBudget(), agentParams.getHeapBudget());
+    }
+  }
+
+  private void startPublishingProgress() {
+    try {
+      ProgressChannel channel = new ProgressChannel(new File(agentParams.getProgressFile()));
+      progressPublisher =
+          new ProgressPublisher(channel, ProgressPublisher.DEFAULT_PERIOD_MILLIS);
+      progressPublisher.start();
+      AgentLogger.disablePrintProgress();
+    } catch (IOException e) {
+      AgentLogger.error(e);
+      progressPublisher = null;
+    }
+  }
+
+  private void startStreaming(AppJavaClassPath appPath) {
+    if (!Recorder.FILE.name().equals(agentParams.getTraceRecorderName())
+        || agentParams.getDumpFile() == null) {
+      AgentLogger.info("Streaming is only supported by FILE recorder with a dump file, ignored!");
+      return;
+    }
+    try {
+      streamWriter =
+          new StreamingTraceWriter(
+              agentParams.getDumpFile(), agentParams.getSegmentSize(), appPath);
+      streamWriter.start();
+      ExecutionTracer.setStreamWriter(streamWriter);
+    } catch (IOException e) {
+      AgentLogger.error(e);
+      streamWriter = null;
+    }
   }
 
   public void shutdown() throws Exception {
     ExecutionTracer.shutdown();
+    if (progressPublisher != null) {
+      progressPublisher.stop();
+    }
+    if (classCache != null) {
+      AgentLogger.info(classCache.getStatistics());
+    }
+    writeAbortMessage();
+    if (agentParams.isDaemon()) {
+      /* the trace of each test is stored as soon as it finishes */
+      return;
+    }
+    storeTraces();
+  }
+
+  /**
+   * an aborted recording is reported through its own file, since the trace output of every
+   * recorder does not carry the program message.
+   */
+  private void writeAbortMessage() {
+    String abortMessage = ExecutionTracer.getAbortMessage();
+    if (abortMessage != null && agentParams.getAbortFile() != null) {
+      try {
+        FileUtils.writeFile(agentParams.getAbortFile(), abortMessage);
+      } catch (SavRtException e) {
+        AgentLogger.error(e);
+      }
+    }
+  }
+
+  private void storeTraces() throws Exception {
     /* collect trace & store */
     AgentLogger.debug("Building trace dependencies ...");
     //		timer.newPoint("Building trace dependencies");
     // FIXME -mutithread LINYUN [3]
     // LLT: only trace of main thread is recorded.
     List<IExecutionTracer> tracers = ExecutionTracer.getAllThreadStore();
+    if (streamWriter != null) {
+      finishStreaming(tracers);
+      return;
+    }
 
     int size = tracers.size();
     List<Trace> traceList = new ArrayList<>(size);
@@ -68,36 +167,61 @@ public class TraceAgent extends Agent {
       trace.setThreadId(tracer.getThreadId());
       trace.setThreadName(tracer.getThreadName());
       trace.setMain(ExecutionTracer.getMainThreadStore().equals(tracer));
-
-      constructTrace(trace);
+      GlobalFilterChecker.addFilterInfo(trace);
+      StepMismatchChecker.logNormalSteps(trace);
       traceList.add(trace);
     }
+    ExecutionTracer.dispose(); // clear cache
+    if (traceList.isEmpty()) {
+      AgentLogger.info("No trace is recorded!");
+      return;
+    }
+    constructTraces(traceList);
 
     //		timer.newPoint("Saving trace");
     Recorder.create(agentParams).store(traceList);
     //		AgentLogger.debug(timer.getResultString());
   }
 
-  // FIXME this method can be handled in an asynchronized way
-  public void constructTrace(Trace trace) {
-    GlobalFilterChecker.addFilterInfo(trace);
-
-    StepMismatchChecker.logNormalSteps(trace);
+  /**
+   * the remaining steps are flushed and the control scopes of the locations are written, the steps
+   * are linked by the reader (see {@link StreamingTraceWriter}).
+   */
+  private void finishStreaming(List<IExecutionTracer> tracers) throws IOException {
+    List<Trace> traceList = new ArrayList<>(tracers.size());
+    int collectedSteps = 0;
+    for (IExecutionTracer iTracer : tracers) {
+      ExecutionTracer tracer = (ExecutionTracer) iTracer;
+      tracer.flushSteps(true);
+      Trace trace = tracer.getTrace();
+      trace.setThreadId(tracer.getThreadId());
+      trace.setThreadName(tracer.getThreadName());
+      trace.setMain(ExecutionTracer.getMainThreadStore().equals(tracer));
+      GlobalFilterChecker.addFilterInfo(trace);
+      if (trace.isMain()) {
+        collectedSteps = tracer.getStepCount();
+      }
+      traceList.add(trace);
+    }
     ExecutionTracer.dispose(); // clear cache
+    streamWriter.close(
+        traceList, Agent.getProgramMsg(), agentParams.getExpectedSteps(), collectedSteps);
+    AgentLogger.debug("Trace streamed: " + collectedSteps + " steps of main thread.");
+  }
+
+  /**
+   * the traces of the threads are built concurrently, see {@link TraceDependencyBuilder}. With
+   * {@link AgentParams#OPT_STREAMING}, the agent only parses the control scopes of the locations
+   * and the reader links the steps.
+   */
+  public void constructTraces(List<Trace> traceList) {
     long t1 = System.currentTimeMillis();
-    AgentLogger.debug("create VirtualDataRelation....");
-    createVirtualDataRelation(trace);
+    AgentLogger.debug("create VirtualDataRelation & ControlDomianceRelation....");
+    new TraceDependencyBuilder().build(traceList);
     long t2 = System.currentTimeMillis();
-    AgentLogger.debug("time for createVirtualDataRelation: " + (t2 - t1) / 1000);
-
-    // TODO Xuezhi we need to comment the code to build control dependencies here.
-    t1 = System.currentTimeMillis();
-    AgentLogger.debug("construct ControlDomianceRelation....");
-    trace.constructControlDomianceRelation();
-    t2 = System.currentTimeMillis();
+    AgentLogger.debug("time for building trace dependencies: " + (t2 - t1) / 1000);
 
     // trace.constructLoopParentRelation();
-
   }
 
   //	private void writeOutput(Trace trace) throws Exception {
@@ -124,61 +248,6 @@ public class TraceAgent extends Agent {
   //		AgentLogger.debug("Trace saved.");
   //	}
 
-  private void createVirtualDataRelation(Trace trace) {
-    for (int i = 0; i < trace.size(); i++) {
-      int order = i + 1;
-      TraceNode currentNode = trace.getTraceNode(order);
-      if (order < trace.size()) {
-        TraceNode nextNode = trace.getTraceNode(order + 1);
-        currentNode.setStepInNext(nextNode);
-        nextNode.setStepInPrevious(currentNode);
-      } else if (order == trace.size()) {
-        if (order > 1) {
-          TraceNode prevNode = trace.getTraceNode(order - 1);
-          currentNode.setStepInPrevious(prevNode);
-        }
-      }
-
-      TraceNode previousStepOver = currentNode.getStepOverPrevious();
-      if (previousStepOver != null
-          && previousStepOver.getClassCanonicalName().equals(currentNode.getClassCanonicalName())
-          && Math.abs(previousStepOver.getLineNumber() - currentNode.getLineNumber()) <= 0) {
-        for (VarValue readVar : previousStepOver.getReadVariables()) {
-          if (!currentNode.containReadVariable(readVar)) {
-            currentNode.addReadVariable(readVar);
-          }
-        }
-      }
-
-      if (currentNode.getInvocationParent() != null && !currentNode.getPassParameters().isEmpty()) {
-        TraceNode invocationParent = currentNode.getInvocationParent();
-        TraceNode firstChild = invocationParent.getInvocationChildren().get(0);
-        if (firstChild.getOrder() == currentNode.getOrder()) {
-          for (VarValue value : currentNode.getPassParameters()) {
-            invocationParent.addWrittenVariable(value);
-          }
-        }
-      }
-
-      if (currentNode.getInvocationParent() != null
-          && !currentNode.getReturnedVariables().isEmpty()) {
-        TraceNode invocationParent = currentNode.getInvocationParent();
-        TraceNode returnStep = invocationParent.getStepOverNext();
-
-        if (returnStep == null) {
-          returnStep = currentNode.getStepInNext();
-        }
-
-        if (returnStep != null) {
-          for (VarValue value : currentNode.getReturnedVariables()) {
-            currentNode.addWrittenVariable(value);
-            returnStep.addReadVariable(value);
-          }
-        }
-      }
-    }
-  }
-
   public AgentParams getAgentParams() {
     return agentParams;
   }
@@ -197,7 +266,7 @@ public class TraceAgent extends Agent {
 
   @Override
   public TraceTransformer getTransformer0() {
-    return new TraceTransformer(agentParams);
+    return new TraceTransformer(agentParams, classCache);
   }
 
   @Override
@@ -206,13 +275,30 @@ public class TraceAgent extends Agent {
     instrumentation.retransformClasses(retransformableClasses);
   }
 
+  /**
+   * in daemon mode, the traces of the test are stored with its result to the dump file, which the
+   * runner reads before sending the next test, and the tracers are reset for the next test.
+   */
   @Override
   public void exitTest(String testResultMsg, String junitClass, String junitMethod, long threadId) {
-    // do nothing, not used.
+    if (!agentParams.isDaemon()) {
+      return;
+    }
+    ExecutionTracer.shutdown();
+    Agent.setProgramMsg(testResultMsg);
+    try {
+      storeTraces();
+    } catch (Exception e) {
+      AgentLogger.error(e);
+    } finally {
+      ExecutionTracer.reset();
+      initTraceBudget();
+    }
   }
 
   @Override
   public boolean isInstrumentationActive0() {
-    return !ExecutionTracer.isShutdown();
+    /* a daemon loads the classes of the next test while tracing is shut down */
+    return agentParams.isDaemon() || !ExecutionTracer.isShutdown();
   }
 }
@@ -1,14 +1,20 @@
 package microbat.instrumentation.cfgcoverage;
 
+import java.util.HashMap;
+import java.util.List;
+
 import microbat.instrumentation.cfgcoverage.CoverageAgent.ICoverageTracerHandler;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
 import microbat.instrumentation.cfgcoverage.runtime.AgentRuntimeData;
+import microbat.instrumentation.cfgcoverage.runtime.MethodExecutionData;
 
 public class BranchCoverageTracerHandler implements ICoverageTracerHandler {
 
   @Override
   public CoverageOutput getCoverageOutput() {
     CoverageSFlowGraph coverageGraph = AgentRuntimeData.coverageFlowGraph;
+    /* branch coverage has no input data */
+    AgentRuntimeData.mergeCoverageShards(new HashMap<Integer, List<MethodExecutionData>>());
     CoverageOutput coverageOutput = new CoverageOutput(coverageGraph);
     return coverageOutput;
   }
@@ -17,5 +23,6 @@ public class BranchCoverageTracerHandler implements ICoverageTracerHandler {
   public void reset() {
     AgentRuntimeData.coverageFlowGraph.clearData();
     AgentRuntimeData.currentTestIdxMap.clear();
+    AgentRuntimeData.clearCoverageShards();
   }
 }
@@ -20,6 +20,7 @@ public class CFGCoverageHandler implements ICoverageTracerHandler {
   @Override
   public CoverageOutput getCoverageOutput() {
     CoverageSFlowGraph coverageGraph = AgentRuntimeData.coverageFlowGraph;
+    AgentRuntimeData.mergeCoverageShards(CoverageTracer.methodExecsOnASingleTcMap);
     Map<List<Integer>, List<Integer>> pathMap = new HashMap<>(); // path to tcs
     for (Entry<Integer, List<MethodExecutionData>> entry :
         CoverageTracer.methodExecsOnASingleTcMap.entrySet()) {
@@ -51,5 +52,6 @@ public class CFGCoverageHandler implements ICoverageTracerHandler {
     AgentRuntimeData.coverageFlowGraph.clearData();
     CoverageTracer.methodExecsOnASingleTcMap.clear();
     CoverageTracer.rtStore.clear();
+    AgentRuntimeData.clearCoverageShards();
   }
 }
@@ -1,5 +1,6 @@
 package microbat.instrumentation.cfgcoverage;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.instrument.ClassFileTransformer;
@@ -9,6 +10,7 @@ import microbat.instrumentation.Agent;
 import microbat.instrumentation.AgentLogger;
 import microbat.instrumentation.CommandLine;
 import microbat.instrumentation.cfgcoverage.CoverageAgentParams.CoverageCollectionType;
+import microbat.instrumentation.cfgcoverage.graph.CoverageGraphCache;
 import microbat.instrumentation.cfgcoverage.graph.CoverageGraphConstructor;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
 import microbat.instrumentation.cfgcoverage.instr.CoverageInstrumenter;
@@ -50,6 +52,9 @@ public class CoverageAgent extends Agent {
     GlobalFilterChecker.setup(appClasspath, null, null);
     ValueExtractor.variableLayer = agentParams.getVarLayer();
     CoverageGraphConstructor constructor = new CoverageGraphConstructor();
+    if (agentParams.getGraphCacheDir() != null) {
+      constructor.setGraphCache(new CoverageGraphCache(new File(agentParams.getGraphCacheDir())));
+    }
     CoverageSFlowGraph coverageFlowGraph =
         constructor.buildCoverageGraph(
             appClasspath,
@@ -100,7 +105,7 @@ public class CoverageAgent extends Agent {
   public void startTest(String junitClass, String junitMethod) {
     String testcase = InstrumentationUtils.getMethodId(junitClass, junitMethod);
     int testIdx = AgentRuntimeData.coverageFlowGraph.addCoveredTestcase(testcase);
-    AgentRuntimeData.currentTestIdxMap.put(Thread.currentThread().getId(), testIdx);
+    AgentRuntimeData.startTest(Thread.currentThread().getId(), testIdx, testcase);
     AgentLogger.debug(String.format("Start testcase %s, testIdx=%s", testcase, testIdx));
   }
 
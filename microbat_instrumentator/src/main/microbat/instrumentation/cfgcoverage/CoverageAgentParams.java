@@ -21,6 +21,7 @@ public class CoverageAgentParams extends CommonParams {
   public static final String OPT_INCLUSIVE_METHOD_IDS = "inclusive_method_ids";
   public static final String OPT_VARIABLE_LAYER = "varLayer";
   public static final String OPT_COLLECT_CONDITION_VARIATION = "collect_cond_variation";
+  public static final String OPT_GRAPH_CACHE_DIR = "graph_cache_dir";
 
   private ClassLocation targetMethodLoc;
   private List<String> classPaths;
@@ -30,6 +31,7 @@ public class CoverageAgentParams extends CommonParams {
   private int varLayer;
   private boolean collectConditionVariation;
   private CoverageCollectionType coverageType;
+  private String graphCacheDir;
 
   public CoverageAgentParams() {}
 
@@ -45,6 +47,7 @@ public class CoverageAgentParams extends CommonParams {
     coverageType =
         CoverageCollectionType.valueOf(
             cmd.getString(OPT_COVERAGE_COLLECTION_TYPE), CoverageCollectionType.BRANCH_COVERAGE);
+    graphCacheDir = cmd.getString(OPT_GRAPH_CACHE_DIR);
   }
 
   public ClassLocation getTargetMethod() {
@@ -123,6 +126,15 @@ public class CoverageAgentParams extends CommonParams {
     this.coverageType = coverageType;
   }
 
+  /** @return the folder built coverage graphs are kept in across runs, null to not keep them. */
+  public String getGraphCacheDir() {
+    return graphCacheDir;
+  }
+
+  public void setGraphCacheDir(String graphCacheDir) {
+    this.graphCacheDir = graphCacheDir;
+  }
+
   /** There are two modes to run code coverage. BRANCH_COVERAGE: UNCIRCLE_CFG_COVERAGE: */
   public static enum CoverageCollectionType {
     BRANCH_COVERAGE,
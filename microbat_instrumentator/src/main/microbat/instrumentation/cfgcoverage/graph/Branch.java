@@ -99,6 +99,12 @@ public class Branch implements Serializable {
     return branchCond;
   }
 
+  /** for a graph restored without its CFG, see {@link CoverageGraphCache}. */
+  void setBranchCondition(BranchType branchType, BranchCondition branchCond) {
+    this.branchType = branchType;
+    this.branchCond = branchCond;
+  }
+
   public boolean isCovered() {
     return this.getFromNode().getCoveredBranches().contains(this.getToNode());
   }
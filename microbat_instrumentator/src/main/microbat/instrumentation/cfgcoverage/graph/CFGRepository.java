@@ -4,7 +4,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.bcel.Repository;
 import org.apache.bcel.classfile.Method;
@@ -23,6 +27,11 @@ import sav.common.core.utils.SignatureUtils;
 import sav.strategies.dto.AppJavaClassPath;
 
 public class CFGRepository {
+  /* ByteCodeParser sets the class path of the jvm and the bcel repository while parsing */
+  private static final Object PARSER_LOCK = new Object();
+  /* methodLocation -> method, or null if it cannot be found */
+  private final Map<String, Method> methods = new HashMap<>();
+  private final Set<String> parsedClasses = new LinkedHashSet<>();
 
   public CFGInstance createCfgInstance(
       ClassLocation methodLocation, AppJavaClassPath appJavaClassPath) {
@@ -46,14 +55,7 @@ public class CFGRepository {
     String methodId =
         InstrumentationUtils.getMethodId(
             methodLocation.getClassCanonicalName(), methodLocation.getMethodSign());
-    ByteCodeMethodFinder finder;
-    if (methodLocation.getLineNumber() >= 0) {
-      finder = new MethodFinderByLine(methodLocation);
-    } else {
-      finder = new MethodFinderByMethodSignature(methodLocation);
-    }
-    ByteCodeParser.parse(methodLocation.getClassCanonicalName(), finder, appJavaClassPath);
-    Method method = finder.getMethod();
+    Method method = findMethod(methodLocation, appJavaClassPath);
     if (method == null || method.isAbstract() || (method.getCode() == null)) {
       AgentLogger.debug(String.format("Cannot find method: %s", methodId));
       return new CFGInstance(null, methodId, Collections.<CFGNode>emptyList());
@@ -82,8 +84,46 @@ public class CFGRepository {
     return new CFGInstance(cfg, methodId, nodeList);
   }
 
+  /**
+   * the method is looked up once per location, as the same methods are reached from many call
+   * sites. CFGs can be built from it by several threads, but the lookup itself is serialized.
+   */
+  private Method findMethod(ClassLocation methodLocation, AppJavaClassPath appJavaClassPath) {
+    String key =
+        methodLocation.getClassCanonicalName()
+            + "#"
+            + methodLocation.getMethodSign()
+            + ":"
+            + methodLocation.getLineNumber();
+    synchronized (PARSER_LOCK) {
+      if (methods.containsKey(key)) {
+        return methods.get(key);
+      }
+      ByteCodeMethodFinder finder;
+      if (methodLocation.getLineNumber() >= 0) {
+        finder = new MethodFinderByLine(methodLocation);
+      } else {
+        finder = new MethodFinderByMethodSignature(methodLocation);
+      }
+      ByteCodeParser.parse(methodLocation.getClassCanonicalName(), finder, appJavaClassPath);
+      parsedClasses.add(methodLocation.getClassCanonicalName());
+      methods.put(key, finder.getMethod());
+      return finder.getMethod();
+    }
+  }
+
+  /** @return the classes parsed to find the methods of the built CFGs. */
+  public Set<String> getParsedClasses() {
+    synchronized (PARSER_LOCK) {
+      return new LinkedHashSet<>(parsedClasses);
+    }
+  }
+
   public void clearCache() {
     Repository.clearCache();
+    synchronized (PARSER_LOCK) {
+      methods.clear();
+    }
   }
 
   private static class MethodFinderByMethodSignature extends ByteCodeMethodFinder {
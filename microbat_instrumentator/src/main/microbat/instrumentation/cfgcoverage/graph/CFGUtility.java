@@ -5,6 +5,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import org.apache.bcel.generic.ATHROW;
 import org.apache.bcel.generic.ConstantPoolGen;
@@ -24,33 +28,71 @@ import sav.strategies.dto.AppJavaClassPath;
 public class CFGUtility {
   private CFGRepository cfgCreator = new CFGRepository();
   private List<String> inclusiveMethodIds;
+  private Map<String, Boolean> appClasses = new ConcurrentHashMap<>();
 
+  /**
+   * The CFG of every call site is built by a task of its own on a fork join pool, each call site
+   * getting its own copy of the CFG of the invoked method as it is glued into the caller. The
+   * sub CFGs are glued in the order of the call sites once they are all built, so that the node
+   * indexes are the same as when the graph is built by a single thread.
+   */
   public CFGInstance buildProgramFlowGraph(
       AppJavaClassPath appClasspath, ClassLocation targetMethod, int cfgExtensionLayer) {
-    CFGInstance cfg = buildProgramFlowGraph(appClasspath, targetMethod, 1, cfgExtensionLayer);
-    cfg.setCfgExtensionLayer(cfgExtensionLayer);
-    return cfg;
+    List<String> appBinFolders = ApplicationUtility.lookupAppBinaryFolders(appClasspath);
+    ForkJoinPool pool = new ForkJoinPool();
+    try {
+      CFGInstance cfg =
+          pool.invoke(
+              new BuildFlowGraphTask(
+                  appClasspath, appBinFolders, targetMethod, 1, cfgExtensionLayer));
+      cfg.setCfgExtensionLayer(cfgExtensionLayer);
+      return cfg;
+    } finally {
+      pool.shutdown();
+    }
   }
 
-  private CFGInstance buildProgramFlowGraph(
-      AppJavaClassPath appClasspath, ClassLocation targetMethod, int layer, int maxLayer) {
-    String methodId =
-        InstrumentationUtils.getMethodId(
-            targetMethod.getClassCanonicalName(), targetMethod.getMethodSign());
-    if (!CollectionUtils.isEmpty(inclusiveMethodIds) && !inclusiveMethodIds.contains(methodId)) {
-      return new CFGInstance(null, methodId, Collections.<CFGNode>emptyList());
+  private class BuildFlowGraphTask extends RecursiveTask<CFGInstance> {
+    private static final long serialVersionUID = 1L;
+    private AppJavaClassPath appClasspath;
+    private List<String> appBinFolders;
+    private ClassLocation targetMethod;
+    private int layer;
+    private int maxLayer;
+
+    public BuildFlowGraphTask(
+        AppJavaClassPath appClasspath,
+        List<String> appBinFolders,
+        ClassLocation targetMethod,
+        int layer,
+        int maxLayer) {
+      this.appClasspath = appClasspath;
+      this.appBinFolders = appBinFolders;
+      this.targetMethod = targetMethod;
+      this.layer = layer;
+      this.maxLayer = maxLayer;
     }
 
-    CFGInstance cfg = cfgCreator.createCfgInstance(targetMethod, appClasspath);
-    List<String> appBinFolders = ApplicationUtility.lookupAppBinaryFolders(appClasspath);
-    if (layer < maxLayer) {
+    @Override
+    protected CFGInstance compute() {
+      String methodId =
+          InstrumentationUtils.getMethodId(
+              targetMethod.getClassCanonicalName(), targetMethod.getMethodSign());
+      if (!CollectionUtils.isEmpty(inclusiveMethodIds)
+          && !inclusiveMethodIds.contains(methodId)) {
+        return new CFGInstance(null, methodId, Collections.<CFGNode>emptyList());
+      }
+
+      CFGInstance cfg = cfgCreator.createCfgInstance(targetMethod, appClasspath);
+      if (layer >= maxLayer) {
+        return cfg;
+      }
       List<CFGNode> invokeNodes = new ArrayList<>();
+      List<BuildFlowGraphTask> subTasks = new ArrayList<>();
       for (CFGNode node : cfg.getNodeList()) {
-        if (node.getInstructionHandle().getInstruction() instanceof InvokeInstruction) {
-          invokeNodes.add(node);
+        if (!(node.getInstructionHandle().getInstruction() instanceof InvokeInstruction)) {
+          continue;
         }
-      }
-      for (CFGNode node : invokeNodes) {
         ConstantPoolGen cpg = new ConstantPoolGen(cfg.getCfg().getMethod().getConstantPool());
         InvokeInstruction methodInsn =
             (InvokeInstruction) node.getInstructionHandle().getInstruction();
@@ -60,24 +102,41 @@ public class CFGUtility {
                 methodInsn.getMethodName(cpg), methodInsn.getSignature(cpg));
         if (isApplicationClass(appBinFolders, invkClassName)) {
           ClassLocation invokeMethod = new ClassLocation(invkClassName, invkMethodName, -1);
-          CFGInstance subCfg =
-              buildProgramFlowGraph(appClasspath, invokeMethod, layer + 1, maxLayer);
-          glueCfg(cfg, node, subCfg);
+          BuildFlowGraphTask subTask =
+              new BuildFlowGraphTask(
+                  appClasspath, appBinFolders, invokeMethod, layer + 1, maxLayer);
+          subTask.fork();
+          invokeNodes.add(node);
+          subTasks.add(subTask);
         }
       }
+      for (int i = 0; i < invokeNodes.size(); i++) {
+        glueCfg(cfg, invokeNodes.get(i), subTasks.get(i).join());
+      }
+      return cfg;
     }
-    return cfg;
   }
 
   private boolean isApplicationClass(List<String> appBinFolders, String className) {
-    for (String appBinFolder : appBinFolders) {
-      String classFilePath = ClassUtils.getClassFilePath(appBinFolder, className);
-      File classFile = new File(classFilePath);
-      if (classFile.exists()) {
-        return true;
+    Boolean isAppClass = appClasses.get(className);
+    if (isAppClass == null) {
+      isAppClass = false;
+      for (String appBinFolder : appBinFolders) {
+        String classFilePath = ClassUtils.getClassFilePath(appBinFolder, className);
+        File classFile = new File(classFilePath);
+        if (classFile.exists()) {
+          isAppClass = true;
+          break;
+        }
       }
+      appClasses.put(className, isAppClass);
     }
-    return false;
+    return isAppClass;
+  }
+
+  /** @return the classes of the methods of the CFGs built so far. */
+  public Set<String> getParsedClasses() {
+    return cfgCreator.getParsedClasses();
   }
 
   private void glueCfg(CFGInstance cfgInstance, CFGNode node, CFGInstance subCfgInstance) {
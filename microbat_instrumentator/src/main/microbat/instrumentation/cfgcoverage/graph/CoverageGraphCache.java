@@ -0,0 +1,267 @@
+package microbat.instrumentation.cfgcoverage.graph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import microbat.instrumentation.AgentLogger;
+import microbat.instrumentation.cfgcoverage.graph.CFGInstance.UniqueNodeId;
+import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode.Type;
+import microbat.instrumentation.instr.InstrumentedClassCache;
+import microbat.instrumentation.output.OutputReader;
+import microbat.instrumentation.output.OutputWriter;
+import microbat.model.ClassLocation;
+import sav.common.core.utils.ClassUtils;
+import sav.strategies.dto.AppJavaClassPath;
+
+/**
+ * Keeps built coverage graphs on disk, so that the agent does not build the CFGs of the target
+ * method and of the methods it reaches on every launch. An entry is keyed by the target method,
+ * the cdg layer, the inclusive methods, whether circles are broken and the agent jar, and holds a
+ * hash of the class file of every class parsed to build it. The entry is only used if none of
+ * these class files has changed.
+ *
+ * <p>The CFG of a graph is not kept, the branch type and condition of each branch of a conditional
+ * node, which are computed from it, are kept instead.
+ */
+public class CoverageGraphCache {
+  private static final int MAGIC = 0x4d424347;
+  private static final int VERSION = 1;
+  private static final String FILE_SUFFIX = ".graph-cache";
+
+  private final File cacheDir;
+
+  public CoverageGraphCache(File cacheDir) {
+    this.cacheDir = cacheDir;
+    cacheDir.mkdirs();
+  }
+
+  public String getKey(
+      ClassLocation targetMethod,
+      int cdgLayer,
+      List<String> inclusiveMethodIds,
+      boolean breakCircle) {
+    MessageDigest digest = newDigest();
+    update(digest, targetMethod.getClassCanonicalName());
+    update(digest, targetMethod.getMethodSign());
+    update(digest, String.valueOf(targetMethod.getLineNumber()));
+    update(digest, String.valueOf(cdgLayer));
+    update(digest, String.valueOf(inclusiveMethodIds));
+    update(digest, String.valueOf(breakCircle));
+    update(digest, InstrumentedClassCache.getAgentJarStamp());
+    return toHex(digest.digest());
+  }
+
+  /**
+   * @return the graph of the key, or null if there is none, it cannot be read or a class it was
+   *     built from has changed.
+   */
+  public CoverageSFlowGraph load(String key, AppJavaClassPath appClasspath) {
+    File file = new File(cacheDir, key + FILE_SUFFIX);
+    if (!file.isFile()) {
+      return null;
+    }
+    try (OutputReader in =
+        new OutputReader(new BufferedInputStream(new FileInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        return null;
+      }
+      int classCount = in.readVarInt();
+      for (int i = 0; i < classCount; i++) {
+        String className = in.readString();
+        String hash = in.readString();
+        if (!hash.equals(hashClassFile(appClasspath, className))) {
+          AgentLogger.debug("Coverage graph cache is out of date, " + className + " has changed");
+          return null;
+        }
+      }
+      return readGraph(in);
+    } catch (IOException | RuntimeException e) {
+      AgentLogger.debug("Cannot read coverage graph cache " + file + ": " + e.getMessage());
+      return null;
+    }
+  }
+
+  /** @param classNames the classes parsed to build the graph. */
+  public void save(
+      String key, CoverageSFlowGraph graph, Set<String> classNames, AppJavaClassPath appClasspath) {
+    Map<String, String> classHashes = new LinkedHashMap<>();
+    for (String className : classNames) {
+      String hash = hashClassFile(appClasspath, className);
+      if (hash == null) {
+        /* a class out of the class folders, e.g. in a jar, cannot be checked */
+        AgentLogger.debug("Coverage graph is not cached, no class file for " + className);
+        return;
+      }
+      classHashes.put(className, hash);
+    }
+    File tempFile = null;
+    try {
+      tempFile = File.createTempFile(key, ".tmp", cacheDir);
+      try (OutputWriter out =
+          new OutputWriter(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeVarInt(classHashes.size());
+        for (Entry<String, String> entry : classHashes.entrySet()) {
+          out.writeString(entry.getKey());
+          out.writeString(entry.getValue());
+        }
+        writeGraph(out, graph);
+      }
+      Files.move(
+          tempFile.toPath(),
+          new File(cacheDir, key + FILE_SUFFIX).toPath(),
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException | RuntimeException e) {
+      AgentLogger.debug("Cannot write coverage graph cache: " + e.getMessage());
+      if (tempFile != null) {
+        tempFile.delete();
+      }
+    }
+  }
+
+  void writeGraph(OutputWriter out, CoverageSFlowGraph graph) throws IOException {
+    out.writeVarInt(graph.getCfgSize());
+    out.writeVarInt(graph.getExtensionLayer());
+    Map<String, Integer> methodIdxies = new HashMap<>();
+    List<String> methodIds = new ArrayList<>();
+    for (CoverageSFNode node : graph.getNodeList()) {
+      for (UniqueNodeId nodeId : new UniqueNodeId[] {node.getStartNodeId(), node.getEndNodeId()}) {
+        if (!methodIdxies.containsKey(nodeId.getMethodId())) {
+          methodIdxies.put(nodeId.getMethodId(), methodIds.size());
+          methodIds.add(nodeId.getMethodId());
+        }
+      }
+    }
+    out.writeListString(methodIds);
+    out.writeVarInt(graph.size());
+    for (CoverageSFNode node : graph.getNodeList()) {
+      out.writeVarInt(node.getType().ordinal());
+      out.writeVarInt(node.getStartIdx());
+      out.writeListInt(node.getContent());
+      writeNodeId(out, node.getStartNodeId(), methodIdxies);
+      writeNodeId(out, node.getEndNodeId(), methodIdxies);
+    }
+    for (CoverageSFNode node : graph.getNodeList()) {
+      out.writeVarInt(node.getBranchTargets().size());
+      for (CoverageSFNode branchTarget : node.getBranchTargets()) {
+        out.writeVarInt(branchTarget.getCvgIdx());
+        if (node.isConditionalNode()) {
+          Branch branch = Branch.of(node, branchTarget);
+          out.writeVarInt(branch.getBranchType().ordinal());
+          BranchCondition cond = branch.getBranchCondition();
+          out.writeVarInt(cond == null ? 0 : cond.ordinal() + 1);
+        }
+      }
+    }
+    out.writeVarInt(graph.getStartNode().getCvgIdx());
+  }
+
+  private static void writeNodeId(
+      OutputWriter out, UniqueNodeId nodeId, Map<String, Integer> methodIdxies)
+      throws IOException {
+    out.writeVarInt(methodIdxies.get(nodeId.getMethodId()));
+    out.writeVarInt(nodeId.getLocalNodeIdx());
+    out.writeVarInt(nodeId.getLine());
+  }
+
+  CoverageSFlowGraph readGraph(OutputReader in) throws IOException {
+    CoverageSFlowGraph graph = new CoverageSFlowGraph(in.readVarInt());
+    graph.setCdgLayer(in.readVarInt());
+    List<String> methodIds = in.readListString();
+    int size = in.readVarInt();
+    List<CoverageSFNode> nodeList = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      CoverageSFNode node = new CoverageSFNode(i, graph);
+      node.setType(Type.values()[in.readVarInt()]);
+      node.setStartIdx(in.readVarInt());
+      List<Integer> content = in.readListInt();
+      node.setContent(content.isEmpty() ? null : content);
+      node.setBlockScope();
+      node.setStartNodeId(readNodeId(in, methodIds));
+      node.setEndNodeId(readNodeId(in, methodIds));
+      nodeList.add(node);
+    }
+    graph.setNodeList(nodeList);
+    for (CoverageSFNode node : nodeList) {
+      int branchCount = in.readVarInt();
+      for (int i = 0; i < branchCount; i++) {
+        CoverageSFNode branchTarget = nodeList.get(in.readVarInt());
+        node.addBranch(branchTarget);
+        if (node.isConditionalNode()) {
+          BranchType type = BranchType.values()[in.readVarInt()];
+          int cond = in.readVarInt();
+          Branch.of(node, branchTarget)
+              .setBranchCondition(type, cond == 0 ? null : BranchCondition.values()[cond - 1]);
+        }
+      }
+      if (branchCount == 0) {
+        graph.addExitNode(node);
+      }
+    }
+    graph.setStartNode(nodeList.get(in.readVarInt()));
+    return graph;
+  }
+
+  private static UniqueNodeId readNodeId(OutputReader in, List<String> methodIds)
+      throws IOException {
+    String methodId = methodIds.get(in.readVarInt());
+    int localNodeIdx = in.readVarInt();
+    return new UniqueNodeId(methodId, localNodeIdx, in.readVarInt());
+  }
+
+  /** @return the hash of the class file of the class in a class folder, null if there is none. */
+  private static String hashClassFile(AppJavaClassPath appClasspath, String className) {
+    for (String classpath : appClasspath.getClasspaths()) {
+      File classFile = new File(ClassUtils.getClassFilePath(classpath, className));
+      if (classFile.isFile()) {
+        try {
+          MessageDigest digest = newDigest();
+          digest.update(Files.readAllBytes(classFile.toPath()));
+          return toHex(digest.digest());
+        } catch (IOException e) {
+          return null;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder();
+    for (byte b : bytes) {
+      hex.append(String.format("%02x", b));
+    }
+    return hex.toString();
+  }
+}
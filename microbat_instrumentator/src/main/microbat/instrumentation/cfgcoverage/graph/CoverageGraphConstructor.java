@@ -8,6 +8,7 @@ import java.util.Stack;
 import org.apache.bcel.generic.InvokeInstruction;
 
 import microbat.codeanalysis.bytecode.CFGNode;
+import microbat.instrumentation.AgentLogger;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode.Type;
 import microbat.model.ClassLocation;
 import sav.common.core.SavRtException;
@@ -19,6 +20,7 @@ import sav.strategies.dto.AppJavaClassPath;
  */
 public class CoverageGraphConstructor {
   private CFGUtility cfgUtility = new CFGUtility();
+  private CoverageGraphCache graphCache;
 
   public CoverageSFlowGraph buildCoverageGraph(
       AppJavaClassPath appClasspath,
@@ -26,12 +28,25 @@ public class CoverageGraphConstructor {
       int cdgLayer,
       List<String> inclusiveMethodIds,
       boolean breakCircle) {
+    String cacheKey = null;
+    if (graphCache != null) {
+      cacheKey = graphCache.getKey(targetMethod, cdgLayer, inclusiveMethodIds, breakCircle);
+      CoverageSFlowGraph coverageGraph = graphCache.load(cacheKey, appClasspath);
+      if (coverageGraph != null) {
+        AgentLogger.debug("Coverage graph is loaded from cache");
+        return coverageGraph;
+      }
+    }
     cfgUtility.setInclusiveMethodIds(inclusiveMethodIds);
     CFGInstance cfg = cfgUtility.buildProgramFlowGraph(appClasspath, targetMethod, cdgLayer);
     if (breakCircle) {
       cfgUtility.breakCircle(cfg);
     }
-    return buildCoverageGraph(cfg);
+    CoverageSFlowGraph coverageGraph = buildCoverageGraph(cfg);
+    if (graphCache != null) {
+      graphCache.save(cacheKey, coverageGraph, cfgUtility.getParsedClasses(), appClasspath);
+    }
+    return coverageGraph;
   }
 
   public CoverageSFlowGraph buildCoverageGraph(CFGInstance cfg) {
@@ -118,4 +133,8 @@ public class CoverageGraphConstructor {
     }
     return coverageGraph;
   }
+
+  public void setGraphCache(CoverageGraphCache graphCache) {
+    this.graphCache = graphCache;
+  }
 }
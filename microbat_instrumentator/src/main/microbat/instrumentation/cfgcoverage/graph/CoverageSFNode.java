@@ -19,12 +19,22 @@ import microbat.instrumentation.utils.CollectionUtils;
 public class CoverageSFNode implements IGraphNode<CoverageSFNode> {
   private CoverageSFlowGraph graph; // for debug
   private static final int INVALID_IDX = -1;
+  private static final int MAX_BRANCH_TABLE_SIZE = 64;
   private int cvgIdx;
   private int startIdx = INVALID_IDX;
   private int endIdx = INVALID_IDX;
   private UniqueNodeId startNodeId;
   private UniqueNodeId endNodeId; // probeNode
   private Type type;
+  private int probeId = INVALID_IDX;
+  /* the index of the branch to branchTargets[0] among all branches of the graph */
+  private int firstBranchIdx;
+  /* branchTable[probeId - branchTableOffset] = the first position in branchTargets with the probe
+   * id, or -1 */
+  private int[] branchTable;
+  private int branchTableOffset;
+  /* for branch targets too far apart in probe ids to be indexed without a large table */
+  private int[] branchProbeIds;
 
   private List<CoverageSFNode> branchTargets = new ArrayList<>(2);
   private List<CoverageSFNode> parents = new ArrayList<>(2);
@@ -91,6 +101,80 @@ public class CoverageSFNode implements IGraphNode<CoverageSFNode> {
     return null;
   }
 
+  /**
+   * @return the branch target whose probe has the given id (see {@link
+   *     CoverageSFlowGraph#assignProbeIds()}), or null if there is none.
+   */
+  public CoverageSFNode getBranchByProbe(int probeId) {
+    int pos = getBranchPosition(probeId);
+    return pos < 0 ? null : branchTargets.get(pos);
+  }
+
+  /**
+   * @return the index among all branches of the graph of the branch to the target whose probe has
+   *     the given id, or -1 if there is none.
+   */
+  public int getBranchIdxByProbe(int probeId) {
+    int pos = getBranchPosition(probeId);
+    return pos < 0 ? -1 : firstBranchIdx + pos;
+  }
+
+  private int getBranchPosition(int probeId) {
+    if (branchProbeIds != null) {
+      for (int i = 0; i < branchProbeIds.length; i++) {
+        if (branchProbeIds[i] == probeId) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    int idx = probeId - branchTableOffset;
+    if (idx < 0 || idx >= branchTable.length) {
+      return -1;
+    }
+    return branchTable[idx];
+  }
+
+  void buildBranchTable(int firstBranchIdx) {
+    this.firstBranchIdx = firstBranchIdx;
+    branchProbeIds = null;
+    if (branchTargets.isEmpty()) {
+      branchTable = new int[0];
+      return;
+    }
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    for (CoverageSFNode branch : branchTargets) {
+      min = Math.min(min, branch.probeId);
+      max = Math.max(max, branch.probeId);
+    }
+    if (max - min >= MAX_BRANCH_TABLE_SIZE) {
+      branchProbeIds = new int[branchTargets.size()];
+      for (int i = 0; i < branchProbeIds.length; i++) {
+        branchProbeIds[i] = branchTargets.get(i).probeId;
+      }
+      return;
+    }
+    branchTableOffset = min;
+    branchTable = new int[max - min + 1];
+    Arrays.fill(branchTable, -1);
+    for (int i = branchTargets.size() - 1; i >= 0; i--) {
+      branchTable[branchTargets.get(i).probeId - min] = i;
+    }
+  }
+
+  public int getFirstBranchIdx() {
+    return firstBranchIdx;
+  }
+
+  public int getProbeId() {
+    return probeId;
+  }
+
+  void setProbeId(int probeId) {
+    this.probeId = probeId;
+  }
+
   public boolean isCovered() {
     return !CollectionUtils.isEmpty(coveredTestcases);
   }
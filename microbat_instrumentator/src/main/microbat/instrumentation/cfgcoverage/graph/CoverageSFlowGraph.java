@@ -8,6 +8,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import microbat.instrumentation.cfgcoverage.graph.CFGInstance.UniqueNodeId;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode.Type;
 
 /**
@@ -25,6 +26,10 @@ public class CoverageSFlowGraph implements IGraph<CoverageSFNode> {
   private int cfgSize;
   private List<CoveragePath> coveragePaths;
   private Map<String, Branch> cachedBranches = new HashMap<>();
+  /* probeNodeIds[probeId] = the cfg node at which the probe of the id is injected */
+  private List<UniqueNodeId> probeNodeIds;
+  /* branchSources[branchIdx] = the node the branch of the index starts from */
+  private CoverageSFNode[] branchSources;
 
   public CoverageSFlowGraph(int cfgSize) {
     this.cfgSize = cfgSize;
@@ -61,7 +66,7 @@ public class CoverageSFlowGraph implements IGraph<CoverageSFNode> {
     return nodeList;
   }
 
-  public int addCoveredTestcase(String testcase) {
+  public synchronized int addCoveredTestcase(String testcase) {
     coveredTestcases.add(testcase);
     return coveredTestcases.size() - 1;
   }
@@ -184,6 +189,61 @@ public class CoverageSFlowGraph implements IGraph<CoverageSFNode> {
     return branch;
   }
 
+  /**
+   * Gives each distinct probe node of the graph a dense int id, and builds on these ids the branch
+   * table of every node, so that the tracer follows a branch by the id the instrumented code passes
+   * instead of matching method ids. The branches of the graph are numbered as well, see {@link
+   * CoverageSFNode#getBranchIdxByProbe(int)}.
+   */
+  public void assignProbeIds() {
+    probeNodeIds = new ArrayList<>();
+    Map<String, Map<Integer, Integer>> probeIds = new HashMap<>();
+    for (CoverageSFNode node : nodeList) {
+      UniqueNodeId probeNodeId = node.getProbeNodeId();
+      Map<Integer, Integer> methodProbeIds = probeIds.get(probeNodeId.getMethodId());
+      if (methodProbeIds == null) {
+        methodProbeIds = new HashMap<>();
+        probeIds.put(probeNodeId.getMethodId(), methodProbeIds);
+      }
+      Integer probeId = methodProbeIds.get(probeNodeId.getLocalNodeIdx());
+      if (probeId == null) {
+        probeId = probeNodeIds.size();
+        probeNodeIds.add(probeNodeId);
+        methodProbeIds.put(probeNodeId.getLocalNodeIdx(), probeId);
+      }
+      node.setProbeId(probeId);
+    }
+    List<CoverageSFNode> sources = new ArrayList<>();
+    for (CoverageSFNode node : nodeList) {
+      node.buildBranchTable(sources.size());
+      for (int i = 0; i < node.getBranchTargets().size(); i++) {
+        sources.add(node);
+      }
+    }
+    branchSources = sources.toArray(new CoverageSFNode[sources.size()]);
+  }
+
+  public int getBranchCount() {
+    return branchSources.length;
+  }
+
+  public CoverageSFNode getBranchSource(int branchIdx) {
+    return branchSources[branchIdx];
+  }
+
+  public CoverageSFNode getBranchTarget(int branchIdx) {
+    CoverageSFNode source = branchSources[branchIdx];
+    return source.getBranchTargets().get(branchIdx - source.getFirstBranchIdx());
+  }
+
+  public UniqueNodeId getProbeNodeId(int probeId) {
+    return probeNodeIds.get(probeId);
+  }
+
+  public int getProbeCount() {
+    return probeNodeIds.size();
+  }
+
   public Set<Branch> getAllBranches() {
     Set<Branch> branches = new HashSet<>();
     for (CoverageSFNode decisionNode : getDecisionNodes()) {
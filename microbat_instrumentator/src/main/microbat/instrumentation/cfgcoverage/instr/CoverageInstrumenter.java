@@ -127,7 +127,7 @@ public class CoverageInstrumenter extends AbstractInstrumenter {
     LocalVariableGen methodIdVar = createLocalVariable(METHOD_ID_VAR_NAME, methodGen, constPool);
     LocalVariableGen tracerVar = createLocalVariable(TRACER_VAR_NAME, methodGen, constPool);
     for (InstructionInfo instnInfo : instmInsns.getNodeInsns()) {
-      injectCodeTracerReachNode(methodIdVar, instnInfo, tracerVar, constPool, insnList);
+      injectCodeTracerReachNode(instnInfo, tracerVar, constPool, insnList);
     }
     if (agentParams.collectConditionVariation()) {
       for (InstructionInfo cmpInsnInfo : instmInsns.getNotIntCmpInIfInsns()) {
@@ -290,7 +290,6 @@ public class CoverageInstrumenter extends AbstractInstrumenter {
   }
 
   private void injectCodeTracerReachNode(
-      LocalVariableGen methodIdVar,
       InstructionInfo instnInfo,
       LocalVariableGen tracerVar,
       ConstantPoolGen constPool,
@@ -298,8 +297,7 @@ public class CoverageInstrumenter extends AbstractInstrumenter {
     CoverageTracerMethods method = CoverageTracerMethods.REACH_NODE;
     InstructionList newInsns = new InstructionList();
     newInsns.append(new ALOAD(tracerVar.getIndex()));
-    newInsns.append(new ALOAD(methodIdVar.getIndex()));
-    newInsns.append(new PUSH(constPool, instnInfo.getInsnIdx()));
+    newInsns.append(new PUSH(constPool, instnInfo.getProbeId()));
     appendTracerMethodInvoke(newInsns, method, constPool);
     insertInsnHandler(insnList, newInsns, instnInfo.getInsnHandler());
     newInsns.dispose();
@@ -53,8 +53,8 @@ public enum CoverageTracerMethods {
       true,
       "microbat/instrumentation/cfgcoverage/runtime/ICoverageTracer",
       "_reachNode",
-      "(Ljava/lang/String;I)V",
-      3);
+      "(I)V",
+      2);
 
   private boolean interfaceMethod;
   private String declareClass;
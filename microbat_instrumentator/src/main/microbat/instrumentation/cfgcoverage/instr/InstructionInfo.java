@@ -6,6 +6,7 @@ public class InstructionInfo {
   private InstructionHandle insnHandler;
   private int insnIdx;
   private boolean isNotIntCmpIf;
+  private int probeId;
 
   public InstructionInfo(InstructionHandle insnHandler, int insnIdx) {
     this.insnHandler = insnHandler;
@@ -27,4 +28,12 @@ public class InstructionInfo {
   public void setNotIntCmpIf(boolean isNotIntCmpIf) {
     this.isNotIntCmpIf = isNotIntCmpIf;
   }
+
+  public int getProbeId() {
+    return probeId;
+  }
+
+  public void setProbeId(int probeId) {
+    this.probeId = probeId;
+  }
 }
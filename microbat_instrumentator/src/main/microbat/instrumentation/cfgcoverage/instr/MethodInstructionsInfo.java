@@ -24,7 +24,8 @@ import microbat.model.ClassLocation;
 import sav.common.core.utils.CollectionUtils;
 
 public class MethodInstructionsInfo {
-  private static Map<String, Set<Integer>> instmInstructionMap;
+  /* methodId -> (local idx of probe node -> probe id) */
+  private static Map<String, Map<Integer, Integer>> instmInstructionMap;
   private static Set<String> needToInstrumentClasses;
   private List<InstructionInfo> nodeInsns;
   private List<InstructionHandle> exitInsns;
@@ -32,11 +33,16 @@ public class MethodInstructionsInfo {
   private List<InstructionInfo> conditionInsns;
 
   public static void initInstrInstructions(CoverageSFlowGraph coverageFlowGraph) {
+    coverageFlowGraph.assignProbeIds();
     instmInstructionMap = new HashMap<>();
     for (CoverageSFNode node : coverageFlowGraph.getNodeList()) {
-      UniqueNodeId probeNodeId = node.getEndNodeId();
-      CollectionUtils.getSetInitIfEmpty(instmInstructionMap, probeNodeId.getMethodId())
-          .add(probeNodeId.getLocalNodeIdx());
+      UniqueNodeId probeNodeId = node.getProbeNodeId();
+      Map<Integer, Integer> probeIds = instmInstructionMap.get(probeNodeId.getMethodId());
+      if (probeIds == null) {
+        probeIds = new HashMap<>();
+        instmInstructionMap.put(probeNodeId.getMethodId(), probeIds);
+      }
+      probeIds.put(probeNodeId.getLocalNodeIdx(), node.getProbeId());
     }
     needToInstrumentClasses = new HashSet<>();
     for (String methodId : instmInstructionMap.keySet()) {
@@ -52,7 +58,7 @@ public class MethodInstructionsInfo {
   public static MethodInstructionsInfo getInstrumentationInstructions(
       InstructionList insnList, Method method, String className) {
     String methodId = InstrumentationUtils.getMethodId(className, method);
-    Set<Integer> methodInstrmInsnIdexies = instmInstructionMap.get(methodId);
+    Map<Integer, Integer> methodInstrmInsnIdexies = instmInstructionMap.get(methodId);
     if (methodInstrmInsnIdexies == null) {
       return null;
     }
@@ -63,8 +69,10 @@ public class MethodInstructionsInfo {
     List<InstructionInfo> notIntCmpInIfInsns = new ArrayList<>();
     int idx = 0;
     for (InstructionHandle insnHandler : insnList) {
-      if (methodInstrmInsnIdexies.contains(idx)) {
+      Integer probeId = methodInstrmInsnIdexies.get(idx);
+      if (probeId != null) {
         InstructionInfo insnInfo = new InstructionInfo(insnHandler, idx);
+        insnInfo.setProbeId(probeId);
         nodeInsns.add(insnInfo);
         if (insnHandler.getInstruction() instanceof IfInstruction) {
           conditionInsns.add(insnInfo);
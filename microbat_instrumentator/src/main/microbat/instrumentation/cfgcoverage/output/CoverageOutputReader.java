@@ -3,6 +3,7 @@ package microbat.instrumentation.cfgcoverage.output;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,8 +16,16 @@ import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
 import microbat.instrumentation.cfgcoverage.runtime.MethodExecutionData;
 import microbat.instrumentation.output.ByteConverter;
 import microbat.instrumentation.output.OutputReader;
+import microbat.model.BreakPointValue;
 
+/**
+ * Reads the coverage written by {@link CoverageOutputWriter}, in the bitset format or in the former
+ * format in which covered testcases are written as lists of names, paths as plain int lists and the
+ * input data as a serialized object.
+ */
 public class CoverageOutputReader extends OutputReader {
+  /* testcase names indexed by the sets of the bitset format, null for the former format */
+  private List<String> testcaseTable;
 
   public CoverageOutputReader(InputStream in) {
     super(in);
@@ -25,11 +34,20 @@ public class CoverageOutputReader extends OutputReader {
   public CoverageSFlowGraph readCfgCoverage() throws IOException {
     /* cdgSize and cdgLayer */
     int cfgSize = readVarInt();
+    testcaseTable = null;
+    if (cfgSize == CoverageOutputWriter.BITSET_FORMAT) {
+      cfgSize = readVarInt();
+      testcaseTable = new ArrayList<>();
+    }
     CoverageSFlowGraph coverageGraph = new CoverageSFlowGraph(cfgSize);
     coverageGraph.setCdgLayer(readVarInt());
 
     /* covered testcases */
     coverageGraph.setCoveredTestcases(readListString());
+    if (testcaseTable != null) {
+      testcaseTable.addAll(coverageGraph.getCoveredTestcases());
+      testcaseTable.addAll(readListString());
+    }
 
     /* nodeCoverage list */
     int nodeListSize = readVarInt();
@@ -57,8 +75,17 @@ public class CoverageOutputReader extends OutputReader {
     List<CoveragePath> coveragePaths = new ArrayList<>(size);
     for (int i = 0; i < size; i++) {
       CoveragePath path = new CoveragePath();
-      path.setCoveredTcs(readListInt());
-      path.setPath(readListCoverageNode(nodeList));
+      if (testcaseTable == null) {
+        path.setCoveredTcs(readListInt());
+        path.setPath(readListCoverageNode(nodeList));
+      } else {
+        path.setCoveredTcs(toList(readIndexSet()));
+        List<CoverageSFNode> nodes = new ArrayList<>();
+        for (int nodeIdx : readDeltas()) {
+          nodes.add(nodeList.get(nodeIdx));
+        }
+        path.setPath(nodes);
+      }
       coveragePaths.add(path);
     }
     return coveragePaths;
@@ -111,20 +138,35 @@ public class CoverageOutputReader extends OutputReader {
       node.addBranch(nodeList.get(branchCvgNodeIdx));
     }
     /* covered testcases on node */
-    node.setCoveredTestcases(readListString());
+    node.setCoveredTestcases(readTestcases());
     /* read covered testcases on branch */
     /* covered testcases on branches */
     Map<CoverageSFNode, List<String>> coveredTcsOnBranches = node.getCoveredTestcasesOnBranches();
     size = readVarInt();
     for (int i = 0; i < size; i++) {
       int toNodeIdx = readVarInt();
-      List<String> coveredTcs = readListString();
+      List<String> coveredTcs = readTestcases();
       coveredTcsOnBranches.put(nodeList.get(toNodeIdx), coveredTcs);
     }
     node.setCoveredTestcasesOnBranches(coveredTcsOnBranches);
     return node;
   }
 
+  @SuppressWarnings("unchecked")
+  private <T> T readSerializableObj(int length) throws IOException {
+    if (length <= 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    readFully(bytes);
+    try {
+      return (T) ByteConverter.convertFromBytes(bytes);
+    } catch (ClassNotFoundException e) {
+      e.printStackTrace();
+      return null;
+    }
+  }
+
   @SuppressWarnings("unchecked")
   protected Map<Branch, List<Integer>> readCoveredTestcasesOnBranches() throws IOException {
     int size = readVarInt();
@@ -145,7 +187,82 @@ public class CoverageOutputReader extends OutputReader {
     return map;
   }
 
+  private List<String> readTestcases() throws IOException {
+    if (testcaseTable == null) {
+      return readListString();
+    }
+    BitSet set = readIndexSet();
+    List<String> testcases = new ArrayList<>(set.cardinality());
+    for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+      testcases.add(testcaseTable.get(i));
+    }
+    return testcases;
+  }
+
+  private static List<Integer> toList(BitSet set) {
+    List<Integer> list = new ArrayList<>(set.cardinality());
+    for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+      list.add(i);
+    }
+    return list;
+  }
+
+  /** see {@link CoverageOutputWriter#writeIndexSet(BitSet)} */
+  BitSet readIndexSet() throws IOException {
+    if (readByte() == CoverageOutputWriter.DENSE_SET) {
+      return BitSet.valueOf(readByteArray());
+    }
+    int size = readVarInt();
+    BitSet set = new BitSet();
+    int last = 0;
+    for (int i = 0; i < size; i++) {
+      last += readVarInt();
+      set.set(last);
+    }
+    return set;
+  }
+
+  /** see {@link CoverageOutputWriter#writeDeltas(int[])} */
+  int[] readDeltas() throws IOException {
+    int[] values = new int[readVarInt()];
+    int last = 0;
+    for (int i = 0; i < values.length; i++) {
+      last += (int) readVarLong();
+      values[i] = last;
+    }
+    return values;
+  }
+
   public Map<Integer, List<MethodExecutionData>> readInputData() throws IOException {
-    return readSerializableObj();
+    int size = readVarInt();
+    if (size != CoverageOutputWriter.BITSET_FORMAT) {
+      /* the length of the serialized input data in the former format */
+      return readSerializableObj(size);
+    }
+    size = readVarInt();
+    if (size < 0) {
+      return null;
+    }
+    Map<Integer, List<MethodExecutionData>> inputData = new HashMap<>(size);
+    List<MethodExecutionData> methodExecs = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      int key = readVarInt();
+      int execSize = readVarInt();
+      List<MethodExecutionData> list = new ArrayList<>(execSize);
+      for (int j = 0; j < execSize; j++) {
+        MethodExecutionData methodExec = new MethodExecutionData(readVarInt());
+        methodExec.setExecPath(readDeltas());
+        list.add(methodExec);
+      }
+      methodExecs.addAll(list);
+      inputData.put(key, list);
+    }
+    List<BreakPointValue> inputValues = readSerializableObj();
+    List<Map<String, Double>> branchFitnessMaps = readSerializableObj();
+    for (int i = 0; i < methodExecs.size(); i++) {
+      methodExecs.get(i).setMethodInputValue(inputValues.get(i));
+      methodExecs.get(i).setBranchFitnessMap(branchFitnessMaps.get(i));
+    }
+    return inputData;
   }
 }
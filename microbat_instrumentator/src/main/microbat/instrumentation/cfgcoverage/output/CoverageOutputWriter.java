@@ -2,32 +2,74 @@ package microbat.instrumentation.cfgcoverage.output;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import microbat.instrumentation.cfgcoverage.graph.CoveragePath;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
 import microbat.instrumentation.cfgcoverage.runtime.MethodExecutionData;
 import microbat.instrumentation.output.OutputWriter;
+import microbat.model.BreakPointValue;
 import sav.common.core.utils.CollectionUtils;
 
+/**
+ * Writes the coverage in the bitset format: the testcases covering a node or a branch are written
+ * as a set of indexes into the table of testcase names, either as a bitmap or as delta encoded
+ * indexes whichever is smaller, and the execution paths of the input data as delta encoded node
+ * indexes. The coverage and the input data both start with {@link #BITSET_FORMAT}, which {@link
+ * CoverageOutputReader} uses to tell them from the former format.
+ */
 public class CoverageOutputWriter extends OutputWriter {
+  /* negative, so never the cfg size or the byte array length starting the former format */
+  static final int BITSET_FORMAT = -2;
+  static final int SPARSE_SET = 0;
+  static final int DENSE_SET = 1;
+
+  private Map<String, Integer> testcaseIdxies;
 
   public CoverageOutputWriter(OutputStream out) {
     super(out);
   }
 
-  public void writeInputData(Map<Integer, List<MethodExecutionData>> inputData) throws IOException {
-    writeSerializableObj(inputData);
+  public void writeInputData(Map<Integer, List<MethodExecutionData>> inputData)
+      throws IOException {
+    writeVarInt(BITSET_FORMAT);
+    if (inputData == null) {
+      writeVarInt(-1);
+      return;
+    }
+    writeVarInt(inputData.size());
+    ArrayList<BreakPointValue> inputValues = new ArrayList<>();
+    ArrayList<Map<String, Double>> branchFitnessMaps = new ArrayList<>();
+    for (Entry<Integer, List<MethodExecutionData>> entry : inputData.entrySet()) {
+      writeVarInt(entry.getKey());
+      writeVarInt(entry.getValue().size());
+      for (MethodExecutionData methodExec : entry.getValue()) {
+        writeVarInt(methodExec.getTestIdx());
+        writeDeltas(methodExec.getExecPath());
+        inputValues.add(methodExec.getMethodInputValue());
+        branchFitnessMaps.add(methodExec.getBranchFitnessMap());
+      }
+    }
+    /* in one stream each, so that their class descriptions are written once */
+    writeSerializableObj(inputValues);
+    writeSerializableObj(branchFitnessMaps);
   }
 
   public void writeCfgCoverage(CoverageSFlowGraph coverageGraph) throws IOException {
+    writeVarInt(BITSET_FORMAT);
     writeVarInt(coverageGraph.getCfgSize());
     writeVarInt(coverageGraph.getExtensionLayer());
 
     /* covered testcases */
     writeListString(coverageGraph.getCoveredTestcases());
+    /* testcases of the nodes missing in the covered testcases */
+    writeListString(initTestcaseIdxies(coverageGraph));
 
     /* nodeCoverage list */
     writeVarInt(coverageGraph.getNodeList().size());
@@ -39,19 +81,48 @@ public class CoverageOutputWriter extends OutputWriter {
     writeCoveragePaths(coverageGraph.getCoveragePaths());
   }
 
+  /** @return the testcase names found on nodes which are not in the covered testcases. */
+  private List<String> initTestcaseIdxies(CoverageSFlowGraph coverageGraph) {
+    testcaseIdxies = new HashMap<>();
+    List<String> testcases = coverageGraph.getCoveredTestcases();
+    for (int i = testcases.size() - 1; i >= 0; i--) {
+      testcaseIdxies.put(testcases.get(i), i);
+    }
+    List<String> otherTestcases = new ArrayList<>();
+    for (CoverageSFNode node : coverageGraph.getNodeList()) {
+      synchronized (node.getCoveredTestcases()) {
+        addOtherTestcases(node.getCoveredTestcases(), otherTestcases);
+        for (List<String> tcs : node.getCoveredTestcasesOnBranches().values()) {
+          addOtherTestcases(tcs, otherTestcases);
+        }
+      }
+    }
+    return otherTestcases;
+  }
+
+  private void addOtherTestcases(List<String> tcs, List<String> otherTestcases) {
+    for (String testcase : tcs) {
+      if (!testcaseIdxies.containsKey(testcase)) {
+        testcaseIdxies.put(testcase, testcaseIdxies.size());
+        otherTestcases.add(testcase);
+      }
+    }
+  }
+
   private void writeCoveragePaths(List<CoveragePath> coveragePaths) throws IOException {
     writeSize(coveragePaths);
     for (CoveragePath coveredPath : CollectionUtils.nullToEmpty(coveragePaths)) {
-      writeListInt(coveredPath.getCoveredTcs());
+      writeIndexSet(toBitSet(coveredPath.getCoveredTcs()));
       writeListCoverageNode(coveredPath.getPath());
     }
   }
 
   private void writeListCoverageNode(List<CoverageSFNode> list) throws IOException {
-    writeSize(list);
-    for (CoverageSFNode value : CollectionUtils.nullToEmpty(list)) {
-      writeVarInt(value.getCvgIdx());
+    int[] nodeIdxies = new int[CollectionUtils.getSize(list)];
+    for (int i = 0; i < nodeIdxies.length; i++) {
+      nodeIdxies[i] = list.get(i).getCvgIdx();
     }
+    writeDeltas(nodeIdxies);
   }
 
   private void writeCoverageNode(CoverageSFNode node) throws IOException {
@@ -81,26 +152,72 @@ public class CoverageOutputWriter extends OutputWriter {
     }
     synchronized (node.getCoveredTestcases()) {
       /* covered testcases on node */
-      boolean hasNull = false;
-      for (String id : node.getCoveredTestcases()) {
-        if (id == null) {
-          hasNull = true;
-        }
-      }
-      if (hasNull) {
-        System.out.println(
-            String.format(
-                "WARNING-hasNull: [%s] [%s] [%s]",
-                node.getCoveredTestcases(), node, node.getCoveredTestcasesOnBranches()));
-      }
-      writeListString(node.getCoveredTestcases());
+      writeIndexSet(toTestcaseSet(node.getCoveredTestcases()));
       /* covered testcases on branches */
       writeVarInt(node.getCoveredTestcasesOnBranches().keySet().size());
       for (CoverageSFNode branch : node.getCoveredTestcasesOnBranches().keySet()) {
         writeVarInt(branch.getCvgIdx());
         List<String> coveredTcs = node.getCoveredTestcasesOnBranches().get(branch);
-        writeListString(coveredTcs);
+        writeIndexSet(toTestcaseSet(coveredTcs));
       }
     }
   }
+
+  private BitSet toTestcaseSet(List<String> testcases) {
+    BitSet set = new BitSet();
+    for (String testcase : testcases) {
+      set.set(testcaseIdxies.get(testcase));
+    }
+    return set;
+  }
+
+  private static BitSet toBitSet(List<Integer> idxies) {
+    BitSet set = new BitSet();
+    for (Integer idx : CollectionUtils.nullToEmpty(idxies)) {
+      set.set(idx);
+    }
+    return set;
+  }
+
+  /** writes the set as delta encoded indexes if it is sparse, otherwise as a bitmap. */
+  void writeIndexSet(BitSet set) throws IOException {
+    int sparseSize = getVarIntSize(set.cardinality());
+    int last = 0;
+    for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+      sparseSize += getVarIntSize(i - last);
+      last = i;
+    }
+    byte[] bitmap = set.toByteArray();
+    if (sparseSize <= getVarIntSize(bitmap.length) + bitmap.length) {
+      writeByte(SPARSE_SET);
+      writeVarInt(set.cardinality());
+      last = 0;
+      for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+        writeVarInt(i - last);
+        last = i;
+      }
+    } else {
+      writeByte(DENSE_SET);
+      writeByteArr(bitmap);
+    }
+  }
+
+  /** writes the values as the differences of each to the one before, in zigzag varints. */
+  void writeDeltas(int[] values) throws IOException {
+    writeVarInt(values.length);
+    int last = 0;
+    for (int value : values) {
+      writeVarLong(value - last);
+      last = value;
+    }
+  }
+
+  private static int getVarIntSize(int value) {
+    int size = 1;
+    while ((value & 0xFFFFFF80) != 0) {
+      value >>>= 7;
+      size++;
+    }
+    return size;
+  }
 }
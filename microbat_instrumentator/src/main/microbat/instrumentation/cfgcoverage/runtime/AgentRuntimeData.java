@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
 
@@ -11,7 +13,10 @@ public class AgentRuntimeData {
   public static volatile CoverageSFlowGraph coverageFlowGraph;
   public static volatile Map<Integer, List<MethodExecutionData>> methodExecsOnASingleTcMap =
       new HashMap<>();
-  public static volatile Map<Long, Integer> currentTestIdxMap = new HashMap<>();
+  public static volatile Map<Long, Integer> currentTestIdxMap = new ConcurrentHashMap<>();
+  /* testIdx -> coverage of the testcase not merged into the graph yet */
+  private static final ConcurrentSkipListMap<Integer, CoverageShard> coverageShards =
+      new ConcurrentSkipListMap<>();
   public static volatile Map<TracerKey, List<ICoverageTracer>> tracerMap = new HashMap<>();
 
   public static synchronized void register(ICoverageTracer tracer, long threadId, int testIdx) {
@@ -24,7 +29,38 @@ public class AgentRuntimeData {
     tracers.add(tracer);
   }
 
+  public static void startTest(long threadId, int testIdx, String testcase) {
+    coverageShards.put(testIdx, new CoverageShard(testIdx, testcase, coverageFlowGraph));
+    currentTestIdxMap.put(threadId, testIdx);
+  }
+
+  public static CoverageShard getCoverageShard(int testIdx) {
+    return coverageShards.get(testIdx);
+  }
+
+  /**
+   * merges the coverage recorded by the testcases into the graph, in the order the testcases
+   * started. The shards of finished testcases are dropped after that.
+   */
+  public static synchronized void mergeCoverageShards(
+      Map<Integer, List<MethodExecutionData>> methodExecsMap) {
+    for (CoverageShard shard : coverageShards.values()) {
+      shard.mergeInto(coverageFlowGraph, methodExecsMap);
+      if (shard.isFinished()) {
+        coverageShards.remove(shard.getTestIdx());
+      }
+    }
+  }
+
+  public static void clearCoverageShards() {
+    coverageShards.clear();
+  }
+
   public static synchronized void unregister(long threadId, Integer testIdx) {
+    CoverageShard shard = coverageShards.get(testIdx);
+    if (shard != null) {
+      shard.finish();
+    }
     TracerKey tracerKey = TracerKey.of(threadId, testIdx);
     List<ICoverageTracer> tracers = tracerMap.remove(tracerKey);
     if (tracers != null) {
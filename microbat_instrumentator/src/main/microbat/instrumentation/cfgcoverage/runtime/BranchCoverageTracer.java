@@ -4,35 +4,37 @@ import microbat.instrumentation.AgentLogger;
 import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode;
 
 public class BranchCoverageTracer extends EmptyCoverageTracer implements ICoverageTracer {
-  private String testcase;
+  private CoverageShard shard;
   private CoverageSFNode currentNode;
   private volatile boolean canceled = false;
 
   public BranchCoverageTracer(int currentTcIdx) {
-    this.testcase = AgentRuntimeData.coverageFlowGraph.getCoveredTestcases().get(currentTcIdx);
+    this.shard = AgentRuntimeData.getCoverageShard(currentTcIdx);
   }
 
   @Override
-  public void _reachNode(String methodId, int nodeIdx) {
+  public void _reachNode(int probeId) {
     if (canceled) {
       return;
     }
     if (currentNode == null) {
       currentNode = AgentRuntimeData.coverageFlowGraph.getStartNode();
     } else {
-      CoverageSFNode branch = currentNode.getCorrespondingBranch(methodId, nodeIdx);
-      if (branch != null) {
-        currentNode.markCoveredBranch(branch, testcase);
-        currentNode = branch;
+      int branchIdx = currentNode.getBranchIdxByProbe(probeId);
+      if (branchIdx >= 0) {
+        shard.markCoveredBranch(branchIdx);
+        currentNode = AgentRuntimeData.coverageFlowGraph.getBranchTarget(branchIdx);
       } else {
         AgentLogger.debug(
             String.format(
-                "cannot find branch %s:%d of node %d [testcase=%s]",
-                methodId, nodeIdx, currentNode.getCvgIdx(), testcase));
+                "cannot find branch %s of node %d [testcase=%s]",
+                AgentRuntimeData.coverageFlowGraph.getProbeNodeId(probeId),
+                currentNode.getCvgIdx(),
+                shard.getTestcase()));
         return;
       }
     }
-    currentNode.addCoveredTestcase(testcase);
+    shard.markCoveredNode(currentNode);
   }
 
   public static synchronized ICoverageTracer _getTracer(String methodId) {
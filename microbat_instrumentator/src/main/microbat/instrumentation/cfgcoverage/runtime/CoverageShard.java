@@ -0,0 +1,100 @@
+package microbat.instrumentation.cfgcoverage.runtime;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode;
+import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
+
+/**
+ * The coverage recorded for a single testcase: the indexes of its covered nodes and branches (see
+ * {@link CoverageSFlowGraph#assignProbeIds()}) and its executions of the target method. The tracers
+ * of the testcase only write to its shard, so that testcases can run in parallel in one JVM without
+ * locking the shared graph; the shard is merged into the graph when the coverage is stored.
+ *
+ * <p>The bit sets are sized to the graph when the shard is created, so they are never reallocated
+ * while being merged. The threads of a testcase share its shard, so the bits are set under the lock
+ * of the shard, which the merge holds as well.
+ */
+public class CoverageShard {
+  private final int testIdx;
+  private final String testcase;
+  private final BitSet coveredNodes;
+  private final BitSet coveredBranches;
+  private final List<MethodExecutionData> methodExecs = new ArrayList<>(1);
+  private int mergedMethodExecs;
+  private volatile boolean finished;
+
+  public CoverageShard(int testIdx, String testcase, CoverageSFlowGraph graph) {
+    this.testIdx = testIdx;
+    this.testcase = testcase;
+    this.coveredNodes = new BitSet(graph.size());
+    this.coveredBranches = new BitSet(graph.getBranchCount());
+  }
+
+  public void markCoveredNode(CoverageSFNode node) {
+    mark(coveredNodes, node.getCvgIdx());
+  }
+
+  public void markCoveredBranch(int branchIdx) {
+    mark(coveredBranches, branchIdx);
+  }
+
+  /**
+   * most of the marks are for nodes and branches covered before, which is checked without the
+   * lock: bits are only ever set and the bit sets are never reallocated, so a stale read can only
+   * miss a bit, which is then set under the lock.
+   */
+  private void mark(BitSet bits, int idx) {
+    if (!bits.get(idx)) {
+      synchronized (this) {
+        bits.set(idx);
+      }
+    }
+  }
+
+  public synchronized void addMethodExec(MethodExecutionData methodExec) {
+    methodExecs.add(methodExec);
+  }
+
+  /**
+   * adds the coverage of the shard to the graph, and its method executions which are not merged yet
+   * to the given map. A shard of a running testcase can be merged again later.
+   */
+  public synchronized void mergeInto(
+      CoverageSFlowGraph graph, Map<Integer, List<MethodExecutionData>> methodExecsMap) {
+    for (int i = coveredNodes.nextSetBit(0); i >= 0; i = coveredNodes.nextSetBit(i + 1)) {
+      graph.getNodeList().get(i).addCoveredTestcase(testcase);
+    }
+    for (int i = coveredBranches.nextSetBit(0); i >= 0; i = coveredBranches.nextSetBit(i + 1)) {
+      graph.getBranchSource(i).markCoveredBranch(graph.getBranchTarget(i), testcase);
+    }
+    if (mergedMethodExecs < methodExecs.size()) {
+      List<MethodExecutionData> list = methodExecsMap.get(testIdx);
+      if (list == null) {
+        list = new ArrayList<>(methodExecs.size());
+        methodExecsMap.put(testIdx, list);
+      }
+      list.addAll(methodExecs.subList(mergedMethodExecs, methodExecs.size()));
+      mergedMethodExecs = methodExecs.size();
+    }
+  }
+
+  public int getTestIdx() {
+    return testIdx;
+  }
+
+  public String getTestcase() {
+    return testcase;
+  }
+
+  public boolean isFinished() {
+    return finished;
+  }
+
+  public void finish() {
+    this.finished = true;
+  }
+}
@@ -1,6 +1,5 @@
 package microbat.instrumentation.cfgcoverage.runtime;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,7 +22,7 @@ public class CoverageTracer implements ICoverageTracer, ITracer {
       new HashMap<>();
 
   protected long threadId;
-  private String testcase;
+  private CoverageShard shard;
   private int testIdx;
   private TracingState state = TracingState.INIT;
   private ValueExtractor valueExtractor = new ValueExtractor();
@@ -34,33 +33,35 @@ public class CoverageTracer implements ICoverageTracer, ITracer {
   public CoverageTracer(long threadId, int testIdx) {
     this.threadId = threadId;
     this.testIdx = testIdx;
-    this.testcase = AgentRuntimeData.coverageFlowGraph.getCoveredTestcases().get(testIdx);
+    this.shard = AgentRuntimeData.getCoverageShard(testIdx);
   }
 
   @Override
-  public void _reachNode(String methodId, int nodeIdx) {
+  public void _reachNode(int probeId) {
     if (state == TracingState.SHUTDOWN) {
       return;
     }
     if (currentNode == null) {
       currentNode = AgentRuntimeData.coverageFlowGraph.getStartNode();
     } else {
-      CoverageSFNode branch = currentNode.getCorrespondingBranch(methodId, nodeIdx);
-      if (branch != null) {
-        currentNode.markCoveredBranch(branch, testcase);
-        currentNode = branch;
+      int branchIdx = currentNode.getBranchIdxByProbe(probeId);
+      if (branchIdx >= 0) {
+        shard.markCoveredBranch(branchIdx);
+        currentNode = AgentRuntimeData.coverageFlowGraph.getBranchTarget(branchIdx);
       } else {
         if (!currentNode.isAliasNode()) {
           AgentLogger.debug(
               String.format(
-                  "cannot find branch %s:%d of node %d [testcase=%s]",
-                  methodId, nodeIdx, currentNode.getCvgIdx(), testcase));
+                  "cannot find branch %s of node %d [testcase=%s]",
+                  AgentRuntimeData.coverageFlowGraph.getProbeNodeId(probeId),
+                  currentNode.getCvgIdx(),
+                  shard.getTestcase()));
         }
         return;
       }
     }
     methodExecData.appendExecPath(currentNode);
-    currentNode.addCoveredTestcase(testcase);
+    shard.markCoveredNode(currentNode);
   }
 
   @Override
@@ -76,12 +77,7 @@ public class CoverageTracer implements ICoverageTracer, ITracer {
       currentNode = null;
       ClassLocation loc = InstrumentationUtils.getClassLocation(methodId);
       methodExecData = new MethodExecutionData(testIdx);
-      List<MethodExecutionData> list = methodExecsOnASingleTcMap.get(testIdx);
-      if (list == null) {
-        list = new ArrayList<>(1);
-        methodExecsOnASingleTcMap.put(testIdx, list);
-      }
-      list.add(methodExecData);
+      shard.addMethodExec(methodExecData);
       BreakPointValue methodInput =
           valueExtractor.extractInputValue(
               String.valueOf(testIdx),
@@ -8,7 +8,7 @@ public class EmptyCoverageTracer implements ICoverageTracer {
   }
 
   @Override
-  public void _reachNode(String methodId, int nodeIdx) {}
+  public void _reachNode(int probeId) {}
 
   @Override
   public void enterMethod(
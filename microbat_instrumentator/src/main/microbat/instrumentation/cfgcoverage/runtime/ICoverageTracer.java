@@ -1,8 +1,11 @@
 package microbat.instrumentation.cfgcoverage.runtime;
 
+import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
+
 public interface ICoverageTracer {
 
-  void _reachNode(String methodId, int nodeIdx);
+  /** @param probeId see {@link CoverageSFlowGraph#assignProbeIds()} */
+  void _reachNode(int probeId);
 
   void enterMethod(
       String methodId,
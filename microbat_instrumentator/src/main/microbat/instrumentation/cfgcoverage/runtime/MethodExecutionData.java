@@ -1,7 +1,12 @@
 package microbat.instrumentation.cfgcoverage.runtime;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -14,20 +19,31 @@ import microbat.model.BreakPointValue;
 
 public class MethodExecutionData implements Serializable {
   private static final long serialVersionUID = 2224373310288325990L;
+  /* the serialized form is kept from when execPath was a List<Integer> */
+  private static final ObjectStreamField[] serialPersistentFields = {
+    new ObjectStreamField("testIdx", int.class),
+    new ObjectStreamField("methodInputValue", BreakPointValue.class),
+    new ObjectStreamField("execPath", List.class),
+    new ObjectStreamField("branchFitnessMap", Map.class)
+  };
   private int testIdx;
   private BreakPointValue methodInputValue;
-  private List<Integer> execPath; // coverageSFNode.idx
+  private transient int[] execPath; // coverageSFNode.idx
+  private transient int execPathSize;
   private transient Map<Integer, Double> conditionVariationMap; // variation is always (b - a)
   private Map<String, Double> branchFitnessMap;
 
   public MethodExecutionData(int testIdx) {
     this.testIdx = testIdx;
     conditionVariationMap = new HashMap<>();
-    execPath = new ArrayList<>();
+    execPath = new int[16];
   }
 
   public void appendExecPath(CoverageSFNode node) {
-    execPath.add(node.getCvgIdx());
+    if (execPathSize == execPath.length) {
+      execPath = Arrays.copyOf(execPath, execPathSize * 2);
+    }
+    execPath[execPathSize++] = node.getCvgIdx();
   }
 
   public void addConditionVariation(int coverageSFNodeId, double condVariation) {
@@ -59,7 +75,43 @@ public class MethodExecutionData implements Serializable {
   }
 
   public List<Integer> getExecPathId() {
-    return execPath;
+    List<Integer> list = new ArrayList<>(execPathSize);
+    for (int i = 0; i < execPathSize; i++) {
+      list.add(execPath[i]);
+    }
+    return list;
+  }
+
+  public int[] getExecPath() {
+    return Arrays.copyOf(execPath, execPathSize);
+  }
+
+  public void setExecPath(int[] execPath) {
+    this.execPath = execPath;
+    this.execPathSize = execPath.length;
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    ObjectOutputStream.PutField fields = out.putFields();
+    fields.put("testIdx", testIdx);
+    fields.put("methodInputValue", methodInputValue);
+    fields.put("execPath", getExecPathId());
+    fields.put("branchFitnessMap", branchFitnessMap);
+    out.writeFields();
+  }
+
+  @SuppressWarnings("unchecked")
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    ObjectInputStream.GetField fields = in.readFields();
+    testIdx = fields.get("testIdx", 0);
+    methodInputValue = (BreakPointValue) fields.get("methodInputValue", null);
+    branchFitnessMap = (Map<String, Double>) fields.get("branchFitnessMap", null);
+    List<Integer> path = (List<Integer>) fields.get("execPath", null);
+    execPath = new int[path == null ? 0 : path.size()];
+    for (int i = 0; i < execPath.length; i++) {
+      execPath[i] = path.get(i);
+    }
+    execPathSize = execPath.length;
   }
 
   public void calculateBranchFitnessMap(CoverageSFlowGraph graph) {
@@ -27,14 +27,45 @@ import org.apache.bcel.generic.PUSH;
 import org.apache.bcel.generic.Type;
 
 import microbat.instrumentation.AgentLogger;
+import microbat.instrumentation.instr.InstrumentedClassCache.CachedClass;
 
 public abstract class AbstractInstrumenter {
   protected static final String CLASS_NAME = "$className"; // local var
   protected static final String METHOD_SIGNATURE = "$methodSignature"; // local var
 
   protected BasicTypeSupporter basicTypeSupporter = new BasicTypeSupporter();
+  private InstrumentedClassCache classCache;
+
+  public void setClassCache(InstrumentedClassCache classCache) {
+    this.classCache = classCache;
+  }
+
+  protected boolean isClassCacheEnabled() {
+    return classCache != null;
+  }
 
   public byte[] instrument(String classFName, byte[] classfileBuffer) throws Exception {
+    if (classCache == null) {
+      return instrumentClass(classFName, classfileBuffer);
+    }
+    long start = System.nanoTime();
+    String key =
+        classCache.getKey(classfileBuffer, getClass().getName(), getCacheContext(classFName));
+    CachedClass cached = classCache.load(key);
+    if (cached != null) {
+      byte[] data = restore(cached);
+      classCache.recordHit(cached, System.nanoTime() - start);
+      return data;
+    }
+    byte[] data = instrumentClass(classFName, classfileBuffer);
+    cached = createCachedClass(data);
+    cached.setTransformNanos(System.nanoTime() - start);
+    classCache.save(key, cached);
+    classCache.recordMiss();
+    return data;
+  }
+
+  private byte[] instrumentClass(String classFName, byte[] classfileBuffer) throws Exception {
     String className = classFName.replace("/", ".");
     ClassParser cp = new ClassParser(new java.io.ByteArrayInputStream(classfileBuffer), classFName);
     JavaClass jc = cp.parse();
@@ -58,6 +89,24 @@ public abstract class AbstractInstrumenter {
 
   protected abstract byte[] instrument(String classFName, String className, JavaClass jc);
 
+  /**
+   * @return what the instrumentation of the class depends on besides its bytes and the agent
+   *     options, which is part of the key of the class in the {@link InstrumentedClassCache}.
+   */
+  protected String getCacheContext(String classFName) {
+    return "";
+  }
+
+  /** @return the entry to cache for the class just instrumented into the given bytes. */
+  protected CachedClass createCachedClass(byte[] data) {
+    return new CachedClass(data);
+  }
+
+  /** @return the bytes of a class found in the cache, after redoing its side effects. */
+  protected byte[] restore(CachedClass cached) {
+    return cached.getData();
+  }
+
   protected LocalVariableGen createLocalVariable(
       String varName, MethodGen methodGen, ConstantPoolGen constPool) {
     InstructionList list = methodGen.getInstructionList();
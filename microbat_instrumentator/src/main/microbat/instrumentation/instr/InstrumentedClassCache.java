@@ -0,0 +1,372 @@
+package microbat.instrumentation.instr;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileFilter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+import microbat.instrumentation.AgentLogger;
+import microbat.instrumentation.AgentParams;
+
+/**
+ * Keeps the instrumented bytes of classes on disk, so that a class which is loaded again by a later
+ * run, e.g. the trace run after the precheck or the run of another mutant, is not parsed and
+ * instrumented again. An entry is keyed by a hash of the original class bytes, the instrumenter,
+ * what the instrumenter knows of the class besides its bytes (see {@link
+ * AbstractInstrumenter#getCacheContext(String)}), the agent options which change the
+ * instrumentation and the agent jar.
+ *
+ * <p>An entry is written to a temporary file which is then renamed, so that several JVMs can share
+ * the cache directory: a reader sees either a complete entry or none.
+ */
+public class InstrumentedClassCache {
+  private static final int MAGIC = 0x4d424343;
+  private static final int VERSION = 1;
+  private static final String FILE_SUFFIX = ".class-cache";
+
+  private final File cacheDir;
+  private final String options;
+  private int hits;
+  private int misses;
+  private long savedNanos;
+
+  public InstrumentedClassCache(File cacheDir, String options) {
+    this.cacheDir = cacheDir;
+    this.options = options;
+    cacheDir.mkdirs();
+  }
+
+  /** @return the cache of the directory given in the agent params, or null if there is none. */
+  public static InstrumentedClassCache create(AgentParams params) {
+    if (params.getClassCacheDir() == null) {
+      return null;
+    }
+    StringBuilder options = new StringBuilder();
+    options.append(params.getIncludesExpression()).append('\n');
+    options.append(params.getExcludesExpression()).append('\n');
+    if (params.getEntryPoint() != null) {
+      options.append(params.getEntryPoint().getClassName()).append('.');
+      options.append(params.getEntryPoint().getMethodName());
+    }
+    options.append('\n').append(params.isRequireMethodSplit()).append('\n');
+    if (params.getOverlongMethods() != null) {
+      options.append(new TreeSet<>(params.getOverlongMethods()));
+    }
+    options.append('\n').append(params.getCodeRanges()).append('\n');
+    options.append(getAgentJarStamp());
+    return new InstrumentedClassCache(new File(params.getClassCacheDir()), options.toString());
+  }
+
+  public static String getAgentJarStamp() {
+    CodeSource codeSource = InstrumentedClassCache.class.getProtectionDomain().getCodeSource();
+    URL location = codeSource == null ? null : codeSource.getLocation();
+    if (location == null) {
+      return "";
+    }
+    File jar = new File(location.getFile());
+    return jar.getPath() + ":" + jar.length() + ":" + jar.lastModified();
+  }
+
+  public String getKey(byte[] classfileBuffer, String instrumenter, String context) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    digest.update(options.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+    digest.update(instrumenter.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+    digest.update(String.valueOf(context).getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+    digest.update(classfileBuffer);
+    StringBuilder key = new StringBuilder();
+    for (byte b : digest.digest()) {
+      key.append(String.format("%02x", b));
+    }
+    return key.toString();
+  }
+
+  /** @return the entry of the key, or null if there is none or it cannot be read. */
+  public CachedClass load(String key) {
+    File file = new File(cacheDir, key + FILE_SUFFIX);
+    if (!file.isFile()) {
+      return null;
+    }
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        return null;
+      }
+      byte[] data = null;
+      int length = in.readInt();
+      if (length >= 0) {
+        data = new byte[length];
+        in.readFully(data);
+      }
+      CachedClass cached = new CachedClass(data);
+      cached.transformNanos = in.readLong();
+      int locationCount = in.readInt();
+      for (int i = 0; i < locationCount; i++) {
+        cached.addLocation(
+            new CachedLocation(
+                in.readUTF(),
+                in.readUTF(),
+                in.readInt(),
+                in.readInt(),
+                in.readInt(),
+                readString(in),
+                in.readInt()));
+      }
+      int noteCount = in.readInt();
+      for (int i = 0; i < noteCount; i++) {
+        cached.addNote(in.readUTF());
+      }
+      return cached;
+    } catch (IOException e) {
+      AgentLogger.debug("Cannot read instrumented class cache " + file + ": " + e.getMessage());
+      return null;
+    }
+  }
+
+  public void save(String key, CachedClass cached) {
+    File tempFile = null;
+    try {
+      tempFile = File.createTempFile(key, ".tmp", cacheDir);
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        if (cached.data == null) {
+          out.writeInt(-1);
+        } else {
+          out.writeInt(cached.data.length);
+          out.write(cached.data);
+        }
+        out.writeLong(cached.transformNanos);
+        out.writeInt(cached.locations.size());
+        for (CachedLocation location : cached.locations) {
+          out.writeUTF(location.className);
+          out.writeUTF(location.methodSignature);
+          out.writeInt(location.line);
+          out.writeInt(location.numOfReadVars);
+          out.writeInt(location.numOfWrittenVars);
+          writeString(out, location.bytecode);
+          out.writeInt(location.offset);
+        }
+        out.writeInt(cached.notes.size());
+        for (String note : cached.notes) {
+          out.writeUTF(note);
+        }
+      }
+      Files.move(
+          tempFile.toPath(),
+          new File(cacheDir, key + FILE_SUFFIX).toPath(),
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      AgentLogger.debug("Cannot write instrumented class cache: " + e.getMessage());
+      if (tempFile != null) {
+        tempFile.delete();
+      }
+    }
+  }
+
+  /**
+   * delete the oldest entries of the cache directory until at most {@code maxEntries} are left. The
+   * entries are not touched when they are loaded, so the oldest is the one written first.
+   *
+   * @return the number of deleted entries.
+   */
+  public static int prune(File cacheDir, int maxEntries) {
+    File[] files =
+        cacheDir.listFiles(
+            new FileFilter() {
+
+              @Override
+              public boolean accept(File file) {
+                return file.getName().endsWith(FILE_SUFFIX);
+              }
+            });
+    if (files == null || files.length <= maxEntries) {
+      return 0;
+    }
+    final long[] lastModified = new long[files.length];
+    Integer[] order = new Integer[files.length];
+    for (int i = 0; i < files.length; i++) {
+      lastModified[i] = files[i].lastModified();
+      order[i] = i;
+    }
+    Arrays.sort(
+        order,
+        new Comparator<Integer>() {
+
+          @Override
+          public int compare(Integer o1, Integer o2) {
+            return Long.compare(lastModified[o1], lastModified[o2]);
+          }
+        });
+    int deleted = 0;
+    for (int i = 0; i < files.length - maxEntries; i++) {
+      if (files[order[i]].delete()) {
+        deleted++;
+      }
+    }
+    return deleted;
+  }
+
+  /* bytecode strings of long lines may not fit in writeUTF */
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @param restoreNanos the time taken to load the entry and restore the class, which is deducted
+   *     from the time its transformation took.
+   */
+  public synchronized void recordHit(CachedClass cached, long restoreNanos) {
+    hits++;
+    savedNanos += Math.max(0, cached.transformNanos - restoreNanos);
+  }
+
+  public synchronized void recordMiss() {
+    misses++;
+  }
+
+  public synchronized int getHits() {
+    return hits;
+  }
+
+  public synchronized int getMisses() {
+    return misses;
+  }
+
+  public synchronized String getStatistics() {
+    return String.format(
+        "Instrumented class cache: %d hits, %d misses, transform time saved: %d ms",
+        hits, misses, savedNanos / 1000000);
+  }
+
+  /** the result of instrumenting a class, and what must be redone when it is reused. */
+  public static class CachedClass {
+    /* null if the class is not instrumented */
+    private final byte[] data;
+    private long transformNanos;
+    private final List<CachedLocation> locations = new ArrayList<>();
+    private final List<String> notes = new ArrayList<>();
+
+    public CachedClass(byte[] data) {
+      this.data = data;
+    }
+
+    public byte[] getData() {
+      return data;
+    }
+
+    public void setTransformNanos(long transformNanos) {
+      this.transformNanos = transformNanos;
+    }
+
+    public List<CachedLocation> getLocations() {
+      return locations;
+    }
+
+    public void addLocation(CachedLocation location) {
+      locations.add(location);
+    }
+
+    /** information the instrumenter collects from the class besides its bytes. */
+    public List<String> getNotes() {
+      return notes;
+    }
+
+    public void addNote(String note) {
+      notes.add(note);
+    }
+  }
+
+  /**
+   * a location registered when the class was instrumented, with the offset in the class bytes of
+   * the int constant holding its id.
+   */
+  public static class CachedLocation {
+    private final String className;
+    private final String methodSignature;
+    private final int line;
+    private final int numOfReadVars;
+    private final int numOfWrittenVars;
+    private final String bytecode;
+    private final int offset;
+
+    public CachedLocation(
+        String className,
+        String methodSignature,
+        int line,
+        int numOfReadVars,
+        int numOfWrittenVars,
+        String bytecode,
+        int offset) {
+      this.className = className;
+      this.methodSignature = methodSignature;
+      this.line = line;
+      this.numOfReadVars = numOfReadVars;
+      this.numOfWrittenVars = numOfWrittenVars;
+      this.bytecode = bytecode;
+      this.offset = offset;
+    }
+
+    public String getClassName() {
+      return className;
+    }
+
+    public String getMethodSignature() {
+      return methodSignature;
+    }
+
+    public int getLine() {
+      return line;
+    }
+
+    public int getNumOfReadVars() {
+      return numOfReadVars;
+    }
+
+    public int getNumOfWrittenVars() {
+      return numOfWrittenVars;
+    }
+
+    public String getBytecode() {
+      return bytecode;
+    }
+
+    public int getOffset() {
+      return offset;
+    }
+  }
+}
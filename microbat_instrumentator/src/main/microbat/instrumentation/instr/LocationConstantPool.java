@@ -0,0 +1,107 @@
+package microbat.instrumentation.instr;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.Constant;
+import org.apache.bcel.classfile.ConstantInteger;
+import org.apache.bcel.classfile.ConstantPool;
+import org.apache.bcel.generic.ConstantPoolGen;
+
+/**
+ * A constant pool in which the id of each location pushed by the instrumented code has an entry of
+ * its own, never shared with another constant. The ids are given by the running JVM (see {@link
+ * microbat.instrumentation.runtime.LocationRegistry}), so the bytes of a class kept by {@link
+ * InstrumentedClassCache} are only reused after the ids are patched at these entries.
+ */
+class LocationConstantPool extends ConstantPoolGen {
+  /* never a name in a class file, so the placeholder entries are never looked up */
+  private static final String PLACEHOLDER_PREFIX = "<microbat location>";
+  private final List<Integer> locationIds = new ArrayList<>();
+  private final List<Integer> constantIndexes = new ArrayList<>();
+  private final Set<Integer> locationIndexes = new HashSet<>();
+
+  LocationConstantPool(ConstantPool cp) {
+    super(cp);
+  }
+
+  /** @return the index of the new constant holding the location id. */
+  int addLocation(int locationId) {
+    /* the add methods share equal constants, a unique placeholder takes a new entry instead */
+    int idx = addUtf8(PLACEHOLDER_PREFIX + locationIds.size());
+    setConstant(idx, new ConstantInteger(locationId));
+    locationIds.add(locationId);
+    constantIndexes.add(idx);
+    locationIndexes.add(idx);
+    return idx;
+  }
+
+  /** the entries of the locations are patched when the class is restored, they are not shared. */
+  @Override
+  public int lookupInteger(int n) {
+    for (int i = 1; i < getSize(); i++) {
+      Constant c = getConstant(i);
+      if (c instanceof ConstantInteger
+          && ((ConstantInteger) c).getBytes() == n
+          && !locationIndexes.contains(i)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  List<Integer> getLocationIds() {
+    return locationIds;
+  }
+
+  List<Integer> getConstantIndexes() {
+    return constantIndexes;
+  }
+
+  /** @return the offset of each entry of the constant pool of the class file, by its index. */
+  static int[] getConstantOffsets(byte[] classfile) {
+    int count = ((classfile[8] & 0xff) << 8) | (classfile[9] & 0xff);
+    int[] offsets = new int[count];
+    int pos = 10;
+    for (int i = 1; i < count; i++) {
+      offsets[i] = pos;
+      int tag = classfile[pos];
+      switch (tag) {
+        case Const.CONSTANT_Utf8:
+          pos += 3 + (((classfile[pos + 1] & 0xff) << 8) | (classfile[pos + 2] & 0xff));
+          break;
+        case Const.CONSTANT_Long:
+        case Const.CONSTANT_Double:
+          pos += 9;
+          i++; // takes two entries
+          break;
+        case Const.CONSTANT_Class:
+        case Const.CONSTANT_String:
+        case Const.CONSTANT_MethodType:
+        case 19: // module
+        case 20: // package
+          pos += 3;
+          break;
+        case Const.CONSTANT_MethodHandle:
+          pos += 4;
+          break;
+        case Const.CONSTANT_Integer:
+        case Const.CONSTANT_Float:
+        case Const.CONSTANT_Fieldref:
+        case Const.CONSTANT_Methodref:
+        case Const.CONSTANT_InterfaceMethodref:
+        case Const.CONSTANT_NameAndType:
+        case Const.CONSTANT_InvokeDynamic:
+        case 17: // dynamic
+          pos += 5;
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown constant pool tag " + tag + " at " + pos);
+      }
+    }
+    return offsets;
+  }
+}
@@ -35,6 +35,7 @@ import org.apache.bcel.generic.InstructionFactory;
 import org.apache.bcel.generic.InstructionHandle;
 import org.apache.bcel.generic.InstructionList;
 import org.apache.bcel.generic.InvokeInstruction;
+import org.apache.bcel.generic.LDC;
 import org.apache.bcel.generic.LocalVariableGen;
 import org.apache.bcel.generic.LocalVariableInstruction;
 import org.apache.bcel.generic.MethodGen;
@@ -55,6 +56,8 @@ import microbat.instrumentation.AgentLogger;
 import microbat.instrumentation.AgentParams;
 import microbat.instrumentation.filter.GlobalFilterChecker;
 import microbat.instrumentation.filter.UserFilters;
+import microbat.instrumentation.instr.InstrumentedClassCache.CachedClass;
+import microbat.instrumentation.instr.InstrumentedClassCache.CachedLocation;
 import microbat.instrumentation.instr.instruction.info.ArrayInstructionInfo;
 import microbat.instrumentation.instr.instruction.info.EntryPoint;
 import microbat.instrumentation.instr.instruction.info.FieldInstructionInfo;
@@ -62,6 +65,7 @@ import microbat.instrumentation.instr.instruction.info.LineInstructionInfo;
 import microbat.instrumentation.instr.instruction.info.LocalVarInstructionInfo;
 import microbat.instrumentation.instr.instruction.info.RWInstructionInfo;
 import microbat.instrumentation.runtime.IExecutionTracer;
+import microbat.instrumentation.runtime.LocationRegistry;
 import microbat.instrumentation.runtime.TraceUtils;
 import microbat.instrumentation.utils.MicrobatUtils;
 
@@ -73,6 +77,11 @@ public class TraceInstrumenter extends AbstractInstrumenter {
   private EntryPoint entryPoint;
   private Set<String> requireSplittingMethods = Collections.emptySet();
   private UserFilters userFilters;
+  /*
+   * the constant pool of the class being instrumented by the current thread when the class cache
+   * is enabled, read back by createCachedClass; classes are transformed concurrently.
+   */
+  private final ThreadLocal<LocationConstantPool> locationPool = new ThreadLocal<>();
 
   TraceInstrumenter() {}
 
@@ -88,6 +97,13 @@ public class TraceInstrumenter extends AbstractInstrumenter {
   protected byte[] instrument(String classFName, String className, JavaClass jc) {
     ClassGen classGen = new ClassGen(jc);
     ConstantPoolGen constPool = classGen.getConstantPool();
+    locationPool.remove();
+    if (isClassCacheEnabled()) {
+      LocationConstantPool pool = new LocationConstantPool(jc.getConstantPool());
+      classGen.setConstantPool(pool);
+      constPool = pool;
+      locationPool.set(pool);
+    }
     JavaClass newJC = null;
     boolean entry = entryPoint == null ? false : className.equals(entryPoint.getClassName());
     boolean isAppClass = GlobalFilterChecker.isAppClass(classFName) || entry;
@@ -155,6 +171,66 @@ public class TraceInstrumenter extends AbstractInstrumenter {
     return null;
   }
 
+  @Override
+  protected String getCacheContext(String classFName) {
+    String className = classFName.replace("/", ".");
+    boolean entry = entryPoint == null ? false : className.equals(entryPoint.getClassName());
+    return GlobalFilterChecker.isAppClass(classFName) + ";" + entry;
+  }
+
+  @Override
+  protected CachedClass createCachedClass(byte[] data) {
+    CachedClass cached = super.createCachedClass(data);
+    LocationConstantPool pool = locationPool.get();
+    locationPool.remove();
+    if (data == null || pool == null) {
+      return cached;
+    }
+    int[] offsets = LocationConstantPool.getConstantOffsets(data);
+    List<Integer> locationIds = pool.getLocationIds();
+    List<Integer> constantIndexes = pool.getConstantIndexes();
+    for (int i = 0; i < locationIds.size(); i++) {
+      LocationRegistry.Location location = LocationRegistry.get(locationIds.get(i));
+      cached.addLocation(
+          new CachedLocation(
+              location.getClassName(),
+              location.getMethodSignature(),
+              location.getLine(),
+              location.getNumOfReadVars(),
+              location.getNumOfWrittenVars(),
+              location.getBytecode(),
+              offsets[constantIndexes.get(i)] + 1));
+    }
+    return cached;
+  }
+
+  /** registers the locations of the class again and patches their new ids into its bytes. */
+  @Override
+  protected byte[] restore(CachedClass cached) {
+    byte[] data = super.restore(cached);
+    if (data == null) {
+      return null;
+    }
+    for (CachedLocation location : cached.getLocations()) {
+      int id =
+          LocationRegistry.register(
+              location.getClassName(),
+              location.getMethodSignature(),
+              location.getLine(),
+              location.getNumOfReadVars(),
+              location.getNumOfWrittenVars(),
+              location.getBytecode(),
+              GlobalFilterChecker.isExclusive(
+                  location.getClassName(), location.getMethodSignature()));
+      int offset = location.getOffset();
+      data[offset] = (byte) (id >>> 24);
+      data[offset + 1] = (byte) (id >>> 16);
+      data[offset + 2] = (byte) (id >>> 8);
+      data[offset + 3] = (byte) id;
+    }
+    return data;
+  }
+
   private boolean isThread(JavaClass jc) {
     try {
       for (JavaClass interf : jc.getAllInterfaces()) {
@@ -266,18 +342,22 @@ public class TraceInstrumenter extends AbstractInstrumenter {
       /* instrument RW instructions */
       List<RWInstructionInfo> rwInsns = lineInfo.getRWInstructions();
       //			if (lineInfo.hasNoInstrumentation()) {
-      injectCodeTracerHitLine(
-          insnList,
-          constPool,
-          tracerVar,
-          lineInfo.getLine(),
-          lineInfo.getLineNumberInsn(),
-          classNameVar,
-          methodSigVar,
-          lineInfo.hasExceptionTarget(),
-          lineInfo.getReadWriteInsnTotal(false),
-          lineInfo.getReadWriteInsnTotal(true),
-          lineInfo);
+      if (lineInfo.hasExceptionTarget()) {
+        injectCodeTracerHitLine(
+            insnList,
+            constPool,
+            tracerVar,
+            lineInfo.getLine(),
+            lineInfo.getLineNumberInsn(),
+            classNameVar,
+            methodSigVar,
+            true,
+            lineInfo.getReadWriteInsnTotal(false),
+            lineInfo.getReadWriteInsnTotal(true),
+            lineInfo);
+      } else {
+        injectCodeTracerHitLocation(insnList, constPool, tracerVar, methodGen, lineInfo);
+      }
       //			}
       for (RWInstructionInfo rwInsnInfo : rwInsns) {
         InstructionList newInsns = null;
@@ -1178,22 +1258,60 @@ public class TraceInstrumenter extends AbstractInstrumenter {
     if (!isExceptionTarget) {
       newInsns.append(new PUSH(constPool, readVars));
       newInsns.append(new PUSH(constPool, writtenVars));
-
-      if (lineInfo == null) {
-        newInsns.append(new PUSH(constPool, lineNumberInsn.getInstruction().toString()));
-      } else {
-        StringBuffer buffer = new StringBuffer();
-        for (InstructionHandle handle : lineInfo.getInstructionsOnLine()) {
-          buffer.append(handle.getInstruction().toString() + ":");
-        }
-        newInsns.append(new PUSH(constPool, buffer.toString()));
-      }
+      newInsns.append(new PUSH(constPool, getLineBytecode(lineNumberInsn, lineInfo)));
     }
     appendTracerMethodInvoke(newInsns, tracerMethod, constPool);
     insertInsnHandler(insnList, newInsns, lineNumberInsn);
     newInsns.dispose();
   }
 
+  /**
+   * like {@link #injectCodeTracerHitLine} for a line which is not an exception target, but
+   * everything about the line is registered in {@link LocationRegistry} now and the instrumented
+   * code only pushes the id of the location. Whether the line is excluded from the trace is decided
+   * here as well, the class has just been found transformable.
+   */
+  protected void injectCodeTracerHitLocation(
+      InstructionList insnList,
+      ConstantPoolGen constPool,
+      LocalVariableGen tracerVar,
+      MethodGen methodGen,
+      LineInstructionInfo lineInfo) {
+    String className = methodGen.getClassName().replace("/", ".");
+    String methodSig = className + "#" + methodGen.getName() + methodGen.getSignature();
+    InstructionHandle lineNumberInsn = lineInfo.getLineNumberInsn();
+    int locationId =
+        LocationRegistry.register(
+            className,
+            methodSig,
+            lineInfo.getLine(),
+            lineInfo.getReadWriteInsnTotal(false),
+            lineInfo.getReadWriteInsnTotal(true),
+            getLineBytecode(lineNumberInsn, lineInfo),
+            GlobalFilterChecker.isExclusive(className, methodSig));
+    InstructionList newInsns = new InstructionList();
+    newInsns.append(new ALOAD(tracerVar.getIndex()));
+    if (constPool instanceof LocationConstantPool) {
+      newInsns.append(new LDC(((LocationConstantPool) constPool).addLocation(locationId)));
+    } else {
+      newInsns.append(new PUSH(constPool, locationId));
+    }
+    appendTracerMethodInvoke(newInsns, TracerMethods.HIT_LOCATION, constPool);
+    insertInsnHandler(insnList, newInsns, lineNumberInsn);
+    newInsns.dispose();
+  }
+
+  private String getLineBytecode(InstructionHandle lineNumberInsn, LineInstructionInfo lineInfo) {
+    if (lineInfo == null) {
+      return lineNumberInsn.getInstruction().toString();
+    }
+    StringBuffer buffer = new StringBuffer();
+    for (InstructionHandle handle : lineInfo.getInstructionsOnLine()) {
+      buffer.append(handle.getInstruction().toString() + ":");
+    }
+    return buffer.toString();
+  }
+
   protected LocalVariableGen injectCodeInitTracer(
       MethodGen methodGen,
       ConstantPoolGen constPool,
@@ -14,7 +14,12 @@ public class TraceTransformer extends AbstractTransformer implements ClassFileTr
   private TraceInstrumenter instrumenter;
 
   public TraceTransformer(AgentParams params) {
+    this(params, null);
+  }
+
+  public TraceTransformer(AgentParams params, InstrumentedClassCache classCache) {
     instrumenter = new TraceInstrumenter(params);
+    instrumenter.setClassCache(classCache);
   }
 
   @Override
@@ -42,6 +42,8 @@ public enum TracerMethods {
       "_hitLine",
       "(ILjava/lang/String;Ljava/lang/String;IILjava/lang/String;)V",
       7),
+  HIT_LOCATION(
+      true, "microbat/instrumentation/runtime/IExecutionTracer", "_hitLocation", "(I)V", 2),
   HIT_METHOD_END(
       true,
       "microbat/instrumentation/runtime/IExecutionTracer",
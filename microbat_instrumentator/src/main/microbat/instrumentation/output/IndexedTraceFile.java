@@ -0,0 +1,386 @@
+package microbat.instrumentation.output;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.List;
+
+import microbat.model.BreakPoint;
+import microbat.model.value.VarValue;
+
+/**
+ * Random access to a trace file written by {@link IndexedTraceWriter}. The file is memory mapped,
+ * opening it only reads the directory of the traces, their thread info and their locations; a step
+ * is read when it is asked for. The mappings stay valid after the file is closed. The file is laid
+ * out as follows:
+ *
+ * <pre>
+ * header      HEADER, version, variable value format, program message, expected and collected steps
+ * for each trace:
+ *   info      is main, thread name, thread id, included and excluded library classes, locations
+ *   steps     one record of STEP_RECORD_SIZE bytes per step, see the field offsets below
+ *   entries   for each step: bytecode, orders of the invocation children, control dominatees and
+ *             loop children, then the {@link VarValueEncoder} block of its read and written values
+ *   index     (steps + 1) longs, the offset of the entry of each step and the end of the last one
+ * directory   number of traces, then the offsets of the info, steps and index of each trace and its
+ *             number of steps
+ * trailer     offset of the directory (long)
+ * </pre>
+ *
+ * The relations between steps are stored as step orders, -1 for none.
+ */
+public class IndexedTraceFile implements Closeable {
+  public static final String HEADER = "IndexedTracingResult";
+  public static final int VERSION = 1;
+
+  /* offsets of the fields of a step record */
+  public static final int LOCATION = 0;
+  public static final int TIMESTAMP = 4;
+  public static final int CONTROL_DOMINATOR = 12;
+  public static final int STEP_IN_NEXT = 16;
+  public static final int STEP_IN_PREVIOUS = 20;
+  public static final int STEP_OVER_NEXT = 24;
+  public static final int STEP_OVER_PREVIOUS = 28;
+  public static final int INVOCATION_PARENT = 32;
+  public static final int LOOP_PARENT = 36;
+  public static final int EXCEPTION = 40;
+  public static final int STEP_RECORD_SIZE = 41;
+
+  /* a single mapping cannot exceed 2GB */
+  private static final long CHUNK_SIZE = 1L << 30;
+
+  private final RandomAccessFile file;
+  private final long length;
+  private final long chunkSize;
+  private final MappedByteBuffer[] chunks;
+  private String programMsg;
+  private int expectedSteps;
+  private int collectedSteps;
+  private List<TraceSection> traces;
+
+  public IndexedTraceFile(File file) throws IOException {
+    this(file, CHUNK_SIZE);
+  }
+
+  IndexedTraceFile(File file, long chunkSize) throws IOException {
+    this.file = new RandomAccessFile(file, "r");
+    this.length = this.file.length();
+    this.chunkSize = chunkSize;
+    this.chunks = new MappedByteBuffer[(int) ((length + chunkSize - 1) / chunkSize)];
+    try {
+      FileChannel channel = this.file.getChannel();
+      for (int i = 0; i < chunks.length; i++) {
+        long start = i * chunkSize;
+        chunks[i] = channel.map(MapMode.READ_ONLY, start, Math.min(chunkSize, length - start));
+      }
+      readHeader();
+      readDirectory();
+    } catch (IOException | RuntimeException e) {
+      close();
+      throw e;
+    }
+  }
+
+  /** @return whether the file starts with the header of {@link IndexedTraceWriter}. */
+  public static boolean isIndexedTraceFile(File file) {
+    try (OutputReader reader =
+        new OutputReader(new BufferedInputStream(new FileInputStream(file)))) {
+      return HEADER.equals(reader.readString());
+    } catch (IOException | RuntimeException e) {
+      return false;
+    }
+  }
+
+  private void readHeader() throws IOException {
+    OutputReader reader = reader(0);
+    if (!HEADER.equals(reader.readString())) {
+      throw new IOException("Not an indexed trace file!");
+    }
+    int version = reader.readVarInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported indexed trace version: " + version);
+    }
+    int varValueFormat = reader.readVarInt();
+    if (varValueFormat < 1 || varValueFormat > VarValueEncoder.FORMAT_VERSION) {
+      throw new IOException("Unsupported variable value format: " + varValueFormat);
+    }
+    programMsg = reader.readString();
+    expectedSteps = reader.readInt();
+    collectedSteps = reader.readInt();
+  }
+
+  private void readDirectory() throws IOException {
+    OutputReader reader = reader(getLong(length - 8));
+    int size = reader.readInt();
+    traces = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      long info = reader.readLong();
+      long steps = reader.readLong();
+      long index = reader.readLong();
+      int stepSize = reader.readInt();
+      traces.add(new TraceSection(info, steps, index, stepSize));
+    }
+  }
+
+  public String getProgramMsg() {
+    return programMsg;
+  }
+
+  public int getExpectedSteps() {
+    return expectedSteps;
+  }
+
+  public int getCollectedSteps() {
+    return collectedSteps;
+  }
+
+  public List<TraceSection> getTraces() {
+    return traces;
+  }
+
+  @Override
+  public void close() throws IOException {
+    /* the mappings are released when they are garbage collected */
+    file.close();
+  }
+
+  private MappedByteBuffer chunk(int idx) {
+    return chunks[idx];
+  }
+
+  private int getByte(long pos) throws IOException {
+    return chunk((int) (pos / chunkSize)).get((int) (pos % chunkSize)) & 0xFF;
+  }
+
+  private int getInt(long pos) throws IOException {
+    int offset = (int) (pos % chunkSize);
+    MappedByteBuffer chunk = chunk((int) (pos / chunkSize));
+    if (offset + 4 <= chunk.limit()) {
+      return chunk.getInt(offset);
+    }
+    int value = 0;
+    for (int i = 0; i < 4; i++) {
+      value = (value << 8) | getByte(pos + i);
+    }
+    return value;
+  }
+
+  private long getLong(long pos) throws IOException {
+    int offset = (int) (pos % chunkSize);
+    MappedByteBuffer chunk = chunk((int) (pos / chunkSize));
+    if (offset + 8 <= chunk.limit()) {
+      return chunk.getLong(offset);
+    }
+    return ((long) getInt(pos) << 32) | (getInt(pos + 4) & 0xFFFFFFFFL);
+  }
+
+  private OutputReader reader(long pos) {
+    return new OutputReader(new MappedInputStream(pos));
+  }
+
+  /** the part of the file written for a trace. */
+  public class TraceSection {
+    private final long infoOffset;
+    private final long stepsOffset;
+    private final long indexOffset;
+    private final int size;
+    private boolean isMain;
+    private String threadName;
+    private long threadId;
+    private List<String> includedLibraryClasses;
+    private List<String> excludedLibraryClasses;
+    private List<BreakPoint> locations;
+
+    TraceSection(long infoOffset, long stepsOffset, long indexOffset, int size)
+        throws IOException {
+      this.infoOffset = infoOffset;
+      this.stepsOffset = stepsOffset;
+      this.indexOffset = indexOffset;
+      this.size = size;
+      readInfo();
+    }
+
+    private void readInfo() throws IOException {
+      TraceOutputReader reader = new TraceOutputReader(new MappedInputStream(infoOffset));
+      isMain = reader.readBoolean();
+      threadName = reader.readString();
+      threadId = reader.readLong();
+      includedLibraryClasses = nullToEmpty(reader.readListString());
+      excludedLibraryClasses = nullToEmpty(reader.readListString());
+      int locationSize = reader.readVarInt();
+      locations = new ArrayList<>(locationSize);
+      for (int i = 0; i < locationSize; i++) {
+        locations.add(reader.readLocation(reader.readString()));
+      }
+    }
+
+    private List<String> nullToEmpty(List<String> list) {
+      return list == null ? new ArrayList<String>() : list;
+    }
+
+    public int size() {
+      return size;
+    }
+
+    public boolean isMain() {
+      return isMain;
+    }
+
+    public String getThreadName() {
+      return threadName;
+    }
+
+    public long getThreadId() {
+      return threadId;
+    }
+
+    public List<String> getIncludedLibraryClasses() {
+      return includedLibraryClasses;
+    }
+
+    public List<String> getExcludedLibraryClasses() {
+      return excludedLibraryClasses;
+    }
+
+    /** the locations are shared by the steps executing them. */
+    public BreakPoint getLocation(int order) throws IOException {
+      return locations.get(getInt(record(order) + LOCATION));
+    }
+
+    public long getTimestamp(int order) throws IOException {
+      return getLong(record(order) + TIMESTAMP);
+    }
+
+    public boolean isException(int order) throws IOException {
+      return getByte(record(order) + EXCEPTION) != 0;
+    }
+
+    /**
+     * @param relation the offset of a relation field, e.g. {@link IndexedTraceFile#STEP_IN_NEXT}
+     * @return the order of the related step, or -1 if there is none.
+     */
+    public int getRelation(int order, int relation) throws IOException {
+      return getInt(record(order) + relation);
+    }
+
+    /** @param withVarValues decode the read/written variables as well. */
+    public StepEntry getEntry(int order, boolean withVarValues) throws IOException {
+      checkOrder(order);
+      OutputReader reader = reader(getLong(indexOffset + (order - 1) * 8L));
+      StepEntry entry = new StepEntry();
+      entry.bytecode = reader.readString();
+      entry.invocationChildren = readOrders(reader);
+      entry.controlDominatees = readOrders(reader);
+      entry.loopChildren = readOrders(reader);
+      if (withVarValues) {
+        List<List<VarValue>> rwVars = VarValueDecoder.decode(reader);
+        entry.readVariables = nullToEmptyValues(rwVars.get(0));
+        entry.writtenVariables = nullToEmptyValues(rwVars.get(1));
+      }
+      return entry;
+    }
+
+    private List<VarValue> nullToEmptyValues(List<VarValue> values) {
+      return values == null ? new ArrayList<VarValue>() : values;
+    }
+
+    private int[] readOrders(OutputReader reader) throws IOException {
+      int[] orders = new int[reader.readVarInt()];
+      for (int i = 0; i < orders.length; i++) {
+        orders[i] = reader.readVarInt();
+      }
+      return orders;
+    }
+
+    private long record(int order) {
+      checkOrder(order);
+      return stepsOffset + (order - 1) * (long) STEP_RECORD_SIZE;
+    }
+
+    private void checkOrder(int order) {
+      if (order < 1 || order > size) {
+        throw new IndexOutOfBoundsException("step " + order + ", size " + size);
+      }
+    }
+  }
+
+  /** the variable-length part of a step. */
+  public static class StepEntry {
+    private String bytecode;
+    private int[] invocationChildren;
+    private int[] controlDominatees;
+    private int[] loopChildren;
+    private List<VarValue> readVariables;
+    private List<VarValue> writtenVariables;
+
+    public String getBytecode() {
+      return bytecode;
+    }
+
+    public int[] getInvocationChildren() {
+      return invocationChildren;
+    }
+
+    public int[] getControlDominatees() {
+      return controlDominatees;
+    }
+
+    public int[] getLoopChildren() {
+      return loopChildren;
+    }
+
+    /** @return null if the entry is read without the variable values. */
+    public List<VarValue> getReadVariables() {
+      return readVariables;
+    }
+
+    /** @return null if the entry is read without the variable values. */
+    public List<VarValue> getWrittenVariables() {
+      return writtenVariables;
+    }
+  }
+
+  private class MappedInputStream extends InputStream {
+    private long pos;
+
+    MappedInputStream(long pos) {
+      this.pos = pos;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (pos >= length) {
+        return -1;
+      }
+      return getByte(pos++);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (pos >= length) {
+        return -1;
+      }
+      MappedByteBuffer chunk = chunk((int) (pos / chunkSize));
+      int offset = (int) (pos % chunkSize);
+      int size = Math.min(len, chunk.limit() - offset);
+      /* the chunk is shared, read it through a duplicate not to move its position */
+      ByteBuffer view = chunk.duplicate();
+      view.position(offset);
+      view.get(b, off, size);
+      pos += size;
+      return size;
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package microbat.instrumentation.output;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import microbat.model.BreakPoint;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+import microbat.model.value.VarValue;
+
+/**
+ * Writes traces in the layout read by {@link IndexedTraceFile}: the steps of each trace are written
+ * as fixed-width records, followed by a variable-length entry per step and the offsets of these
+ * entries, so that a step can be read without reading the steps before it.
+ */
+public class IndexedTraceWriter extends TraceOutputWriter {
+  private final PositionOutputStream positionOut;
+
+  public IndexedTraceWriter(String dumpFile) throws IOException {
+    this(new BufferedOutputStream(new FileOutputStream(dumpFile)));
+  }
+
+  public IndexedTraceWriter(OutputStream out) {
+    this(new PositionOutputStream(out));
+  }
+
+  private IndexedTraceWriter(PositionOutputStream out) {
+    super(out);
+    this.positionOut = out;
+  }
+
+  public void writeRunningInfo(RunningInfo info) throws IOException {
+    writeString(IndexedTraceFile.HEADER);
+    writeVarInt(IndexedTraceFile.VERSION);
+    writeVarValueFormat();
+    writeString(info.getProgramMsg());
+    writeInt(info.getExpectedSteps());
+    writeInt(info.getCollectedSteps());
+    List<Trace> traceList = info.getTraceList();
+    long[][] sections = new long[traceList.size()][];
+    for (int i = 0; i < traceList.size(); i++) {
+      sections[i] = writeIndexedTrace(traceList.get(i));
+    }
+    long directory = position();
+    writeInt(traceList.size());
+    for (int i = 0; i < traceList.size(); i++) {
+      writeLong(sections[i][0]);
+      writeLong(sections[i][1]);
+      writeLong(sections[i][2]);
+      writeInt(traceList.get(i).getExecutionList().size());
+    }
+    writeLong(directory);
+    flush();
+  }
+
+  /** @return the offsets of the thread info, the step table and the step index. */
+  private long[] writeIndexedTrace(Trace trace) throws IOException {
+    long info = position();
+    writeBoolean(trace.isMain());
+    writeString(trace.getThreadName());
+    writeLong(trace.getThreadId());
+    writeListString(trace.getIncludedLibraryClasses());
+    writeListString(trace.getExcludedLibraryClasses());
+    List<TraceNode> steps = trace.getExecutionList();
+    Map<String, Integer> locIdIdxMap = new LinkedHashMap<>();
+    Map<String, BreakPoint> locations = new LinkedHashMap<>();
+    for (TraceNode node : steps) {
+      BreakPoint bkp = node.getBreakPoint();
+      if (!locIdIdxMap.containsKey(bkp.getId())) {
+        locIdIdxMap.put(bkp.getId(), locIdIdxMap.size());
+        locations.put(bkp.getId(), bkp);
+      }
+    }
+    writeVarInt(locations.size());
+    for (BreakPoint bkp : locations.values()) {
+      writeString(bkp.getDeclaringCompilationUnitName());
+      writeLocation(bkp);
+    }
+
+    long stepTable = position();
+    for (TraceNode node : steps) {
+      writeInt(locIdIdxMap.get(node.getBreakPoint().getId()));
+      writeLong(node.getTimestamp());
+      writeOrder(node.getControlDominator());
+      writeOrder(node.getStepInNext());
+      writeOrder(node.getStepInPrevious());
+      writeOrder(node.getStepOverNext());
+      writeOrder(node.getStepOverPrevious());
+      writeOrder(node.getInvocationParent());
+      writeOrder(node.getLoopParent());
+      writeBoolean(node.isException());
+    }
+
+    long[] entries = new long[steps.size() + 1];
+    for (int i = 0; i < steps.size(); i++) {
+      entries[i] = position();
+      TraceNode node = steps.get(i);
+      writeString(node.getBytecode());
+      writeOrders(node.getInvocationChildren());
+      writeOrders(node.getControlDominatees());
+      writeOrders(node.getLoopChildren());
+      /* one block for both lists, the values shared by them keep their identity */
+      List<Collection<VarValue>> rwVars =
+          Arrays.asList(node.getReadVariables(), node.getWrittenVariables());
+      VarValueEncoder.encode(rwVars, this);
+    }
+    entries[steps.size()] = position();
+    long stepIndex = position();
+    for (long entry : entries) {
+      writeLong(entry);
+    }
+    return new long[] {info, stepTable, stepIndex};
+  }
+
+  private void writeOrder(TraceNode node) throws IOException {
+    writeInt(node == null ? -1 : node.getOrder());
+  }
+
+  private void writeOrders(List<TraceNode> nodes) throws IOException {
+    if (nodes == null) {
+      writeVarInt(0);
+      return;
+    }
+    writeVarInt(nodes.size());
+    for (TraceNode node : nodes) {
+      writeVarInt(node.getOrder());
+    }
+  }
+
+  private long position() {
+    return positionOut.position;
+  }
+
+  /* DataOutputStream#size() stops counting at Integer.MAX_VALUE */
+  private static class PositionOutputStream extends FilterOutputStream {
+    private long position;
+
+    public PositionOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      position++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      position += len;
+    }
+  }
+}
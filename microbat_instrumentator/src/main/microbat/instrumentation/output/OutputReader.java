@@ -48,6 +48,19 @@ public class OutputReader extends DataInputStream {
     return (value & 0x7F) | (readVarInt() << 7);
   }
 
+  /** see {@link OutputWriter#writeVarLong(long)} */
+  public long readVarLong() throws IOException {
+    long zigzag = 0;
+    for (int shift = 0; ; shift += 7) {
+      int b = 0xFF & readByte();
+      zigzag |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        break;
+      }
+    }
+    return (zigzag >>> 1) ^ -(zigzag & 1);
+  }
+
   public List<Integer> readListInt() throws IOException {
     int size = readVarInt();
     if (size == -1) {
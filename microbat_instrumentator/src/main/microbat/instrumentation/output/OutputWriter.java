@@ -35,6 +35,16 @@ public class OutputWriter extends DataOutputStream {
     }
   }
 
+  /** zigzag varint, small negative values take as few bytes as small positive ones. */
+  public void writeVarLong(final long value) throws IOException {
+    long zigzag = (value << 1) ^ (value >> 63);
+    while ((zigzag & 0xFFFFFFFFFFFFFF80L) != 0) {
+      writeByte(0x80 | ((int) zigzag & 0x7F));
+      zigzag >>>= 7;
+    }
+    writeByte((int) zigzag);
+  }
+
   public <K extends Serializable, V> void writeSerializableMap(Map<K, V> map) throws IOException {
     if (map == null || map.isEmpty()) {
       writeVarInt(0);
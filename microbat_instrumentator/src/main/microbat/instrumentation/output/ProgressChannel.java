@@ -0,0 +1,180 @@
+package microbat.instrumentation.output;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A small memory mapped file shared by the agent and the process which started it, through which
+ * the agent publishes the progress of the recording at a fixed rate (see {@link
+ * microbat.instrumentation.runtime.ProgressPublisher}). Unlike the progress lines printed to the
+ * console, nothing is done per step: the counters are read from the tracers when they are
+ * published, and read by the other side whenever it polls.
+ *
+ * <p>Layout, all values big endian:
+ *
+ * <pre>
+ * int magic, int version, long sequence, int finished, int thread count,
+ * long steps, long expected steps, long used heap, long max heap,
+ * {long thread id, long steps} * MAX_THREADS
+ * </pre>
+ *
+ * The sequence is odd while a snapshot is being written, a reader which sees it change retries.
+ */
+public class ProgressChannel implements Closeable {
+  public static final int MAGIC = 0x4d425047;
+  public static final int VERSION = 1;
+  public static final int MAX_THREADS = 256;
+  private static final int SEQUENCE = 8;
+  private static final int FINISHED = 16;
+  private static final int THREAD_COUNT = 20;
+  private static final int STEPS = 24;
+  private static final int EXPECTED_STEPS = 32;
+  private static final int USED_HEAP = 40;
+  private static final int MAX_HEAP = 48;
+  private static final int THREADS = 56;
+  public static final int SIZE = THREADS + MAX_THREADS * 16;
+  private static final int READ_ATTEMPTS = 10;
+
+  private final RandomAccessFile file;
+  private final MappedByteBuffer buffer;
+  private long sequence;
+
+  /** maps the file, which is extended to {@link #SIZE} if it is shorter. */
+  public ProgressChannel(File file) throws IOException {
+    this.file = new RandomAccessFile(file, "rw");
+    if (this.file.length() < SIZE) {
+      this.file.setLength(SIZE);
+    }
+    buffer = this.file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, SIZE);
+  }
+
+  /** called by a single writer thread. */
+  public void publish(Progress progress) {
+    buffer.putLong(SEQUENCE, ++sequence);
+    int threadCount = Math.min(progress.threadIds.length, MAX_THREADS);
+    buffer.putInt(FINISHED, progress.finished ? 1 : 0);
+    buffer.putInt(THREAD_COUNT, threadCount);
+    buffer.putLong(STEPS, progress.steps);
+    buffer.putLong(EXPECTED_STEPS, progress.expectedSteps);
+    buffer.putLong(USED_HEAP, progress.usedHeap);
+    buffer.putLong(MAX_HEAP, progress.maxHeap);
+    for (int i = 0; i < threadCount; i++) {
+      buffer.putLong(THREADS + i * 16, progress.threadIds[i]);
+      buffer.putLong(THREADS + i * 16 + 8, progress.threadSteps[i]);
+    }
+    buffer.putInt(0, MAGIC);
+    buffer.putInt(4, VERSION);
+    buffer.putLong(SEQUENCE, ++sequence);
+  }
+
+  /** @return the latest published progress, or null if nothing has been published yet. */
+  public Progress read() {
+    for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+      long seq = buffer.getLong(SEQUENCE);
+      if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+        return null;
+      }
+      if ((seq & 1) != 0) {
+        Thread.yield();
+        continue;
+      }
+      int threadCount = Math.min(Math.max(buffer.getInt(THREAD_COUNT), 0), MAX_THREADS);
+      Progress progress = new Progress(threadCount);
+      progress.finished = buffer.getInt(FINISHED) != 0;
+      progress.steps = buffer.getLong(STEPS);
+      progress.expectedSteps = buffer.getLong(EXPECTED_STEPS);
+      progress.usedHeap = buffer.getLong(USED_HEAP);
+      progress.maxHeap = buffer.getLong(MAX_HEAP);
+      for (int i = 0; i < threadCount; i++) {
+        progress.threadIds[i] = buffer.getLong(THREADS + i * 16);
+        progress.threadSteps[i] = buffer.getLong(THREADS + i * 16 + 8);
+      }
+      if (buffer.getLong(SEQUENCE) == seq) {
+        return progress;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    file.close();
+  }
+
+  public static class Progress {
+    private boolean finished;
+    private long steps;
+    private long expectedSteps;
+    private long usedHeap;
+    private long maxHeap;
+    private final long[] threadIds;
+    private final long[] threadSteps;
+
+    public Progress(int threadCount) {
+      threadIds = new long[threadCount];
+      threadSteps = new long[threadCount];
+    }
+
+    public boolean isFinished() {
+      return finished;
+    }
+
+    public void setFinished(boolean finished) {
+      this.finished = finished;
+    }
+
+    /** number of steps recorded by all threads. */
+    public long getSteps() {
+      return steps;
+    }
+
+    public void setSteps(long steps) {
+      this.steps = steps;
+    }
+
+    public long getExpectedSteps() {
+      return expectedSteps;
+    }
+
+    public void setExpectedSteps(long expectedSteps) {
+      this.expectedSteps = expectedSteps;
+    }
+
+    public long getUsedHeap() {
+      return usedHeap;
+    }
+
+    public void setUsedHeap(long usedHeap) {
+      this.usedHeap = usedHeap;
+    }
+
+    public long getMaxHeap() {
+      return maxHeap;
+    }
+
+    public void setMaxHeap(long maxHeap) {
+      this.maxHeap = maxHeap;
+    }
+
+    public int getThreadCount() {
+      return threadIds.length;
+    }
+
+    public long getThreadId(int idx) {
+      return threadIds[idx];
+    }
+
+    public long getThreadSteps(int idx) {
+      return threadSteps[idx];
+    }
+
+    public void setThread(int idx, long threadId, long steps) {
+      threadIds[idx] = threadId;
+      threadSteps[idx] = steps;
+    }
+  }
+}
@@ -20,6 +20,9 @@ import sav.common.core.SavRtException;
  */
 public class RunningInfo {
   private static final String HEADER = "TracingResult";
+  /* followed by the variable value format, see {@link VarValueEncoder} */
+  private static final String HEADER_V2 = "TracingResultV2";
+  public static final String STREAMING_HEADER = "StreamingTracingResult";
   private List<Trace> traceList;
   private String programMsg;
   private int expectedSteps;
@@ -47,11 +50,21 @@ public class RunningInfo {
       String programMsg;
       int expectedSteps = 0;
       int collectedSteps = 0;
-      if (HEADER.equals(header)) {
+      if (STREAMING_HEADER.equals(header)) {
+        return reader.readStreamingTrace();
+      }
+      if (HEADER_V2.equals(header)) {
+        reader.readVarValueFormat();
+        programMsg = reader.readString();
+        expectedSteps = reader.readInt();
+        collectedSteps = reader.readInt();
+      } else if (HEADER.equals(header)) {
+        reader.setVarValueFormat(VarValueEncoder.FORMAT_SERIALIZED);
         programMsg = reader.readString();
         expectedSteps = reader.readInt();
         collectedSteps = reader.readInt();
       } else {
+        reader.setVarValueFormat(VarValueEncoder.FORMAT_SERIALIZED);
         programMsg = header; // for compatible reason with old version. TO BE REMOVED.
       }
       List<Trace> traceList = reader.readTrace();
@@ -94,7 +107,8 @@ public class RunningInfo {
               bufferedStream,
               traceExecFolder,
               file.getName().substring(0, file.getName().lastIndexOf(".")));
-      outputWriter.writeString(HEADER);
+      outputWriter.writeString(HEADER_V2);
+      outputWriter.writeVarValueFormat();
       outputWriter.writeString(programMsg);
       outputWriter.writeInt(expectedSteps);
       outputWriter.writeInt(collectedSteps);
@@ -110,6 +124,16 @@ public class RunningInfo {
     }
   }
 
+  /** save in the layout of {@link IndexedTraceFile}, which is opened without reading the steps. */
+  public void saveToIndexedFile(String dumpFile) throws IOException {
+    IndexedTraceWriter outputWriter = new IndexedTraceWriter(dumpFile);
+    try {
+      outputWriter.writeRunningInfo(this);
+    } finally {
+      outputWriter.close();
+    }
+  }
+
   public String getProgramMsg() {
     return programMsg;
   }
@@ -0,0 +1,159 @@
+package microbat.instrumentation.output;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import microbat.codeanalysis.bytecode.ControlDominanceCFGCache;
+import microbat.instrumentation.AgentLogger;
+import microbat.instrumentation.runtime.ExecutionTracer;
+import microbat.model.BreakPoint;
+import microbat.model.ControlScope;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+import sav.strategies.dto.AppJavaClassPath;
+
+/**
+ * Writes finished steps to the dump file in a background thread while the program is still
+ * running. Tracers hand over segments of steps through a bounded queue, so at most {@link
+ * #QUEUE_CAPACITY} segments are waiting to be written and the heap used for the trace depends on
+ * the segment size instead of the trace length.
+ *
+ * <p>The steps are linked when the file is read (see {@link
+ * TraceOutputReader#readStreamingTrace()}), since the step in/over relation, the virtual data
+ * relation and the control dominance need the whole trace. The control scopes of the locations,
+ * which need the bytecode of the program, are parsed by the agent and written when it closes the
+ * file.
+ */
+public class StreamingTraceWriter implements Runnable {
+  private static final int QUEUE_CAPACITY = 4;
+  private static final Segment END_OF_STREAM = new Segment(-1, null);
+
+  private final BlockingQueue<Segment> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+  private final Map<String, Integer> locIdIdxMap = new HashMap<>();
+  private final List<BreakPoint> locations = new ArrayList<>();
+  private final AppJavaClassPath appPath;
+  private final int segmentSize;
+  private FileOutputStream fileStream;
+  private TraceOutputWriter outputWriter;
+  private Thread writerThread;
+  private volatile IOException error;
+
+  public StreamingTraceWriter(String dumpFile, int segmentSize, AppJavaClassPath appPath)
+      throws IOException {
+    this.segmentSize = segmentSize;
+    this.appPath = appPath;
+    File file = new File(dumpFile);
+    fileStream = new FileOutputStream(file, false);
+    // Avoid concurrent writes from other processes:
+    fileStream.getChannel().lock();
+    outputWriter =
+        new TraceOutputWriter(
+            new BufferedOutputStream(fileStream),
+            file.getParent(),
+            file.getName().substring(0, file.getName().lastIndexOf(".")));
+    outputWriter.writeStreamHeader(appPath);
+  }
+
+  public void start() {
+    writerThread = new Thread(this, "microbat-trace-writer");
+    writerThread.setDaemon(true);
+    writerThread.start();
+  }
+
+  @Override
+  public void run() {
+    /* steps of the writer thread itself must never be recorded */
+    ExecutionTracer.stopRecordingCurrendThread();
+    while (true) {
+      Segment segment;
+      try {
+        segment = queue.take();
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (segment == END_OF_STREAM) {
+        return;
+      }
+      if (error != null) {
+        continue; // keep draining so that tracers are never blocked
+      }
+      try {
+        outputWriter.writeStreamSegment(segment.threadId, segment.steps, locIdIdxMap, locations);
+      } catch (IOException e) {
+        error = e;
+        AgentLogger.error(e);
+      }
+    }
+  }
+
+  /** blocks when the writer is {@link #QUEUE_CAPACITY} segments behind. */
+  public void writeSegment(long threadId, List<TraceNode> steps) {
+    if (steps.isEmpty()) {
+      return;
+    }
+    try {
+      queue.put(new Segment(threadId, steps));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * wait for all pending segments then write the control scopes of the locations, the thread
+   * information and close the file. All
+   * remaining steps must have been handed over by {@link #writeSegment(long, List)} before.
+   */
+  public void close(
+      List<Trace> threadTraces, String programMsg, int expectedSteps, int collectedSteps)
+      throws IOException {
+    try {
+      queue.put(END_OF_STREAM);
+      writerThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    try {
+      if (error != null) {
+        throw error;
+      }
+      ControlDominanceCFGCache cfgCache = new ControlDominanceCFGCache();
+      try {
+        outputWriter.writeStreamControlScopes(
+            locations, Trace.parseControlScopes(locations, appPath, cfgCache));
+      } finally {
+        cfgCache.clear();
+      }
+      for (Trace trace : threadTraces) {
+        outputWriter.writeStreamThread(trace);
+      }
+      outputWriter.writeStreamEnd(programMsg, expectedSteps, collectedSteps);
+      outputWriter.flush();
+    } finally {
+      outputWriter.close();
+      fileStream.close();
+    }
+  }
+
+  public int getSegmentSize() {
+    return segmentSize;
+  }
+
+  private static class Segment {
+    private long threadId;
+    private List<TraceNode> steps;
+
+    public Segment(long threadId, List<TraceNode> steps) {
+      this.threadId = threadId;
+      this.steps = steps == null ? Collections.<TraceNode>emptyList() : steps;
+    }
+  }
+}
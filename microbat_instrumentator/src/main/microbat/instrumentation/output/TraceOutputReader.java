@@ -3,7 +3,12 @@ package microbat.instrumentation.output;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import microbat.model.BreakPoint;
 import microbat.model.ClassLocation;
@@ -11,11 +16,14 @@ import microbat.model.ControlScope;
 import microbat.model.SourceScope;
 import microbat.model.trace.Trace;
 import microbat.model.trace.TraceNode;
+import microbat.model.trace.TraceStepLinker;
 import microbat.model.value.VarValue;
 import sav.common.core.utils.FileUtils;
+import sav.strategies.dto.AppJavaClassPath;
 
 public class TraceOutputReader extends OutputReader {
   private String traceExecFolder;
+  private int varValueFormat = VarValueEncoder.FORMAT_VERSION;
 
   public TraceOutputReader(InputStream in) {
     super(in);
@@ -54,6 +62,178 @@ public class TraceOutputReader extends OutputReader {
     return traceList;
   }
 
+  /**
+   * read the records written by {@link StreamingTraceWriter} (the header string is already
+   * consumed), then link the steps of each thread. Files written before version 3 have no control
+   * scopes, their steps have no control dominator.
+   */
+  public RunningInfo readStreamingTrace() throws IOException {
+    int version = readVarInt();
+    if (version == 1) {
+      varValueFormat = VarValueEncoder.FORMAT_SERIALIZED;
+    } else if (version <= TraceOutputWriter.STREAM_VERSION) {
+      readVarValueFormat();
+    } else {
+      throw new IOException("Unsupported streaming trace version: " + version);
+    }
+    AppJavaClassPath appPath = new AppJavaClassPath();
+    appPath.setLaunchClass(emptyToNull(readString()));
+    appPath.setJavaHome(emptyToNull(readString()));
+    appPath.setWorkingDirectory(emptyToNull(readString()));
+    List<String> classpaths = readListString();
+    if (classpaths != null) {
+      for (String cp : classpaths) {
+        appPath.addClasspath(cp);
+      }
+    }
+
+    List<BreakPoint> locationList = new ArrayList<>();
+    Map<Long, Trace> traceMap = new LinkedHashMap<>();
+    Map<Long, List<TraceNode>> stepsMap = new HashMap<>();
+    /* thread id -> (step order -> invocation parent order) */
+    Map<Long, Map<Integer, Integer>> invocationParentMap = new HashMap<>();
+    List<Trace> traceList = new ArrayList<>();
+    while (true) {
+      int record = readVarInt();
+      if (record == TraceOutputWriter.STREAM_END) {
+        break;
+      }
+      switch (record) {
+        case TraceOutputWriter.STREAM_LOCATION:
+          locationList.add(readLocation(readString()));
+          break;
+        case TraceOutputWriter.STREAM_SEGMENT:
+          long threadId = readLong();
+          Trace trace = traceMap.get(threadId);
+          if (trace == null) {
+            trace = new Trace(appPath);
+            trace.setThreadId(threadId);
+            traceMap.put(threadId, trace);
+            stepsMap.put(threadId, new ArrayList<TraceNode>());
+            invocationParentMap.put(threadId, new HashMap<Integer, Integer>());
+          }
+          readStreamSegment(
+              trace, stepsMap.get(threadId), locationList, invocationParentMap.get(threadId));
+          break;
+        case TraceOutputWriter.STREAM_THREAD:
+          threadId = readLong();
+          trace = traceMap.get(threadId);
+          if (trace == null) {
+            trace = new Trace(appPath);
+            trace.setThreadId(threadId);
+            stepsMap.put(threadId, new ArrayList<TraceNode>());
+            invocationParentMap.put(threadId, new HashMap<Integer, Integer>());
+          }
+          trace.setThreadName(readString());
+          trace.setMain(readBoolean());
+          trace.setIncludedLibraryClasses(readFilterInfo());
+          trace.setExcludedLibraryClasses(readFilterInfo());
+          traceList.add(trace);
+          break;
+        case TraceOutputWriter.STREAM_CONTROL_SCOPE:
+          readControlScopes(locationList);
+          break;
+        default:
+          throw new IOException("Invalid streaming trace record: " + record);
+      }
+    }
+    String programMsg = readString();
+    int expectedSteps = readInt();
+    int collectedSteps = readInt();
+
+    for (Trace trace : traceList) {
+      List<TraceNode> steps = stepsMap.get(trace.getThreadId());
+      Collections.sort(
+          steps,
+          new Comparator<TraceNode>() {
+
+            @Override
+            public int compare(TraceNode o1, TraceNode o2) {
+              return Integer.compare(o1.getOrder(), o2.getOrder());
+            }
+          });
+      trace.setExecutionList(steps);
+      Map<Integer, Integer> parentOrders = invocationParentMap.get(trace.getThreadId());
+      for (TraceNode step : steps) {
+        Integer parentOrder = parentOrders.get(step.getOrder());
+        if (parentOrder != null) {
+          TraceNode invocationParent = trace.getTraceNode(parentOrder);
+          step.setInvocationParent(invocationParent);
+          invocationParent.addInvocationChild(step);
+        }
+      }
+    }
+    for (Trace trace : traceList) {
+      TraceStepLinker.linkVirtualData(trace);
+      TraceStepLinker.linkControlDominance(trace);
+    }
+    return new RunningInfo(programMsg, traceList, expectedSteps, collectedSteps);
+  }
+
+  private void readControlScopes(List<BreakPoint> locationList) throws IOException {
+    int size = readVarInt();
+    for (int i = 0; i < size; i++) {
+      BreakPoint location = locationList.get(i);
+      location.setConditional(readBoolean());
+      location.setBranch(readBoolean());
+      location.setControlScope(readControlScope());
+    }
+  }
+
+  private void readStreamSegment(
+      Trace trace,
+      List<TraceNode> allSteps,
+      List<BreakPoint> locationList,
+      Map<Integer, Integer> parentOrders)
+      throws IOException {
+    int size = readVarInt();
+    List<TraceNode> segment = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      int order = readVarInt();
+      TraceNode step = new TraceNode(null, null, order, trace, null);
+      step.setBreakPoint(locationList.get(readVarInt()));
+      step.setTimestamp(readLong());
+      int parentOrder = readVarInt();
+      if (parentOrder > 0) {
+        parentOrders.put(order, parentOrder);
+      }
+      step.setException(readBoolean());
+      step.setBytecode(readString());
+      segment.add(step);
+    }
+    readRWVarValues(segment, false);
+    readRWVarValues(segment, true);
+    int i = 0;
+    while (i < segment.size()) {
+      List<List<VarValue>> varsCol = readVarValueBlock();
+      for (List<VarValue> vars : varsCol) {
+        TraceNode step = segment.get(i++);
+        for (VarValue var : vars) {
+          step.addReturnVariable(var);
+        }
+      }
+    }
+    allSteps.addAll(segment);
+  }
+
+  /** read the format written by {@link TraceOutputWriter#writeVarValueFormat()} */
+  public void readVarValueFormat() throws IOException {
+    int format = readVarInt();
+    if (format > VarValueEncoder.FORMAT_VERSION) {
+      throw new IOException("Unsupported variable value format: " + format);
+    }
+    varValueFormat = format;
+  }
+
+  /** for trace files written before the binary format of the variable values. */
+  public void setVarValueFormat(int varValueFormat) {
+    this.varValueFormat = varValueFormat;
+  }
+
+  private String emptyToNull(String str) {
+    return str.isEmpty() ? null : str;
+  }
+
   private List<String> readFilterInfo() throws IOException {
     boolean inFile = readBoolean();
     if (inFile) {
@@ -141,7 +321,7 @@ public class TraceOutputReader extends OutputReader {
   private void readRWVarValues(List<TraceNode> allSteps, boolean isWrittenVar) throws IOException {
     int i = 0;
     while (i < allSteps.size()) {
-      List<List<VarValue>> varsCol = readSerializableList();
+      List<List<VarValue>> varsCol = readVarValueBlock();
       for (List<VarValue> vars : varsCol) {
         if (isWrittenVar) {
           allSteps.get(i++).setWrittenVariables(vars);
@@ -152,6 +332,13 @@ public class TraceOutputReader extends OutputReader {
     }
   }
 
+  private List<List<VarValue>> readVarValueBlock() throws IOException {
+    if (varValueFormat == VarValueEncoder.FORMAT_SERIALIZED) {
+      return readSerializableList();
+    }
+    return VarValueDecoder.decode(this);
+  }
+
   private TraceNode readNode(List<TraceNode> allSteps) throws IOException {
     int nodeOrder = readVarInt();
     if (nodeOrder <= 0) {
@@ -160,7 +347,7 @@ public class TraceOutputReader extends OutputReader {
     return allSteps.get(nodeOrder - 1);
   }
 
-  private BreakPoint readLocation(String declaringCompilationUnitName) throws IOException {
+  BreakPoint readLocation(String declaringCompilationUnitName) throws IOException {
     String classCanonicalName = readString();
     String methodSig = readString();
     int lineNo = readVarInt();
@@ -17,13 +17,23 @@ import microbat.model.SourceScope;
 import microbat.model.trace.Trace;
 import microbat.model.trace.TraceNode;
 import microbat.model.value.VarValue;
-import microbat.util.BreakpointUtils;
 import sav.common.core.utils.FileUtils;
 import sav.common.core.utils.StringUtils;
+import sav.strategies.dto.AppJavaClassPath;
 
 public class TraceOutputWriter extends OutputWriter {
   public static final int READ = 1;
   public static final int WRITE = 2;
+  /* record types of a streaming trace file, see {@link StreamingTraceWriter} */
+  public static final int STREAM_VERSION = 3;
+  public static final int STREAM_END = 0;
+  public static final int STREAM_LOCATION = 1;
+  public static final int STREAM_SEGMENT = 2;
+  public static final int STREAM_THREAD = 3;
+  /* since version 3 */
+  public static final int STREAM_CONTROL_SCOPE = 4;
+  /* number of steps whose variable values are encoded together */
+  private static final int VAR_VALUE_BLOCK_SIZE = 4000;
   private String traceExecFolder;
   private String filterFilePrefix;
 
@@ -98,7 +108,8 @@ public class TraceOutputWriter extends OutputWriter {
           i++;
         }
         writeLocation(bkp); // writeLocation
-        locIdIdxMap.put(BreakpointUtils.getLocationId(bkp), idx++);
+        /* the id is kept by the break point, which is shared by the steps of a location */
+        locIdIdxMap.put(bkp.getId(), idx++);
       }
     }
     return locIdIdxMap;
@@ -149,24 +160,104 @@ public class TraceOutputWriter extends OutputWriter {
     writeVarValues(allWrittenVars);
   }
 
-  private void writeVarValues(List<Collection<VarValue>> list) throws IOException {
-    int idx = 0;
-    while (idx < list.size()) {
-      int limitSize = 0;
-      List<Collection<VarValue>> subList = new ArrayList<>();
-      while (limitSize < 4000 && (idx < list.size())) {
-        Collection<VarValue> vars = list.get(idx++);
-        subList.add(vars);
-        limitSize = subList.size();
-      }
-      if (subList == null || subList.isEmpty()) {
-        writeVarInt(0);
-      } else {
-        writeVarInt(subList.size());
-        byte[] bytes = ByteConverter.convertToBytes(subList);
-        writeByteArr(bytes);
+  public void writeStreamHeader(AppJavaClassPath appPath) throws IOException {
+    writeString(RunningInfo.STREAMING_HEADER);
+    writeVarInt(STREAM_VERSION);
+    writeVarValueFormat();
+    writeString(appPath.getLaunchClass());
+    writeString(appPath.getJavaHome());
+    writeString(appPath.getWorkingDirectory());
+    writeListString(appPath.getClasspaths());
+  }
+
+  /**
+   * write a segment of finished steps of a thread, the steps are not necessarily contiguous as the
+   * steps on the call stack are kept back until they are finished. New locations are written
+   * before the segment, added to {@code locIdIdxMap} and appended to {@code locations}.
+   */
+  public void writeStreamSegment(
+      long threadId,
+      List<TraceNode> steps,
+      Map<String, Integer> locIdIdxMap,
+      List<BreakPoint> locations)
+      throws IOException {
+    for (TraceNode node : steps) {
+      BreakPoint bkp = node.getBreakPoint();
+      String locId = bkp.getId();
+      if (!locIdIdxMap.containsKey(locId)) {
+        writeVarInt(STREAM_LOCATION);
+        writeString(bkp.getDeclaringCompilationUnitName());
+        writeLocation(bkp);
+        locIdIdxMap.put(locId, locIdIdxMap.size());
+        locations.add(bkp);
       }
     }
+    writeVarInt(STREAM_SEGMENT);
+    writeLong(threadId);
+    writeVarInt(steps.size());
+    List<Collection<VarValue>> allReadVars = new ArrayList<>(steps.size());
+    List<Collection<VarValue>> allWrittenVars = new ArrayList<>(steps.size());
+    List<Collection<VarValue>> allReturnedVars = new ArrayList<>(steps.size());
+    for (TraceNode node : steps) {
+      writeVarInt(node.getOrder());
+      writeVarInt(locIdIdxMap.get(node.getBreakPoint().getId()));
+      writeLong(node.getTimestamp());
+      writeNodeOrder(node.getInvocationParent());
+      writeBoolean(node.isException());
+      writeString(node.getBytecode());
+      allReadVars.add(node.getReadVariables());
+      allWrittenVars.add(node.getWrittenVariables());
+      allReturnedVars.add(node.getReturnedVariables());
+    }
+    writeVarValues(allReadVars);
+    writeVarValues(allWrittenVars);
+    writeVarValues(allReturnedVars);
+  }
+
+  /**
+   * the locations are written before the control scopes are known, their scopes are written once
+   * the program has finished, in the order of the locations. Parsing a scope also sets the
+   * conditional and branch flags of its location.
+   */
+  public void writeStreamControlScopes(
+      List<BreakPoint> locations, Map<BreakPoint, ControlScope> scopes) throws IOException {
+    writeVarInt(STREAM_CONTROL_SCOPE);
+    writeVarInt(locations.size());
+    for (BreakPoint location : locations) {
+      ControlScope scope = scopes.get(location);
+      writeBoolean(scope == null ? location.isConditional() : scope.isCondition());
+      writeBoolean(scope == null ? location.isBranch() : scope.isBranch());
+      writeConstrolScope(scope);
+    }
+  }
+
+  public void writeStreamThread(Trace trace) throws IOException {
+    writeVarInt(STREAM_THREAD);
+    writeLong(trace.getThreadId());
+    writeString(trace.getThreadName());
+    writeBoolean(trace.isMain());
+    writeFilterInfo(trace.getIncludedLibraryClasses(), true);
+    writeFilterInfo(trace.getExcludedLibraryClasses(), false);
+  }
+
+  public void writeStreamEnd(String programMsg, int expectedSteps, int collectedSteps)
+      throws IOException {
+    writeVarInt(STREAM_END);
+    writeString(programMsg);
+    writeInt(expectedSteps);
+    writeInt(collectedSteps);
+  }
+
+  /** the format of the variable values, see {@link TraceOutputReader#readVarValueFormat()} */
+  public void writeVarValueFormat() throws IOException {
+    writeVarInt(VarValueEncoder.FORMAT_VERSION);
+  }
+
+  private void writeVarValues(List<Collection<VarValue>> list) throws IOException {
+    for (int idx = 0; idx < list.size(); idx += VAR_VALUE_BLOCK_SIZE) {
+      VarValueEncoder.encode(
+          list.subList(idx, Math.min(idx + VAR_VALUE_BLOCK_SIZE, list.size())), this);
+    }
   }
 
   private void writeNodeOrder(TraceNode node) throws IOException {
@@ -194,7 +285,7 @@ public class TraceOutputWriter extends OutputWriter {
     //		}
   }
 
-  private void writeLocation(BreakPoint location) throws IOException {
+  protected void writeLocation(BreakPoint location) throws IOException {
     writeString(location.getClassCanonicalName()); // ClassCanonicalName
     writeString(location.getMethodSign());
     writeVarInt(location.getLineNumber());
@@ -0,0 +1,88 @@
+package microbat.instrumentation.output;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import microbat.model.value.VarValue;
+import sav.common.core.SavRtException;
+
+/**
+ * Content of the read_vars/written_vars columns of table Step. The var_format column of a step row
+ * tells how both columns are encoded: {@link #XML_FORMAT} for the rows written by the former
+ * recorders with {@link microbat.handler.xml.VarValueXmlWriter}, {@link #BINARY_FORMAT} for a blob
+ * made of one flag byte followed by the {@link VarValueEncoder} block of the variables, deflated if
+ * the flag is {@link #DEFLATED}. An empty variable list is stored as null in both formats.
+ */
+public class VarValueBlob {
+  public static final int XML_FORMAT = 0;
+  public static final int BINARY_FORMAT = 1;
+
+  static final int RAW = 0;
+  static final int DEFLATED = 1;
+  /* the blobs of most steps are too small to shrink */
+  private static final int MIN_DEFLATE_SIZE = 256;
+
+  private VarValueBlob() {}
+
+  /**
+   * @param compress deflate the blob if it is large enough and gets smaller.
+   * @return the blob of the variables, or null if there is none.
+   */
+  public static byte[] encode(Collection<VarValue> varValues, boolean compress) {
+    if (varValues == null || varValues.isEmpty()) {
+      return null;
+    }
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      bytes.write(RAW);
+      OutputWriter writer = new OutputWriter(bytes);
+      VarValueEncoder.encode(Collections.singletonList(varValues), writer);
+      writer.flush();
+      byte[] blob = bytes.toByteArray();
+      if (!compress || blob.length < MIN_DEFLATE_SIZE) {
+        return blob;
+      }
+      ByteArrayOutputStream deflated = new ByteArrayOutputStream(blob.length / 2);
+      deflated.write(DEFLATED);
+      /* the native memory of a deflater is only released by end() */
+      Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+      try (DeflaterOutputStream out = new DeflaterOutputStream(deflated, deflater)) {
+        out.write(blob, 1, blob.length - 1);
+      } finally {
+        deflater.end();
+      }
+      return deflated.size() < blob.length ? deflated.toByteArray() : blob;
+    } catch (IOException e) {
+      throw new SavRtException(e);
+    }
+  }
+
+  /** @return the variables of a blob written by {@link #encode(Collection, boolean)}. */
+  public static List<VarValue> decode(byte[] blob) {
+    if (blob == null || blob.length == 0) {
+      return new ArrayList<>();
+    }
+    InputStream bytes = new ByteArrayInputStream(blob, 1, blob.length - 1);
+    if (blob[0] == DEFLATED) {
+      /* closing the stream ends its inflater */
+      bytes = new InflaterInputStream(bytes);
+    } else if (blob[0] != RAW) {
+      throw new SavRtException("Invalid variable blob flag: " + blob[0]);
+    }
+    try (InputStream in = bytes) {
+      List<VarValue> varValues = VarValueDecoder.decode(new OutputReader(in)).get(0);
+      return varValues == null ? new ArrayList<VarValue>() : varValues;
+    } catch (IOException e) {
+      throw new SavRtException(e);
+    }
+  }
+}
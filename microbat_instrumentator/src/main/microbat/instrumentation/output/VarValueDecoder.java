@@ -0,0 +1,205 @@
+package microbat.instrumentation.output;
+
+import static microbat.instrumentation.output.VarValueEncoder.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import microbat.model.value.ArrayValue;
+import microbat.model.value.PrimitiveValue;
+import microbat.model.value.ReferenceValue;
+import microbat.model.value.StringValue;
+import microbat.model.value.VarValue;
+import microbat.model.value.VirtualValue;
+import microbat.model.variable.ArrayElementVar;
+import microbat.model.variable.ConstantVar;
+import microbat.model.variable.FieldVar;
+import microbat.model.variable.LocalVar;
+import microbat.model.variable.Variable;
+import microbat.model.variable.VirtualVar;
+
+/** reads a block written by {@link VarValueEncoder}. */
+public class VarValueDecoder {
+  private VarValueDecoder() {}
+
+  /** @return the variable values of each step of the block. */
+  public static List<List<VarValue>> decode(OutputReader in) throws IOException {
+    int stepSize = in.readVarInt();
+    String[] strings = readStrings(in);
+    Variable[] variables = readVariables(in, strings);
+    VarValue[] values = readValues(in, strings, variables);
+    for (VarValue value : values) {
+      int size = in.readVarInt();
+      if (size > 0) {
+        value.setChildren(readValueList(in, values, size));
+      }
+    }
+    for (VarValue value : values) {
+      int size = in.readVarInt();
+      if (size > 0) {
+        value.setParents(readValueList(in, values, size));
+      }
+    }
+    List<List<VarValue>> steps = new ArrayList<>(stepSize);
+    for (int i = 0; i < stepSize; i++) {
+      int size = in.readVarInt();
+      steps.add(size == 0 ? null : readValueList(in, values, size - 1));
+    }
+    return steps;
+  }
+
+  private static String[] readStrings(OutputReader in) throws IOException {
+    String[] strings = new String[in.readVarInt()];
+    for (int i = 1; i < strings.length; i++) {
+      byte[] bytes = new byte[in.readVarInt()];
+      in.readFully(bytes);
+      strings[i] = new String(bytes, StandardCharsets.UTF_8);
+    }
+    return strings;
+  }
+
+  private static Variable[] readVariables(OutputReader in, String[] strings) throws IOException {
+    int size = in.readVarInt();
+    byte[] categories = new byte[size];
+    in.readFully(categories);
+    int[] varStrings = new int[size * VAR_STRING_COLUMNS];
+    for (int col = 0; col < VAR_STRING_COLUMNS; col++) {
+      for (int i = 0; i < size; i++) {
+        varStrings[i * VAR_STRING_COLUMNS + col] = in.readVarInt();
+      }
+    }
+    Variable[] variables = new Variable[size];
+    for (int i = 0; i < size; i++) {
+      int offset = i * VAR_STRING_COLUMNS;
+      String name = strings[varStrings[offset]];
+      String type = strings[varStrings[offset + 1]];
+      String varID = strings[varStrings[offset + 3]];
+      Variable var;
+      switch (categories[i]) {
+        case VAR_LOCAL:
+          String locationClass = strings[in.readVarInt()];
+          int lineNumber = in.readVarInt();
+          LocalVar localVar = new LocalVar(name, type, locationClass, lineNumber);
+          localVar.setByteCodeIndex(in.readVarInt());
+          localVar.setParameter(in.readBoolean());
+          var = localVar;
+          break;
+        case VAR_FIELD:
+          boolean isStatic = in.readBoolean();
+          var = new FieldVar(isStatic, name, type, strings[in.readVarInt()]);
+          break;
+        case VAR_ARRAY_ELEMENT:
+          var = new ArrayElementVar(name, type, varID);
+          break;
+        case VAR_VIRTUAL:
+          var = new VirtualVar(name, type);
+          break;
+        case VAR_CONSTANT:
+          ConstantVar constantVar = new ConstantVar(name, type);
+          constantVar.setValue(strings[in.readVarInt()]);
+          var = constantVar;
+          break;
+        default:
+          throw new IOException("Invalid variable category: " + categories[i]);
+      }
+      var.setRtType(strings[varStrings[offset + 2]]);
+      var.setVarID(varID);
+      var.setAliasVarID(strings[varStrings[offset + 4]]);
+      variables[i] = var;
+    }
+    return variables;
+  }
+
+  private static VarValue[] readValues(OutputReader in, String[] strings, Variable[] variables)
+      throws IOException {
+    int size = in.readVarInt();
+    byte[] kinds = new byte[size];
+    in.readFully(kinds);
+    byte[] flags = new byte[size];
+    in.readFully(flags);
+    int[] varIdxs = new int[size];
+    for (int i = 0; i < size; i++) {
+      varIdxs[i] = in.readVarInt();
+    }
+    String[] strValues = new String[size];
+    for (int i = 0; i < size; i++) {
+      strValues[i] = readStringValue(in, strings);
+    }
+    VarValue[] values = new VarValue[size];
+    for (int i = 0; i < size; i++) {
+      boolean isRoot = (flags[i] & FLAG_ROOT) != 0;
+      boolean isNull = (flags[i] & FLAG_NULL) != 0;
+      Variable var = variables[varIdxs[i]];
+      VarValue value;
+      switch (kinds[i]) {
+        case VALUE_PRIMITIVE:
+          value = new PrimitiveValue(strValues[i], isRoot, var);
+          break;
+        case VALUE_STRING:
+          value = new StringValue(strValues[i], isRoot, var);
+          break;
+        case VALUE_REFERENCE:
+          ReferenceValue refValue = new ReferenceValue(isNull, in.readVarLong(), isRoot, var);
+          refValue.setNull(isNull);
+          value = refValue;
+          break;
+        case VALUE_ARRAY:
+          ArrayValue arrValue = new ArrayValue(isNull, isRoot, var);
+          arrValue.setNull(isNull);
+          arrValue.setUniqueID(in.readVarLong());
+          arrValue.setComponentType(strings[in.readVarInt()]);
+          if ((flags[i] & FLAG_ELIDED) != 0) {
+            arrValue.setLength(in.readVarInt());
+            int[] ranges = new int[in.readVarInt()];
+            for (int j = 0; j < ranges.length; j++) {
+              ranges[j] = in.readVarInt();
+            }
+            arrValue.setElidedRanges(ranges);
+          }
+          value = arrValue;
+          break;
+        case VALUE_VIRTUAL:
+          value = new VirtualValue(isRoot, var);
+          break;
+        default:
+          throw new IOException("Invalid value kind: " + kinds[i]);
+      }
+      value.setStringValue(strValues[i]);
+      values[i] = value;
+    }
+    return values;
+  }
+
+  private static String readStringValue(OutputReader in, String[] strings) throws IOException {
+    int kind = in.readByte();
+    switch (kind) {
+      case STR_TABLE:
+        return strings[in.readVarInt()];
+      case STR_INTEGRAL:
+        return String.valueOf(in.readVarLong());
+      case STR_DOUBLE:
+        return String.valueOf(Double.longBitsToDouble(in.readLong()));
+      case STR_FLOAT:
+        return String.valueOf(Float.intBitsToFloat(in.readInt()));
+      case STR_TRUE:
+        return "true";
+      case STR_FALSE:
+        return "false";
+      case STR_CHAR:
+        return String.valueOf((char) in.readVarInt());
+      default:
+        throw new IOException("Invalid string value kind: " + kind);
+    }
+  }
+
+  private static List<VarValue> readValueList(OutputReader in, VarValue[] values, int size)
+      throws IOException {
+    List<VarValue> list = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      list.add(values[in.readVarInt()]);
+    }
+    return list;
+  }
+}
@@ -0,0 +1,394 @@
+package microbat.instrumentation.output;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import microbat.model.value.ArrayValue;
+import microbat.model.value.PrimitiveValue;
+import microbat.model.value.ReferenceValue;
+import microbat.model.value.StringValue;
+import microbat.model.value.VarValue;
+import microbat.model.value.VirtualValue;
+import microbat.model.variable.ArrayElementVar;
+import microbat.model.variable.ConstantVar;
+import microbat.model.variable.FieldVar;
+import microbat.model.variable.LocalVar;
+import microbat.model.variable.Variable;
+import microbat.model.variable.VirtualVar;
+
+/**
+ * Binary encoding of the read/written variable lists of a block of steps, replacing the java
+ * serialization of {@link ByteConverter}. A block is laid out in columns:
+ *
+ * <pre>
+ * steps      varint
+ * strings    varint count, then the utf-8 strings (index 0 stands for null and is not written)
+ * variables  varint count, then one column per field: category, name, type, runtime type, varID,
+ *            aliasVarID, then the category specific fields of each variable
+ * values     varint count, then one column per field: kind, flags, variable, string value, then the
+ *            reference id and array component type of the reference values, and the length and
+ *            elided index ranges of the arrays flagged with FLAG_ELIDED (since version 2)
+ * children   for each value: varint count and the child value indices
+ * parents    for each value: varint count and the parent value indices
+ * steps      for each step: varint (count + 1, 0 for null) and the value indices
+ * </pre>
+ *
+ * Values and variables shared inside a block are written once and keep their identity when decoded
+ * (see {@link VarValueDecoder}). Primitive values are stored unboxed when their string can be
+ * restored exactly, otherwise they fall back to the string table. As in {@link
+ * microbat.handler.xml.VarValueXmlWriter}, a null string value is written and read back as "null",
+ * the null string of the table is only used for the names and types of the variables.
+ */
+public class VarValueEncoder {
+  /* format of the variable values in a trace file, 0 is the former java serialization */
+  public static final int FORMAT_SERIALIZED = 0;
+  public static final int FORMAT_VERSION = 2;
+
+  static final int VAR_LOCAL = 0;
+  static final int VAR_FIELD = 1;
+  static final int VAR_ARRAY_ELEMENT = 2;
+  static final int VAR_VIRTUAL = 3;
+  static final int VAR_CONSTANT = 4;
+  /* name, type, runtime type, varID, aliasVarID */
+  static final int VAR_STRING_COLUMNS = 5;
+
+  static final int VALUE_PRIMITIVE = 0;
+  static final int VALUE_STRING = 1;
+  static final int VALUE_REFERENCE = 2;
+  static final int VALUE_ARRAY = 3;
+  static final int VALUE_VIRTUAL = 4;
+
+  static final int FLAG_ROOT = 1;
+  static final int FLAG_NULL = 2;
+  static final int FLAG_ELIDED = 4;
+
+  /* how the string value is stored */
+  static final int STR_TABLE = 0;
+  static final int STR_INTEGRAL = 1;
+  static final int STR_DOUBLE = 2;
+  static final int STR_FLOAT = 3;
+  static final int STR_TRUE = 4;
+  static final int STR_FALSE = 5;
+  static final int STR_CHAR = 6;
+
+  private final Map<String, Integer> stringIdxMap = new HashMap<>();
+  private final List<String> strings = new ArrayList<>();
+  private final Map<Variable, Integer> varIdxMap = new IdentityHashMap<>();
+  private final List<Variable> variables = new ArrayList<>();
+  private int[] varStrings = new int[16 * VAR_STRING_COLUMNS];
+  private final Map<VarValue, Integer> valueIdxMap = new IdentityHashMap<>();
+  private final List<VarValue> values = new ArrayList<>();
+  private byte[] strKinds = new byte[64];
+  private long[] strBits = new long[64];
+
+  private VarValueEncoder() {
+    strings.add(null);
+  }
+
+  /** write the variable values of {@code steps} as one block. */
+  public static void encode(List<? extends Collection<VarValue>> steps, OutputWriter out)
+      throws IOException {
+    VarValueEncoder encoder = new VarValueEncoder();
+    encoder.collect(steps);
+    encoder.write(steps, out);
+  }
+
+  /** assign an index to every reachable value, variable and string. */
+  private void collect(List<? extends Collection<VarValue>> steps) throws IOException {
+    for (Collection<VarValue> vars : steps) {
+      if (vars != null) {
+        for (VarValue value : vars) {
+          addValue(value);
+        }
+      }
+    }
+    /* values are appended when first seen, so the list is also the work queue */
+    for (int i = 0; i < values.size(); i++) {
+      VarValue value = values.get(i);
+      for (VarValue child : value.getChildren()) {
+        addValue(child);
+      }
+      for (VarValue parent : value.getParents()) {
+        addValue(parent);
+      }
+      addVariable(value.getVariable());
+      if (value instanceof ArrayValue) {
+        intern(((ArrayValue) value).getComponentType());
+      }
+      collectStringValue(i, value);
+    }
+  }
+
+  private void addValue(VarValue value) {
+    if (!valueIdxMap.containsKey(value)) {
+      valueIdxMap.put(value, values.size());
+      values.add(value);
+    }
+  }
+
+  private void addVariable(Variable var) throws IOException {
+    if (varIdxMap.containsKey(var)) {
+      return;
+    }
+    int varIdx = variables.size();
+    varIdxMap.put(var, varIdx);
+    variables.add(var);
+    if ((varIdx + 1) * VAR_STRING_COLUMNS > varStrings.length) {
+      varStrings = Arrays.copyOf(varStrings, varStrings.length * 2);
+    }
+    int offset = varIdx * VAR_STRING_COLUMNS;
+    varStrings[offset] = intern(var.getName());
+    varStrings[offset + 1] = intern(var.getType());
+    varStrings[offset + 2] = intern(var.getRuntimeType());
+    varStrings[offset + 3] = intern(var.getVarID());
+    varStrings[offset + 4] = intern(var.getAliasVarID());
+    switch (getCategory(var)) {
+      case VAR_LOCAL:
+        intern(((LocalVar) var).getLocationClass());
+        break;
+      case VAR_FIELD:
+        intern(((FieldVar) var).getDeclaringType());
+        break;
+      case VAR_CONSTANT:
+        intern(((ConstantVar) var).getValue());
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void collectStringValue(int valueIdx, VarValue value) {
+    if (valueIdx >= strKinds.length) {
+      strKinds = Arrays.copyOf(strKinds, strKinds.length * 2);
+      strBits = Arrays.copyOf(strBits, strBits.length * 2);
+    }
+    String str = String.valueOf(value.getStringValue());
+    int kind = STR_TABLE;
+    if (value instanceof PrimitiveValue && !(value instanceof StringValue)) {
+      kind = unbox(value.getType(), str, valueIdx);
+    }
+    strKinds[valueIdx] = (byte) kind;
+    if (kind == STR_TABLE) {
+      strBits[valueIdx] = intern(str);
+    }
+  }
+
+  /**
+   * the type names are spelled out, the plugin links this class against its own copy of
+   * microbat.util.PrimitiveUtils, which has no type constants.
+   *
+   * @return how the string is stored, {@link #STR_TABLE} if it cannot be restored exactly.
+   */
+  private int unbox(String type, String str, int valueIdx) {
+    try {
+      if ("int".equals(type)
+          || "long".equals(type)
+          || "short".equals(type)
+          || "byte".equals(type)) {
+        long val = Long.parseLong(str);
+        if (String.valueOf(val).equals(str)) {
+          strBits[valueIdx] = val;
+          return STR_INTEGRAL;
+        }
+      } else if ("boolean".equals(type)) {
+        if ("true".equals(str)) {
+          return STR_TRUE;
+        } else if ("false".equals(str)) {
+          return STR_FALSE;
+        }
+      } else if ("double".equals(type)) {
+        double val = Double.parseDouble(str);
+        if (String.valueOf(val).equals(str)) {
+          strBits[valueIdx] = Double.doubleToRawLongBits(val);
+          return STR_DOUBLE;
+        }
+      } else if ("float".equals(type)) {
+        float val = Float.parseFloat(str);
+        if (String.valueOf(val).equals(str)) {
+          strBits[valueIdx] = Float.floatToRawIntBits(val);
+          return STR_FLOAT;
+        }
+      } else if ("char".equals(type) && str.length() == 1) {
+        strBits[valueIdx] = str.charAt(0);
+        return STR_CHAR;
+      }
+    } catch (NumberFormatException e) {
+      // keep the string
+    }
+    return STR_TABLE;
+  }
+
+  private int intern(String str) {
+    if (str == null) {
+      return 0;
+    }
+    Integer idx = stringIdxMap.get(str);
+    if (idx == null) {
+      idx = strings.size();
+      stringIdxMap.put(str, idx);
+      strings.add(str);
+    }
+    return idx;
+  }
+
+  private void write(List<? extends Collection<VarValue>> steps, OutputWriter out)
+      throws IOException {
+    out.writeVarInt(steps.size());
+    /* strings */
+    out.writeVarInt(strings.size());
+    for (int i = 1; i < strings.size(); i++) {
+      byte[] bytes = strings.get(i).getBytes(StandardCharsets.UTF_8);
+      out.writeVarInt(bytes.length);
+      out.write(bytes);
+    }
+    /* variables */
+    out.writeVarInt(variables.size());
+    for (Variable var : variables) {
+      out.writeByte(getCategory(var));
+    }
+    for (int col = 0; col < VAR_STRING_COLUMNS; col++) {
+      for (int i = 0; i < variables.size(); i++) {
+        out.writeVarInt(varStrings[i * VAR_STRING_COLUMNS + col]);
+      }
+    }
+    for (Variable var : variables) {
+      writeVariableDetail(var, out);
+    }
+    /* values */
+    out.writeVarInt(values.size());
+    for (VarValue value : values) {
+      out.writeByte(getKind(value));
+    }
+    for (VarValue value : values) {
+      int flags = value.isRoot() ? FLAG_ROOT : 0;
+      if (value instanceof ReferenceValue && ((ReferenceValue) value).isNull()) {
+        flags |= FLAG_NULL;
+      }
+      if (value instanceof ArrayValue && ((ArrayValue) value).hasElidedElements()) {
+        flags |= FLAG_ELIDED;
+      }
+      out.writeByte(flags);
+    }
+    for (VarValue value : values) {
+      out.writeVarInt(varIdxMap.get(value.getVariable()));
+    }
+    for (int i = 0; i < values.size(); i++) {
+      writeStringValue(strKinds[i], strBits[i], out);
+    }
+    for (VarValue value : values) {
+      if (value instanceof ReferenceValue) {
+        out.writeVarLong(((ReferenceValue) value).getUniqueID());
+      }
+      if (value instanceof ArrayValue) {
+        ArrayValue arrValue = (ArrayValue) value;
+        out.writeVarInt(intern(arrValue.getComponentType()));
+        if (arrValue.hasElidedElements()) {
+          out.writeVarInt(arrValue.getLength());
+          int[] ranges = arrValue.getElidedRanges();
+          out.writeVarInt(ranges.length);
+          for (int bound : ranges) {
+            out.writeVarInt(bound);
+          }
+        }
+      }
+    }
+    /* links */
+    for (VarValue value : values) {
+      writeValueIndexes(value.getChildren(), out);
+    }
+    for (VarValue value : values) {
+      writeValueIndexes(value.getParents(), out);
+    }
+    for (Collection<VarValue> vars : steps) {
+      if (vars == null) {
+        out.writeVarInt(0);
+      } else {
+        out.writeVarInt(vars.size() + 1);
+        for (VarValue value : vars) {
+          out.writeVarInt(valueIdxMap.get(value));
+        }
+      }
+    }
+  }
+
+  private void writeVariableDetail(Variable var, OutputWriter out) throws IOException {
+    if (var instanceof LocalVar) {
+      LocalVar localVar = (LocalVar) var;
+      out.writeVarInt(intern(localVar.getLocationClass()));
+      out.writeVarInt(localVar.getLineNumber());
+      out.writeVarInt(localVar.getByteCodeIndex());
+      out.writeBoolean(localVar.isParameter());
+    } else if (var instanceof FieldVar) {
+      FieldVar fieldVar = (FieldVar) var;
+      out.writeBoolean(fieldVar.isStatic());
+      out.writeVarInt(intern(fieldVar.getDeclaringType()));
+    } else if (var instanceof ConstantVar) {
+      out.writeVarInt(intern(((ConstantVar) var).getValue()));
+    }
+  }
+
+  private void writeStringValue(int kind, long bits, OutputWriter out) throws IOException {
+    out.writeByte(kind);
+    switch (kind) {
+      case STR_TABLE:
+      case STR_CHAR:
+        out.writeVarInt((int) bits);
+        break;
+      case STR_INTEGRAL:
+        out.writeVarLong(bits);
+        break;
+      case STR_DOUBLE:
+        out.writeLong(bits);
+        break;
+      case STR_FLOAT:
+        out.writeInt((int) bits);
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void writeValueIndexes(List<VarValue> list, OutputWriter out) throws IOException {
+    out.writeVarInt(list.size());
+    for (VarValue value : list) {
+      out.writeVarInt(valueIdxMap.get(value));
+    }
+  }
+
+  private static int getCategory(Variable var) throws IOException {
+    if (var instanceof LocalVar) {
+      return VAR_LOCAL;
+    } else if (var instanceof FieldVar) {
+      return VAR_FIELD;
+    } else if (var instanceof ArrayElementVar) {
+      return VAR_ARRAY_ELEMENT;
+    } else if (var instanceof VirtualVar) {
+      return VAR_VIRTUAL;
+    } else if (var instanceof ConstantVar) {
+      return VAR_CONSTANT;
+    }
+    throw new IOException("Unsupported variable: " + var.getClass().getName());
+  }
+
+  private static int getKind(VarValue value) throws IOException {
+    if (value instanceof StringValue) {
+      return VALUE_STRING;
+    } else if (value instanceof PrimitiveValue) {
+      return VALUE_PRIMITIVE;
+    } else if (value instanceof ArrayValue) {
+      return VALUE_ARRAY;
+    } else if (value instanceof ReferenceValue) {
+      return VALUE_REFERENCE;
+    } else if (value instanceof VirtualValue) {
+      return VALUE_VIRTUAL;
+    }
+    throw new IOException("Unsupported value: " + value.getClass().getName());
+  }
+}
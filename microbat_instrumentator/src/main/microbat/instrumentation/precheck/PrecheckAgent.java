@@ -8,16 +8,19 @@ import microbat.instrumentation.AgentLogger;
 import microbat.instrumentation.AgentParams;
 import microbat.instrumentation.CommandLine;
 import microbat.instrumentation.filter.GlobalFilterChecker;
+import microbat.instrumentation.instr.InstrumentedClassCache;
 import microbat.instrumentation.instr.SystemClassTransformer;
 
 public class PrecheckAgent extends Agent {
   private AgentParams agentParams;
   private PrecheckTransformer precheckTransformer;
+  private InstrumentedClassCache classCache;
   private Instrumentation instrumentation;
 
   public PrecheckAgent(CommandLine cmd, Instrumentation instrumentation) {
     this.agentParams = AgentParams.initFrom(cmd);
-    this.precheckTransformer = new PrecheckTransformer(agentParams);
+    this.classCache = InstrumentedClassCache.create(agentParams);
+    this.precheckTransformer = new PrecheckTransformer(agentParams, classCache);
     this.instrumentation = instrumentation;
   }
 
@@ -31,6 +34,9 @@ public class PrecheckAgent extends Agent {
   }
 
   public void shutdown() {
+    if (classCache != null) {
+      AgentLogger.info(classCache.getStatistics());
+    }
     PrecheckInfo precheckInfo = TraceMeasurement.getPrecheckInfo();
     precheckInfo.setExceedingLimitMethods(precheckTransformer.getExceedingLimitMethods());
     precheckInfo.setProgramMsg(Agent.getProgramMsg());
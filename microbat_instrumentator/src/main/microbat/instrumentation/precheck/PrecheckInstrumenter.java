@@ -24,6 +24,7 @@ import org.apache.bcel.generic.Type;
 
 import microbat.instrumentation.AgentLogger;
 import microbat.instrumentation.AgentParams;
+import microbat.instrumentation.instr.InstrumentedClassCache.CachedClass;
 import microbat.instrumentation.instr.TraceInstrumenter;
 import microbat.instrumentation.instr.instruction.info.LineInstructionInfo;
 import microbat.instrumentation.utils.MicrobatUtils;
@@ -37,10 +38,13 @@ public class PrecheckInstrumenter extends TraceInstrumenter {
   }
 
   private List<Method> instrumentedMethods = new ArrayList<>();
+  /* size of exceedLimitMethods before the class being instrumented */
+  private int exceedLimitStart;
 
   @Override
   protected byte[] instrument(String classFName, String className, JavaClass jc) {
     instrumentedMethods.clear();
+    exceedLimitStart = exceedLimitMethods.size();
     byte[] data = super.instrument(classFName, className, jc);
 
     if (data != null) {
@@ -50,6 +54,24 @@ public class PrecheckInstrumenter extends TraceInstrumenter {
     return data;
   }
 
+  @Override
+  protected CachedClass createCachedClass(byte[] data) {
+    CachedClass cached = super.createCachedClass(data);
+    if (data == null) {
+      return cached;
+    }
+    for (String method : exceedLimitMethods.subList(exceedLimitStart, exceedLimitMethods.size())) {
+      cached.addNote(method);
+    }
+    return cached;
+  }
+
+  @Override
+  protected byte[] restore(CachedClass cached) {
+    exceedLimitMethods.addAll(cached.getNotes());
+    return super.restore(cached);
+  }
+
   private void calculateTraceInstrumentation(
       JavaClass jc, String classFName, List<Method> methods) {
     ClassGen classGen = new ClassGen(jc);
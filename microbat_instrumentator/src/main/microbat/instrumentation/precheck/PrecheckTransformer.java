@@ -12,13 +12,19 @@ import microbat.instrumentation.AgentLogger;
 import microbat.instrumentation.AgentParams;
 import microbat.instrumentation.filter.GlobalFilterChecker;
 import microbat.instrumentation.instr.AbstractTransformer;
+import microbat.instrumentation.instr.InstrumentedClassCache;
 
 public class PrecheckTransformer extends AbstractTransformer implements ClassFileTransformer {
   private PrecheckInstrumenter instrumenter;
   private List<String> loadedClasses = new ArrayList<>();
 
   public PrecheckTransformer(AgentParams params) {
+    this(params, null);
+  }
+
+  public PrecheckTransformer(AgentParams params, InstrumentedClassCache classCache) {
     instrumenter = new PrecheckInstrumenter(params);
+    instrumenter.setClassCache(classCache);
   }
 
   @Override
@@ -23,7 +23,7 @@ public class TraceMeasurement {
       return;
     }
     if (trace.getStepTotal() > maxSteps) {
-      Agent._exitProgram("fail;Trace is over long!");
+      Agent._exitProgram("fail;" + AgentConstants.TRACE_OVER_LONG_MSG);
     }
     try {
       ClassLocation lastStep = trace.getLastStep();
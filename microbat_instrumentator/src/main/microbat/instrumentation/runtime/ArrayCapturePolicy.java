@@ -0,0 +1,224 @@
+package microbat.instrumentation.runtime;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import microbat.instrumentation.AgentLogger;
+
+/**
+ * Decides which elements of an array value are recorded by {@link ExecutionTracer}, so that reading
+ * a large array does not create a value for each of its elements. The elements which are left out
+ * are recorded as elided ranges on the {@link microbat.model.value.ArrayValue}.
+ *
+ * <ul>
+ *   <li>{@link Mode#ALL}: every element, the default.
+ *   <li>{@link Mode#MAX}: the first maxElements elements.
+ *   <li>{@link Mode#HEAD_TAIL}: the first and the last maxElements / 2 elements.
+ *   <li>{@link Mode#TOUCHED}: the elements written since the array was last recorded, at most
+ *       maxElements of them; the first time, the first maxElements elements. Only the writes seen
+ *       by the tracer are known, an array changed by code which is not instrumented is not
+ *       refreshed.
+ *   <li>{@link Mode#HASH}: no element if the content of the array has not changed since it was last
+ *       recorded, otherwise the first maxElements elements.
+ * </ul>
+ */
+public class ArrayCapturePolicy {
+  public static final int DEFAULT_MAX_ELEMENTS = 1000;
+  private static final int[] EMPTY = new int[0];
+
+  public static enum Mode {
+    ALL,
+    MAX,
+    HEAD_TAIL,
+    TOUCHED,
+    HASH;
+
+    /** @return the mode of the given name, {@link #ALL} if the name is empty or unknown. */
+    public static Mode parse(String mode) {
+      if (mode == null || mode.isEmpty()) {
+        return ALL;
+      }
+      try {
+        return valueOf(mode.toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        AgentLogger.info("Unknown array capture mode: " + mode + ", ALL is used!");
+        return ALL;
+      }
+    }
+  }
+
+  private final Mode mode;
+  private final int maxElements;
+  /* arrays compare by identity, the state of an array goes away with it */
+  private final Map<Object, ArrayState> states =
+      Collections.synchronizedMap(new WeakHashMap<Object, ArrayState>());
+
+  public ArrayCapturePolicy(Mode mode, int maxElements) {
+    this.mode = mode;
+    this.maxElements = maxElements <= 0 ? Integer.MAX_VALUE : maxElements;
+  }
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  /**
+   * @return the ranges of the indices to record, as pairs of start (inclusive) and end (exclusive)
+   *     indices in increasing order.
+   */
+  public int[] select(Object array) {
+    int length = Array.getLength(array);
+    switch (mode) {
+      case MAX:
+        return head(length);
+      case HEAD_TAIL:
+        if (length <= maxElements) {
+          return range(0, length);
+        }
+        int headSize = maxElements / 2;
+        return new int[] {0, headSize, length - (maxElements - headSize), length};
+      case TOUCHED:
+        return selectTouched(array, length);
+      case HASH:
+        return selectChanged(array, length);
+      default:
+        return range(0, length);
+    }
+  }
+
+  /** called for the array element writes seen by the tracer. */
+  public void touch(Object array, int index) {
+    touch(array, index, index + 1);
+  }
+
+  public void touch(Object array, int fromIndex, int toIndex) {
+    if (mode != Mode.TOUCHED) {
+      return;
+    }
+    synchronized (states) {
+      ArrayState state = states.get(array);
+      /* writes before the first record are covered by the first record */
+      if (state != null) {
+        state.touched.set(fromIndex, toIndex);
+      }
+    }
+  }
+
+  private int[] selectTouched(Object array, int length) {
+    BitSet touched;
+    synchronized (states) {
+      ArrayState state = states.get(array);
+      if (state == null) {
+        states.put(array, new ArrayState());
+        return head(length);
+      }
+      touched = state.touched;
+      state.touched = new BitSet();
+    }
+    int[] ranges = new int[8];
+    int size = 0;
+    int count = 0;
+    for (int from = touched.nextSetBit(0); from >= 0 && from < length && count < maxElements; ) {
+      int to = Math.min(touched.nextClearBit(from), length);
+      to = Math.min(to, from + (maxElements - count));
+      if (size == ranges.length) {
+        ranges = Arrays.copyOf(ranges, size * 2);
+      }
+      ranges[size++] = from;
+      ranges[size++] = to;
+      count += to - from;
+      from = touched.nextSetBit(to);
+    }
+    return Arrays.copyOf(ranges, size);
+  }
+
+  private int[] selectChanged(Object array, int length) {
+    int hash = contentHash(array);
+    synchronized (states) {
+      ArrayState state = states.get(array);
+      if (state == null) {
+        state = new ArrayState();
+        states.put(array, state);
+      } else if (state.hash == hash && state.length == length) {
+        return EMPTY;
+      }
+      state.hash = hash;
+      state.length = length;
+    }
+    return head(length);
+  }
+
+  /** @return the ranges of [0, length) which are not in the given ranges. */
+  public static int[] complement(int[] ranges, int length) {
+    int[] result = new int[ranges.length + 2];
+    int size = 0;
+    int start = 0;
+    for (int i = 0; i < ranges.length; i += 2) {
+      if (ranges[i] > start) {
+        result[size++] = start;
+        result[size++] = ranges[i];
+      }
+      start = ranges[i + 1];
+    }
+    if (start < length) {
+      result[size++] = start;
+      result[size++] = length;
+    }
+    return size == result.length ? result : Arrays.copyOf(result, size);
+  }
+
+  /** @return the number of indices in the given ranges. */
+  public static int count(int[] ranges) {
+    int count = 0;
+    for (int i = 0; i < ranges.length; i += 2) {
+      count += ranges[i + 1] - ranges[i];
+    }
+    return count;
+  }
+
+  private int[] head(int length) {
+    return range(0, Math.min(length, maxElements));
+  }
+
+  private static int[] range(int from, int to) {
+    return from < to ? new int[] {from, to} : EMPTY;
+  }
+
+  /* the elements of an object array are compared by identity */
+  private static int contentHash(Object array) {
+    if (array instanceof int[]) {
+      return Arrays.hashCode((int[]) array);
+    } else if (array instanceof long[]) {
+      return Arrays.hashCode((long[]) array);
+    } else if (array instanceof double[]) {
+      return Arrays.hashCode((double[]) array);
+    } else if (array instanceof float[]) {
+      return Arrays.hashCode((float[]) array);
+    } else if (array instanceof char[]) {
+      return Arrays.hashCode((char[]) array);
+    } else if (array instanceof byte[]) {
+      return Arrays.hashCode((byte[]) array);
+    } else if (array instanceof short[]) {
+      return Arrays.hashCode((short[]) array);
+    } else if (array instanceof boolean[]) {
+      return Arrays.hashCode((boolean[]) array);
+    }
+    Object[] objects = (Object[]) array;
+    int hash = 1;
+    for (Object obj : objects) {
+      hash = 31 * hash + System.identityHashCode(obj);
+    }
+    return hash;
+  }
+
+  private static class ArrayState {
+    BitSet touched = new BitSet();
+    int hash;
+    int length = -1;
+  }
+}
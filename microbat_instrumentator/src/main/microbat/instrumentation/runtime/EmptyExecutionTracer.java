@@ -63,6 +63,9 @@ public class EmptyExecutionTracer implements IExecutionTracer {
       int numOfWrittenVars,
       String bytecode) {}
 
+  @Override
+  public void _hitLocation(int locationId) {}
+
   @Override
   public void _writeField(
       Object refValue,
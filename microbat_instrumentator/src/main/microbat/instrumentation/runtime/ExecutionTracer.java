@@ -1,15 +1,13 @@
 package microbat.instrumentation.runtime;
 
 import java.lang.reflect.Array;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.bcel.Repository;
 import org.apache.bcel.classfile.LocalVariable;
@@ -24,6 +22,10 @@ import microbat.instrumentation.Agent;
 import microbat.instrumentation.AgentConstants;
 import microbat.instrumentation.AgentLogger;
 import microbat.instrumentation.filter.GlobalFilterChecker;
+import microbat.instrumentation.output.StreamingTraceWriter;
+import microbat.instrumentation.runtime.LocationRegistry.Location;
+import microbat.instrumentation.runtime.ObjectSnapshotPlan.FieldPlan;
+import microbat.instrumentation.runtime.ObjectSnapshotPlan.VarKind;
 import microbat.model.BreakPoint;
 import microbat.model.trace.Trace;
 import microbat.model.trace.TraceNode;
@@ -52,13 +54,23 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 
   public static AppJavaClassPath appJavaClassPath;
   public static int variableLayer = 2;
+  public static ArrayCapturePolicy arrayCapturePolicy =
+      new ArrayCapturePolicy(ArrayCapturePolicy.Mode.ALL, 0);
   public static int stepLimit = Integer.MAX_VALUE;
   public static int expectedSteps = Integer.MAX_VALUE;
+  public static TraceBudget traceBudget = TraceBudget.NONE;
+  /* the program message of an aborted recording, see abort(String) */
+  private static volatile String abortMessage;
   //	private static int tolerantExpectedSteps = expectedSteps;
   public static boolean avoidProxyToString = false;
-  private long threadId;
+  /* not null in streaming mode, finished steps are then handed over in segments */
+  private static StreamingTraceWriter streamWriter;
+  private final long threadId;
 
   private Trace trace;
+  /* number of steps already handed over to streamWriter */
+  private int flushedSteps;
+  private int nextFlushSize;
 
   private MethodCallStack methodCallStack;
 
@@ -78,8 +90,15 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
     }
   }
 
+  public static void setStreamWriter(StreamingTraceWriter streamWriter) {
+    ExecutionTracer.streamWriter = streamWriter;
+  }
+
   public ExecutionTracer(long threadId) {
     this.threadId = threadId;
+    if (streamWriter != null) {
+      nextFlushSize = streamWriter.getSegmentSize();
+    }
     trackingDelegate = new TrackingDelegate(threadId);
     methodCallStack = new MethodCallStack();
     trace = new Trace(appJavaClassPath);
@@ -137,6 +156,12 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
   }
 
   private VarValue appendVarValue(Object value, Variable var, VarValue parent, int retrieveLayer) {
+    return appendVarValue(value, var, VarKind.of(var.getType()), parent, retrieveLayer);
+  }
+
+  /** @param kind the kind of var, passed by the callers which already know it. */
+  private VarValue appendVarValue(
+      Object value, Variable var, VarKind kind, VarValue parent, int retrieveLayer) {
     if (retrieveLayer <= 0) {
       return null;
     }
@@ -144,11 +169,11 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
 
     boolean isRoot = (parent == null);
     VarValue varValue = null;
-    if (PrimitiveUtils.isString(var.getType())) {
+    if (kind == VarKind.STRING) {
       varValue = new StringValue(getStringValue(value, null), isRoot, var);
-    } else if (PrimitiveUtils.isPrimitive(var.getType())) {
+    } else if (kind == VarKind.PRIMITIVE) {
       varValue = new PrimitiveValue(getStringValue(value, null), isRoot, var);
-    } else if (var.getType().endsWith("[]")) {
+    } else if (kind == VarKind.ARRAY) {
       /* array */
       ArrayValue arrVal = new ArrayValue(value == null, isRoot, var);
       arrVal.setComponentType(
@@ -160,19 +185,30 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
         arrVal.setNull(true);
       } else {
         int length = Array.getLength(value);
-        arrVal.ensureChildrenSize(length);
-        for (int i = 0; i < length; i++) {
-          String parentSimpleID = Variable.truncateSimpleID(var.getVarID());
-          String arrayElementID =
-              Variable.concanateArrayElementVarID(parentSimpleID, String.valueOf(i));
-          String varName = arrayElementID;
-          ArrayElementVar varElement =
-              new ArrayElementVar(varName, arrVal.getComponentType(), arrayElementID);
-          Object elementValue = Array.get(value, i);
-          if (HeuristicIgnoringFieldRule.isHashMapTableType(arrVal.getComponentType())) {
-            appendVarValue(elementValue, varElement, arrVal, retrieveLayer + 1);
-          } else {
-            appendVarValue(elementValue, varElement, arrVal, retrieveLayer);
+        int[] captured = arrayCapturePolicy.select(value);
+        int[] elided = ArrayCapturePolicy.complement(captured, length);
+        if (elided.length > 0) {
+          arrVal.setLength(length);
+          arrVal.setElidedRanges(elided);
+        }
+        arrVal.ensureChildrenSize(length - ArrayCapturePolicy.count(elided));
+        VarKind componentKind = VarKind.of(arrVal.getComponentType());
+        boolean isHashMapTable =
+            HeuristicIgnoringFieldRule.isHashMapTableType(arrVal.getComponentType());
+        String parentSimpleID = Variable.truncateSimpleID(var.getVarID());
+        for (int r = 0; r < captured.length; r += 2) {
+          for (int i = captured[r]; i < captured[r + 1]; i++) {
+            String arrayElementID =
+                Variable.concanateArrayElementVarID(parentSimpleID, String.valueOf(i));
+            String varName = arrayElementID;
+            ArrayElementVar varElement =
+                new ArrayElementVar(varName, arrVal.getComponentType(), arrayElementID);
+            Object elementValue = Array.get(value, i);
+            if (isHashMapTable) {
+              appendVarValue(elementValue, varElement, componentKind, arrVal, retrieveLayer + 1);
+            } else {
+              appendVarValue(elementValue, varElement, componentKind, arrVal, retrieveLayer);
+            }
           }
         }
       }
@@ -185,47 +221,27 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
       if (value != null) {
         Class<?> objClass = value.getClass();
         var.setRtType(objClass.getName());
-        boolean needParseFields = HeuristicIgnoringFieldRule.isNeedParsingFields(objClass);
-        boolean isCollectionOrHashMap =
-            HeuristicIgnoringFieldRule.isCollectionClass(objClass)
-                || HeuristicIgnoringFieldRule.isHashMapClass(objClass);
-        if (needParseFields) {
-          List<Field> validFields = HeuristicIgnoringFieldRule.getValidFields(objClass, value);
-          for (Field field : validFields) {
-            field.setAccessible(true);
-            try {
-              Object fieldValue = field.get(value);
-              Class<?> fieldType = field.getType();
-              String fieldTypeStr = fieldType.getName();
-              if (fieldType.isArray()) {
-                fieldTypeStr = SignatureUtils.signatureToName(fieldTypeStr);
-              }
-              if (fieldType.isEnum()) {
-                if (fieldTypeStr.equals(var.getType())) {
-                  continue;
-                }
-              }
-              if (fieldValue != null) {
-                FieldVar fieldVar =
-                    new FieldVar(
-                        Modifier.isStatic(field.getModifiers()),
-                        field.getName(),
-                        fieldTypeStr,
-                        field.getDeclaringClass().getName());
-                fieldVar.setVarID(
-                    TraceUtils.getFieldVarId(
-                        var.getVarID(), field.getName(), fieldTypeStr, fieldValue));
-                if (isCollectionOrHashMap
-                    && HeuristicIgnoringFieldRule.isCollectionOrMapElement(
-                        var.getRuntimeType(), field.getName())) {
-                  appendVarValue(fieldValue, fieldVar, refVal, retrieveLayer + 1);
-                } else {
-                  appendVarValue(fieldValue, fieldVar, refVal, retrieveLayer);
-                }
-              }
-            } catch (Exception e) {
-              handleException(e);
+        /* the plan is empty for the classes whose fields are not recorded */
+        for (FieldPlan field : ObjectSnapshotPlan.of(objClass).getFields()) {
+          try {
+            if (field.isEnum() && field.getTypeName().equals(var.getType())) {
+              continue;
             }
+            Object fieldValue = field.get(value);
+            if (fieldValue != null) {
+              FieldVar fieldVar =
+                  new FieldVar(
+                      field.isStatic(),
+                      field.getName(),
+                      field.getTypeName(),
+                      field.getDeclaringClassName());
+              fieldVar.setVarID(var.getVarID() + field.getVarIdSuffix());
+              int fieldLayer =
+                  field.isCollectionOrMapElement() ? retrieveLayer + 1 : retrieveLayer;
+              appendVarValue(fieldValue, fieldVar, field.getKind(), refVal, fieldLayer);
+            }
+          } catch (Throwable e) {
+            handleException(e);
           }
         }
       }
@@ -367,7 +383,7 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
     trackingDelegate.track();
   }
 
-  private static Map<String, Integer> adjustVarMap = new HashMap<>();
+  private static Map<String, Integer> adjustVarMap = new ConcurrentHashMap<>();
 
   private int adjustVariableStartScope(String fullSign, String className) {
     Integer value = adjustVarMap.get(fullSign);
@@ -512,6 +528,7 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
         TraceUtils.getObjectVarId(targetArray, targetArray.getClass().getName());
     targetParentVariable.setVarID(targetParentVarId);
     ReferenceValue targetParentValue = new ReferenceValue(false, false, targetParentVariable);
+    arrayCapturePolicy.touch(targetArray, startPosition, startPosition + length);
     for (int i = 0; i < length; i++) {
       int k = srcStartPos + i;
       Object elementValue = Array.get(sourceArray, k);
@@ -678,9 +695,15 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
       if (returnVal != null) {
         TraceNode latestNode = trace.getLatestNode();
         if (latestNode != null) {
-          String definingOrder =
-              trace.findDefiningNodeOrder(
-                  Variable.WRITTEN, latestNode, returnVar, VariableDefinitions.USE_LAST);
+          String definingOrder;
+          if (streamWriter != null) {
+            /* the definitions table would keep every returning step alive */
+            definingOrder = String.valueOf(latestNode.getOrder());
+          } else {
+            definingOrder =
+                trace.findDefiningNodeOrder(
+                    Variable.WRITTEN, latestNode, returnVar, VariableDefinitions.USE_LAST);
+          }
           returnVar.setVarID(returnVar.getVarID() + ":" + definingOrder);
           returnVar.setAliasVarID(returnVar.getAliasVarID() + ":" + definingOrder);
 
@@ -725,41 +748,40 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
     boolean isLocked = trackingDelegate.isUntrack();
     trackingDelegate.untrack();
     try {
-      boolean exclusive = GlobalFilterChecker.isExclusive(className, methodSignature);
-      if (exclusive) {
-        trackingDelegate.track(isLocked);
-        return;
-      }
-      TraceNode latestNode = trace.getLatestNode();
-      if (latestNode != null
-          && latestNode.getBreakPoint().getClassCanonicalName().equals(className)
-          && latestNode.getBreakPoint().getLineNumber() == line) {
+      /* a line already recorded is not exclusive, the other hooks mostly end here */
+      if (isLatestLine(className, line)
+          || GlobalFilterChecker.isExclusive(className, methodSignature)) {
         trackingDelegate.track(isLocked);
         return;
       }
+      addStep(
+          new BreakPoint(className, methodSignature, line),
+          numOfReadVars,
+          numOfWrittenVars,
+          bytecode);
+    } catch (Throwable t) {
+      handleException(t);
+    }
 
-      int order = trace.size() + 1;
-      if (order > stepLimit) {
-        shutdown();
-        Agent._exitProgram("fail;Trace is over long!");
-      }
-      //			if (order > tolerantExpectedSteps) {
-      //				shutdown();
-      //				Agent._exitProgram("fail;Trace size exceeds expected_steps!");
-      //			}
-
-      BreakPoint bkp = new BreakPoint(className, methodSignature, line);
-      long timestamp = System.currentTimeMillis();
-      TraceNode currentNode =
-          new TraceNode(
-              bkp, null, order, trace, numOfReadVars, numOfWrittenVars, timestamp, bytecode);
+    trackingDelegate.track(isLocked);
+  }
 
-      trace.addTraceNode(currentNode);
-      AgentLogger.printProgress(order);
-      if (!methodCallStack.isEmpty()) {
-        TraceNode caller = methodCallStack.peek();
-        caller.addInvocationChild(currentNode);
-        currentNode.setInvocationParent(caller);
+  @Override
+  public void _hitLocation(int locationId) {
+    Location location = LocationRegistry.get(locationId);
+    if (location.isExclusive()) {
+      return;
+    }
+    boolean isLocked = trackingDelegate.isUntrack();
+    trackingDelegate.untrack();
+    try {
+      /* the class name of the location is the one of its break point, equals stops at == */
+      if (!isLatestLine(location.getClassName(), location.getLine())) {
+        addStep(
+            location.getBreakPoint(),
+            location.getNumOfReadVars(),
+            location.getNumOfWrittenVars(),
+            location.getBytecode());
       }
     } catch (Throwable t) {
       handleException(t);
@@ -768,6 +790,48 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
     trackingDelegate.track(isLocked);
   }
 
+  private boolean isLatestLine(String className, int line) {
+    TraceNode latestNode = trace.getLatestNode();
+    if (latestNode == null) {
+      return false;
+    }
+    BreakPoint latest = latestNode.getBreakPoint();
+    return latest.getLineNumber() == line && latest.getClassCanonicalName().equals(className);
+  }
+
+  private void addStep(BreakPoint bkp, int numOfReadVars, int numOfWrittenVars, String bytecode) {
+    int order = flushedSteps + trace.size() + 1;
+    if (order > stepLimit) {
+      abort("fail;" + AgentConstants.TRACE_OVER_LONG_MSG);
+    }
+    if ((order & (TraceBudget.CHECK_INTERVAL - 1)) == 0 && !traceBudget.check(order)) {
+      abort("fail;" + AgentConstants.TRACE_OVER_BUDGET_MSG);
+    }
+    //			if (order > tolerantExpectedSteps) {
+    //				shutdown();
+    //				Agent._exitProgram("fail;Trace size exceeds expected_steps!");
+    //			}
+
+    long timestamp = System.currentTimeMillis();
+    TraceNode currentNode =
+        new TraceNode(
+            bkp, null, order, trace, numOfReadVars, numOfWrittenVars, timestamp, bytecode);
+
+    trace.addTraceNode(currentNode);
+    AgentLogger.printProgress(order);
+    if (!methodCallStack.isEmpty()) {
+      TraceNode caller = methodCallStack.peek();
+      if (streamWriter == null) {
+        /* in streaming mode, children are linked when the trace is read */
+        caller.addInvocationChild(currentNode);
+      }
+      currentNode.setInvocationParent(caller);
+    }
+    if (streamWriter != null && trace.size() >= nextFlushSize) {
+      flushSteps(false);
+    }
+  }
+
   @Override
   public void _hitExeptionTarget(int line, String className, String methodSignature) {
     trackingDelegate.untrack();
@@ -1329,6 +1393,7 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
       String methodSignature) {
     trackingDelegate.untrack();
     try {
+      arrayCapturePolicy.touch(arrayRef, index);
       boolean exclusive = GlobalFilterChecker.isExclusive(className, methodSignature);
       if (exclusive) {
         TraceNode latestNode = trace.getLatestNode();
@@ -1385,8 +1450,11 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
    * SIMPLE, AVOID INVOKE ANY EXTERNAL LIBRARY FUNCTION, EVEN JDK INSIDE THIS BLOCK OF CODE AND ITS
    * INVOKED METHODS.! (ONLY Thread.currentThread().getId() is exceptional used) IF NEED TO USE A
    * LIST,MAP -> USE AN ARRAY INSTEAD!
+   *
+   * <p>No monitor is taken here on the recording path, tracers are resolved through the lock-free
+   * {@link TracerStore} and {@link LockedThreads} tables.
    */
-  public static synchronized IExecutionTracer _getTracer(
+  public static IExecutionTracer _getTracer(
       boolean isAppClass,
       String className,
       String methodSig,
@@ -1397,8 +1465,7 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
       Object[] params) {
     try {
       if (state == TracingState.TEST_STARTED && isAppClass) {
-        state = TracingState.RECORDING;
-        rtStore.setMainThreadId(Thread.currentThread().getId());
+        startRecording(Thread.currentThread().getId());
       }
       if (state != TracingState.RECORDING) {
         return EmptyExecutionTracer.getInstance();
@@ -1443,21 +1510,26 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
     return rtStore.getAllThreadTracer();
   }
 
-  public static synchronized IExecutionTracer getCurrentThreadStore() {
-    synchronized (rtStore) {
-      long threadId = Thread.currentThread().getId();
-      // String threadName = Thread.currentThread().getName();
-      if (lockedThreads.isUntracking(threadId)) {
-        return EmptyExecutionTracer.getInstance();
-      }
-      IExecutionTracer tracer = rtStore.get(threadId);
-      // store.setThreadName(threadName);
+  private static synchronized void startRecording(long threadId) {
+    if (state == TracingState.TEST_STARTED) {
+      rtStore.setMainThreadId(threadId);
+      state = TracingState.RECORDING;
+    }
+  }
 
-      if (tracer == null) {
-        tracer = EmptyExecutionTracer.getInstance();
-      }
-      return tracer;
+  public static IExecutionTracer getCurrentThreadStore() {
+    long threadId = Thread.currentThread().getId();
+    // String threadName = Thread.currentThread().getName();
+    if (lockedThreads.isUntracking(threadId)) {
+      return EmptyExecutionTracer.getInstance();
     }
+    IExecutionTracer tracer = rtStore.get(threadId);
+    // store.setThreadName(threadName);
+
+    if (tracer == null) {
+      tracer = EmptyExecutionTracer.getInstance();
+    }
+    return tracer;
   }
 
   public static List<Long> stoppedThreads = new ArrayList<Long>();
@@ -1470,14 +1542,29 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
     }
   }
 
-  private static TracingState state = TracingState.INIT;
+  private static volatile TracingState state = TracingState.INIT;
 
   public static void shutdown() {
     state = TracingState.SHUTDOWN;
   }
 
+  /**
+   * stops the recording. Unlike the program message, which is only set when the main thread
+   * exits, the abort message is kept for any thread and written out by the agent.
+   */
+  private static void abort(String programMsg) {
+    abortMessage = programMsg;
+    shutdown();
+    Agent._exitProgram(programMsg);
+  }
+
+  /** @return the program message of the aborted recording, or null if it is not aborted. */
+  public static String getAbortMessage() {
+    return abortMessage;
+  }
+
   public static void dispose() {
-    adjustVarMap = new HashMap<>();
+    adjustVarMap = new ConcurrentHashMap<>();
     lockedThreads = new LockedThreads();
     HeuristicIgnoringFieldRule.clearCache();
   }
@@ -1486,6 +1573,18 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
     state = TracingState.TEST_STARTED;
   }
 
+  /**
+   * drops the tracers of the recorded test, so that the next test of a daemon jvm starts with empty
+   * traces. The instrumented classes and their locations are kept. Tracing must be shut down.
+   */
+  public static synchronized void reset() {
+    synchronized (rtStore) {
+      rtStore = new ExecutionTracerStore();
+      stoppedThreads.clear();
+    }
+    dispose();
+  }
+
   public static boolean isShutdown() {
     return state == TracingState.SHUTDOWN;
   }
@@ -1494,6 +1593,38 @@ public class ExecutionTracer implements IExecutionTracer, ITracer {
     return trace;
   }
 
+  /** total number of recorded steps, including the steps already flushed in streaming mode. */
+  public int getStepCount() {
+    return flushedSteps + trace.size();
+  }
+
+  /**
+   * hand over the finished steps to the stream writer. The latest step and the steps on the call
+   * stack can still be updated (e.g., written parameters, invoking detail), they are kept in the
+   * trace until a later flush unless {@code all} is set.
+   */
+  public void flushSteps(boolean all) {
+    List<TraceNode> buffer = trace.getExecutionList();
+    Set<TraceNode> unfinished = new HashSet<>();
+    if (!all) {
+      unfinished.add(trace.getLatestNode());
+      unfinished.addAll(methodCallStack.stack);
+    }
+    List<TraceNode> segment = new ArrayList<>(buffer.size());
+    List<TraceNode> remaining = new ArrayList<>(unfinished.size());
+    for (TraceNode node : buffer) {
+      if (unfinished.contains(node)) {
+        remaining.add(node);
+      } else {
+        segment.add(node);
+      }
+    }
+    trace.setExecutionList(remaining);
+    flushedSteps += segment.size();
+    nextFlushSize = remaining.size() + streamWriter.getSegmentSize();
+    streamWriter.writeSegment(threadId, segment);
+  }
+
   private static volatile LockedThreads lockedThreads = new LockedThreads();
 
   static class TrackingDelegate {
@@ -40,6 +40,9 @@ public interface IExecutionTracer {
       int numOfWrittenVars,
       String bytecode);
 
+  /** @param locationId an id given by {@link LocationRegistry} when the class was transformed */
+  public void _hitLocation(int locationId);
+
   public void _hitExeptionTarget(int line, String className, String methodSignature);
 
   public void _writeField(
@@ -0,0 +1,124 @@
+package microbat.instrumentation.runtime;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import microbat.model.BreakPoint;
+
+/**
+ * Gives each instrumented line, identified by its method and line number, a dense int id when its
+ * class is transformed. The id is pushed as a constant by the instrumented code (see {@link
+ * IExecutionTracer#_hitLocation(int)}), so that hitting a line needs neither the class name nor the
+ * method signature: everything which does not change from one step to the next, including whether
+ * the line is excluded from the trace, is looked up from the id.
+ *
+ * <p>The {@link BreakPoint} of a location is shared by all the steps of the location, in the traces
+ * of all threads. Its control scope is set once, when the trace dependencies are built.
+ */
+public class LocationRegistry {
+  private static final int INITIAL_CAPACITY = 4096;
+
+  private static final Map<String, Integer> ids = new HashMap<>();
+  /* written under the lock of the class, the array is re-published after each update */
+  private static volatile Location[] locations = new Location[INITIAL_CAPACITY];
+  private static int size;
+
+  /**
+   * registers a location, a location registered again, e.g. when its class is loaded by another
+   * class loader, keeps its id and takes the new properties.
+   *
+   * @return the id of the location
+   */
+  public static synchronized int register(
+      String className,
+      String methodSignature,
+      int line,
+      int numOfReadVars,
+      int numOfWrittenVars,
+      String bytecode,
+      boolean exclusive) {
+    String key = methodSignature + ":" + line;
+    Integer id = ids.get(key);
+    if (id == null) {
+      id = size++;
+      ids.put(key, id);
+    }
+    Location[] tab = locations;
+    if (id >= tab.length) {
+      tab = Arrays.copyOf(tab, tab.length * 2);
+    }
+    tab[id] =
+        new Location(
+            new BreakPoint(className, methodSignature, line),
+            numOfReadVars,
+            numOfWrittenVars,
+            bytecode,
+            exclusive);
+    locations = tab;
+    return id;
+  }
+
+  public static Location get(int id) {
+    return locations[id];
+  }
+
+  /** @return the number of registered locations. */
+  public static synchronized int size() {
+    return size;
+  }
+
+  public static class Location {
+    private final BreakPoint breakPoint;
+    private final int numOfReadVars;
+    private final int numOfWrittenVars;
+    private final String bytecode;
+    private final boolean exclusive;
+
+    Location(
+        BreakPoint breakPoint,
+        int numOfReadVars,
+        int numOfWrittenVars,
+        String bytecode,
+        boolean exclusive) {
+      this.breakPoint = breakPoint;
+      this.numOfReadVars = numOfReadVars;
+      this.numOfWrittenVars = numOfWrittenVars;
+      this.bytecode = bytecode;
+      this.exclusive = exclusive;
+    }
+
+    public BreakPoint getBreakPoint() {
+      return breakPoint;
+    }
+
+    public String getClassName() {
+      return breakPoint.getClassCanonicalName();
+    }
+
+    public String getMethodSignature() {
+      return breakPoint.getMethodSign();
+    }
+
+    public int getLine() {
+      return breakPoint.getLineNumber();
+    }
+
+    public int getNumOfReadVars() {
+      return numOfReadVars;
+    }
+
+    public int getNumOfWrittenVars() {
+      return numOfWrittenVars;
+    }
+
+    public String getBytecode() {
+      return bytecode;
+    }
+
+    /** whether the steps of the location are left out of the trace, see GlobalFilterChecker. */
+    public boolean isExclusive() {
+      return exclusive;
+    }
+  }
+}
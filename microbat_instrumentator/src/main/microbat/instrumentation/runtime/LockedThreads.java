@@ -30,9 +30,10 @@ public class LockedThreads {
   }
 
   public boolean isUntracking(long threadId) {
-    for (int i = 0; i < lockedThreadIds.length; i++) {
-      if (lockedThreadIds[i][0] == threadId) {
-        return lockedThreadIds[i][1] == UNTRACKING;
+    long[][] threadIds = lockedThreadIds;
+    for (int i = 0; i < threadIds.length; i++) {
+      if (threadIds[i][0] == threadId) {
+        return threadIds[i][1] == UNTRACKING;
       }
     }
 
@@ -40,11 +41,31 @@ public class LockedThreads {
   }
 
   public void track(long threadId) {
+    updateState(threadId, TRACKING);
+  }
+
+  /**
+   * A row is only written by its own thread once it is claimed, and rows are shared with the
+   * enlarged table in {@link #increaseSize()}, so the lookup needs no lock. Only claiming a new row
+   * is synchronized.
+   */
+  private void updateState(long threadId, long state) {
+    long[][] threadIds = lockedThreadIds;
+    for (int i = 0; i < threadIds.length; i++) {
+      if (threadIds[i][0] == threadId) {
+        threadIds[i][1] = state;
+        return;
+      }
+    }
+    claimSlot(threadId, state);
+  }
+
+  private synchronized void claimSlot(long threadId, long state) {
     int i = 0;
     int firstSlotIndex = -1;
     for (; i < lockedThreadIds.length; i++) {
       if (lockedThreadIds[i][0] == threadId) {
-        lockedThreadIds[i][1] = TRACKING;
+        lockedThreadIds[i][1] = state;
         return;
       }
 
@@ -61,8 +82,8 @@ public class LockedThreads {
     else {
       i = firstSlotIndex;
     }
+    lockedThreadIds[i][1] = state;
     lockedThreadIds[i][0] = threadId;
-    lockedThreadIds[i][1] = TRACKING;
   }
 
   private void increaseSize() {
@@ -88,28 +109,6 @@ public class LockedThreads {
   //	}
 
   public void untrack(long threadId) {
-    int i = 0;
-    int firstSlotIndex = -1;
-    for (; i < lockedThreadIds.length; i++) {
-      if (lockedThreadIds[i][0] == threadId) {
-        lockedThreadIds[i][1] = UNTRACKING;
-        return;
-      }
-
-      if (firstSlotIndex == -1 && lockedThreadIds[i][0] == -1) {
-        firstSlotIndex = i;
-      }
-    }
-
-    /** all the slots are not -1 */
-    if (firstSlotIndex == -1) {
-      increaseSize();
-    }
-    /** fill in an empty slot */
-    else {
-      i = firstSlotIndex;
-    }
-    lockedThreadIds[i][0] = threadId;
-    lockedThreadIds[i][1] = UNTRACKING;
+    updateState(threadId, UNTRACKING);
   }
 }
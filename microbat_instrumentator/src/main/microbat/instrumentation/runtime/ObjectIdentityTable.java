@@ -0,0 +1,149 @@
+package microbat.instrumentation.runtime;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Assigns a unique id to every object it is asked for, in increasing order starting from 1. Unlike
+ * {@link System#identityHashCode(Object)}, two live objects never get the same id.
+ *
+ * <p>The objects are weakly referenced, so that the table does not keep them from being garbage
+ * collected; the entries of collected objects are removed the next time their segment is updated.
+ * The table is split into segments by identity hash code. Looking up an object which already has
+ * an id neither locks nor allocates; a miss is checked again while holding the lock of the segment,
+ * which is where new ids are assigned.
+ */
+public class ObjectIdentityTable {
+  private static final int SEGMENT_COUNT = 64;
+  private static final int INITIAL_CAPACITY = 256;
+
+  private final Segment[] segments = new Segment[SEGMENT_COUNT];
+  private final AtomicLong nextId = new AtomicLong(1);
+
+  public ObjectIdentityTable() {
+    for (int i = 0; i < SEGMENT_COUNT; i++) {
+      segments[i] = new Segment();
+    }
+  }
+
+  /** @return the id of the object, -1 for null. */
+  public long getId(Object obj) {
+    if (obj == null) {
+      return -1;
+    }
+    int hash = spread(System.identityHashCode(obj));
+    Segment segment = segments[(hash >>> 16) & (SEGMENT_COUNT - 1)];
+    long id = segment.find(obj, hash);
+    if (id < 0) {
+      id = segment.findOrAdd(obj, hash);
+    }
+    return id;
+  }
+
+  /** @return the number of live entries, for testing. */
+  int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        segment.expungeStaleEntries();
+        size += segment.count;
+      }
+    }
+    return size;
+  }
+
+  /* identity hash codes are not evenly distributed in their low bits on every vm */
+  private static int spread(int hash) {
+    hash ^= (hash >>> 20) ^ (hash >>> 12);
+    return hash ^ (hash >>> 7) ^ (hash >>> 4);
+  }
+
+  private class Segment {
+    private volatile Entry[] table = new Entry[INITIAL_CAPACITY];
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+    private int count;
+
+    /**
+     * Lock-free lookup. A concurrent update may hide an entry from it, the caller then looks again
+     * while holding the lock.
+     */
+    long find(Object obj, int hash) {
+      Entry[] tab = table;
+      for (Entry e = tab[hash & (tab.length - 1)]; e != null; e = e.next) {
+        if (e.hash == hash && e.get() == obj) {
+          return e.id;
+        }
+      }
+      return -1;
+    }
+
+    synchronized long findOrAdd(Object obj, int hash) {
+      expungeStaleEntries();
+      long id = find(obj, hash);
+      if (id >= 0) {
+        return id;
+      }
+      if (count >= table.length - (table.length >>> 2)) {
+        resize();
+      }
+      Entry[] tab = table;
+      int idx = hash & (tab.length - 1);
+      Entry e = new Entry(obj, queue, hash, nextId.getAndIncrement(), tab[idx]);
+      tab[idx] = e;
+      count++;
+      return e.id;
+    }
+
+    /* called with the lock held */
+    void expungeStaleEntries() {
+      for (Object ref; (ref = queue.poll()) != null; ) {
+        Entry stale = (Entry) ref;
+        Entry[] tab = table;
+        int idx = stale.hash & (tab.length - 1);
+        Entry prev = null;
+        for (Entry e = tab[idx]; e != null; prev = e, e = e.next) {
+          if (e == stale) {
+            if (prev == null) {
+              tab[idx] = e.next;
+            } else {
+              prev.next = e.next;
+            }
+            count--;
+            break;
+          }
+        }
+      }
+    }
+
+    /* called with the lock held, the entries are moved rather than copied */
+    private void resize() {
+      Entry[] oldTab = table;
+      Entry[] newTab = new Entry[oldTab.length << 1];
+      for (Entry head : oldTab) {
+        Entry e = head;
+        while (e != null) {
+          Entry next = e.next;
+          int idx = e.hash & (newTab.length - 1);
+          e.next = newTab[idx];
+          newTab[idx] = e;
+          e = next;
+        }
+      }
+      table = newTab;
+    }
+  }
+
+  private static class Entry extends WeakReference<Object> {
+    final int hash;
+    final long id;
+    volatile Entry next;
+
+    Entry(Object referent, ReferenceQueue<Object> queue, int hash, long id, Entry next) {
+      super(referent, queue);
+      this.hash = hash;
+      this.id = id;
+      this.next = next;
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package microbat.instrumentation.runtime;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import microbat.instrumentation.AgentLogger;
+import microbat.model.variable.Variable;
+import microbat.util.PrimitiveUtils;
+import sav.common.core.utils.SignatureUtils;
+
+/**
+ * What {@link ExecutionTracer} records of an object of a given class: the fields kept by {@link
+ * HeuristicIgnoringFieldRule}, with everything about them which does not depend on the object. The
+ * plan is built once per class, so that recording an object neither looks up its fields nor builds
+ * their type names again.
+ */
+class ObjectSnapshotPlan {
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  private static final ClassValue<ObjectSnapshotPlan> plans =
+      new ClassValue<ObjectSnapshotPlan>() {
+
+        @Override
+        protected ObjectSnapshotPlan computeValue(Class<?> type) {
+          return new ObjectSnapshotPlan(type);
+        }
+      };
+
+  private final List<FieldPlan> fields;
+
+  private ObjectSnapshotPlan(Class<?> objClass) {
+    if (!HeuristicIgnoringFieldRule.isNeedParsingFields(objClass)) {
+      fields = Collections.emptyList();
+      return;
+    }
+    boolean isCollectionOrHashMap =
+        HeuristicIgnoringFieldRule.isCollectionClass(objClass)
+            || HeuristicIgnoringFieldRule.isHashMapClass(objClass);
+    List<FieldPlan> list = new ArrayList<>();
+    for (Field field : HeuristicIgnoringFieldRule.getValidFields(objClass, null)) {
+      MethodHandle getter = getter(field);
+      if (getter != null) {
+        boolean isElement =
+            isCollectionOrHashMap
+                && HeuristicIgnoringFieldRule.isCollectionOrMapElement(
+                    objClass.getName(), field.getName());
+        list.add(new FieldPlan(field, getter, isElement));
+      }
+    }
+    fields = list;
+  }
+
+  public static ObjectSnapshotPlan of(Class<?> objClass) {
+    return plans.get(objClass);
+  }
+
+  /** @return a getter of type (Object)Object, or null if the field cannot be accessed. */
+  private static MethodHandle getter(Field field) {
+    try {
+      field.setAccessible(true);
+      MethodHandle getter = MethodHandles.lookup().unreflectGetter(field);
+      if (Modifier.isStatic(field.getModifiers())) {
+        getter = MethodHandles.dropArguments(getter, 0, Object.class);
+      }
+      return getter.asType(GETTER_TYPE);
+    } catch (Exception e) {
+      AgentLogger.info(
+          String.format(
+              "Field %s.%s is not recorded: %s",
+              field.getDeclaringClass().getName(), field.getName(), e.getMessage()));
+      return null;
+    }
+  }
+
+  public List<FieldPlan> getFields() {
+    return fields;
+  }
+
+  /** how a value is recorded, derived from the declared type of its variable. */
+  static enum VarKind {
+    STRING,
+    PRIMITIVE,
+    ARRAY,
+    REFERENCE;
+
+    static VarKind of(String type) {
+      if (PrimitiveUtils.isString(type)) {
+        return STRING;
+      } else if (PrimitiveUtils.isPrimitive(type)) {
+        return PRIMITIVE;
+      } else if (type.endsWith("[]")) {
+        return ARRAY;
+      }
+      return REFERENCE;
+    }
+  }
+
+  static class FieldPlan {
+    private final MethodHandle getter;
+    private final String name;
+    private final String typeName;
+    private final String declaringClassName;
+    private final String varIdSuffix;
+    private final VarKind kind;
+    private final boolean isStatic;
+    private final boolean isEnum;
+    private final boolean isCollectionOrMapElement;
+
+    FieldPlan(Field field, MethodHandle getter, boolean isCollectionOrMapElement) {
+      Class<?> fieldType = field.getType();
+      String fieldTypeStr = fieldType.getName();
+      if (fieldType.isArray()) {
+        fieldTypeStr = SignatureUtils.signatureToName(fieldTypeStr);
+      }
+      this.getter = getter;
+      this.name = field.getName();
+      this.typeName = fieldTypeStr;
+      this.declaringClassName = field.getDeclaringClass().getName();
+      this.varIdSuffix = Variable.concanateFieldVarID("", name);
+      this.kind = VarKind.of(fieldTypeStr);
+      this.isStatic = Modifier.isStatic(field.getModifiers());
+      this.isEnum = fieldType.isEnum();
+      this.isCollectionOrMapElement = isCollectionOrMapElement;
+    }
+
+    public Object get(Object obj) throws Throwable {
+      return (Object) getter.invokeExact(obj);
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getTypeName() {
+      return typeName;
+    }
+
+    public String getDeclaringClassName() {
+      return declaringClassName;
+    }
+
+    /** appended to the var id of the object to get the var id of the field. */
+    public String getVarIdSuffix() {
+      return varIdSuffix;
+    }
+
+    public VarKind getKind() {
+      return kind;
+    }
+
+    public boolean isStatic() {
+      return isStatic;
+    }
+
+    public boolean isEnum() {
+      return isEnum;
+    }
+
+    /** the elements of an ArrayList or a HashMap are recorded one layer deeper. */
+    public boolean isCollectionOrMapElement() {
+      return isCollectionOrMapElement;
+    }
+  }
+}
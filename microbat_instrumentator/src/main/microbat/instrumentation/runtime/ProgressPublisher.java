@@ -0,0 +1,88 @@
+package microbat.instrumentation.runtime;
+
+import java.io.IOException;
+import java.util.List;
+
+import microbat.instrumentation.AgentLogger;
+import microbat.instrumentation.output.ProgressChannel;
+import microbat.instrumentation.output.ProgressChannel.Progress;
+
+/**
+ * Publishes the number of recorded steps, per thread and in total, and the heap usage to a {@link
+ * ProgressChannel} every period, from a background thread. Tracing itself does nothing for it.
+ */
+public class ProgressPublisher implements Runnable {
+  public static final int DEFAULT_PERIOD_MILLIS = 200;
+
+  private final ProgressChannel channel;
+  private final int periodMillis;
+  private Thread publisherThread;
+  private volatile boolean stopped;
+
+  public ProgressPublisher(ProgressChannel channel, int periodMillis) {
+    this.channel = channel;
+    this.periodMillis = periodMillis;
+  }
+
+  public void start() {
+    publisherThread = new Thread(this, "microbat-progress");
+    publisherThread.setDaemon(true);
+    publisherThread.start();
+  }
+
+  @Override
+  public void run() {
+    /* steps of the publisher thread itself must never be recorded */
+    ExecutionTracer.stopRecordingCurrendThread();
+    while (!stopped) {
+      publish(false);
+      try {
+        Thread.sleep(periodMillis);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  /** publishes the final counts, marked as finished, and closes the channel. */
+  public void stop() {
+    stopped = true;
+    publisherThread.interrupt();
+    try {
+      publisherThread.join();
+    } catch (InterruptedException e) {
+      // ignore
+    }
+    publish(true);
+    try {
+      channel.close();
+    } catch (IOException e) {
+      AgentLogger.error(e);
+    }
+  }
+
+  private void publish(boolean finished) {
+    List<IExecutionTracer> tracers = ExecutionTracer.getAllThreadStore();
+    Progress progress = new Progress(Math.min(tracers.size(), ProgressChannel.MAX_THREADS));
+    long steps = 0;
+    for (int i = 0; i < tracers.size(); i++) {
+      /* racy reads, a count may be a few steps behind */
+      ExecutionTracer tracer = (ExecutionTracer) tracers.get(i);
+      int count = tracer.getStepCount();
+      steps += count;
+      if (i < progress.getThreadCount()) {
+        progress.setThread(i, tracer.getThreadId(), count);
+      }
+    }
+    progress.setFinished(finished);
+    progress.setSteps(steps);
+    progress.setExpectedSteps(
+        ExecutionTracer.expectedSteps == Integer.MAX_VALUE
+            ? ExecutionTracer.stepLimit
+            : ExecutionTracer.expectedSteps);
+    Runtime runtime = Runtime.getRuntime();
+    progress.setUsedHeap(runtime.totalMemory() - runtime.freeMemory());
+    progress.setMaxHeap(runtime.maxMemory());
+    channel.publish(progress);
+  }
+}
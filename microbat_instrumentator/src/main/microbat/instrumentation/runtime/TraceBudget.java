@@ -0,0 +1,61 @@
+package microbat.instrumentation.runtime;
+
+import microbat.instrumentation.AgentLogger;
+
+/**
+ * Keeps a recording made without a precheck run within a step and heap budget. The budget is
+ * checked by {@link ExecutionTracer} every {@link #CHECK_INTERVAL} steps of a thread. When it is
+ * first exceeded, the recording degrades: the steps are still recorded but their variable values
+ * are not. If the used heap still reaches {@link #ABORT_HEAP_RATIO} of the max heap after that, the
+ * recording is aborted the same way as when the step limit is reached.
+ */
+public class TraceBudget {
+  public static final int CHECK_INTERVAL = 1024;
+  public static final TraceBudget NONE = new TraceBudget(0, 0);
+  private static final double ABORT_HEAP_RATIO = 0.95;
+
+  private final int stepBudget;
+  private final double heapRatio;
+  private volatile boolean degraded;
+
+  /**
+   * @param stepBudget the number of steps of a thread recorded with their values, 0 for no limit.
+   * @param heapPercent the share of the max heap which can be used before values are dropped, 0
+   *     for no limit.
+   */
+  public TraceBudget(int stepBudget, int heapPercent) {
+    this.stepBudget = stepBudget;
+    this.heapRatio = heapPercent / 100.0;
+  }
+
+  /** @return false if the recording must be aborted. */
+  public boolean check(int steps) {
+    if (!degraded) {
+      if (stepBudget > 0 && steps >= stepBudget) {
+        degrade(String.format("the step budget of %d steps is reached", stepBudget));
+      } else if (heapRatio > 0 && getUsedHeapRatio() >= heapRatio) {
+        degrade(String.format("the heap budget of %.0f%% is reached", heapRatio * 100));
+      }
+      return true;
+    }
+    return heapRatio <= 0 || getUsedHeapRatio() < ABORT_HEAP_RATIO;
+  }
+
+  public boolean isDegraded() {
+    return degraded;
+  }
+
+  private synchronized void degrade(String reason) {
+    if (degraded) {
+      return;
+    }
+    degraded = true;
+    ExecutionTracer.variableLayer = 0;
+    AgentLogger.info("Variable values are no longer recorded, " + reason);
+  }
+
+  private static double getUsedHeapRatio() {
+    Runtime runtime = Runtime.getRuntime();
+    return (double) (runtime.totalMemory() - runtime.freeMemory()) / runtime.maxMemory();
+  }
+}
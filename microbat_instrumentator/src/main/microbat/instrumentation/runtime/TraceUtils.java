@@ -5,6 +5,9 @@ import org.apache.bcel.generic.Type;
 import microbat.model.variable.Variable;
 
 public class TraceUtils {
+  /* identity hash codes collide on large heaps, which would merge unrelated objects */
+  private static final ObjectIdentityTable objectIds = new ObjectIdentityTable();
+
   private TraceUtils() {}
 
   public static String getObjectVarId(Object refValue, String type) {
@@ -20,7 +23,7 @@ public class TraceUtils {
       return -1;
     }
     try {
-      return System.identityHashCode(refValue);
+      return objectIds.getId(refValue);
     } catch (Throwable e) {
       return -1;
     }
@@ -1,48 +1,87 @@
 package microbat.instrumentation.runtime;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * @author LLT This class is supposed to keep at very basic, NOT use or trigger ANY other liberay
  *     function even in jdk, only Array is allowed. [TO AVOID RECURSIVE LOOP IN GET_TRACER!!]
+ *     <p>Tracers are kept in an open-addressing table indexed by thread id. The table is never
+ *     modified in place, a registration copies it and republishes it through the volatile field, so
+ *     {@link #get(long)} can read it without taking any lock. The home slot of a thread ({@code
+ *     threadId & mask}) is its fast path, the probing sequence is the fallback for colliding ids.
  */
 public abstract class TracerStore<T extends ExecutionTracer> {
   public static final int INVALID_THREAD_ID = -1;
-  private Map<Long, T> rtStore = new HashMap<>();
-  //	protected ITracer[] rtStore = new ITracer[10];
-  protected long mainThreadId = INVALID_THREAD_ID;
+  private static final int INITIAL_CAPACITY = 16;
+  private volatile ExecutionTracer[] rtStore = new ExecutionTracer[INITIAL_CAPACITY];
+  protected volatile long mainThreadId = INVALID_THREAD_ID;
   protected transient int lastUsedIdx = INVALID_THREAD_ID;
 
   /* threadId must be valid */
-  @SuppressWarnings("unchecked")
-  public synchronized T get(long threadId) {
+  public T get(long threadId) {
     // FIXME -mutithread LINYUN [2]
     // LLT: this is where we disable recording other threads not the main one
     //		if (threadId != mainThreadId) {
     //			return null; // for now, only recording trace for main thread.
     //		}
+    T tracer = lookup(rtStore, threadId);
+    if (tracer != null) {
+      return tracer;
+    }
+    return register(threadId);
+  }
 
-    //		int i = 0;
-    //		while(i <= lastUsedIdx) {
-    //			ITracer tracer = rtStore[i];
-    //			if (tracer.getThreadId() == threadId) {
-    //				return (T) tracer;
-    //			}
-    //			i++;
-    //		}
-    //		T tracer = initTracer(threadId);
-    //		rtStore[++lastUsedIdx] = tracer;
-    if (rtStore.containsKey(threadId)) {
-      return rtStore.get(threadId);
+  @SuppressWarnings("unchecked")
+  private T lookup(ExecutionTracer[] table, long threadId) {
+    int mask = table.length - 1;
+    int idx = (int) threadId & mask;
+    for (int i = 0; i < table.length; i++) {
+      ExecutionTracer tracer = table[idx];
+      if (tracer == null) {
+        return null;
+      }
+      if (tracer.getThreadId() == threadId) {
+        return (T) tracer;
+      }
+      idx = (idx + 1) & mask;
+    }
+    return null;
+  }
+
+  /** slow path, only taken once per thread. */
+  private synchronized T register(long threadId) {
+    ExecutionTracer[] table = rtStore;
+    T tracer = lookup(table, threadId);
+    if (tracer != null) {
+      return tracer;
     }
-    T tracer = initTracer(threadId);
-    rtStore.put(threadId, tracer);
+    tracer = initTracer(threadId);
+    int capacity = table.length;
+    if ((lastUsedIdx + 2) * 2 > capacity) {
+      capacity *= 2;
+    }
+    ExecutionTracer[] newTable = new ExecutionTracer[capacity];
+    for (int i = 0; i < table.length; i++) {
+      if (table[i] != null) {
+        insert(newTable, table[i]);
+      }
+    }
+    insert(newTable, tracer);
+    lastUsedIdx++;
+    rtStore = newTable;
     return tracer;
   }
 
+  private void insert(ExecutionTracer[] table, ExecutionTracer tracer) {
+    int mask = table.length - 1;
+    int idx = (int) tracer.getThreadId() & mask;
+    while (table[idx] != null) {
+      idx = (idx + 1) & mask;
+    }
+    table[idx] = tracer;
+  }
+
   protected abstract T initTracer(long threadId);
 
   public void setMainThreadId(long mainThreadId) {
@@ -58,14 +97,13 @@ public abstract class TracerStore<T extends ExecutionTracer> {
   }
 
   public List<IExecutionTracer> getAllThreadTracer() {
-    return new ArrayList<IExecutionTracer>(rtStore.values());
-    //		List<IExecutionTracer> traces = new ArrayList<>();
-    //		for(int i=0; i<rtStore.length; i++) {
-    //			if(rtStore[i] != null) {
-    //				traces.add((IExecutionTracer) rtStore[i]);
-    //			}
-    //		}
-    //
-    //		return traces;
+    List<IExecutionTracer> traces = new ArrayList<>();
+    ExecutionTracer[] table = rtStore;
+    for (int i = 0; i < table.length; i++) {
+      if (table[i] != null) {
+        traces.add(table[i]);
+      }
+    }
+    return traces;
   }
 }
@@ -0,0 +1,141 @@
+package microbat.instrumentation.cfgcoverage.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import microbat.instrumentation.cfgcoverage.graph.CFGInstance.UniqueNodeId;
+
+/**
+ * Throughput of the branch lookup done by the coverage tracer for every probe reached (see {@link
+ * microbat.instrumentation.cfgcoverage.runtime.CoverageTracer#_reachNode(int)}), comparing the
+ * branch table indexed by probe id with the former scan of the branch targets matching the method
+ * id and local node index of their probe.
+ *
+ * <p>The graph is synthetic: {@code depth} layers of nodes spread over a few methods, each node
+ * branching to several nodes of the next layer, the last layer branching back to the first.
+ *
+ * <p>Usage: {@code CoverageBranchLookupBenchmark [seconds per run] [depth] [branches per node]},
+ * prints lookups/second.
+ */
+public class CoverageBranchLookupBenchmark {
+  private static final int WIDTH = 8;
+  private static final int METHODS = 4;
+  private static final int PATH_LENGTH = 1 << 16;
+  private static final int WARMUP_SECONDS = 2;
+
+  public static void main(String[] args) throws Exception {
+    int seconds = args.length > 0 ? Integer.valueOf(args[0]) : 5;
+    int depth = args.length > 1 ? Integer.valueOf(args[1]) : 500;
+    int branches = args.length > 2 ? Integer.valueOf(args[2]) : 4;
+    List<CoverageSFNode> nodes = createGraph(depth, branches);
+    CoverageSFNode[] path = createPath(nodes.get(0), new Random(0));
+    /* the method ids passed by the instrumented code are not the instances of the graph */
+    String[] pathMethodIds = new String[PATH_LENGTH];
+    int[] pathNodeIdxies = new int[PATH_LENGTH];
+    int[] pathProbeIds = new int[PATH_LENGTH];
+    for (int i = 0; i < PATH_LENGTH; i++) {
+      UniqueNodeId probe = path[i].getProbeNodeId();
+      pathMethodIds[i] = new String(probe.getMethodId());
+      pathNodeIdxies[i] = probe.getLocalNodeIdx();
+      pathProbeIds[i] = path[i].getProbeId();
+    }
+    System.out.println(
+        String.format(
+            "%d nodes, %d branches per node, %d probes", nodes.size(), branches, depth * WIDTH));
+    run(new ScanLookup(pathMethodIds, pathNodeIdxies), path, WARMUP_SECONDS);
+    run(new TableLookup(pathProbeIds), path, WARMUP_SECONDS);
+    double before = run(new ScanLookup(pathMethodIds, pathNodeIdxies), path, seconds);
+    double after = run(new TableLookup(pathProbeIds), path, seconds);
+    System.out.println(String.format("%20s %20s %8s", "scan", "probe table", "speedup"));
+    System.out.println(String.format("%20.0f %20.0f %7.1fx", before, after, after / before));
+  }
+
+  private static List<CoverageSFNode> createGraph(int depth, int branches) {
+    CoverageSFlowGraph graph = new CoverageSFlowGraph(depth * WIDTH);
+    List<CoverageSFNode> nodes = new ArrayList<>(depth * WIDTH);
+    String methodPrefix = "org.example.deep.BranchingClass#method";
+    for (int layer = 0; layer < depth; layer++) {
+      for (int i = 0; i < WIDTH; i++) {
+        int idx = nodes.size();
+        CoverageSFNode node = new CoverageSFNode(idx, graph);
+        String methodId = methodPrefix + (idx % METHODS) + "(Ljava/lang/String;I)V";
+        node.setEndNodeId(new UniqueNodeId(methodId, idx / METHODS, layer));
+        node.addContentNode(idx);
+        nodes.add(node);
+      }
+    }
+    Random random = new Random(depth);
+    for (int idx = 0; idx < nodes.size(); idx++) {
+      int nextLayer = (idx / WIDTH + 1) % depth;
+      for (int b = 0; b < branches; b++) {
+        nodes.get(idx).addBranch(nodes.get(nextLayer * WIDTH + random.nextInt(WIDTH)));
+      }
+    }
+    graph.setNodeList(nodes);
+    graph.assignProbeIds();
+    return nodes;
+  }
+
+  /** @return a path of reached nodes, path[i + 1] being a branch target of path[i]. */
+  private static CoverageSFNode[] createPath(CoverageSFNode start, Random random) {
+    CoverageSFNode[] path = new CoverageSFNode[PATH_LENGTH];
+    CoverageSFNode node = start;
+    for (int i = 0; i < PATH_LENGTH; i++) {
+      path[i] = node;
+      List<CoverageSFNode> targets = node.getBranchTargets();
+      node = targets.get(random.nextInt(targets.size()));
+    }
+    return path;
+  }
+
+  /** @return lookups per second */
+  private static double run(Lookup lookup, CoverageSFNode[] path, int seconds) {
+    long startTime = System.nanoTime();
+    long deadline = startTime + seconds * 1000000000L;
+    long count = 0;
+    do {
+      for (int i = 1; i < PATH_LENGTH; i++) {
+        if (lookup.branch(path[i - 1], i) != path[i]) {
+          throw new IllegalStateException();
+        }
+      }
+      count += PATH_LENGTH - 1;
+    } while (System.nanoTime() < deadline);
+    double elapsed = (System.nanoTime() - startTime) / 1e9;
+    return count / elapsed;
+  }
+
+  private static interface Lookup {
+    CoverageSFNode branch(CoverageSFNode node, int pathIdx);
+  }
+
+  private static class TableLookup implements Lookup {
+    private int[] probeIds;
+
+    public TableLookup(int[] probeIds) {
+      this.probeIds = probeIds;
+    }
+
+    @Override
+    public CoverageSFNode branch(CoverageSFNode node, int pathIdx) {
+      return node.getBranchByProbe(probeIds[pathIdx]);
+    }
+  }
+
+  /** the lookup before probe ids. */
+  private static class ScanLookup implements Lookup {
+    private String[] methodIds;
+    private int[] nodeIdxies;
+
+    public ScanLookup(String[] methodIds, int[] nodeIdxies) {
+      this.methodIds = methodIds;
+      this.nodeIdxies = nodeIdxies;
+    }
+
+    @Override
+    public CoverageSFNode branch(CoverageSFNode node, int pathIdx) {
+      return node.getCorrespondingBranch(methodIds[pathIdx], nodeIdxies[pathIdx]);
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package microbat.instrumentation.cfgcoverage.graph;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import microbat.model.ClassLocation;
+import sav.common.core.utils.ClassUtils;
+import sav.strategies.dto.AppJavaClassPath;
+
+public class CoverageGraphCacheTest {
+
+  @Test
+  public void testSaveAndLoad() throws Exception {
+    File classFolder = copyFixture();
+    AppJavaClassPath appClasspath = newClasspath(classFolder);
+    ClassLocation target = new ClassLocation(Fixture.class.getName(), "run(I)I", -1);
+    CoverageGraphCache cache =
+        new CoverageGraphCache(Files.createTempDirectory("graph-cache").toFile());
+    String key = cache.getKey(target, 1, Collections.<String>emptyList(), false);
+    assertNotEquals(key, cache.getKey(target, 2, Collections.<String>emptyList(), false));
+    assertNotEquals(key, cache.getKey(target, 1, Collections.<String>emptyList(), true));
+    assertNull(cache.load(key, appClasspath));
+
+    CoverageGraphConstructor constructor = new CoverageGraphConstructor();
+    constructor.setGraphCache(cache);
+    CoverageSFlowGraph graph =
+        constructor.buildCoverageGraph(
+            appClasspath, target, 1, Collections.<String>emptyList(), false);
+    CoverageSFlowGraph loaded = cache.load(key, appClasspath);
+    assertNotNull(loaded);
+    assertEquals(graph.getCfgSize(), loaded.getCfgSize());
+    assertEquals(graph.getExtensionLayer(), loaded.getExtensionLayer());
+    assertEquals(graph.size(), loaded.size());
+    assertEquals(graph.getStartNode().getCvgIdx(), loaded.getStartNode().getCvgIdx());
+    assertEquals(graph.getExitList().size(), loaded.getExitList().size());
+    boolean hasCondition = false;
+    for (int i = 0; i < graph.size(); i++) {
+      CoverageSFNode node = graph.getNodeList().get(i);
+      CoverageSFNode loadedNode = loaded.getNodeList().get(i);
+      assertEquals(node.getType(), loadedNode.getType());
+      assertEquals(node.getStartIdx(), loadedNode.getStartIdx());
+      assertEquals(node.getEndIdx(), loadedNode.getEndIdx());
+      assertEquals(node.getContent(), loadedNode.getContent());
+      assertTrue(
+          loadedNode
+              .getEndNodeId()
+              .match(node.getEndNodeId().getMethodId(), node.getEndNodeId().getLocalNodeIdx()));
+      assertEquals(node.getBranchTargets().size(), loadedNode.getBranchTargets().size());
+      for (int j = 0; j < node.getBranchTargets().size(); j++) {
+        CoverageSFNode target0 = node.getBranchTargets().get(j);
+        CoverageSFNode loadedTarget = loadedNode.getBranchTargets().get(j);
+        assertEquals(target0.getCvgIdx(), loadedTarget.getCvgIdx());
+        Branch branch = Branch.of(node, target0);
+        Branch loadedBranch = Branch.of(loadedNode, loadedTarget);
+        assertEquals(branch.getBranchType(), loadedBranch.getBranchType());
+        assertEquals(branch.getBranchCondition(), loadedBranch.getBranchCondition());
+      }
+      hasCondition |= node.isConditionalNode();
+    }
+    assertTrue(hasCondition);
+
+    /* the graph is rebuilt once the class is compiled again */
+    File classFile =
+        new File(ClassUtils.getClassFilePath(classFolder.getPath(), Fixture.class.getName()));
+    byte[] bytes = Files.readAllBytes(classFile.toPath());
+    bytes[bytes.length - 1]++;
+    Files.write(classFile.toPath(), bytes);
+    assertNull(cache.load(key, appClasspath));
+  }
+
+  private static File copyFixture() throws Exception {
+    File testClasses =
+        new File(Fixture.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    Path classFolder = Files.createTempDirectory("graph-cache-classes");
+    String className = Fixture.class.getName();
+    File target = new File(ClassUtils.getClassFilePath(classFolder.toString(), className));
+    target.getParentFile().mkdirs();
+    File source = new File(ClassUtils.getClassFilePath(testClasses.getPath(), className));
+    Files.copy(source.toPath(), target.toPath());
+    return classFolder.toFile();
+  }
+
+  private static AppJavaClassPath newClasspath(File classFolder) {
+    AppJavaClassPath appClasspath = new AppJavaClassPath();
+    appClasspath.setJavaHome(System.getProperty("java.home"));
+    appClasspath.setWorkingDirectory(classFolder.getPath());
+    appClasspath.addClasspath(classFolder.getPath());
+    return appClasspath;
+  }
+
+  static class Fixture {
+    static int run(int x) {
+      int sum = 0;
+      for (int i = 0; i < x; i++) {
+        if (i % 2 == 0) {
+          sum += helper(i);
+        }
+      }
+      return sum;
+    }
+
+    static int helper(int i) {
+      return i > 3 ? i : -i;
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package microbat.instrumentation.cfgcoverage.graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import microbat.instrumentation.cfgcoverage.graph.CFGInstance.UniqueNodeId;
+
+public class CoverageSFNodeTest {
+  private static final String METHOD = "a.A#run()V";
+  private static final String OTHER_METHOD = "a.B#call()V";
+
+  @Test
+  public void testBranchByProbe() {
+    List<CoverageSFNode> nodes = new ArrayList<>();
+    CoverageSFlowGraph graph = new CoverageSFlowGraph(5);
+    CoverageSFNode start = newNode(nodes, graph, METHOD, 0);
+    CoverageSFNode thenBranch = newNode(nodes, graph, METHOD, 3);
+    CoverageSFNode elseBranch = newNode(nodes, graph, METHOD, 7);
+    CoverageSFNode invoked = newNode(nodes, graph, OTHER_METHOD, 0);
+    /* probe node shared with the else branch */
+    CoverageSFNode alias = newNode(nodes, graph, METHOD, 7);
+    start.addBranch(thenBranch);
+    start.addBranch(elseBranch);
+    start.addBranch(alias);
+    thenBranch.addBranch(invoked);
+    graph.setNodeList(nodes);
+    graph.assignProbeIds();
+
+    assertEquals(4, graph.getProbeCount());
+    assertEquals(elseBranch.getProbeId(), alias.getProbeId());
+    for (CoverageSFNode node : nodes) {
+      UniqueNodeId probeNodeId = graph.getProbeNodeId(node.getProbeId());
+      assertTrue(
+          node.getProbeNodeId()
+              .match(probeNodeId.getMethodId(), probeNodeId.getLocalNodeIdx()));
+      for (CoverageSFNode target : nodes) {
+        UniqueNodeId probe = target.getProbeNodeId();
+        assertSame(
+            node.getCorrespondingBranch(probe.getMethodId(), probe.getLocalNodeIdx()),
+            node.getBranchByProbe(target.getProbeId()));
+      }
+    }
+    assertSame(elseBranch, start.getBranchByProbe(alias.getProbeId()));
+    assertNull(start.getBranchByProbe(-1));
+    assertNull(start.getBranchByProbe(graph.getProbeCount()));
+  }
+
+  @Test
+  public void testBranchByProbeFarApart() {
+    List<CoverageSFNode> nodes = new ArrayList<>();
+    CoverageSFlowGraph graph = new CoverageSFlowGraph(200);
+    CoverageSFNode start = newNode(nodes, graph, METHOD, 0);
+    for (int i = 1; i < 200; i++) {
+      newNode(nodes, graph, METHOD, i);
+    }
+    start.addBranch(nodes.get(1));
+    start.addBranch(nodes.get(199));
+    graph.setNodeList(nodes);
+    graph.assignProbeIds();
+
+    assertSame(nodes.get(1), start.getBranchByProbe(1));
+    assertSame(nodes.get(199), start.getBranchByProbe(199));
+    assertNull(start.getBranchByProbe(100));
+  }
+
+  private static CoverageSFNode newNode(
+      List<CoverageSFNode> nodes, CoverageSFlowGraph graph, String methodId, int localIdx) {
+    CoverageSFNode node = new CoverageSFNode(nodes.size(), graph);
+    node.setEndNodeId(new UniqueNodeId(methodId, localIdx, localIdx + 1));
+    node.addContentNode(nodes.size());
+    nodes.add(node);
+    return node;
+  }
+}
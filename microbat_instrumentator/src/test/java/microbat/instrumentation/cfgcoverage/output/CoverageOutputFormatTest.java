@@ -0,0 +1,208 @@
+package microbat.instrumentation.cfgcoverage.output;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import microbat.instrumentation.cfgcoverage.graph.CoveragePath;
+import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode;
+import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode.Type;
+import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
+import microbat.instrumentation.cfgcoverage.runtime.MethodExecutionData;
+import microbat.instrumentation.output.OutputWriter;
+
+public class CoverageOutputFormatTest {
+
+  @Test
+  public void testBitsetFormat() throws Exception {
+    CoverageSFlowGraph graph = createGraph();
+    Map<Integer, List<MethodExecutionData>> inputData = createInputData(graph);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    CoverageOutputWriter writer = new CoverageOutputWriter(bytes);
+    writer.writeCfgCoverage(graph);
+    writer.writeInputData(inputData);
+    writer.flush();
+
+    CoverageOutputReader reader =
+        new CoverageOutputReader(new ByteArrayInputStream(bytes.toByteArray()));
+    assertCoverage(graph, reader.readCfgCoverage());
+    assertInputData(inputData, reader.readInputData());
+  }
+
+  @Test
+  public void testFormerFormat() throws Exception {
+    CoverageSFlowGraph graph = createGraph();
+    Map<Integer, List<MethodExecutionData>> inputData = createInputData(graph);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    OutputWriter writer = new OutputWriter(bytes);
+    writeFormerCfgCoverage(writer, graph);
+    writer.writeSerializableObj(inputData);
+    writer.flush();
+
+    CoverageOutputReader reader =
+        new CoverageOutputReader(new ByteArrayInputStream(bytes.toByteArray()));
+    assertCoverage(graph, reader.readCfgCoverage());
+    assertInputData(inputData, reader.readInputData());
+  }
+
+  @Test
+  public void testIndexSet() throws Exception {
+    BitSet sparse = new BitSet();
+    sparse.set(3);
+    sparse.set(5000);
+    BitSet dense = new BitSet();
+    dense.set(0, 300);
+    dense.clear(7);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    CoverageOutputWriter writer = new CoverageOutputWriter(bytes);
+    writer.writeIndexSet(sparse);
+    int sparseSize = bytes.size();
+    writer.writeIndexSet(dense);
+    writer.writeIndexSet(new BitSet());
+    writer.writeDeltas(new int[] {4, 2, 900, 0});
+    writer.flush();
+    assertTrue(sparseSize < 10);
+    assertTrue(bytes.size() - sparseSize < 50);
+
+    CoverageOutputReader reader =
+        new CoverageOutputReader(new ByteArrayInputStream(bytes.toByteArray()));
+    assertEquals(sparse, reader.readIndexSet());
+    assertEquals(dense, reader.readIndexSet());
+    assertEquals(new BitSet(), reader.readIndexSet());
+    assertArrayEquals(new int[] {4, 2, 900, 0}, reader.readDeltas());
+  }
+
+  private static CoverageSFlowGraph createGraph() {
+    CoverageSFlowGraph graph = new CoverageSFlowGraph(4);
+    List<CoverageSFNode> nodes = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      CoverageSFNode node = new CoverageSFNode(i, graph);
+      node.setType(i == 0 ? Type.CONDITION_NODE : Type.BLOCK_NODE);
+      node.addContentNode(i);
+      nodes.add(node);
+    }
+    nodes.get(2).addContentNode(3);
+    nodes.get(0).addBranch(nodes.get(1));
+    nodes.get(0).addBranch(nodes.get(2));
+    graph.setNodeList(nodes);
+    graph.setStartNode(nodes.get(0));
+    graph.setBlockScope();
+    for (int i = 0; i < 40; i++) {
+      graph.addCoveredTestcase("a.ATest#test" + i);
+    }
+    for (int i = 0; i < 40; i++) {
+      String testcase = graph.getCoveredTestcases().get(i);
+      nodes.get(0).addCoveredTestcase(testcase);
+      CoverageSFNode branch = nodes.get(i % 3 == 0 ? 2 : 1);
+      branch.addCoveredTestcase(testcase);
+      nodes.get(0).markCoveredBranch(branch, testcase);
+    }
+    /* not in the covered testcases of the graph */
+    nodes.get(2).addCoveredTestcase("a.BTest#test");
+    CoveragePath path = new CoveragePath();
+    path.setCoveredTcs(Arrays.asList(0, 3, 39));
+    path.setPath(Arrays.asList(nodes.get(0), nodes.get(2)));
+    graph.setCoveragePaths(Arrays.asList(path));
+    return graph;
+  }
+
+  private static Map<Integer, List<MethodExecutionData>> createInputData(
+      CoverageSFlowGraph graph) {
+    Map<Integer, List<MethodExecutionData>> inputData = new HashMap<>();
+    for (int testIdx = 0; testIdx < 2; testIdx++) {
+      MethodExecutionData methodExec = new MethodExecutionData(testIdx);
+      methodExec.appendExecPath(graph.getNodeList().get(0));
+      methodExec.appendExecPath(graph.getNodeList().get(2 - testIdx));
+      Map<String, Double> branchFitnessMap = new HashMap<>();
+      branchFitnessMap.put("0-1", 1.5 + testIdx);
+      methodExec.setBranchFitnessMap(branchFitnessMap);
+      inputData.put(testIdx, new ArrayList<>(Arrays.asList(methodExec)));
+    }
+    return inputData;
+  }
+
+  private static void assertCoverage(CoverageSFlowGraph expected, CoverageSFlowGraph actual) {
+    assertEquals(expected.getCfgSize(), actual.getCfgSize());
+    assertEquals(expected.getCoveredTestcases(), actual.getCoveredTestcases());
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      CoverageSFNode node = expected.getNodeList().get(i);
+      CoverageSFNode actualNode = actual.getNodeList().get(i);
+      assertEquals(node.getType(), actualNode.getType());
+      assertEquals(node.getContent(), actualNode.getContent());
+      assertEquals(node.getBranchTargets().size(), actualNode.getBranchTargets().size());
+      assertEquals(node.getCoveredTestcases(), actualNode.getCoveredTestcases());
+      for (CoverageSFNode branch : node.getBranchTargets()) {
+        assertEquals(
+            node.getCoveredTestcasesOnBranches().get(branch),
+            actualNode
+                .getCoveredTestcasesOnBranches()
+                .get(actual.getNodeList().get(branch.getCvgIdx())));
+      }
+    }
+    CoveragePath path = expected.getCoveragePaths().get(0);
+    CoveragePath actualPath = actual.getCoveragePaths().get(0);
+    assertEquals(path.getCoveredTcs(), actualPath.getCoveredTcs());
+    assertEquals(path.getPath().size(), actualPath.getPath().size());
+    for (int i = 0; i < path.getPath().size(); i++) {
+      assertEquals(path.getPath().get(i).getCvgIdx(), actualPath.getPath().get(i).getCvgIdx());
+    }
+  }
+
+  private static void assertInputData(
+      Map<Integer, List<MethodExecutionData>> expected,
+      Map<Integer, List<MethodExecutionData>> actual) {
+    assertEquals(expected.keySet(), actual.keySet());
+    for (Integer testIdx : expected.keySet()) {
+      MethodExecutionData methodExec = expected.get(testIdx).get(0);
+      MethodExecutionData actualExec = actual.get(testIdx).get(0);
+      assertEquals(methodExec.getTestIdx(), actualExec.getTestIdx());
+      assertEquals(methodExec.getExecPathId(), actualExec.getExecPathId());
+      assertEquals(methodExec.getBranchFitnessMap(), actualExec.getBranchFitnessMap());
+    }
+  }
+
+  /** the layout written by CoverageOutputWriter before the bitset format. */
+  private static void writeFormerCfgCoverage(OutputWriter writer, CoverageSFlowGraph graph)
+      throws Exception {
+    writer.writeVarInt(graph.getCfgSize());
+    writer.writeVarInt(graph.getExtensionLayer());
+    writer.writeListString(graph.getCoveredTestcases());
+    writer.writeVarInt(graph.size());
+    for (CoverageSFNode node : graph.getNodeList()) {
+      writer.writeString(node.getType().name());
+      if (node.getType() == Type.BLOCK_NODE) {
+        writer.writeListInt(node.getContent());
+      } else {
+        writer.writeVarInt(node.getStartIdx());
+      }
+      writer.writeVarInt(node.getBranchTargets().size());
+      for (CoverageSFNode branch : node.getBranchTargets()) {
+        writer.writeVarInt(branch.getCvgIdx());
+      }
+      writer.writeListString(node.getCoveredTestcases());
+      writer.writeVarInt(node.getCoveredTestcasesOnBranches().size());
+      for (CoverageSFNode branch : node.getCoveredTestcasesOnBranches().keySet()) {
+        writer.writeVarInt(branch.getCvgIdx());
+        writer.writeListString(node.getCoveredTestcasesOnBranches().get(branch));
+      }
+    }
+    writer.writeSize(graph.getCoveragePaths());
+    for (CoveragePath path : graph.getCoveragePaths()) {
+      writer.writeListInt(path.getCoveredTcs());
+      writer.writeSize(path.getPath());
+      for (CoverageSFNode node : path.getPath()) {
+        writer.writeVarInt(node.getCvgIdx());
+      }
+    }
+  }
+}
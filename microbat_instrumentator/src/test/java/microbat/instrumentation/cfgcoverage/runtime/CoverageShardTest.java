@@ -0,0 +1,109 @@
+package microbat.instrumentation.cfgcoverage.runtime;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+
+import org.junit.Test;
+
+import microbat.instrumentation.cfgcoverage.graph.CFGInstance.UniqueNodeId;
+import microbat.instrumentation.cfgcoverage.graph.CoverageSFNode;
+import microbat.instrumentation.cfgcoverage.graph.CoverageSFlowGraph;
+
+public class CoverageShardTest {
+
+  @Test
+  public void testMergeShards() {
+    List<CoverageSFNode> nodes = new ArrayList<>();
+    CoverageSFlowGraph graph = new CoverageSFlowGraph(3);
+    for (int i = 0; i < 3; i++) {
+      CoverageSFNode node = new CoverageSFNode(i, graph);
+      node.setEndNodeId(new UniqueNodeId("a.A#run()V", i, i + 1));
+      node.addContentNode(i);
+      nodes.add(node);
+    }
+    CoverageSFNode start = nodes.get(0);
+    start.addBranch(nodes.get(1));
+    start.addBranch(nodes.get(2));
+    graph.setNodeList(nodes);
+    graph.assignProbeIds();
+    assertEquals(2, graph.getBranchCount());
+
+    CoverageShard first = new CoverageShard(0, "t1", graph);
+    CoverageShard second = new CoverageShard(1, "t2", graph);
+    first.markCoveredNode(start);
+    first.markCoveredBranch(start.getBranchIdxByProbe(nodes.get(2).getProbeId()));
+    first.markCoveredNode(nodes.get(2));
+    first.addMethodExec(new MethodExecutionData(0));
+    second.markCoveredNode(start);
+    second.markCoveredBranch(start.getBranchIdxByProbe(nodes.get(1).getProbeId()));
+    second.markCoveredNode(nodes.get(1));
+
+    Map<Integer, List<MethodExecutionData>> methodExecs = new HashMap<>();
+    first.mergeInto(graph, methodExecs);
+    second.mergeInto(graph, methodExecs);
+    /* merging a shard again does not duplicate anything */
+    first.mergeInto(graph, methodExecs);
+    assertEquals(Arrays.asList("t1", "t2"), start.getCoveredTestcases());
+    assertEquals(Arrays.asList("t2"), nodes.get(1).getCoveredTestcases());
+    assertEquals(Arrays.asList("t1"), nodes.get(2).getCoveredTestcases());
+    assertEquals(Arrays.asList("t1"), start.getCoveredTestcasesOnBranches().get(nodes.get(2)));
+    assertEquals(Arrays.asList("t2"), start.getCoveredTestcasesOnBranches().get(nodes.get(1)));
+    assertEquals(1, methodExecs.get(0).size());
+    assertNull(methodExecs.get(1));
+  }
+
+  @Test
+  public void testMarkFromThreads() throws Exception {
+    final List<CoverageSFNode> nodes = new ArrayList<>();
+    CoverageSFlowGraph graph = new CoverageSFlowGraph(512);
+    for (int i = 0; i < 512; i++) {
+      CoverageSFNode node = new CoverageSFNode(i, graph);
+      node.setEndNodeId(new UniqueNodeId("a.A#run()V", i, i + 1));
+      node.addContentNode(i);
+      nodes.add(node);
+    }
+    graph.setNodeList(nodes);
+    graph.assignProbeIds();
+    final int threadCount = 4;
+    int rounds = 200;
+    for (int round = 0; round < rounds; round++) {
+      final CoverageShard shard = new CoverageShard(round, "t" + round, graph);
+      final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+      /* the nodes of a word of the bit set are marked by different threads at the same time */
+      List<Thread> threads = new ArrayList<>();
+      for (int t = 0; t < threadCount; t++) {
+        final int offset = t;
+        threads.add(
+            new Thread() {
+              @Override
+              public void run() {
+                try {
+                  barrier.await();
+                } catch (Exception e) {
+                  return;
+                }
+                for (int i = offset; i < nodes.size(); i += threadCount) {
+                  shard.markCoveredNode(nodes.get(i));
+                }
+              }
+            });
+      }
+      for (Thread thread : threads) {
+        thread.start();
+      }
+      for (Thread thread : threads) {
+        thread.join();
+      }
+      shard.mergeInto(graph, new HashMap<Integer, List<MethodExecutionData>>());
+    }
+    for (CoverageSFNode node : nodes) {
+      assertEquals(rounds, node.getCoveredTestcases().size());
+    }
+  }
+}
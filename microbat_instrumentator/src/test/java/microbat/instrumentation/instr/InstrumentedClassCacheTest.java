@@ -0,0 +1,127 @@
+package microbat.instrumentation.instr;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.Constant;
+import org.apache.bcel.classfile.ConstantPool;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.generic.ClassGen;
+import org.junit.Test;
+
+import microbat.instrumentation.instr.InstrumentedClassCache.CachedClass;
+import microbat.instrumentation.instr.InstrumentedClassCache.CachedLocation;
+
+public class InstrumentedClassCacheTest {
+
+  @Test
+  public void testSaveAndLoad() throws Exception {
+    File dir = Files.createTempDirectory("class-cache").toFile();
+    InstrumentedClassCache cache = new InstrumentedClassCache(dir, "options");
+    byte[] original = {1, 2, 3};
+    String key = cache.getKey(original, "Trace", "true;false");
+    assertNotEquals(key, cache.getKey(original, "Precheck", "true;false"));
+    assertNotEquals(key, cache.getKey(original, "Trace", "false;false"));
+    assertNotEquals(key, new InstrumentedClassCache(dir, "other").getKey(original, "Trace", ""));
+    assertNull(cache.load(key));
+
+    CachedClass cached = new CachedClass(new byte[] {4, 5, 6, 7});
+    cached.addLocation(new CachedLocation("a.A", "a.A#run()V", 3, 1, 2, "iload:", 0));
+    cached.addNote("a.A#run()V");
+    cache.save(key, cached);
+    CachedClass loaded = cache.load(key);
+    assertArrayEquals(cached.getData(), loaded.getData());
+    assertEquals(1, loaded.getLocations().size());
+    CachedLocation location = loaded.getLocations().get(0);
+    assertEquals("a.A#run()V", location.getMethodSignature());
+    assertEquals(3, location.getLine());
+    assertEquals(2, location.getNumOfWrittenVars());
+    assertEquals("iload:", location.getBytecode());
+    assertEquals(cached.getNotes(), loaded.getNotes());
+
+    /* classes which are not instrumented are cached too */
+    String otherKey = cache.getKey(new byte[] {9}, "Trace", "");
+    cache.save(otherKey, new CachedClass(null));
+    assertNull(cache.load(otherKey).getData());
+    assertEquals(2, dir.listFiles().length);
+  }
+
+  @Test
+  public void testPrune() throws Exception {
+    File dir = Files.createTempDirectory("class-cache").toFile();
+    try {
+      InstrumentedClassCache cache = new InstrumentedClassCache(dir, "options");
+      for (int i = 0; i < 5; i++) {
+        String key = cache.getKey(new byte[] {(byte) i}, "Trace", "");
+        cache.save(key, new CachedClass(new byte[] {(byte) i}));
+        new File(dir, key + ".class-cache").setLastModified(1000000L * (i + 1));
+      }
+      assertEquals(0, InstrumentedClassCache.prune(dir, 5));
+      assertEquals(3, InstrumentedClassCache.prune(dir, 2));
+      assertEquals(2, dir.listFiles().length);
+      /* the entries written last are kept */
+      assertNotNull(cache.load(cache.getKey(new byte[] {4}, "Trace", "")));
+      assertNotNull(cache.load(cache.getKey(new byte[] {3}, "Trace", "")));
+    } finally {
+      for (File file : dir.listFiles()) {
+        file.delete();
+      }
+      dir.delete();
+    }
+  }
+
+  @Test
+  public void testLocationConstantOffsets() throws Exception {
+    byte[] classfile = readClass(InstrumentedClassCacheTest.class);
+    JavaClass jc = new ClassParser(new ByteArrayInputStream(classfile), "test").parse();
+    ClassGen classGen = new ClassGen(jc);
+    LocationConstantPool pool = new LocationConstantPool(jc.getConstantPool());
+    classGen.setConstantPool(pool);
+    int first = pool.addLocation(7);
+    int second = pool.addLocation(7);
+    assertNotEquals(first, second);
+    /* an integer pushed by other code never shares the entry of a location */
+    int other = pool.addInteger(7);
+    assertNotEquals(first, other);
+    assertNotEquals(second, other);
+
+    JavaClass newJC = classGen.getJavaClass();
+    newJC.setConstantPool(pool.getFinalConstantPool());
+    byte[] data = newJC.getBytes();
+    int[] offsets = LocationConstantPool.getConstantOffsets(data);
+    ConstantPool constants = newJC.getConstantPool();
+    for (int i = 1; i < offsets.length; i++) {
+      Constant constant = constants.getConstant(i);
+      if (constant != null) {
+        assertEquals(constant.getTag(), data[offsets[i]]);
+      }
+    }
+    assertEquals(7, readInt(data, offsets[first] + 1));
+    assertEquals(7, readInt(data, offsets[second] + 1));
+  }
+
+  private static int readInt(byte[] data, int offset) {
+    return ((data[offset] & 0xff) << 24)
+        | ((data[offset + 1] & 0xff) << 16)
+        | ((data[offset + 2] & 0xff) << 8)
+        | (data[offset + 3] & 0xff);
+  }
+
+  private static byte[] readClass(Class<?> clazz) throws Exception {
+    try (InputStream in = clazz.getResourceAsStream(clazz.getSimpleName() + ".class")) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = in.read(buffer)) > 0) {
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package microbat.instrumentation.output;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Test;
+
+import microbat.instrumentation.output.IndexedTraceFile.StepEntry;
+import microbat.instrumentation.output.IndexedTraceFile.TraceSection;
+import microbat.model.BreakPoint;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+import microbat.model.value.PrimitiveValue;
+import microbat.model.value.VarValue;
+import microbat.model.variable.LocalVar;
+
+public class IndexedTraceFileTest {
+
+  @Test
+  public void testReadSteps() throws IOException {
+    Trace trace = createTrace(300);
+    File file = save(trace);
+    try {
+      /* small chunks, most records and entries are split between two mappings */
+      for (long chunkSize : new long[] {7, 64, 1L << 30}) {
+        try (IndexedTraceFile indexedFile = new IndexedTraceFile(file, chunkSize)) {
+          assertEquals("true;", indexedFile.getProgramMsg());
+          assertEquals(1, indexedFile.getTraces().size());
+          TraceSection section = indexedFile.getTraces().get(0);
+          assertTrue(section.isMain());
+          assertEquals("main", section.getThreadName());
+          assertEquals(1, section.getThreadId());
+          assertEquals(Arrays.asList("java.util.ArrayList"), section.getIncludedLibraryClasses());
+          assertEquals(trace.size(), section.size());
+          /* backward, the steps do not need to be read in order */
+          for (int order = trace.size(); order > 0; order--) {
+            assertStep(trace.getTraceNode(order), section);
+          }
+        }
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testNotIndexed() throws IOException {
+    File file = File.createTempFile("trace", ".exec");
+    try {
+      new RunningInfo("true;", Arrays.asList(createTrace(3)), 3, 3)
+          .saveToFile(file.getAbsolutePath(), false);
+      assertFalse(IndexedTraceFile.isIndexedTraceFile(file));
+    } finally {
+      file.delete();
+    }
+  }
+
+  private void assertStep(TraceNode node, TraceSection section) throws IOException {
+    int order = node.getOrder();
+    BreakPoint location = section.getLocation(order);
+    assertEquals(node.getBreakPoint().getId(), location.getId());
+    assertEquals(node.getBreakPoint().getMethodSign(), location.getMethodSign());
+    assertEquals(node.getTimestamp(), section.getTimestamp(order));
+    assertEquals(node.isException(), section.isException(order));
+    assertEquals(
+        orderOf(node.getInvocationParent()),
+        section.getRelation(order, IndexedTraceFile.INVOCATION_PARENT));
+    assertEquals(
+        orderOf(node.getStepInNext()), section.getRelation(order, IndexedTraceFile.STEP_IN_NEXT));
+    assertEquals(
+        orderOf(node.getStepInPrevious()),
+        section.getRelation(order, IndexedTraceFile.STEP_IN_PREVIOUS));
+    assertEquals(
+        orderOf(node.getStepOverNext()),
+        section.getRelation(order, IndexedTraceFile.STEP_OVER_NEXT));
+    assertEquals(
+        orderOf(node.getControlDominator()),
+        section.getRelation(order, IndexedTraceFile.CONTROL_DOMINATOR));
+    assertEquals(-1, section.getRelation(order, IndexedTraceFile.LOOP_PARENT));
+
+    assertNull(section.getEntry(order, false).getReadVariables());
+    StepEntry entry = section.getEntry(order, true);
+    assertEquals(node.getBytecode(), entry.getBytecode());
+    assertArrayEquals(orders(node.getInvocationChildren()), entry.getInvocationChildren());
+    assertArrayEquals(orders(node.getControlDominatees()), entry.getControlDominatees());
+    assertEquals(0, entry.getLoopChildren().length);
+    assertEquals(describe(node.getReadVariables()), describe(entry.getReadVariables()));
+    assertEquals(describe(node.getWrittenVariables()), describe(entry.getWrittenVariables()));
+  }
+
+  private File save(Trace trace) throws IOException {
+    File file = File.createTempFile("trace", ".exec");
+    new RunningInfo("true;", Arrays.asList(trace), trace.size(), trace.size())
+        .saveToIndexedFile(file.getAbsolutePath());
+    assertTrue(IndexedTraceFile.isIndexedTraceFile(file));
+    return file;
+  }
+
+  /** a method calling another one every 3 steps, the callee writes a value its caller reads. */
+  private Trace createTrace(int size) {
+    Trace trace = new Trace(null);
+    trace.setThreadId(1);
+    trace.setThreadName("main");
+    trace.setMain(true);
+    trace.setIncludedLibraryClasses(Arrays.asList("java.util.ArrayList"));
+    BreakPoint caller = new BreakPoint("sample.Caller", "sample.Caller", "run()V", 10);
+    caller.setConditional(true);
+    BreakPoint callee = new BreakPoint("sample.Callee", "sample.Callee", "get()I", 20);
+    TraceNode parent = null;
+    for (int i = 1; i <= size; i++) {
+      boolean inCallee = i % 3 == 0;
+      TraceNode node =
+          new TraceNode(inCallee ? callee : caller, null, i, trace, "bytecode " + i);
+      node.setTimestamp(1000L * i);
+      node.setException(i % 7 == 0);
+      if (inCallee) {
+        node.setInvocationParent(parent);
+        parent.addInvocationChild(node);
+        node.addWrittenVariable(value("result", i));
+      } else {
+        parent = node;
+        node.addReadVariable(value("x", i - 1));
+        node.addReadVariable(value("y", i));
+      }
+      if (i > 1) {
+        TraceNode previous = trace.getTraceNode(i - 1);
+        previous.setStepInNext(node);
+        node.setStepInPrevious(previous);
+        if (!inCallee && i > 2) {
+          node.setControlDominator(trace.getTraceNode(i - 2));
+          trace.getTraceNode(i - 2).addControlDominatee(node);
+        }
+      }
+      trace.addTraceNode(node);
+    }
+    return trace;
+  }
+
+  private VarValue value(String name, int value) {
+    LocalVar var = new LocalVar(name, "int", "sample.Caller", 10);
+    var.setVarID(name + ":" + value);
+    return new PrimitiveValue(String.valueOf(value), true, var);
+  }
+
+  private int orderOf(TraceNode node) {
+    return node == null ? -1 : node.getOrder();
+  }
+
+  private int[] orders(List<TraceNode> nodes) {
+    int[] orders = new int[nodes.size()];
+    for (int i = 0; i < orders.length; i++) {
+      orders[i] = nodes.get(i).getOrder();
+    }
+    return orders;
+  }
+
+  private List<String> describe(Collection<VarValue> values) {
+    List<String> list = new ArrayList<>();
+    for (VarValue value : values) {
+      list.add(value.getVarID() + "=" + value.getStringValue());
+    }
+    return list;
+  }
+}
@@ -0,0 +1,115 @@
+package microbat.instrumentation.output;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import sav.common.core.SavRtException;
+
+/**
+ * The plugin bundles the agent jar after its own classes, so in the plugin the codec of the trace
+ * output links against the plugin's copy of microbat.model and microbat.util. The codec is compiled
+ * here against the sources of that copy and run in a class loader which only sees them.
+ */
+public class PluginModelCodecTest {
+  private static final File PLUGIN_SRC = new File("../microbat/src/main");
+  private static final String[] CODEC =
+      new String[] {
+        "ByteConverter",
+        "OutputReader",
+        "OutputWriter",
+        "VarValueBlob",
+        "VarValueDecoder",
+        "VarValueEncoder"
+      };
+  private static final String DRIVER =
+      "package microbat.instrumentation.output;\n"
+          + "import java.util.*;\n"
+          + "import microbat.model.value.*;\n"
+          + "import microbat.model.variable.*;\n"
+          + "public class CodecDriver {\n"
+          + "  public static String run() {\n"
+          + "    LocalVar var = new LocalVar(\"p\", \"Point\", \"Main\", 3);\n"
+          + "    var.setRtType(\"Point3D\");\n"
+          + "    ReferenceValue point = new ReferenceValue(false, 7, true, var);\n"
+          + "    FieldVar x = new FieldVar(false, \"x\", \"int\", \"Point\");\n"
+          + "    point.linkAchild(new PrimitiveValue(\"2\", false, x));\n"
+          + "    VirtualValue ret = new VirtualValue(true, new VirtualVar(\"return\", \"int\"));\n"
+          + "    ret.setStringValue(\"5\");\n"
+          + "    List<VarValue> values = Arrays.<VarValue>asList(point, ret);\n"
+          + "    List<VarValue> decoded = VarValueBlob.decode(VarValueBlob.encode(values, true));\n"
+          + "    VarValue p = decoded.get(0);\n"
+          + "    VarValue r = decoded.get(1);\n"
+          + "    String x2 = p.getChildren().get(0).getStringValue();\n"
+          + "    return p.getVariable().getRuntimeType() + \" \" + x2\n"
+          + "        + \" \" + r.getClass().getSimpleName() + \" \" + r.getStringValue();\n"
+          + "  }\n"
+          + "}\n";
+
+  private File folder;
+
+  @Before
+  public void setup() throws IOException {
+    Assume.assumeTrue(new File(PLUGIN_SRC, "microbat/model/value/VarValue.java").exists());
+    Assume.assumeNotNull(ToolProvider.getSystemJavaCompiler());
+    folder = Files.createTempDirectory("pluginModelCodecTest").toFile();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    if (folder != null) {
+      FileUtils.deleteDirectory(folder);
+    }
+  }
+
+  @Test
+  public void testCodecAgainstPluginModel() throws Exception {
+    File driver = new File(folder, "src/microbat/instrumentation/output/CodecDriver.java");
+    driver.getParentFile().mkdirs();
+    Files.write(driver.toPath(), DRIVER.getBytes(StandardCharsets.UTF_8));
+    List<String> args = new ArrayList<>();
+    File out = new File(folder, "bin");
+    out.mkdirs();
+    String savCommons = getCodeSource(SavRtException.class).getPath();
+    args.addAll(Arrays.asList("-nowarn", "-d", out.getPath(), "-cp", savCommons));
+    for (String clazz : CODEC) {
+      args.add("src/main/microbat/instrumentation/output/" + clazz + ".java");
+    }
+    args.add(new File(PLUGIN_SRC, "microbat/util/PrimitiveUtils.java").getPath());
+    for (String pkg : new String[] {"value", "variable"}) {
+      for (File file : new File(PLUGIN_SRC, "microbat/model/" + pkg).listFiles()) {
+        args.add(file.getPath());
+      }
+    }
+    args.add(driver.getPath());
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    assertEquals(0, compiler.run(null, null, null, args.toArray(new String[args.size()])));
+
+    URL[] urls = new URL[] {out.toURI().toURL(), getCodeSource(SavRtException.class)};
+    try (URLClassLoader loader = new URLClassLoader(urls, null)) {
+      Class<?> clazz = loader.loadClass("microbat.instrumentation.output.CodecDriver");
+      assertEquals("Point3D 2 VirtualValue 5", clazz.getMethod("run").invoke(null));
+    }
+  }
+
+  private static URL getCodeSource(Class<?> clazz) {
+    return clazz.getProtectionDomain().getCodeSource().getLocation();
+  }
+}
@@ -0,0 +1,216 @@
+package microbat.instrumentation.output;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.Constant;
+import org.apache.bcel.classfile.ConstantCP;
+import org.apache.bcel.classfile.ConstantInterfaceMethodref;
+import org.apache.bcel.classfile.ConstantMethodref;
+import org.apache.bcel.classfile.ConstantNameAndType;
+import org.apache.bcel.classfile.ConstantPool;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.generic.Type;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import microbat.model.trace.TraceStepLinker;
+
+/**
+ * The plugin reads streaming traces with classes of the agent jar, which link against the plugin's
+ * copy of microbat.model. That copy needs the eclipse jdt to compile, so instead of running the
+ * reader against it, every method the reader calls on a class of the plugin model is looked up in
+ * the sources of that copy, with the same name, parameter types and return type.
+ */
+public class PluginModelLinkageTest {
+  private static final File PLUGIN_SRC = new File("../microbat/src/main");
+  private static final Class<?>[] PLUGIN_SIDE =
+      new Class<?>[] {TraceOutputReader.class, TraceStepLinker.class};
+  private static final Pattern METHOD =
+      Pattern.compile(
+          "([\\w.$]+(?:<[^(){};=]*>)?(?:\\[\\])*)\\s+(\\w+)\\s*\\(([^()]*)\\)\\s*"
+              + "(?:throws[^{;]*)?[{;]");
+
+  @Before
+  public void setup() {
+    Assume.assumeTrue(new File(PLUGIN_SRC, "microbat/model/trace/TraceNode.java").exists());
+  }
+
+  @Test
+  public void testCalledMethodsExistInPluginModel() throws Exception {
+    List<String> missing = new ArrayList<>();
+    for (Class<?> clazz : PLUGIN_SIDE) {
+      ConstantPool cp = parse(clazz).getConstantPool();
+      for (Constant constant : cp.getConstantPool()) {
+        if (!(constant instanceof ConstantMethodref)
+            && !(constant instanceof ConstantInterfaceMethodref)) {
+          continue;
+        }
+        ConstantCP ref = (ConstantCP) constant;
+        String owner = ref.getClass(cp);
+        ConstantNameAndType nameAndType =
+            (ConstantNameAndType) cp.getConstant(ref.getNameAndTypeIndex());
+        String name = nameAndType.getName(cp);
+        String signature = nameAndType.getSignature(cp);
+        if (getSource(owner).exists() && !isDeclared(owner, name, signature)) {
+          missing.add(clazz.getSimpleName() + " -> " + owner + "." + name + signature);
+        }
+      }
+    }
+    assertTrue("not in the plugin model: " + missing, missing.isEmpty());
+  }
+
+  private static JavaClass parse(Class<?> clazz) throws IOException {
+    String classFile = clazz.getName().replace('.', '/') + ".class";
+    try (InputStream in = clazz.getClassLoader().getResourceAsStream(classFile)) {
+      return new ClassParser(in, classFile).parse();
+    }
+  }
+
+  /** looks the method up in the plugin source of the class and of its super classes. */
+  private static boolean isDeclared(String className, String name, String signature)
+      throws Exception {
+    String expected = toDeclaration(name, signature);
+    Set<String> visited = new HashSet<>();
+    while (className != null && visited.add(className)) {
+      File source = getSource(className);
+      if (!source.exists()) {
+        return isDeclaredByJdk(className, name, signature);
+      }
+      String code = strip(new String(Files.readAllBytes(source.toPath()), StandardCharsets.UTF_8));
+      if (getDeclarations(code, getSimpleName(className)).contains(expected)) {
+        return true;
+      }
+      className = getSuperClass(code, className);
+    }
+    return false;
+  }
+
+  private static boolean isDeclaredByJdk(String className, String name, String signature) {
+    if (!className.startsWith("java.")) {
+      return false;
+    }
+    try {
+      for (java.lang.reflect.Method method : Class.forName(className).getMethods()) {
+        if (method.getName().equals(name) && Type.getSignature(method).equals(signature)) {
+          return true;
+        }
+      }
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+    return false;
+  }
+
+  private static Set<String> getDeclarations(String code, String simpleName) {
+    Set<String> declarations = new HashSet<>();
+    Matcher matcher = METHOD.matcher(code);
+    while (matcher.find()) {
+      String parameterTypes = toParameterTypes(matcher.group(3));
+      if (parameterTypes != null) {
+        declarations.add(matcher.group(2) + parameterTypes + toSimpleType(matcher.group(1)));
+      }
+    }
+    Matcher constructor =
+        Pattern.compile("\\b" + simpleName + "\\s*\\(([^()]*)\\)\\s*(?:throws[^{;]*)?\\{")
+            .matcher(code);
+    while (constructor.find()) {
+      String parameterTypes = toParameterTypes(constructor.group(1));
+      if (parameterTypes != null) {
+        declarations.add("<init>" + parameterTypes + "void");
+      }
+    }
+    return declarations;
+  }
+
+  private static String toDeclaration(String name, String signature) {
+    StringBuilder declaration = new StringBuilder(name).append("(");
+    Type[] argumentTypes = Type.getArgumentTypes(signature);
+    for (int i = 0; i < argumentTypes.length; i++) {
+      declaration.append(i == 0 ? "" : ",").append(toSimpleType(argumentTypes[i].toString()));
+    }
+    declaration.append(")").append(toSimpleType(Type.getReturnType(signature).toString()));
+    return declaration.toString();
+  }
+
+  /** @return null if the parameters are not the ones of a declaration, but of a statement. */
+  private static String toParameterTypes(String parameters) {
+    StringBuilder types = new StringBuilder("(");
+    String erased = erase(parameters).trim();
+    if (!erased.isEmpty()) {
+      String[] params = erased.split(",");
+      for (int i = 0; i < params.length; i++) {
+        String param = params[i].replaceAll("@\\w+|\\bfinal\\b", "").trim();
+        if (!param.matches("[\\w.$\\[\\]]+(\\.\\.\\.)?\\s+\\w+")) {
+          return null;
+        }
+        String type = param.substring(0, param.lastIndexOf(' ')).trim();
+        types.append(i == 0 ? "" : ",").append(toSimpleType(type));
+      }
+    }
+    return types.append(")").toString();
+  }
+
+  private static String toSimpleType(String type) {
+    String simpleType = erase(type).replace("...", "[]").replaceAll("\\s", "");
+    int start = Math.max(simpleType.lastIndexOf('.'), simpleType.lastIndexOf('$'));
+    return simpleType.substring(start + 1);
+  }
+
+  private static String erase(String type) {
+    String erased = type;
+    String previous;
+    do {
+      previous = erased;
+      erased = erased.replaceAll("<[^<>]*>", "");
+    } while (!erased.equals(previous));
+    return erased;
+  }
+
+  private static String getSuperClass(String code, String className) {
+    Matcher matcher =
+        Pattern.compile("class\\s+" + getSimpleName(className) + "\\b[^{]*?\\bextends\\s+([\\w.]+)")
+            .matcher(code);
+    if (!matcher.find()) {
+      return Object.class.getName();
+    }
+    String superName = matcher.group(1);
+    if (superName.contains(".")) {
+      return superName;
+    }
+    Matcher imported =
+        Pattern.compile("import\\s+([\\w.]+\\." + superName + ")\\s*;").matcher(code);
+    if (imported.find()) {
+      return imported.group(1);
+    }
+    return className.substring(0, className.lastIndexOf('.') + 1) + superName;
+  }
+
+  /** removes the comments and string literals, which may contain anything. */
+  private static String strip(String code) {
+    return code.replaceAll("(?s)/\\*.*?\\*/", "")
+        .replaceAll("//[^\n]*", "")
+        .replaceAll("\"(?:\\\\.|[^\"\\\\])*\"", "\"\"");
+  }
+
+  private static String getSimpleName(String className) {
+    return className.substring(className.lastIndexOf('.') + 1);
+  }
+
+  private static File getSource(String className) {
+    return new File(PLUGIN_SRC, className.replace('.', '/') + ".java");
+  }
+}
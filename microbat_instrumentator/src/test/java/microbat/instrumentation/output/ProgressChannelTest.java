@@ -0,0 +1,64 @@
+package microbat.instrumentation.output;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import microbat.instrumentation.output.ProgressChannel.Progress;
+
+public class ProgressChannelTest {
+
+  @Test
+  public void testPublishAndRead() throws IOException {
+    File file = File.createTempFile("progress", ".bin");
+    try (ProgressChannel reader = new ProgressChannel(file);
+        ProgressChannel writer = new ProgressChannel(file)) {
+      assertNull(reader.read());
+
+      Progress progress = new Progress(2);
+      progress.setSteps(1500);
+      progress.setExpectedSteps(3000);
+      progress.setUsedHeap(64L << 20);
+      progress.setMaxHeap(1L << 32);
+      progress.setThread(0, 1, 1000);
+      progress.setThread(1, 12, 500);
+      writer.publish(progress);
+
+      Progress read = reader.read();
+      assertFalse(read.isFinished());
+      assertEquals(1500, read.getSteps());
+      assertEquals(3000, read.getExpectedSteps());
+      assertEquals(64L << 20, read.getUsedHeap());
+      assertEquals(1L << 32, read.getMaxHeap());
+      assertEquals(2, read.getThreadCount());
+      assertEquals(12, read.getThreadId(1));
+      assertEquals(500, read.getThreadSteps(1));
+
+      progress = new Progress(1);
+      progress.setFinished(true);
+      progress.setSteps(3000);
+      writer.publish(progress);
+      read = reader.read();
+      assertTrue(read.isFinished());
+      assertEquals(3000, read.getSteps());
+      assertEquals(1, read.getThreadCount());
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testTooManyThreads() throws IOException {
+    File file = File.createTempFile("progress", ".bin");
+    try (ProgressChannel channel = new ProgressChannel(file)) {
+      Progress progress = new Progress(ProgressChannel.MAX_THREADS + 10);
+      channel.publish(progress);
+      assertEquals(ProgressChannel.MAX_THREADS, channel.read().getThreadCount());
+    } finally {
+      file.delete();
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package microbat.instrumentation.output;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.LineNumber;
+import org.apache.bcel.classfile.Method;
+import org.junit.Test;
+
+import microbat.model.BreakPoint;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+import sav.strategies.dto.AppJavaClassPath;
+
+public class StreamingTraceWriterTest {
+
+  @Test
+  public void testControlScopesAreStreamed() throws Exception {
+    AppJavaClassPath appPath = new AppJavaClassPath();
+    appPath.setJavaHome(System.getProperty("java.home"));
+    appPath.addClasspath(
+        new File(Fixture.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+            .getPath());
+    List<Integer> lines = getLines("run");
+    assertEquals(4, lines.size());
+    Trace trace = newTrace(appPath, lines);
+    trace.setThreadId(1);
+    trace.setThreadName("main");
+    trace.setMain(true);
+    /* the same steps linked by the agent */
+    Trace expectedTrace = newTrace(appPath, lines);
+    expectedTrace.constructVirtualDataRelation();
+    expectedTrace.constructControlDomianceRelation();
+
+    File file = File.createTempFile("trace", ".exec");
+    try {
+      StreamingTraceWriter writer = new StreamingTraceWriter(file.getAbsolutePath(), 2, appPath);
+      writer.start();
+      List<TraceNode> steps = trace.getExecutionList();
+      writer.writeSegment(1, new ArrayList<>(steps.subList(0, 2)));
+      writer.writeSegment(1, new ArrayList<>(steps.subList(2, steps.size())));
+      List<Trace> threadTraces = new ArrayList<>();
+      threadTraces.add(trace);
+      writer.close(threadTraces, "true;", 4, 4);
+
+      RunningInfo info = RunningInfo.readFromFile(file);
+      assertEquals(1, info.getTraceList().size());
+      List<TraceNode> readSteps = info.getTraceList().get(0).getExecutionList();
+      assertEquals(4, readSteps.size());
+      for (int i = 0; i < readSteps.size(); i++) {
+        TraceNode step = readSteps.get(i);
+        TraceNode expectedStep = expectedTrace.getExecutionList().get(i);
+        assertEquals(expectedStep.isBranch(), step.isBranch());
+        assertEquals(
+            getOrder(expectedStep.getControlDominator()), getOrder(step.getControlDominator()));
+        assertEquals(getOrder(expectedStep.getStepInNext()), getOrder(step.getStepInNext()));
+      }
+      assertTrue(readSteps.get(1).isBranch());
+      /* the assignment in the if statement */
+      assertEquals(2, readSteps.get(2).getControlDominator().getOrder());
+    } finally {
+      file.delete();
+    }
+  }
+
+  private static int getOrder(TraceNode node) {
+    return node == null ? -1 : node.getOrder();
+  }
+
+  private static Trace newTrace(AppJavaClassPath appPath, List<Integer> lines) {
+    Trace trace = new Trace(appPath);
+    String className = Fixture.class.getName();
+    for (int line : lines) {
+      BreakPoint breakPoint = new BreakPoint(className, className, className + "#run(I)I", line);
+      trace.addTraceNode(new TraceNode(breakPoint, null, trace.size() + 1, trace, null));
+    }
+    return trace;
+  }
+
+  private static List<Integer> getLines(String methodName) throws Exception {
+    String classFile = Fixture.class.getName().replace('.', '/') + ".class";
+    try (InputStream in = Fixture.class.getClassLoader().getResourceAsStream(classFile)) {
+      JavaClass jc = new ClassParser(in, classFile).parse();
+      TreeSet<Integer> lines = new TreeSet<>();
+      for (Method method : jc.getMethods()) {
+        if (method.getName().equals(methodName)) {
+          for (LineNumber line : method.getLineNumberTable().getLineNumberTable()) {
+            lines.add(line.getLineNumber());
+          }
+        }
+      }
+      return new ArrayList<>(lines);
+    }
+  }
+
+  static class Fixture {
+    static int run(int x) {
+      int y = 0;
+      if (x > 0) {
+        y = x;
+      }
+      return y;
+    }
+  }
+}
@@ -0,0 +1,314 @@
+package microbat.instrumentation.output;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import microbat.model.BreakPoint;
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+import microbat.model.value.ArrayValue;
+import microbat.model.value.PrimitiveValue;
+import microbat.model.value.ReferenceValue;
+import microbat.model.value.StringValue;
+import microbat.model.value.VarValue;
+import microbat.model.value.VirtualValue;
+import microbat.model.variable.ArrayElementVar;
+import microbat.model.variable.ConstantVar;
+import microbat.model.variable.FieldVar;
+import microbat.model.variable.LocalVar;
+import microbat.model.variable.Variable;
+import microbat.model.variable.VirtualVar;
+
+public class VarValueEncoderTest {
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    List<List<VarValue>> steps = createSteps();
+    List<List<VarValue>> decoded = decode(encode(steps));
+    assertEquals(steps.size(), decoded.size());
+    for (int i = 0; i < steps.size(); i++) {
+      assertEquals(describe(steps.get(i)), describe(decoded.get(i)));
+    }
+  }
+
+  @Test
+  public void testSharedValuesKeepIdentity() throws IOException {
+    List<List<VarValue>> decoded = decode(encode(createSteps()));
+    /* the student read in step 1 is written in step 2 */
+    VarValue student = decoded.get(0).get(0);
+    assertSame(student, decoded.get(1).get(0));
+    /* student.friend = student */
+    VarValue friend = student.getChildren().get(3);
+    assertSame(student, friend);
+    assertSame(student, student.getChildren().get(0).getParents().get(0));
+  }
+
+  @Test
+  public void testUnboxedPrimitives() throws IOException {
+    List<List<VarValue>> steps = new ArrayList<>();
+    String[][] samples =
+        new String[][] {
+          {"int", "-2147483648"},
+          {"long", "9223372036854775807"},
+          {"long", "007"},
+          {"double", "25.0"},
+          {"double", "NaN"},
+          {"double", "1.0E-10"},
+          {"float", "3.4028235E38"},
+          {"char", "é"},
+          {"char", ""},
+          {"boolean", "true"},
+          {"boolean", "TRUE"},
+          {"int", "not a number"},
+        };
+    for (String[] sample : samples) {
+      steps.add(Arrays.<VarValue>asList(primitive("x", sample[0], sample[1])));
+    }
+    List<List<VarValue>> decoded = decode(encode(steps));
+    for (int i = 0; i < samples.length; i++) {
+      assertEquals(samples[i][1], decoded.get(i).get(0).getStringValue());
+    }
+  }
+
+  @Test
+  public void testNullStringValue() throws IOException {
+    LocalVar var = new LocalVar("name", "String", "Sample", 1);
+    var.setVarID("name");
+    VarValue nullString =
+        new StringValue(null, true, var) {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          public String getStringValue() {
+            return null;
+          }
+        };
+    List<List<VarValue>> steps = new ArrayList<>();
+    steps.add(Arrays.asList(nullString));
+    List<List<VarValue>> written = new ArrayList<>();
+    written.add(Arrays.<VarValue>asList(new StringValue("null", true, var)));
+    assertArrayEquals(encode(written), encode(steps));
+    assertEquals("null", decode(encode(steps)).get(0).get(0).getStringValue());
+  }
+
+  @Test
+  public void testSmallerThanSerialization() throws IOException {
+    List<List<VarValue>> steps = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      steps.addAll(createSteps());
+    }
+    int serialized = ByteConverter.convertToBytes(steps).length;
+    int encoded = encode(steps).length;
+    assertTrue(encoded + " >= " + serialized, encoded < serialized);
+  }
+
+  @Test
+  public void testTraceFile() throws IOException {
+    Trace trace = new Trace(null);
+    trace.setThreadId(1);
+    trace.setThreadName("main");
+    trace.setMain(true);
+    List<List<VarValue>> steps = createSteps();
+    for (int i = 0; i < steps.size(); i++) {
+      BreakPoint bkp =
+          new BreakPoint("microbat.examples.benchmark.Student", "Student#getId()I", 19 + i);
+      TraceNode node = new TraceNode(bkp, null, i + 1, trace, null);
+      node.setReadVariables(steps.get(i));
+      node.setWrittenVariables(steps.get(steps.size() - 1 - i));
+      trace.addTraceNode(node);
+    }
+    File file = File.createTempFile("trace", ".exec");
+    try {
+      new RunningInfo("msg", Arrays.asList(trace), steps.size(), steps.size())
+          .saveToFile(file.getAbsolutePath(), false);
+      RunningInfo info = RunningInfo.readFromFile(file);
+      List<TraceNode> nodes = info.getMainTrace().getExecutionList();
+      assertEquals(steps.size(), nodes.size());
+      for (int i = 0; i < steps.size(); i++) {
+        assertEquals(describe(steps.get(i)), describe(nodes.get(i).getReadVariables()));
+        assertEquals(
+            describe(steps.get(steps.size() - 1 - i)),
+            describe(nodes.get(i).getWrittenVariables()));
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testBlob() {
+    List<List<VarValue>> steps = createSteps();
+    List<VarValue> large = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      large.addAll(createSteps().get(0));
+    }
+    steps.add(large);
+    for (List<VarValue> step : steps) {
+      byte[] raw = VarValueBlob.encode(step, false);
+      byte[] deflated = VarValueBlob.encode(step, true);
+      assertEquals(describe(step), describe(VarValueBlob.decode(raw)));
+      assertEquals(describe(step), describe(VarValueBlob.decode(deflated)));
+    }
+    assertNull(VarValueBlob.encode(new ArrayList<VarValue>(), true));
+    assertTrue(VarValueBlob.decode(null).isEmpty());
+    assertEquals(VarValueBlob.DEFLATED, VarValueBlob.encode(large, true)[0]);
+    assertEquals(VarValueBlob.RAW, VarValueBlob.encode(large, false)[0]);
+  }
+
+  private byte[] encode(List<List<VarValue>> steps) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    OutputWriter writer = new OutputWriter(bytes);
+    VarValueEncoder.encode(steps, writer);
+    writer.flush();
+    return bytes.toByteArray();
+  }
+
+  private List<List<VarValue>> decode(byte[] bytes) throws IOException {
+    OutputReader reader = new OutputReader(new ByteArrayInputStream(bytes));
+    List<List<VarValue>> steps = VarValueDecoder.decode(reader);
+    assertEquals(-1, reader.read());
+    return steps;
+  }
+
+  /** values of Student (microbat_examples) and of an int array. */
+  private List<List<VarValue>> createSteps() {
+    LocalVar thisVar = new LocalVar("this", "microbat.examples.benchmark.Student", "Student", 19);
+    thisVar.setVarID("this:19");
+    thisVar.setByteCodeIndex(3);
+    thisVar.setParameter(true);
+    ReferenceValue student = new ReferenceValue(false, 951, true, thisVar);
+    student.linkAchild(primitive(field("id", "int"), "-7"));
+    student.linkAchild(primitive(field("score", "int"), "90"));
+    student.linkAchild(primitive(field("male", "boolean"), "true"));
+    student.linkAchild(student);
+    student.setStringValue("Student [id=-7]");
+
+    LocalVar arrVar = new LocalVar("scores", "int[]", "Student", 20);
+    arrVar.setVarID("scores:20");
+    ArrayValue array = new ArrayValue(false, true, arrVar);
+    array.setUniqueID(952);
+    array.setComponentType("int");
+    /* the first 3 elements of 10 are recorded */
+    array.setLength(10);
+    array.setElidedRanges(new int[] {3, 10});
+    for (int i = 0; i < 3; i++) {
+      ArrayElementVar elementVar =
+          new ArrayElementVar("scores[" + i + "]", "int", "952[" + i + "]");
+      array.linkAchild(primitive(elementVar, String.valueOf(i * 1.5 > 2 ? 1000000 : i)));
+    }
+    ReferenceValue nullRef =
+        new ReferenceValue(true, 0, true, new FieldVar(true, "cache", "java.util.Map", "Student"));
+    nullRef.setNull(true);
+    nullRef.getVariable().setVarID("Student.cache");
+
+    VirtualVar virtualVar = new VirtualVar("vir_Student#getId()I:1", VirtualVar.VIRTUAL_TYPE);
+    virtualVar.setVarID("vir_Student#getId()I:1");
+    virtualVar.setRtType("int");
+    VirtualValue returned = new VirtualValue(true, virtualVar);
+    returned.setStringValue("-7");
+
+    LocalVar nameVar = new LocalVar("name", "String", "Student", 21);
+    nameVar.setVarID("name:21");
+    nameVar.setAliasVarID("953");
+    StringValue name = new StringValue("Zoë", true, nameVar);
+    ConstantVar constantVar = new ConstantVar("25.0", "double");
+    constantVar.setVarID("const:25.0");
+    PrimitiveValue constant = new PrimitiveValue("25.0", true, constantVar);
+
+    List<List<VarValue>> steps = new ArrayList<>();
+    steps.add(Arrays.<VarValue>asList(student, array));
+    steps.add(Arrays.<VarValue>asList(student, nullRef));
+    steps.add(new ArrayList<VarValue>());
+    steps.add(Arrays.<VarValue>asList(returned, name, constant));
+    return steps;
+  }
+
+  private FieldVar field(String name, String type) {
+    FieldVar var = new FieldVar(false, name, type, "microbat.examples.benchmark.Student");
+    var.setVarID("951." + name);
+    return var;
+  }
+
+  private PrimitiveValue primitive(Variable var, String value) {
+    return new PrimitiveValue(value, false, var);
+  }
+
+  private PrimitiveValue primitive(String name, String type, String value) {
+    LocalVar var = new LocalVar(name, type, "Sample", 1);
+    var.setVarID(name);
+    return new PrimitiveValue(value, true, var);
+  }
+
+  private String describe(Collection<VarValue> values) {
+    StringBuilder sb = new StringBuilder();
+    Map<VarValue, Integer> visited = new IdentityHashMap<>();
+    for (VarValue value : values) {
+      describe(value, visited, sb);
+    }
+    return sb.toString();
+  }
+
+  private void describe(VarValue value, Map<VarValue, Integer> visited, StringBuilder sb) {
+    Integer id = visited.get(value);
+    if (id != null) {
+      sb.append("#").append(id);
+      return;
+    }
+    visited.put(value, visited.size());
+    Variable var = value.getVariable();
+    sb.append(value.getClass().getSimpleName())
+        .append("[")
+        .append(value.getStringValue())
+        .append(",root=")
+        .append(value.isRoot());
+    if (value instanceof ReferenceValue) {
+      ReferenceValue ref = (ReferenceValue) value;
+      sb.append(",id=").append(ref.getUniqueID()).append(",null=").append(ref.isNull());
+    }
+    if (value instanceof ArrayValue) {
+      sb.append(",component=").append(((ArrayValue) value).getComponentType());
+      sb.append(",elided=").append(((ArrayValue) value).getElidedDescription());
+    }
+    sb.append(",")
+        .append(var.getClass().getSimpleName())
+        .append(
+            Arrays.asList(
+                var.getName(),
+                var.getType(),
+                var.getRuntimeType(),
+                var.getVarID(),
+                var.getAliasVarID()));
+    if (var instanceof LocalVar) {
+      LocalVar localVar = (LocalVar) var;
+      sb.append(
+          Arrays.asList(
+              localVar.getLocationClass(),
+              localVar.getLineNumber(),
+              localVar.getByteCodeIndex(),
+              localVar.isParameter()));
+    } else if (var instanceof FieldVar) {
+      FieldVar fieldVar = (FieldVar) var;
+      sb.append(Arrays.asList(fieldVar.isStatic(), fieldVar.getDeclaringType()));
+    } else if (var instanceof ConstantVar) {
+      sb.append(((ConstantVar) var).getValue());
+    }
+    sb.append(",children={");
+    for (VarValue child : value.getChildren()) {
+      describe(child, visited, sb);
+      sb.append(";");
+    }
+    sb.append("},parents=").append(value.getParents().size()).append("]");
+  }
+}
@@ -0,0 +1,154 @@
+package microbat.instrumentation.output;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import microbat.model.trace.Trace;
+import microbat.model.trace.TraceNode;
+import microbat.model.value.ArrayValue;
+import microbat.model.value.PrimitiveValue;
+import microbat.model.value.ReferenceValue;
+import microbat.model.value.VarValue;
+import microbat.model.variable.ArrayElementVar;
+import microbat.model.variable.FieldVar;
+import microbat.model.variable.LocalVar;
+
+/**
+ * Size and throughput of the variable values of a trace in the java serialization (the former
+ * format) and in the {@link VarValueEncoder} format, both written in blocks of 4000 steps as done
+ * by {@link TraceOutputWriter}.
+ *
+ * <p>Usage: {@code VarValueFormatBenchmark [trace files]}, e.g. the dump files of the
+ * microbat_examples benchmarks. Without argument, a trace of 200000 steps reading and writing
+ * objects shaped like {@code microbat.examples.benchmark.Student} and int arrays is generated.
+ */
+public class VarValueFormatBenchmark {
+  private static final int BLOCK_SIZE = 4000;
+  private static final int ROUNDS = 5;
+
+  public static void main(String[] args) throws Exception {
+    List<Collection<VarValue>> steps = new ArrayList<>();
+    if (args.length == 0) {
+      steps = generateSteps(200000);
+    } else {
+      for (String file : args) {
+        for (Trace trace : RunningInfo.readFromFile(file).getTraceList()) {
+          for (TraceNode node : trace.getExecutionList()) {
+            steps.add(node.getReadVariables());
+            steps.add(node.getWrittenVariables());
+          }
+        }
+      }
+    }
+    System.out.println("variable lists: " + steps.size());
+    System.out.println(
+        String.format("%-12s %14s %14s %14s", "format", "bytes", "write (ms)", "read (ms)"));
+    for (int i = 0; i < ROUNDS; i++) {
+      boolean print = i == ROUNDS - 1; // the first rounds are warmup
+      run("serialized", steps, false, print);
+      run("binary", steps, true, print);
+    }
+  }
+
+  private static void run(
+      String name, List<Collection<VarValue>> steps, boolean binary, boolean print)
+      throws IOException, ClassNotFoundException {
+    long start = System.nanoTime();
+    List<byte[]> blocks = new ArrayList<>();
+    long size = 0;
+    for (int idx = 0; idx < steps.size(); idx += BLOCK_SIZE) {
+      List<Collection<VarValue>> subList =
+          new ArrayList<>(steps.subList(idx, Math.min(idx + BLOCK_SIZE, steps.size())));
+      byte[] bytes;
+      if (binary) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutputWriter writer = new OutputWriter(out);
+        VarValueEncoder.encode(subList, writer);
+        writer.flush();
+        bytes = out.toByteArray();
+      } else {
+        bytes = ByteConverter.convertToBytes(subList);
+      }
+      size += bytes.length;
+      blocks.add(bytes);
+    }
+    long writeTime = System.nanoTime() - start;
+    start = System.nanoTime();
+    int read = 0;
+    for (byte[] bytes : blocks) {
+      if (binary) {
+        read += VarValueDecoder.decode(new OutputReader(new ByteArrayInputStream(bytes))).size();
+      } else {
+        read += ((List<?>) ByteConverter.convertFromBytes(bytes)).size();
+      }
+    }
+    long readTime = System.nanoTime() - start;
+    if (read != steps.size()) {
+      throw new IllegalStateException(name + ": " + read + " != " + steps.size());
+    }
+    if (print) {
+      System.out.println(
+          String.format(
+              "%-12s %14d %14.1f %14.1f", name, size, writeTime / 1e6, readTime / 1e6));
+    }
+  }
+
+  private static List<Collection<VarValue>> generateSteps(int size) {
+    List<Collection<VarValue>> steps = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      int line = 10 + i % 40;
+      if (i % 3 == 0) {
+        steps.add(Arrays.<VarValue>asList(student(i, line)));
+      } else if (i % 3 == 1) {
+        steps.add(Arrays.<VarValue>asList(array(i, line)));
+      } else {
+        LocalVar var = new LocalVar("score", "int", "Student", line);
+        var.setVarID("score:" + line + ":" + i);
+        steps.add(Arrays.<VarValue>asList(new PrimitiveValue(String.valueOf(i % 100), true, var)));
+      }
+    }
+    return steps;
+  }
+
+  private static VarValue student(int step, int line) {
+    LocalVar var = new LocalVar("s", "microbat.examples.benchmark.Student", "Student", line);
+    var.setVarID("s:" + line + ":" + step);
+    ReferenceValue student = new ReferenceValue(false, 1000 + step % 50, true, var);
+    student.setStringValue("microbat.examples.benchmark.Student@" + (1000 + step % 50));
+    student.linkAchild(field(student, "id", "int", String.valueOf(step % 50)));
+    student.linkAchild(field(student, "score", "int", String.valueOf(step % 100)));
+    student.linkAchild(field(student, "male", "boolean", String.valueOf(step % 2 == 0)));
+    FieldVar friendVar =
+        new FieldVar(false, "friend", "microbat.examples.benchmark.Student", "Student");
+    friendVar.setVarID(student.getUniqueID() + ".friend");
+    ReferenceValue friend = new ReferenceValue(true, 0, false, friendVar);
+    friend.setNull(true);
+    student.linkAchild(friend);
+    return student;
+  }
+
+  private static VarValue field(ReferenceValue parent, String name, String type, String value) {
+    FieldVar var = new FieldVar(false, name, type, "microbat.examples.benchmark.Student");
+    var.setVarID(parent.getUniqueID() + "." + name);
+    return new PrimitiveValue(value, false, var);
+  }
+
+  private static VarValue array(int step, int line) {
+    LocalVar var = new LocalVar("scores", "int[]", "Student", line);
+    var.setVarID("scores:" + line + ":" + step);
+    ArrayValue array = new ArrayValue(false, true, var);
+    array.setUniqueID(5000 + step % 20);
+    array.setComponentType("int");
+    for (int i = 0; i < 8; i++) {
+      String elementId = array.getUniqueID() + "[" + i + "]";
+      ArrayElementVar elementVar = new ArrayElementVar(elementId, "int", elementId);
+      array.linkAchild(new PrimitiveValue(String.valueOf(step * i % 1000), false, elementVar));
+    }
+    return array;
+  }
+}
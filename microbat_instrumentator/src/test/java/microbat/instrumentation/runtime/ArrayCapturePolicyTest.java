@@ -0,0 +1,76 @@
+package microbat.instrumentation.runtime;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import microbat.instrumentation.runtime.ArrayCapturePolicy.Mode;
+
+public class ArrayCapturePolicyTest {
+
+  @Test
+  public void testParse() {
+    assertEquals(Mode.HEAD_TAIL, Mode.parse("head_tail"));
+    assertEquals(Mode.ALL, Mode.parse(null));
+    /* an unknown mode does not fail the agent */
+    assertEquals(Mode.ALL, Mode.parse("unknown"));
+  }
+
+  @Test
+  public void testAll() {
+    ArrayCapturePolicy policy = new ArrayCapturePolicy(Mode.ALL, 10);
+    assertArrayEquals(new int[] {0, 100}, policy.select(new int[100]));
+    assertArrayEquals(new int[0], policy.select(new int[0]));
+  }
+
+  @Test
+  public void testMax() {
+    ArrayCapturePolicy policy = new ArrayCapturePolicy(Mode.MAX, 10);
+    assertArrayEquals(new int[] {0, 10}, policy.select(new int[100]));
+    assertArrayEquals(new int[] {0, 5}, policy.select(new String[5]));
+  }
+
+  @Test
+  public void testHeadTail() {
+    ArrayCapturePolicy policy = new ArrayCapturePolicy(Mode.HEAD_TAIL, 11);
+    assertArrayEquals(new int[] {0, 5, 94, 100}, policy.select(new int[100]));
+    assertArrayEquals(new int[] {0, 11}, policy.select(new int[11]));
+  }
+
+  @Test
+  public void testTouched() {
+    ArrayCapturePolicy policy = new ArrayCapturePolicy(Mode.TOUCHED, 10);
+    int[] array = new int[100];
+    assertArrayEquals(new int[] {0, 10}, policy.select(array));
+    assertArrayEquals(new int[0], policy.select(array));
+    policy.touch(array, 50);
+    policy.touch(array, 51);
+    policy.touch(array, 70, 90);
+    /* at most 10 elements */
+    assertArrayEquals(new int[] {50, 52, 70, 78}, policy.select(array));
+    assertArrayEquals(new int[0], policy.select(array));
+  }
+
+  @Test
+  public void testHash() {
+    ArrayCapturePolicy policy = new ArrayCapturePolicy(Mode.HASH, 0);
+    int[] array = new int[100];
+    assertArrayEquals(new int[] {0, 100}, policy.select(array));
+    assertArrayEquals(new int[0], policy.select(array));
+    array[3] = 1;
+    assertArrayEquals(new int[] {0, 100}, policy.select(array));
+    /* another array with the same content is recorded the first time */
+    assertArrayEquals(new int[] {0, 100}, policy.select(array.clone()));
+  }
+
+  @Test
+  public void testComplement() {
+    assertArrayEquals(
+        new int[] {5, 94}, ArrayCapturePolicy.complement(new int[] {0, 5, 94, 100}, 100));
+    assertArrayEquals(
+        new int[] {0, 50, 52, 100}, ArrayCapturePolicy.complement(new int[] {50, 52}, 100));
+    assertArrayEquals(new int[0], ArrayCapturePolicy.complement(new int[] {0, 100}, 100));
+    assertArrayEquals(new int[] {0, 100}, ArrayCapturePolicy.complement(new int[0], 100));
+    assertEquals(7, ArrayCapturePolicy.count(new int[] {0, 5, 10, 12}));
+  }
+}
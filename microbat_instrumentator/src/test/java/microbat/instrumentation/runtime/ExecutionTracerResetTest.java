@@ -0,0 +1,35 @@
+package microbat.instrumentation.runtime;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ExecutionTracerResetTest {
+
+  @After
+  public void cleanUp() {
+    ExecutionTracer.shutdown();
+    ExecutionTracer.reset();
+  }
+
+  @Test
+  public void testRecordTestsOneAfterAnother() {
+    for (int i = 0; i < 2; i++) {
+      ExecutionTracer._start();
+      IExecutionTracer tracer =
+          ExecutionTracer._getTracer(true, "a.A", "a.A#run()V", 1, 5, "", "", new Object[0]);
+      assertTrue(tracer instanceof ExecutionTracer);
+      assertSame(tracer, ExecutionTracer.getMainThreadStore());
+      assertEquals(1, ExecutionTracer.getAllThreadStore().size());
+
+      ExecutionTracer.shutdown();
+      assertSame(
+          EmptyExecutionTracer.getInstance(),
+          ExecutionTracer._getTracer(true, "a.A", "a.A#run()V", 1, 5, "", "", new Object[0]));
+      ExecutionTracer.reset();
+      /* the next test starts without the tracers of this one */
+      assertTrue(ExecutionTracer.getAllThreadStore().isEmpty());
+    }
+  }
+}
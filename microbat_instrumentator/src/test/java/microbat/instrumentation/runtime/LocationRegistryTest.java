@@ -0,0 +1,53 @@
+package microbat.instrumentation.runtime;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import microbat.instrumentation.runtime.LocationRegistry.Location;
+
+public class LocationRegistryTest {
+
+  @Test
+  public void testRegister() {
+    String methodSig = "sample.Registered#run()V";
+    int first =
+        LocationRegistry.register("sample.Registered", methodSig, 10, 1, 2, "iload:", false);
+    int second = LocationRegistry.register("sample.Registered", methodSig, 11, 0, 0, "", true);
+    assertEquals(first + 1, second);
+    assertTrue(LocationRegistry.size() > second);
+
+    Location location = LocationRegistry.get(first);
+    assertEquals("sample.Registered", location.getClassName());
+    assertEquals(methodSig, location.getMethodSignature());
+    assertEquals(10, location.getLine());
+    assertEquals(1, location.getNumOfReadVars());
+    assertEquals(2, location.getNumOfWrittenVars());
+    assertEquals("iload:", location.getBytecode());
+    assertFalse(location.isExclusive());
+    assertTrue(LocationRegistry.get(second).isExclusive());
+    assertEquals("sample.Registered:10", location.getBreakPoint().getId());
+  }
+
+  @Test
+  public void testRegisterAgain() {
+    String methodSig = "sample.Reloaded#run()V";
+    int id = LocationRegistry.register("sample.Reloaded", methodSig, 5, 0, 0, "", true);
+    assertEquals(id, LocationRegistry.register("sample.Reloaded", methodSig, 5, 0, 0, "", false));
+    assertFalse(LocationRegistry.get(id).isExclusive());
+  }
+
+  @Test
+  public void testGrow() {
+    int first = -1;
+    for (int line = 0; line < 10000; line++) {
+      int id =
+          LocationRegistry.register("sample.Large", "sample.Large#run()V", line, 0, 0, "", false);
+      if (first < 0) {
+        first = id;
+      }
+      assertEquals(first + line, id);
+    }
+    assertEquals(9999, LocationRegistry.get(first + 9999).getLine());
+  }
+}
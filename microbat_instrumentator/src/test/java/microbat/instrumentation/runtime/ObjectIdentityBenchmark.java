@@ -0,0 +1,128 @@
+package microbat.instrumentation.runtime;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the object ids given to reference values while tracing (see {@link
+ * TraceUtils#getUniqueId}): {@link System#identityHashCode(Object)}, used before, with {@link
+ * ObjectIdentityTable}. Prints the number of objects merged by identity hash collisions for a
+ * growing number of live objects, then the lookup throughput for 1 to 16 threads, mostly hits on a
+ * pool of live objects with a share of newly allocated ones, as seen on the tracing hot path.
+ *
+ * <p>Usage: {@code ObjectIdentityBenchmark [seconds per run]}
+ */
+public class ObjectIdentityBenchmark {
+  private static final int[] OBJECT_COUNTS = new int[] {100000, 1000000, 5000000};
+  private static final int[] THREAD_COUNTS = new int[] {1, 2, 4, 8, 16};
+  private static final int POOL_SIZE = 100000;
+  /* one lookup out of NEW_OBJECT_RATE is on a new object */
+  private static final int NEW_OBJECT_RATE = 16;
+  private static final int WARMUP_SECONDS = 2;
+
+  public static void main(String[] args) throws Exception {
+    int seconds = args.length > 0 ? Integer.valueOf(args[0]) : 5;
+    System.out.println(String.format("%-10s %20s", "objects", "merged objects"));
+    for (int count : OBJECT_COUNTS) {
+      System.out.println(String.format("%-10d %20d", count, countCollisions(count)));
+    }
+    System.out.println();
+    System.out.println(
+        String.format(
+            "%-8s %20s %20s %8s", "threads", "identityHashCode", "identity table", "ratio"));
+    Object[] pool = new Object[POOL_SIZE];
+    for (int i = 0; i < pool.length; i++) {
+      pool[i] = new Object();
+    }
+    for (int threads : THREAD_COUNTS) {
+      run(new HashCodeIds(), pool, threads, WARMUP_SECONDS);
+      run(new TableIds(), pool, threads, WARMUP_SECONDS);
+      double before = run(new HashCodeIds(), pool, threads, seconds);
+      double after = run(new TableIds(), pool, threads, seconds);
+      System.out.println(
+          String.format("%-8d %20.0f %20.0f %7.2fx", threads, before, after, after / before));
+    }
+  }
+
+  /** @return the number of live objects sharing their identity hash code with another one */
+  private static int countCollisions(int count) {
+    Object[] objects = new Object[count];
+    Set<Integer> hashCodes = new HashSet<>();
+    for (int i = 0; i < count; i++) {
+      objects[i] = new Object();
+      hashCodes.add(System.identityHashCode(objects[i]));
+    }
+    return objects.length - hashCodes.size();
+  }
+
+  /** @return lookups per second over all threads */
+  private static double run(final Ids ids, final Object[] pool, int threads, int seconds)
+      throws InterruptedException {
+    final AtomicLong lookups = new AtomicLong();
+    final CountDownLatch start = new CountDownLatch(1);
+    final long[] deadline = new long[1];
+    Thread[] workers = new Thread[threads];
+    for (int i = 0; i < threads; i++) {
+      final int offset = i * 7919;
+      workers[i] =
+          new Thread(
+              new Runnable() {
+
+                @Override
+                public void run() {
+                  try {
+                    start.await();
+                  } catch (InterruptedException e) {
+                    return;
+                  }
+                  long count = 0;
+                  long sum = 0;
+                  while ((count & 0x3ff) != 0 || System.nanoTime() < deadline[0]) {
+                    Object obj =
+                        count % NEW_OBJECT_RATE == 0
+                            ? new Object()
+                            : pool[(int) ((count + offset) % pool.length)];
+                    sum += ids.getId(obj);
+                    count++;
+                  }
+                  if (sum == 0) {
+                    throw new IllegalStateException();
+                  }
+                  lookups.addAndGet(count);
+                }
+              });
+      workers[i].start();
+    }
+    long startTime = System.nanoTime();
+    deadline[0] = startTime + seconds * 1000000000L;
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    double elapsed = (System.nanoTime() - startTime) / 1e9;
+    return lookups.get() / elapsed;
+  }
+
+  private static interface Ids {
+    long getId(Object obj);
+  }
+
+  private static class HashCodeIds implements Ids {
+
+    @Override
+    public long getId(Object obj) {
+      return System.identityHashCode(obj);
+    }
+  }
+
+  private static class TableIds implements Ids {
+    private ObjectIdentityTable table = new ObjectIdentityTable();
+
+    @Override
+    public long getId(Object obj) {
+      return table.getId(obj);
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package microbat.instrumentation.runtime;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class ObjectIdentityTableTest {
+
+  @Test
+  public void testUniqueIds() {
+    ObjectIdentityTable table = new ObjectIdentityTable();
+    List<Object> objects = new ArrayList<>();
+    Set<Long> ids = new HashSet<>();
+    for (int i = 0; i < 100000; i++) {
+      Object obj = new Object();
+      objects.add(obj);
+      assertTrue(ids.add(table.getId(obj)));
+    }
+    long previous = 0;
+    for (Object obj : objects) {
+      long id = table.getId(obj);
+      assertTrue(id > previous);
+      previous = id;
+    }
+    assertEquals(-1, table.getId(null));
+    assertEquals(objects.size(), table.size());
+  }
+
+  @Test
+  public void testEqualObjectsHaveDifferentIds() {
+    ObjectIdentityTable table = new ObjectIdentityTable();
+    String a = new String("value");
+    String b = new String("value");
+    assertNotEquals(table.getId(a), table.getId(b));
+    assertEquals(table.getId(a), table.getId(a));
+  }
+
+  @Test
+  public void testConcurrentIds() throws InterruptedException {
+    final ObjectIdentityTable table = new ObjectIdentityTable();
+    final Object[] objects = new Object[10000];
+    for (int i = 0; i < objects.length; i++) {
+      objects[i] = new Object();
+    }
+    final long[][] ids = new long[4][objects.length];
+    Thread[] threads = new Thread[ids.length];
+    for (int t = 0; t < threads.length; t++) {
+      final long[] threadIds = ids[t];
+      threads[t] =
+          new Thread(
+              new Runnable() {
+
+                @Override
+                public void run() {
+                  for (int i = 0; i < objects.length; i++) {
+                    threadIds[i] = table.getId(objects[i]);
+                  }
+                }
+              });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    for (int t = 1; t < ids.length; t++) {
+      assertArrayEquals(ids[0], ids[t]);
+    }
+    assertEquals(objects.length, table.size());
+  }
+
+  @Test
+  public void testCollectedObjectsAreRemoved() throws InterruptedException {
+    ObjectIdentityTable table = new ObjectIdentityTable();
+    for (int i = 0; i < 100000; i++) {
+      table.getId(new Object());
+    }
+    for (int i = 0; i < 50 && table.size() > 0; i++) {
+      System.gc();
+      Thread.sleep(20);
+    }
+    assertEquals(0, table.size());
+  }
+}
@@ -0,0 +1,66 @@
+package microbat.instrumentation.runtime;
+
+import static org.junit.Assert.*;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import microbat.instrumentation.runtime.ObjectSnapshotPlan.FieldPlan;
+import microbat.instrumentation.runtime.ObjectSnapshotPlan.VarKind;
+
+public class ObjectSnapshotPlanTest {
+
+  @SuppressWarnings("unused")
+  private static class Sample implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static String label = "sample";
+    private int count = 3;
+    private String name = "a";
+    private int[][] matrix = new int[2][2];
+    private List<String> items = new ArrayList<>();
+  }
+
+  @Test
+  public void testFields() throws Throwable {
+    ObjectSnapshotPlan plan = ObjectSnapshotPlan.of(Sample.class);
+    assertSame(plan, ObjectSnapshotPlan.of(Sample.class));
+    Map<String, FieldPlan> fields = new HashMap<>();
+    for (FieldPlan field : plan.getFields()) {
+      fields.put(field.getName(), field);
+    }
+    assertFalse(fields.containsKey("serialVersionUID"));
+    Sample sample = new Sample();
+
+    FieldPlan label = fields.get("label");
+    assertTrue(label.isStatic());
+    assertEquals(VarKind.STRING, label.getKind());
+    assertEquals("sample", label.get(sample));
+
+    FieldPlan count = fields.get("count");
+    assertEquals(VarKind.PRIMITIVE, count.getKind());
+    assertEquals("int", count.getTypeName());
+    assertEquals(3, count.get(sample));
+    assertEquals(".count", count.getVarIdSuffix());
+    assertEquals(Sample.class.getName(), count.getDeclaringClassName());
+
+    FieldPlan matrix = fields.get("matrix");
+    assertEquals(VarKind.ARRAY, matrix.getKind());
+    assertEquals("int[][]", matrix.getTypeName());
+    assertSame(sample.matrix, matrix.get(sample));
+
+    FieldPlan items = fields.get("items");
+    assertEquals(VarKind.REFERENCE, items.getKind());
+    assertFalse(items.isCollectionOrMapElement());
+  }
+
+  @Test
+  public void testIgnoredClass() {
+    /* JDK classes other than collections and maps are recorded without their fields */
+    assertTrue(ObjectSnapshotPlan.of(Integer.class).getFields().isEmpty());
+  }
+}
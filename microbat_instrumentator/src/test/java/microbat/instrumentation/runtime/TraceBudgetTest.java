@@ -0,0 +1,43 @@
+package microbat.instrumentation.runtime;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TraceBudgetTest {
+  private final int variableLayer = ExecutionTracer.variableLayer;
+
+  @After
+  public void restore() {
+    ExecutionTracer.variableLayer = variableLayer;
+  }
+
+  @Test
+  public void testStepBudget() {
+    TraceBudget budget = new TraceBudget(2048, 0);
+    assertTrue(budget.check(1024));
+    assertFalse(budget.isDegraded());
+    assertEquals(variableLayer, ExecutionTracer.variableLayer);
+
+    assertTrue(budget.check(2048));
+    assertTrue(budget.isDegraded());
+    assertEquals(0, ExecutionTracer.variableLayer);
+    /* without a heap budget, a degraded recording is never aborted */
+    assertTrue(budget.check(1 << 30));
+  }
+
+  @Test
+  public void testHeapBudget() {
+    TraceBudget budget = new TraceBudget(0, 100);
+    assertTrue(budget.check(1024));
+    assertFalse(budget.isDegraded());
+    assertEquals(variableLayer, ExecutionTracer.variableLayer);
+  }
+
+  @Test
+  public void testNone() {
+    assertTrue(TraceBudget.NONE.check(Integer.MAX_VALUE));
+    assertFalse(TraceBudget.NONE.isDegraded());
+  }
+}
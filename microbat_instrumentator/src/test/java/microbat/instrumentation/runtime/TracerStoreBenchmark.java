@@ -0,0 +1,191 @@
+package microbat.instrumentation.runtime;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Multi-threaded throughput of the tracer resolution done for every instrumented method entry (see
+ * {@link ExecutionTracer#_getTracer}), comparing the lock-free {@link TracerStore} with the former
+ * implementation (static synchronized lookup on a synchronized {@code HashMap<Long, T>}).
+ *
+ * <p>Usage: {@code TracerStoreBenchmark [seconds per run]}, prints steps/second for 1 to 32 threads.
+ */
+public class TracerStoreBenchmark {
+  private static final int[] THREAD_COUNTS = new int[] {1, 2, 4, 8, 16, 32};
+  private static final int WARMUP_SECONDS = 2;
+
+  public static void main(String[] args) throws Exception {
+    int seconds = args.length > 0 ? Integer.valueOf(args[0]) : 5;
+    System.out.println(
+        String.format("%-8s %20s %20s %8s", "threads", "synchronized", "lock-free", "speedup"));
+    for (int threads : THREAD_COUNTS) {
+      run(new SynchronizedResolver(), threads, WARMUP_SECONDS);
+      run(new LockFreeResolver(), threads, WARMUP_SECONDS);
+      double before = run(new SynchronizedResolver(), threads, seconds);
+      double after = run(new LockFreeResolver(), threads, seconds);
+      System.out.println(
+          String.format("%-8d %20.0f %20.0f %7.1fx", threads, before, after, after / before));
+    }
+  }
+
+  /** @return resolved steps per second over all threads */
+  private static double run(final Resolver resolver, int threads, int seconds)
+      throws InterruptedException {
+    final AtomicLong steps = new AtomicLong();
+    final CountDownLatch start = new CountDownLatch(1);
+    final long[] deadline = new long[1];
+    Thread[] workers = new Thread[threads];
+    for (int i = 0; i < threads; i++) {
+      workers[i] =
+          new Thread(
+              new Runnable() {
+
+                @Override
+                public void run() {
+                  try {
+                    start.await();
+                  } catch (InterruptedException e) {
+                    return;
+                  }
+                  long threadId = Thread.currentThread().getId();
+                  long count = 0;
+                  while ((count & 0x3ff) != 0 || System.nanoTime() < deadline[0]) {
+                    if (resolver.resolve(threadId) == null) {
+                      throw new IllegalStateException();
+                    }
+                    count++;
+                  }
+                  steps.addAndGet(count);
+                }
+              });
+      workers[i].start();
+    }
+    long startTime = System.nanoTime();
+    deadline[0] = startTime + seconds * 1000000000L;
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    double elapsed = (System.nanoTime() - startTime) / 1e9;
+    return steps.get() / elapsed;
+  }
+
+  private static interface Resolver {
+    ExecutionTracer resolve(long threadId);
+  }
+
+  /** mirrors the resolution in {@link ExecutionTracer#_getTracer}. */
+  private static class LockFreeResolver implements Resolver {
+    private ExecutionTracerStore store = new ExecutionTracerStore();
+    private LockedThreads lockedThreads = new LockedThreads();
+
+    @Override
+    public ExecutionTracer resolve(long threadId) {
+      if (lockedThreads.isUntracking(threadId)) {
+        return null;
+      }
+      lockedThreads.untrack(threadId);
+      ExecutionTracer tracer = store.get(threadId);
+      lockedThreads.track(threadId);
+      return tracer;
+    }
+  }
+
+  /**
+   * the implementation before the lock-free store: static synchronized lookup, a synchronized
+   * {@code HashMap} store and the former {@link LockedThreads} scan (copied in {@link
+   * BaselineLockedThreads} as the real class has changed since).
+   */
+  private static class SynchronizedResolver implements Resolver {
+    private Map<Long, ExecutionTracer> store = new HashMap<>();
+    private BaselineLockedThreads lockedThreads = new BaselineLockedThreads();
+
+    @Override
+    public ExecutionTracer resolve(long threadId) {
+      synchronized (SynchronizedResolver.class) {
+        if (lockedThreads.isUntracking(threadId)) {
+          return null;
+        }
+        lockedThreads.untrack(threadId);
+        ExecutionTracer tracer = get(threadId);
+        lockedThreads.track(threadId);
+        return tracer;
+      }
+    }
+
+    private synchronized ExecutionTracer get(long threadId) {
+      if (store.containsKey(threadId)) {
+        return store.get(threadId);
+      }
+      ExecutionTracer tracer = new ExecutionTracer(threadId);
+      store.put(threadId, tracer);
+      return tracer;
+    }
+  }
+
+  /** copy of {@link LockedThreads} before the lock-free store. */
+  private static class BaselineLockedThreads {
+    private volatile long[][] lockedThreadIds = new long[10][2];
+
+    public BaselineLockedThreads() {
+      for (int i = 0; i < lockedThreadIds.length; i++) {
+        lockedThreadIds[i][0] = -1l;
+        lockedThreadIds[i][1] = LockedThreads.TRACKING;
+      }
+    }
+
+    public boolean isUntracking(long threadId) {
+      for (int i = 0; i < lockedThreadIds.length; i++) {
+        if (lockedThreadIds[i][0] == threadId) {
+          return lockedThreadIds[i][1] == LockedThreads.UNTRACKING;
+        }
+      }
+      return false;
+    }
+
+    public void track(long threadId) {
+      setState(threadId, LockedThreads.TRACKING);
+    }
+
+    public void untrack(long threadId) {
+      setState(threadId, LockedThreads.UNTRACKING);
+    }
+
+    private void setState(long threadId, long state) {
+      int i = 0;
+      int firstSlotIndex = -1;
+      for (; i < lockedThreadIds.length; i++) {
+        if (lockedThreadIds[i][0] == threadId) {
+          lockedThreadIds[i][1] = state;
+          return;
+        }
+        if (firstSlotIndex == -1 && lockedThreadIds[i][0] == -1) {
+          firstSlotIndex = i;
+        }
+      }
+      if (firstSlotIndex == -1) {
+        increaseSize();
+      } else {
+        i = firstSlotIndex;
+      }
+      lockedThreadIds[i][0] = threadId;
+      lockedThreadIds[i][1] = state;
+    }
+
+    private void increaseSize() {
+      int newCapacity = lockedThreadIds.length + 2;
+      long[][] temp = new long[newCapacity][2];
+      int i = 0;
+      for (; i < lockedThreadIds.length; i++) {
+        temp[i] = lockedThreadIds[i];
+      }
+      for (; i < newCapacity; i++) {
+        temp[i][0] = -1l;
+        temp[i][1] = LockedThreads.TRACKING;
+      }
+      lockedThreadIds = temp;
+    }
+  }
+}
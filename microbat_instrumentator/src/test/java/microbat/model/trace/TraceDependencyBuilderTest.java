@@ -0,0 +1,132 @@
+package microbat.model.trace;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.LineNumber;
+import org.apache.bcel.classfile.Method;
+import org.junit.Test;
+
+import microbat.model.BreakPoint;
+import sav.strategies.dto.AppJavaClassPath;
+
+public class TraceDependencyBuilderTest {
+
+  @Test
+  public void testBuildConcurrently() throws Exception {
+    List<Integer> lines = getLines("run");
+    assertEquals(4, lines.size());
+    AppJavaClassPath appPath = new AppJavaClassPath();
+    appPath.setJavaHome(System.getProperty("java.home"));
+    appPath.addClasspath(
+        new File(Fixture.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+            .getPath());
+
+    List<Trace> traces = new ArrayList<>();
+    List<Trace> expectedTraces = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      traces.add(newTrace(appPath, lines));
+      expectedTraces.add(newTrace(appPath, lines));
+    }
+    new TraceDependencyBuilder(4).build(traces);
+    for (Trace trace : expectedTraces) {
+      trace.constructVirtualDataRelation();
+      trace.constructControlDomianceRelation();
+    }
+
+    for (int i = 0; i < traces.size(); i++) {
+      List<TraceNode> steps = traces.get(i).getExecutionList();
+      List<TraceNode> expectedSteps = expectedTraces.get(i).getExecutionList();
+      for (int j = 0; j < steps.size(); j++) {
+        TraceNode step = steps.get(j);
+        TraceNode expectedStep = expectedSteps.get(j);
+        assertEquals(
+            getOrder(expectedStep.getControlDominator()), getOrder(step.getControlDominator()));
+        assertEquals(getOrder(expectedStep.getStepInNext()), getOrder(step.getStepInNext()));
+      }
+      /* the assignment in the if statement */
+      assertEquals(2, getOrder(steps.get(2).getControlDominator()));
+      assertTrue(steps.get(1).isBranch());
+    }
+  }
+
+  @Test
+  public void testBuildWithSharedBreakPoints() throws Exception {
+    AppJavaClassPath appPath = new AppJavaClassPath();
+    appPath.setJavaHome(System.getProperty("java.home"));
+    appPath.addClasspath(
+        new File(Fixture.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+            .getPath());
+    /* the steps of a location share its break point, as given by LocationRegistry */
+    List<BreakPoint> breakPoints = new ArrayList<>();
+    String className = Fixture.class.getName();
+    for (int line : getLines("run")) {
+      breakPoints.add(new BreakPoint(className, className, className + "#run(I)I", line));
+    }
+    List<Trace> traces = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      Trace trace = new Trace(appPath);
+      for (BreakPoint breakPoint : breakPoints) {
+        trace.addTraceNode(new TraceNode(breakPoint, null, trace.size() + 1, trace, null));
+      }
+      traces.add(trace);
+    }
+    new TraceDependencyBuilder(4).build(traces);
+
+    for (Trace trace : traces) {
+      List<TraceNode> steps = trace.getExecutionList();
+      for (int j = 0; j < steps.size(); j++) {
+        assertSame(breakPoints.get(j).getControlScope(), steps.get(j).getControlScope());
+      }
+      assertEquals(2, getOrder(steps.get(2).getControlDominator()));
+      assertTrue(steps.get(1).isBranch());
+    }
+  }
+
+  private static int getOrder(TraceNode node) {
+    return node == null ? -1 : node.getOrder();
+  }
+
+  private static Trace newTrace(AppJavaClassPath appPath, List<Integer> lines) {
+    Trace trace = new Trace(appPath);
+    String className = Fixture.class.getName();
+    for (int line : lines) {
+      BreakPoint breakPoint = new BreakPoint(className, className, className + "#run(I)I", line);
+      trace.addTraceNode(new TraceNode(breakPoint, null, trace.size() + 1, trace, null));
+    }
+    return trace;
+  }
+
+  private static List<Integer> getLines(String methodName) throws Exception {
+    String classFile = Fixture.class.getName().replace('.', '/') + ".class";
+    try (InputStream in = Fixture.class.getClassLoader().getResourceAsStream(classFile)) {
+      JavaClass jc = new ClassParser(in, classFile).parse();
+      TreeSet<Integer> lines = new TreeSet<>();
+      for (Method method : jc.getMethods()) {
+        if (method.getName().equals(methodName)) {
+          for (LineNumber line : method.getLineNumberTable().getLineNumberTable()) {
+            lines.add(line.getLineNumber());
+          }
+        }
+      }
+      return new ArrayList<>(lines);
+    }
+  }
+
+  static class Fixture {
+    static int run(int x) {
+      int y = 0;
+      if (x > 0) {
+        y = x;
+      }
+      return y;
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package microbat.evaluation.junit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+import microbat.evaluation.factory.MicroBatTestRunnerFactory;
+import microbat.evaluation.runners.TestRunner;
+
+/**
+ * Runs the tests sent by the launcher one after another in the same jvm, so that the jvm, the agent
+ * and the classes it has instrumented are reused by every test. The daemon connects to the
+ * launcher, then for each request (the test class and method, as UTF strings) runs the test and
+ * answers with its result message ({@link TestRunner#getResultMsg()}). The agent stores the trace
+ * of the test with this message before the answer is sent. An empty test class ends the daemon.
+ */
+public class MicroBatTestDaemon {
+  public static final String OPT_DAEMON = "-daemon";
+
+  private final int port;
+
+  public MicroBatTestDaemon(int port) {
+    this.port = port;
+  }
+
+  public void serve() throws IOException {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      MicroBatTestRunnerFactory testRunnerFactory = new MicroBatTestRunnerFactory();
+      while (true) {
+        String className;
+        try {
+          className = in.readUTF();
+        } catch (EOFException e) {
+          break;
+        }
+        if (className.isEmpty()) {
+          break;
+        }
+        String methodName = in.readUTF();
+        TestRunner testRunner = testRunnerFactory.create(className, methodName);
+        testRunner.runTestInDaemon(className, methodName);
+        out.writeUTF(testRunner.getResultMsg());
+        out.flush();
+      }
+    }
+  }
+}
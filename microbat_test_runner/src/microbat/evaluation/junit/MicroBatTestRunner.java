@@ -7,7 +7,13 @@ import microbat.evaluation.runners.TestRunner;
 
 public class MicroBatTestRunner {
 
-  public static void main(String[] args) {
+  /** args: className methodName, or -daemon port (see {@link MicroBatTestDaemon}). */
+  public static void main(String[] args) throws Exception {
+    if (MicroBatTestDaemon.OPT_DAEMON.equals(args[0])) {
+      new MicroBatTestDaemon(Integer.parseInt(args[1])).serve();
+      /* threads left by the tests must not keep the jvm alive */
+      System.exit(0);
+    }
     String className = args[0];
     String methodName = args[1];
     MicroBatTestRunnerFactory testRunnerFactory = new MicroBatTestRunnerFactory();
@@ -21,7 +21,7 @@ import org.junit.platform.engine.discovery.DiscoverySelectors;
  * @author bchenghi
  */
 public class MicroBatJUnit5TestRunner extends TestRunner {
-  public void runTest(final String className, final String methodName) {
+  public void run(final String className, final String methodName) {
     LauncherDiscoveryRequest request =
         LauncherDiscoveryRequestBuilder.request()
             .selectors(DiscoverySelectors.selectMethod(className, methodName))
@@ -56,11 +56,6 @@ public class MicroBatJUnit5TestRunner extends TestRunner {
       Throwable exception = failure.getException();
       this.failureMessage = exception.getMessage();
     }
-
-    System.currentTimeMillis();
-    System.out.println("is successful? " + successful);
-    System.out.println(this.failureMessage);
-    $exitProgram(successful + ";" + this.failureMessage);
   }
 
   private boolean checkMethodNameMatch(String junitDisplayName, String methodName) {
@@ -14,7 +14,7 @@ import org.testng.xml.XmlSuite;
 import org.testng.xml.XmlTest;
 
 public class MicroBatTestNGTestRunner extends TestRunner {
-  public void runTest(final String className, final String methodName) {
+  public void run(final String className, final String methodName) {
     Object tla =
         new TestListenerAdapter() {
           @Override
@@ -55,9 +55,5 @@ public class MicroBatTestNGTestRunner extends TestRunner {
     testNG.addListener(tla);
     testNG.run();
     setSuccessful(!testNG.hasFailure());
-    System.currentTimeMillis();
-    System.out.println("is successful? " + successful);
-    System.out.println(this.failureMessage);
-    $exitProgram(successful + ";" + this.failureMessage);
   }
 }
@@ -15,6 +15,18 @@ public class TestRunner {
   protected String failureMessage = "no fail";
 
   public void runTest(final String className, final String methodName) {
+    run(className, methodName);
+    System.currentTimeMillis();
+    System.out.println("is successful? " + successful);
+    System.out.println(this.failureMessage);
+    $exitProgram(getResultMsg());
+  }
+
+  /**
+   * runs the test without ending the program, so that a daemon can run the next one, see {@link
+   * microbat.evaluation.junit.MicroBatTestDaemon}.
+   */
+  public void run(final String className, final String methodName) {
     Request request;
     try {
       request = Request.method(Class.forName(className), methodName);
@@ -43,11 +55,20 @@ public class TestRunner {
     } catch (ClassNotFoundException e) {
       e.printStackTrace();
     }
+  }
 
-    System.currentTimeMillis();
-    System.out.println("is successful? " + successful);
-    System.out.println(this.failureMessage);
-    $exitProgram(successful + ";" + this.failureMessage);
+  /**
+   * runs the test and hands its result to the agent, which then stores the trace of the test, see
+   * {@link microbat.evaluation.junit.MicroBatTestDaemon}.
+   */
+  public void runTestInDaemon(final String className, final String methodName) {
+    run(className, methodName);
+    $exitTest(getResultMsg(), className, methodName, Thread.currentThread().getId());
+  }
+
+  /** @return the result in the format of the message of {@link #$exitProgram(String)}. */
+  public String getResultMsg() {
+    return successful + ";" + failureMessage;
   }
 
   protected void $testFinished(String className, String methodName) {
@@ -62,6 +83,10 @@ public class TestRunner {
     // for agent part.
   }
 
+  protected void $exitTest(String resultMsg, String className, String methodName, Long threadId) {
+    // for agent part.
+  }
+
   public boolean isSuccessful() {
     return successful;
   }
@@ -1,9 +1,12 @@
 package microbat.mutation.trace;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 
 import microbat.model.trace.Trace;
 import microbat.mutation.trace.dto.BackupClassFiles;
+import sav.common.core.utils.StringUtils;
 import sav.strategies.dto.AppJavaClassPath;
 import sav.strategies.dto.SystemPreferences;
 
@@ -36,6 +39,29 @@ public class AppJavaClassPathWrapper extends AppJavaClassPath {
         });
   }
 
+  /**
+   * the class path of a mutant compiled into a folder of its own, which comes before the project
+   * output folder, so that the original class files are never overwritten and several mutants can
+   * run at the same time.
+   */
+  public static AppJavaClassPath wrapOverlayClassPath(
+      AppJavaClassPath appJavaClassPath, final String overlayFolder) {
+    return new AppJavaClassPathWrapper(appJavaClassPath) {
+      @Override
+      public List<String> getClasspaths() {
+        List<String> classpaths = new ArrayList<>();
+        classpaths.add(overlayFolder);
+        classpaths.addAll(super.getClasspaths());
+        return classpaths;
+      }
+
+      @Override
+      public String getClasspathStr() {
+        return StringUtils.join(getClasspaths(), File.pathSeparator);
+      }
+    };
+  }
+
   public String getJavaHome() {
     return appJavaClassPath.getJavaHome();
   }
@@ -0,0 +1,187 @@
+package microbat.mutation.trace;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import microbat.model.trace.Trace;
+import sav.strategies.dto.AppJavaClassPath;
+
+/**
+ * Keeps the traces of the correct version of the test cases, so that the correct trace of a test
+ * case is recorded once for all of its mutants. A trace is keyed by a hash of the test case, the
+ * included and excluded libraries, and the content of the class files on its classpath. The class
+ * files are hashed by content because the original class file of a mutated class is copied back
+ * before the correct trace is recorded, which changes its modification time but not its content.
+ */
+public class CorrectTraceCache {
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private final Map<String, Trace> traces;
+  private final Map<String, FileHash> fileHashes = new ConcurrentHashMap<>();
+  private int hits;
+  private int misses;
+
+  public CorrectTraceCache() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /** @param capacity the number of traces kept in memory, the least recently used is dropped. */
+  public CorrectTraceCache(final int capacity) {
+    traces =
+        Collections.synchronizedMap(
+            new LinkedHashMap<String, Trace>(capacity, 0.75f, true) {
+              private static final long serialVersionUID = 1L;
+
+              @Override
+              protected boolean removeEldestEntry(Map.Entry<String, Trace> eldest) {
+                return size() > capacity;
+              }
+            });
+  }
+
+  public String getKey(
+      String testcaseName,
+      AppJavaClassPath appPath,
+      List<String> includeLibs,
+      List<String> excludeLibs) {
+    MessageDigest digest = newDigest();
+    update(digest, testcaseName);
+    update(digest, String.valueOf(sort(includeLibs)));
+    update(digest, String.valueOf(sort(excludeLibs)));
+    for (String classpath : appPath.getClasspaths()) {
+      updateWithFiles(digest, new File(classpath));
+    }
+    return toHex(digest.digest());
+  }
+
+  /** @return the trace of the given key, or null if it has not been recorded. */
+  public Trace get(String key) {
+    Trace trace = traces.get(key);
+    synchronized (this) {
+      if (trace == null) {
+        misses++;
+      } else {
+        hits++;
+      }
+    }
+    return trace;
+  }
+
+  public void put(String key, Trace trace) {
+    if (trace != null) {
+      traces.put(key, trace);
+    }
+  }
+
+  public void clear() {
+    traces.clear();
+  }
+
+  public synchronized int getHits() {
+    return hits;
+  }
+
+  public synchronized int getMisses() {
+    return misses;
+  }
+
+  public synchronized double getHitRate() {
+    int lookups = hits + misses;
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+
+  private static List<String> sort(List<String> values) {
+    List<String> sorted = new ArrayList<>();
+    if (values != null) {
+      sorted.addAll(values);
+    }
+    Collections.sort(sorted);
+    return sorted;
+  }
+
+  private void updateWithFiles(MessageDigest digest, File root) {
+    if (!root.exists()) {
+      update(digest, root.getPath());
+      return;
+    }
+    List<Path> files;
+    try (Stream<Path> stream = Files.walk(root.toPath())) {
+      files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+    } catch (IOException e) {
+      /* never matches a recorded key, the trace is recorded again */
+      update(digest, String.valueOf(System.nanoTime()));
+      return;
+    }
+    for (Path path : files) {
+      File file = path.toFile();
+      update(digest, file.getPath());
+      if (file.getName().endsWith(".class")) {
+        update(digest, getContentHash(file));
+      } else {
+        update(digest, file.length() + ":" + file.lastModified());
+      }
+    }
+  }
+
+  private String getContentHash(File file) {
+    FileHash fileHash = fileHashes.get(file.getPath());
+    if (fileHash != null
+        && fileHash.length == file.length()
+        && fileHash.lastModified == file.lastModified()) {
+      return fileHash.hash;
+    }
+    fileHash = new FileHash();
+    fileHash.length = file.length();
+    fileHash.lastModified = file.lastModified();
+    try {
+      MessageDigest digest = newDigest();
+      digest.update(Files.readAllBytes(file.toPath()));
+      fileHash.hash = toHex(digest.digest());
+    } catch (IOException e) {
+      return String.valueOf(System.nanoTime());
+    }
+    fileHashes.put(file.getPath(), fileHash);
+    return fileHash.hash;
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder();
+    for (byte b : bytes) {
+      hex.append(String.format("%02x", b));
+    }
+    return hex.toString();
+  }
+
+  /** the content hash of a file, valid as long as its length and modification time are. */
+  private static class FileHash {
+    private long length;
+    private long lastModified;
+    private String hash;
+  }
+}
@@ -7,6 +7,11 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.jdi.TimeoutException;
 import org.eclipse.jdt.core.ICompilationUnit;
@@ -19,6 +24,7 @@ import org.eclipse.jdt.core.dom.MethodDeclaration;
 import microbat.codeanalysis.bytecode.ByteCodeParser;
 import microbat.codeanalysis.runtime.InstrumentationExecutor;
 import microbat.codeanalysis.runtime.PreCheckInformation;
+import microbat.instrumentation.filter.WildcardMatcher;
 import microbat.instrumentation.output.RunningInfo;
 import microbat.model.trace.Trace;
 import microbat.model.trace.TraceNode;
@@ -48,7 +54,7 @@ import sav.common.core.utils.FileUtils;
 import sav.strategies.dto.AppJavaClassPath;
 import sav.strategies.dto.ClassLocation;
 import sav.strategies.mutanbug.MutationResult;
-import sav.strategies.vm.JavaCompiler;
+import sav.strategies.vm.InProcessJavaCompiler;
 import sav.strategies.vm.VMConfiguration;
 import tregression.SimulationFailException;
 import tregression.empiricalstudy.DeadEndCSVWriter;
@@ -65,11 +71,26 @@ import tregression.separatesnapshots.DiffMatcher;
 import tregression.tracematch.ControlPathBasedTraceMatcher;
 
 public class MutationGenerator {
+  private InProcessJavaCompiler javaCompiler;
+  private AppJavaClassPath javaCompilerClasspath;
+  private final CorrectTraceCache correctTraceCache = new CorrectTraceCache();
 
   public MutationGenerator() {
     super();
   }
 
+  /** the compiler, with its classpath index, is shared by the mutants of the same testcase. */
+  private synchronized InProcessJavaCompiler getJavaCompiler(AppJavaClassPath testcaseConfig) {
+    if (javaCompiler == null || javaCompilerClasspath != testcaseConfig) {
+      if (javaCompiler != null) {
+        javaCompiler.close();
+      }
+      javaCompiler = new InProcessJavaCompiler(new VMConfiguration(testcaseConfig));
+      javaCompilerClasspath = testcaseConfig;
+    }
+    return javaCompiler;
+  }
+
   public void generateMutations(
       IPackageFragment pack, AnalysisParams analysisParams, IMutationExperimentMonitor monitor)
       throws JavaModelException {
@@ -166,6 +187,10 @@ public class MutationGenerator {
 
     Trace correctTrace = info.getTraceList().get(0);
     Regression.fillMissingInfo(correctTrace, testcaseConfig);
+    correctTraceCache.put(
+        correctTraceCache.getKey(
+            params.getTestcaseName(), testcaseConfig, includedClassNames, excludedClassNames),
+        correctTrace);
     return new TraceExecutionInfo(
         precheckInfo, correctTrace, executor.getTraceExecFilePath(), precheckPath);
   }
@@ -189,6 +214,12 @@ public class MutationGenerator {
     }
     System.out.println("Start executing mutants for  " + testCaseName);
     System.out.println("===========the mutation is start=================");
+    if (params.getAnalysisParams().getMutantWorkers() > 1) {
+      runMutantsInParallel(correctTrace, mutations, params, monitor);
+      monitor.reportCorrectTraceCache(correctTraceCache);
+      System.out.println("===========all mutation is done==================");
+      return false;
+    }
     for (SingleMutation mutation : mutations) {
       if (monitor.isCanceled()) {
         return false;
@@ -200,22 +231,7 @@ public class MutationGenerator {
       try {
         MutationTrace muTrace =
             generateMutationTrace(correctTrace.getTrace().getAppJavaClassPath(), params, mutation);
-        ICompilationUnit iunit =
-            JavaUtil.findNonCacheICompilationUnitInProject(
-                mutation.getMutatedClass(), params.getProjectName());
-        String orgFilePath = IResourceUtils.getAbsolutePathOsStr(iunit.getPath());
-        String mutationFilePath = mutation.getFile().getAbsolutePath();
-        if (muTrace != null && muTrace.isValid()) {
-          checkRootCause(
-              mutation,
-              orgFilePath,
-              mutationFilePath,
-              muTrace.getTraceExecInfo(),
-              correctTrace,
-              params,
-              monitor);
-        }
-        monitor.reportMutationCase(params, correctTrace, muTrace, mutation);
+        reportMutation(mutation, muTrace, correctTrace, params, monitor);
       } catch (Exception e) {
         e.printStackTrace();
       } finally {
@@ -223,10 +239,122 @@ public class MutationGenerator {
       }
     }
 
+    monitor.reportCorrectTraceCache(correctTraceCache);
     System.out.println("===========all mutation is done==================");
     return false;
   }
 
+  /**
+   * compiles the mutants into their own overlay class folders, and executes them on a pool of
+   * {@link AnalysisParams#getMutantWorkers()} threads, then checks and reports them one by one in
+   * their order, the same way as when they are run one at a time.
+   */
+  private void runMutantsInParallel(
+      TraceExecutionInfo correctTrace,
+      List<SingleMutation> mutations,
+      final AnalysisTestcaseParams params,
+      final IMutationExperimentMonitor monitor) {
+    IMutationCaseChecker checker = monitor.getMutationCaseChecker();
+    final AppJavaClassPath testcaseConfig = correctTrace.getTrace().getAppJavaClassPath();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(params.getAnalysisParams().getMutantWorkers());
+    List<OverlayMutant> mutants = new ArrayList<>();
+    try {
+      for (SingleMutation mutation : mutations) {
+        if (!checker.accept(
+            mutation.getMutationBugId(), MutationType.valueOf(mutation.getMutationType()))) {
+          continue;
+        }
+        try {
+          /* workspace lookups and the backup of the original class are not thread safe */
+          mutants.add(prepareOverlayMutant(params, mutation));
+        } catch (Exception e) {
+          e.printStackTrace();
+        }
+      }
+      compileOverlayMutants(testcaseConfig, mutants);
+      for (final OverlayMutant mutant : mutants) {
+        if (mutant.compiled) {
+          mutant.result =
+              executor.submit(
+                  new Callable<MutationTrace>() {
+                    @Override
+                    public MutationTrace call() throws Exception {
+                      if (monitor.isCanceled()) {
+                        return null;
+                      }
+                      return generateOverlayMutationTrace(testcaseConfig, params, mutant);
+                    }
+                  });
+        }
+      }
+      /*
+       * checking the root cause copies the mutated class into the project output folder, which
+       * would be seen by the mutants still running, so it waits for all of them.
+       */
+      for (OverlayMutant mutant : mutants) {
+        if (mutant.result == null) {
+          continue;
+        }
+        try {
+          mutant.trace = mutant.result.get();
+        } catch (ExecutionException e) {
+          e.getCause().printStackTrace();
+          mutant.failed = true;
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    for (OverlayMutant mutant : mutants) {
+      if (monitor.isCanceled()) {
+        return;
+      }
+      if (mutant.failed) {
+        continue;
+      }
+      try {
+        if (mutant.trace != null) {
+          params.setBkClassFiles(mutant.bkClassFiles);
+        }
+        reportMutation(mutant.mutation, mutant.trace, correctTrace, params, monitor);
+      } catch (Exception e) {
+        e.printStackTrace();
+      } finally {
+        params.recoverOrgMutatedClassFile();
+        params.setBkClassFiles(null);
+      }
+    }
+  }
+
+  private void reportMutation(
+      SingleMutation mutation,
+      MutationTrace muTrace,
+      TraceExecutionInfo correctTrace,
+      AnalysisTestcaseParams params,
+      IMutationExperimentMonitor monitor)
+      throws Exception {
+    ICompilationUnit iunit =
+        JavaUtil.findNonCacheICompilationUnitInProject(
+            mutation.getMutatedClass(), params.getProjectName());
+    String orgFilePath = IResourceUtils.getAbsolutePathOsStr(iunit.getPath());
+    String mutationFilePath = mutation.getFile().getAbsolutePath();
+    if (muTrace != null && muTrace.isValid()) {
+      checkRootCause(
+          mutation,
+          orgFilePath,
+          mutationFilePath,
+          muTrace.getTraceExecInfo(),
+          correctTrace,
+          params,
+          monitor);
+    }
+    monitor.reportMutationCase(params, correctTrace, muTrace, mutation);
+  }
+
   private void checkRootCause(
       SingleMutation mutation,
       String orgFilePath,
@@ -237,95 +365,145 @@ public class MutationGenerator {
       IMutationExperimentMonitor monitor)
       throws SimulationFailException {
     AppJavaClassPath testCaseConfig = correctTraceInfo.getTrace().getAppJavaClassPath();
+    /*
+     * the correct traces are cached and shared by all the mutants of the test case, so they are
+     * handed back with their own class path instead of the wrapper of this mutant.
+     */
+    Trace orgCorrectTrace = correctTraceInfo.getTrace();
+    Trace correctTrace = orgCorrectTrace;
     AppJavaClassPathWrapper.wrapAppClassPath(
-        mutationTraceInfo.getTrace(), correctTraceInfo.getTrace(), params.getBkClassFiles());
+        mutationTraceInfo.getTrace(), correctTrace, params.getBkClassFiles());
+    try {
+      List<String> includedClassNames = AnalysisScopePreference.getIncludedLibList();
+      List<String> excludedClassNames = AnalysisScopePreference.getExcludedLibList();
+      Trace killingMutatantTrace = mutationTraceInfo.getTrace();
+      PreCheckInformation buggyPrecheck = mutationTraceInfo.getPrecheckInfo();
+      PreCheckInformation correctPrecheck = correctTraceInfo.getPrecheckInfo();
+
+      DiffMatcher diffMatcher =
+          new MuDiffMatcher(mutation.getSourceFolder(), orgFilePath, mutationFilePath);
+      diffMatcher.matchCode();
+      ControlPathBasedTraceMatcher traceMatcher = new ControlPathBasedTraceMatcher();
+      PairList pairList =
+          traceMatcher.matchTraceNodePair(killingMutatantTrace, correctTrace, diffMatcher);
+
+      boolean foundRootCause = false;
+      int trialLimit = 10;
+      int trialNum = 0;
+      while (trialNum < trialLimit) {
+        trialNum++;
+
+        Simulator simulator =
+            new Simulator(
+                params.getAnalysisParams().isUseSliceBreaker(),
+                false,
+                params.getAnalysisParams().getBreakerLimit());
+        simulator.prepare(killingMutatantTrace, correctTrace, pairList, diffMatcher);
+        RootCauseFinder rootcauseFinder = new RootCauseFinder();
+        rootcauseFinder.checkRootCause(
+            simulator.getObservedFault(),
+            killingMutatantTrace,
+            correctTrace,
+            pairList,
+            diffMatcher);
+        TraceNode rootCause =
+            rootcauseFinder.retrieveRootCause(
+                pairList, diffMatcher, killingMutatantTrace, correctTrace);
+        foundRootCause = (rootCause != null);
+        List<String> addedClassNames = new ArrayList<>();
+        if (rootCause == null) {
+          System.out.println(
+              "[Search Lib Class] Cannot find the root cause, "
+                  + "I am searching for library classes...");
+
+          List<TraceNode> buggySteps = rootcauseFinder.getStopStepsOnBuggyTrace();
+          List<TraceNode> correctSteps = rootcauseFinder.getStopStepsOnCorrectTrace();
+
+          List<String> newIncludedClassNames = new ArrayList<>();
+          List<String> newIncludedBuggyClassNames =
+              RegressionUtil.identifyIncludedClassNames(
+                  buggySteps, buggyPrecheck, rootcauseFinder.getRegressionNodeList());
+          List<String> newIncludedCorrectClassNames =
+              RegressionUtil.identifyIncludedClassNames(
+                  correctSteps, correctPrecheck, rootcauseFinder.getCorrectNodeList());
+          newIncludedClassNames.addAll(newIncludedBuggyClassNames);
+          newIncludedClassNames.addAll(newIncludedCorrectClassNames);
+          for (String name : newIncludedClassNames) {
+            if (!includedClassNames.contains(name)) {
+              includedClassNames.add(name);
+              addedClassNames.add(name);
+            }
+          }
+        }
 
-    List<String> includedClassNames = AnalysisScopePreference.getIncludedLibList();
-    List<String> excludedClassNames = AnalysisScopePreference.getExcludedLibList();
-    Trace killingMutatantTrace = mutationTraceInfo.getTrace();
-    PreCheckInformation buggyPrecheck = mutationTraceInfo.getPrecheckInfo();
-    Trace correctTrace = correctTraceInfo.getTrace();
-    PreCheckInformation correctPrecheck = correctTraceInfo.getPrecheckInfo();
-
-    DiffMatcher diffMatcher =
-        new MuDiffMatcher(mutation.getSourceFolder(), orgFilePath, mutationFilePath);
-    diffMatcher.matchCode();
-    ControlPathBasedTraceMatcher traceMatcher = new ControlPathBasedTraceMatcher();
-    PairList pairList =
-        traceMatcher.matchTraceNodePair(killingMutatantTrace, correctTrace, diffMatcher);
-
-    boolean foundRootCause = false;
-    int trialLimit = 10;
-    int trialNum = 0;
-    while (trialNum < trialLimit) {
-      trialNum++;
-
-      Simulator simulator =
-          new Simulator(
-              params.getAnalysisParams().isUseSliceBreaker(),
-              false,
-              params.getAnalysisParams().getBreakerLimit());
-      simulator.prepare(killingMutatantTrace, correctTrace, pairList, diffMatcher);
-      RootCauseFinder rootcauseFinder = new RootCauseFinder();
-      rootcauseFinder.checkRootCause(
-          simulator.getObservedFault(), killingMutatantTrace, correctTrace, pairList, diffMatcher);
-      TraceNode rootCause =
-          rootcauseFinder.retrieveRootCause(
-              pairList, diffMatcher, killingMutatantTrace, correctTrace);
-      foundRootCause = (rootCause != null);
-      boolean includedClassChanged = false;
-      if (rootCause == null) {
-        System.out.println(
-            "[Search Lib Class] Cannot find the root cause, I am searching for library classes...");
-
-        List<TraceNode> buggySteps = rootcauseFinder.getStopStepsOnBuggyTrace();
-        List<TraceNode> correctSteps = rootcauseFinder.getStopStepsOnCorrectTrace();
-
-        List<String> newIncludedClassNames = new ArrayList<>();
-        List<String> newIncludedBuggyClassNames =
-            RegressionUtil.identifyIncludedClassNames(
-                buggySteps, buggyPrecheck, rootcauseFinder.getRegressionNodeList());
-        List<String> newIncludedCorrectClassNames =
-            RegressionUtil.identifyIncludedClassNames(
-                correctSteps, correctPrecheck, rootcauseFinder.getCorrectNodeList());
-        newIncludedClassNames.addAll(newIncludedBuggyClassNames);
-        newIncludedClassNames.addAll(newIncludedCorrectClassNames);
-        for (String name : newIncludedClassNames) {
-          if (!includedClassNames.contains(name)) {
-            includedClassNames.add(name);
-            includedClassChanged = true;
+        /*
+         * a trace only changes if its program loads one of the newly included classes, otherwise it
+         * is reused instead of being recorded again.
+         */
+        boolean buggyTraceChanged = isAnyLoaded(addedClassNames, buggyPrecheck);
+        boolean correctTraceChanged = isAnyLoaded(addedClassNames, correctPrecheck);
+        /* foundRootCause || (!foundRootCause && !traceChanged)*/
+        if (!buggyTraceChanged && !correctTraceChanged) {
+          break;
+        } else {
+          /* !foundRootCause */
+          if (buggyTraceChanged) {
+            killingMutatantTrace =
+                generateMutatedTrace(
+                    params,
+                    mutation,
+                    testCaseConfig,
+                    buggyPrecheck,
+                    includedClassNames,
+                    excludedClassNames);
+            killingMutatantTrace.setAppJavaClassPath(
+                mutationTraceInfo.getTrace().getAppJavaClassPath());
           }
+          if (correctTraceChanged) {
+            AppJavaClassPath correctClassPath = correctTrace.getAppJavaClassPath();
+            correctTrace.setAppJavaClassPath(testCaseConfig);
+            correctTrace =
+                generateCorrectTrace(
+                    params,
+                    testCaseConfig,
+                    correctPrecheck,
+                    includedClassNames,
+                    excludedClassNames);
+            correctTrace.setAppJavaClassPath(correctClassPath);
+          } else {
+            params.getBkClassFiles().restoreOrgClassFile();
+          }
+          System.out.println(
+              "[Search Lib Class] retraced buggy version: "
+                  + buggyTraceChanged
+                  + ", correct version: "
+                  + correctTraceChanged);
         }
       }
 
-      /* foundRootCause || (!foundRootCause && includedClassChanged)*/
-      if (!includedClassChanged) {
-        break;
-      } else {
-        /* !foundRootCause */
-        killingMutatantTrace =
-            generateMutatedTrace(
-                params,
-                mutation,
-                testCaseConfig,
-                buggyPrecheck,
-                includedClassNames,
-                excludedClassNames);
-        correctTrace =
-            generateCorrectTrace(
-                params, testCaseConfig, correctPrecheck, includedClassNames, excludedClassNames);
-        killingMutatantTrace.setAppJavaClassPath(
-            mutationTraceInfo.getTrace().getAppJavaClassPath());
-        correctTrace.setAppJavaClassPath(correctTraceInfo.getTrace().getAppJavaClassPath());
+      mutationTraceInfo.setTrace(killingMutatantTrace);
+      correctTraceInfo.setTrace(correctTrace);
+      if (!foundRootCause) {
+        return;
       }
+      runSimulator(mutation, params, killingMutatantTrace, correctTrace, diffMatcher, pairList);
+    } finally {
+      orgCorrectTrace.setAppJavaClassPath(testCaseConfig);
+      correctTrace.setAppJavaClassPath(testCaseConfig);
     }
+  }
 
-    mutationTraceInfo.setTrace(killingMutatantTrace);
-    correctTraceInfo.setTrace(correctTrace);
-    if (!foundRootCause) {
-      return;
+  /** @return whether the program of the given precheck loads a class matching the given names. */
+  private static boolean isAnyLoaded(List<String> classNames, PreCheckInformation precheck) {
+    for (String className : classNames) {
+      WildcardMatcher matcher = new WildcardMatcher(className);
+      for (String loadedClass : precheck.getLoadedClasses()) {
+        if (matcher.matches(loadedClass)) {
+          return true;
+        }
+      }
     }
-    runSimulator(mutation, params, killingMutatantTrace, correctTrace, diffMatcher, pairList);
+    return false;
   }
 
   public void runSimulator(
@@ -390,12 +568,22 @@ public class MutationGenerator {
       List<String> excludedClassNames) {
     String outputFolder = params.getAnalysisOutputFolder();
     params.getBkClassFiles().restoreOrgClassFile();
+    /* the correct version does not change, only the included libraries do */
+    String cacheKey =
+        correctTraceCache.getKey(
+            params.getTestcaseName(), testcaseConfig, includedClassNames, excludedClassNames);
+    Trace correctTrace = correctTraceCache.get(cacheKey);
+    if (correctTrace != null) {
+      return correctTrace;
+    }
     InstrumentationExecutor executor =
         new InstrumentationExecutor(
             testcaseConfig, outputFolder, "fix", includedClassNames, excludedClassNames);
     executor.setTimeout(params.getAnalysisParams().getExecutionTimeout());
     RunningInfo info = executor.execute(correctPrecheck);
-    return info.getTraceList().get(0);
+    correctTrace = info.getTraceList().get(0);
+    correctTraceCache.put(cacheKey, correctTrace);
+    return correctTrace;
   }
 
   private List<ClassLocation> getAllExecutedLocations(Trace fixTrace) {
@@ -538,8 +726,7 @@ public class MutationGenerator {
     FileUtils.copyFile(classFilePath, bkOrgClassFilePath, true);
     String bkMutatedClassFilePath = null;
     try {
-      JavaCompiler javaCompiler = new JavaCompiler(new VMConfiguration(testcaseConfig));
-      javaCompiler.compile(targetFolder, mutation.getFile());
+      getJavaCompiler(testcaseConfig).compile(targetFolder, mutation.getFile());
 
       /* generate trace */
       MutationTrace mutateInfo =
@@ -562,6 +749,82 @@ public class MutationGenerator {
     return null;
   }
 
+  private OverlayMutant prepareOverlayMutant(
+      AnalysisTestcaseParams params, SingleMutation mutation) throws Exception {
+    ICompilationUnit iunit =
+        JavaUtil.findNonCacheICompilationUnitInProject(
+            mutation.getMutatedClass(), params.getProjectName());
+    CompilationUnit unit = JavaUtil.convertICompilationUnitToASTNode(iunit);
+    Settings.iCompilationUnitMap.put(mutation.getMutatedClass(), iunit);
+    Settings.compilationUnitMap.put(mutation.getMutatedClass(), unit);
+
+    String targetFolder =
+        IResourceUtils.getAbsolutePathOsStr(iunit.getJavaProject().getOutputLocation());
+    String classFilePath = ClassUtils.getClassFilePath(targetFolder, mutation.getMutatedClass());
+    String mutatedClassSimpleName = ClassUtils.getSimpleName(mutation.getMutatedClass());
+    String bkOrgClassFilePath =
+        ClassUtils.getClassFilePath(params.getAnalysisOutputFolder(), mutatedClassSimpleName);
+    FileUtils.copyFile(classFilePath, bkOrgClassFilePath, true);
+    String bkMutatedClassFilePath =
+        ClassUtils.getClassFilePath(mutation.getMutationOutputFolder(), mutatedClassSimpleName);
+    OverlayMutant mutant = new OverlayMutant();
+    mutant.mutation = mutation;
+    mutant.overlayFolder = FileUtils.getFilePath(mutation.getMutationOutputFolder(), "overlay");
+    mutant.bkClassFiles =
+        new BackupClassFiles(classFilePath, bkOrgClassFilePath, bkMutatedClassFilePath);
+    return mutant;
+  }
+
+  /**
+   * compiles the mutants into their overlay folders, one javac invocation for each mutant on the
+   * shared file manager. A mutant is compiled alone against the original classes, since compiled
+   * with the mutant of another class it could inline a mutated constant of that class.
+   */
+  private void compileOverlayMutants(AppJavaClassPath testcaseConfig, List<OverlayMutant> mutants) {
+    InProcessJavaCompiler javaCompiler = getJavaCompiler(testcaseConfig);
+    for (OverlayMutant mutant : mutants) {
+      FileUtils.deleteFolder(new File(mutant.overlayFolder));
+      FileUtils.createFolder(mutant.overlayFolder);
+      try {
+        javaCompiler.compile(mutant.overlayFolder, mutant.mutation.getFile());
+        mutant.compiled = true;
+      } catch (SavException e) {
+        System.out.println("Compilation error: " + e.getMessage());
+        System.out.println();
+      }
+    }
+  }
+
+  /**
+   * the same as {@link #generateMutationTrace(AppJavaClassPath, AnalysisTestcaseParams,
+   * SingleMutation)}, except that the mutant is already compiled into its overlay folder instead of
+   * the project output folder, so it can be called by several threads.
+   */
+  private MutationTrace generateOverlayMutationTrace(
+      AppJavaClassPath testcaseConfig, AnalysisTestcaseParams params, OverlayMutant mutant)
+      throws Exception {
+    SingleMutation mutation = mutant.mutation;
+    AppJavaClassPath overlayConfig =
+        AppJavaClassPathWrapper.wrapOverlayClassPath(testcaseConfig, mutant.overlayFolder);
+    MutationTrace mutateInfo =
+        executeTestcaseWithMutation(overlayConfig, params.getAnalysisParams(), mutation);
+    FileUtils.copyFile(
+        ClassUtils.getClassFilePath(mutant.overlayFolder, mutation.getMutatedClass()),
+        mutant.bkClassFiles.getMutatedClassFilePath(),
+        true);
+    return mutateInfo;
+  }
+
+  private static class OverlayMutant {
+    private SingleMutation mutation;
+    private String overlayFolder;
+    private BackupClassFiles bkClassFiles;
+    private boolean compiled;
+    private Future<MutationTrace> result;
+    private MutationTrace trace;
+    private boolean failed;
+  }
+
   private List<ClassLocation> findMutationLocation(
       String junitClassName, List<ClassLocation> executingStatements, AppJavaClassPath appPath) {
     List<ClassLocation> locations = new ArrayList<>();
@@ -21,10 +21,13 @@ public class AnalysisParams {
   private final int stepLimit = 10000;
   private final long executionTimeout = 30000l;
   private String mutationOutputSpace;
+  /* number of mutants executed at the same time, each in its own overlay class folder */
+  private int mutantWorkers = 1;
 
   public AnalysisParams(MutationRegressionSettings mutationSettings) {
     this.mutationTypes = mutationSettings.getMutationTypes();
     this.mutationOutputSpace = mutationSettings.getMutationOutputSpace();
+    this.mutantWorkers = mutationSettings.getMutantWorkers();
   }
 
   public IgnoredTestCaseFiles getIgnoredTestCaseFiles() {
@@ -118,4 +121,12 @@ public class AnalysisParams {
   public String getMutationOutputSpace() {
     return mutationOutputSpace;
   }
+
+  public int getMutantWorkers() {
+    return mutantWorkers;
+  }
+
+  public void setMutantWorkers(int mutantWorkers) {
+    this.mutantWorkers = mutantWorkers;
+  }
 }
@@ -37,6 +37,7 @@ public class MutationRegressionPreference extends PreferencePage
   public static final String BUG_ID_KEY = "bugId";
   public static final String RERUN_KEY = "rerun";
   public static final String MUTATION_TYPES = "mutationTypes";
+  public static final String MUTANT_WORKERS_KEY = "mutantWorkers";
 
   /* components */
   private Text mutationOutputSpaceTb;
@@ -46,6 +47,7 @@ public class MutationRegressionPreference extends PreferencePage
   private List<Button> mutationTypeCbs;
   private List<MutationType> mutationTypes = MutationType.getPreferenceMutationTypes();
   private Button rerunCb;
+  private Text mutantWorkersTb;
 
   @Override
   public void init(IWorkbench workbench) {}
@@ -79,6 +81,9 @@ public class MutationRegressionPreference extends PreferencePage
     SWTFactory.createLabel(mutationTypeGroup, "");
 
     rerunCb = SWTFactory.createCheckbox(compo, "Execute to get trace Again", 2);
+
+    SWTFactory.createLabel(compo, "Mutants run in parallel");
+    mutantWorkersTb = new Text(compo, SWT.NONE);
     setDefaultValue();
     registerListener();
     return compo;
@@ -121,6 +126,7 @@ public class MutationRegressionPreference extends PreferencePage
     projectCombo.setText(settings.getTargetProject());
     bugIdCombo.setText(settings.getBugId());
     rerunCb.setSelection(settings.isRerun());
+    mutantWorkersTb.setText(String.valueOf(settings.getMutantWorkers()));
     List<MutationType> selectedMutationTypes = settings.getMutationTypes();
     for (int i = 0; i < mutationTypes.size(); i++) {
       boolean selection = selectedMutationTypes.contains(mutationTypes.get(i));
@@ -141,6 +147,7 @@ public class MutationRegressionPreference extends PreferencePage
     settings.setBugId(store.getString(BUG_ID_KEY));
     settings.setMutationTypes(getSelectedMutationTypes(store.getString(MUTATION_TYPES)));
     settings.setRerun(store.getBoolean(RERUN_KEY));
+    settings.setMutantWorkers(Math.max(1, store.getInt(MUTANT_WORKERS_KEY)));
     return settings;
   }
 
@@ -180,6 +187,8 @@ public class MutationRegressionPreference extends PreferencePage
     preferences.put(RERUN_KEY, isRerun);
     String selectedMutationTypes = collectSelectedMutationTypes();
     preferences.put(MUTATION_TYPES, selectedMutationTypes);
+    String mutantWorkers = this.mutantWorkersTb.getText();
+    preferences.put(MUTANT_WORKERS_KEY, mutantWorkers);
     try {
       preferences.flush();
     } catch (BackingStoreException e) {
@@ -197,6 +206,7 @@ public class MutationRegressionPreference extends PreferencePage
     Activator.getDefault().getPreferenceStore().putValue(BUG_ID_KEY, bugId);
     Activator.getDefault().getPreferenceStore().putValue(RERUN_KEY, isRerun);
     Activator.getDefault().getPreferenceStore().putValue(MUTATION_TYPES, selectedMutationTypes);
+    Activator.getDefault().getPreferenceStore().putValue(MUTANT_WORKERS_KEY, mutantWorkers);
     return true;
   }
 }
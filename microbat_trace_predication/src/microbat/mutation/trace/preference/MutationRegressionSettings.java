@@ -11,6 +11,7 @@ public class MutationRegressionSettings {
   private String bugId;
   private List<MutationType> mutationTypes;
   private boolean rerun;
+  private int mutantWorkers = 1;
 
   public String getTargetProject() {
     return targetProject;
@@ -59,4 +60,12 @@ public class MutationRegressionSettings {
   public void setMutationOutputSpace(String mutationOutputSpace) {
     this.mutationOutputSpace = mutationOutputSpace;
   }
+
+  public int getMutantWorkers() {
+    return mutantWorkers;
+  }
+
+  public void setMutantWorkers(int mutantWorkers) {
+    this.mutantWorkers = mutantWorkers;
+  }
 }
@@ -5,6 +5,7 @@ import java.util.List;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 
+import microbat.mutation.trace.CorrectTraceCache;
 import microbat.mutation.trace.dto.AnalysisTestcaseParams;
 import microbat.mutation.trace.dto.MutationTrace;
 import microbat.mutation.trace.dto.SingleMutation;
@@ -64,4 +65,9 @@ public class BasicMutationExperimentMonitor implements IMutationExperimentMonito
     // TODO Auto-generated method stub
 
   }
+
+  @Override
+  public void reportCorrectTraceCache(CorrectTraceCache cache) {
+    // do nothing by default
+  }
 }
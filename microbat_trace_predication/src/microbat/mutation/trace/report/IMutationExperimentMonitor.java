@@ -3,6 +3,7 @@ package microbat.mutation.trace.report;
 import java.io.IOException;
 import java.util.List;
 
+import microbat.mutation.trace.CorrectTraceCache;
 import microbat.mutation.trace.dto.AnalysisTestcaseParams;
 import microbat.mutation.trace.dto.MutationTrace;
 import microbat.mutation.trace.dto.SingleMutation;
@@ -34,4 +35,6 @@ public interface IMutationExperimentMonitor {
       TraceExecutionInfo correctTrace,
       MutationTrace muTrace,
       SingleMutation mutation);
+
+  void reportCorrectTraceCache(CorrectTraceCache cache);
 }
@@ -7,6 +7,7 @@ import java.util.List;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 
+import microbat.mutation.trace.CorrectTraceCache;
 import microbat.mutation.trace.dto.AnalysisParams;
 import microbat.mutation.trace.dto.AnalysisTestcaseParams;
 import microbat.mutation.trace.dto.MutationCase;
@@ -86,6 +87,14 @@ public class MutationExperimentMonitor extends BasicMutationExperimentMonitor
         trials, params.getProjectName(), mutation.getMutationBugId(), mutation.getMutationType());
   }
 
+  @Override
+  public void reportCorrectTraceCache(CorrectTraceCache cache) {
+    System.out.println(
+        String.format(
+            "correct trace cache: %d hits, %d misses, hit rate %.2f",
+            cache.getHits(), cache.getMisses(), cache.getHitRate()));
+  }
+
   @Override
   public IMutationCaseChecker getMutationCaseChecker() {
     return mutationCaseFilter;
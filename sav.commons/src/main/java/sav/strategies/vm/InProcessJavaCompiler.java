@@ -0,0 +1,127 @@
+package sav.strategies.vm;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import sav.common.core.SavException;
+
+/**
+ * Compiles the java files with the compiler of the running jvm instead of forking a javac process
+ * for each compilation. The file manager, with its index of the classpath, is created once and
+ * shared by all compilations, so a compilation only costs the time javac spends on the files.
+ *
+ * <p>When the running jvm has no compiler (a jre), or it is not the jvm of the configured java
+ * home, the compilations fall back to {@link JavaCompiler}.
+ */
+public class InProcessJavaCompiler extends JavaCompiler {
+  private static final List<String> OPTIONS = Arrays.asList("-g", "-nowarn");
+  private Logger log = LoggerFactory.getLogger(InProcessJavaCompiler.class);
+  private javax.tools.JavaCompiler compiler;
+  private StandardJavaFileManager fileManager;
+
+  public InProcessJavaCompiler(VMConfiguration vmConfig) {
+    super(vmConfig);
+    if (isRunningJavaHome(vmConfig.getJavaHome())) {
+      compiler = ToolProvider.getSystemJavaCompiler();
+    }
+    if (compiler == null) {
+      log.warn("no compiler in the running jvm, javac is forked for each compilation");
+    }
+  }
+
+  private static boolean isRunningJavaHome(String javaHome) {
+    if (javaHome == null) {
+      return true;
+    }
+    try {
+      File home = new File(javaHome).getCanonicalFile();
+      File runningHome = new File(System.getProperty("java.home")).getCanonicalFile();
+      /* the java.home of a jdk 8 is its jre folder */
+      return home.equals(runningHome) || home.equals(runningHome.getParentFile());
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  public boolean isInProcess() {
+    return compiler != null;
+  }
+
+  @Override
+  public boolean compile(String targetFolder, Collection<File> javaFiles) throws SavException {
+    if (!isInProcess()) {
+      return super.compile(targetFolder, javaFiles);
+    }
+    String errorMsg = doCompile(targetFolder, javaFiles);
+    if (errorMsg != null) {
+      throw new SavException("compilation error: " + errorMsg);
+    }
+    return true;
+  }
+
+  /** releases the file manager, the compiler must not be used afterwards. */
+  public synchronized void close() {
+    if (fileManager == null) {
+      return;
+    }
+    try {
+      fileManager.close();
+    } catch (IOException e) {
+      log.warn("cannot close the file manager: " + e.getMessage());
+    }
+    fileManager = null;
+  }
+
+  /** @return the compilation error, or null if the files are compiled. */
+  private synchronized String doCompile(String targetFolder, Collection<File> javaFiles)
+      throws SavException {
+    try {
+      if (fileManager == null) {
+        fileManager = compiler.getStandardFileManager(null, null, null);
+        List<File> classpath = new ArrayList<File>();
+        for (String path : getVmConfig().getClasspaths()) {
+          classpath.add(new File(path));
+        }
+        fileManager.setLocation(StandardLocation.CLASS_PATH, classpath);
+      }
+      new File(targetFolder).mkdirs();
+      List<String> options = new ArrayList<String>(OPTIONS);
+      options.add("-d");
+      options.add(targetFolder);
+      DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+      boolean success =
+          compiler
+              .getTask(
+                  null,
+                  fileManager,
+                  diagnostics,
+                  options,
+                  null,
+                  fileManager.getJavaFileObjectsFromFiles(javaFiles))
+              .call();
+      StringBuilder errorMsg = new StringBuilder();
+      for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+        if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+          errorMsg.append(diagnostic).append("\n");
+        }
+      }
+      return success ? null : errorMsg.toString();
+    } catch (IOException | RuntimeException e) {
+      throw new SavException(e);
+    }
+  }
+}
@@ -63,6 +63,10 @@ public class JavaCompiler {
     return success;
   }
 
+  public VMConfiguration getVmConfig() {
+    return vmConfig;
+  }
+
   public void setVmConfig(VMConfiguration vmConfig) {
     this.vmConfig = vmConfig;
   }
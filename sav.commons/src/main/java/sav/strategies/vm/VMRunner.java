@@ -286,6 +286,11 @@ public class VMRunner {
     this.timeout = timeout;
   }
 
+  /** @return the timeout in millisecond, or {@link #NO_TIME_OUT}. */
+  public long getTimeout() {
+    return timeout;
+  }
+
   public static boolean start(VMConfiguration config) throws SavException {
     VMRunner vmRunner = new VMRunner();
     return vmRunner.startVm(config);
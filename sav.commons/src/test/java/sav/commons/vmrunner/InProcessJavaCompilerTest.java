@@ -0,0 +1,68 @@
+package sav.commons.vmrunner;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import sav.common.core.SavException;
+import sav.strategies.vm.InProcessJavaCompiler;
+import sav.strategies.vm.VMConfiguration;
+
+public class InProcessJavaCompilerTest {
+  private File folder;
+  private InProcessJavaCompiler compiler;
+
+  @Before
+  public void setup() throws Exception {
+    folder = File.createTempFile("inProcessJavaCompilerTest", "");
+    folder.delete();
+    folder.mkdirs();
+    File lib = new File(folder, "lib");
+    VMConfiguration vmConfig = new VMConfiguration();
+    vmConfig.setJavaHome(System.getProperty("java.home"));
+    vmConfig.addClasspath(lib.getAbsolutePath());
+    compiler = new InProcessJavaCompiler(vmConfig);
+    Assert.assertTrue(compiler.isInProcess());
+    compiler.compile(
+        lib.getAbsolutePath(),
+        writeSource("lib/p/Base.java", "package p; public class Base { int x; }"));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    FileUtils.deleteDirectory(folder);
+  }
+
+  @Test
+  public void testCompileIntoTargetFolder() throws Exception {
+    compiler.compile(
+        getPath("out1"),
+        writeSource("mu1/p/A.java", "package p; public class A extends Base { class In {} }"));
+    compiler.compile(
+        getPath("out2"), writeSource("mu2/p/B.java", "package p; public class B extends Base {}"));
+    Assert.assertTrue(new File(getPath("out1"), "p/A.class").exists());
+    Assert.assertTrue(new File(getPath("out1"), "p/A$In.class").exists());
+    Assert.assertFalse(new File(getPath("out1"), "p/B.class").exists());
+    Assert.assertTrue(new File(getPath("out2"), "p/B.class").exists());
+    Assert.assertFalse(new File(getPath("out2"), "p/Base.class").exists());
+  }
+
+  @Test(expected = SavException.class)
+  public void testCompileError() throws Exception {
+    compiler.compile(getPath("out"), writeSource("mu/p/C.java", "package p; class C { y }"));
+  }
+
+  private File writeSource(String path, String content) throws Exception {
+    File file = new File(folder, path);
+    FileUtils.writeStringToFile(file, content);
+    return file;
+  }
+
+  private String getPath(String path) {
+    return new File(folder, path).getAbsolutePath();
+  }
+}